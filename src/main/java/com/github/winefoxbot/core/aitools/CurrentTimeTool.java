@@ -1,5 +1,6 @@
 package com.github.winefoxbot.core.aitools;
 
+import com.github.winefoxbot.core.annotation.plugin.AiToolRoute;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -30,6 +31,7 @@ public class CurrentTimeTool {
      * @return 包含当前年份、日期（YYYY-MM-DD）、星期（中文）和时间（HH:mm:ss）的字符串。
      */
     @Bean("dateTimeTool")
+    @AiToolRoute(keywords = {"时间", "几点", "日期", "几号", "星期", "周几", "今天", "明天", "昨天", "现在"})
     @Description("""
     获取当前详细时间信息，包括年份、月日、星期以及具体时间。
     仅当用户询问当前时间时调用此工具。
@@ -3,6 +3,7 @@ package com.github.winefoxbot.core.aitools;
 import cn.hutool.http.HttpStatus;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.winefoxbot.core.annotation.plugin.AiToolRoute;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -39,6 +40,7 @@ public class WeatherTool {
     ) {}
 
     @Bean("weatherGetTool")
+    @AiToolRoute(keywords = {"天气", "气温", "温度", "下雨", "下雪", "刮风", "降温", "晴", "weather"})
     @Description("""
             获取天气信息通过地点参数。
             当用户询问天气情况时，调用此工具以获取指定地点的天气信息。
@@ -9,7 +9,12 @@ import java.util.concurrent.TimeUnit;
 /**
  * Redisson 分布式锁注解
  * <p>
- * 用于在方法上声明分布式锁，确保同一时间只有一个实例可以执行该方法。
+ * 用于在方法上声明锁，保证同一个 Key 同一时间只有一个调用可以执行该方法。
+ * 加锁方式由 winefoxbot.lock.mode 决定：
+ * <ul>
+ *     <li>redis（默认）：Redisson 分布式锁，多个实例之间互斥</li>
+ *     <li>local：进程内锁，只在当前实例内互斥，多实例部署时不能使用；此时 {@link #leaseTime()} 不生效</li>
+ * </ul>
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,31 @@
+package com.github.winefoxbot.core.annotation.plugin;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在 AI 工具的 {@code @Bean} 方法上，描述该工具在什么情况下需要提供给模型。
+ * 没有此注解的工具每一轮对话都会提供。
+ *
+ * @author FlanChan
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AiToolRoute {
+    /**
+     * @return 用户消息中包含任一关键词（忽略大小写）时提供该工具
+     */
+    String[] keywords() default {};
+
+    /**
+     * @return 工具所属的插件，插件被关闭时不提供该工具；默认不属于任何插件
+     */
+    Class<?> plugin() default Void.class;
+
+    /**
+     * @return 是否每一轮都提供（仍受插件开关约束）
+     */
+    boolean always() default false;
+}
@@ -3,13 +3,14 @@ package com.github.winefoxbot.core.aop.aspect;
 import com.github.winefoxbot.core.annotation.common.Limit;
 import com.github.winefoxbot.core.exception.bot.BotException;
 import com.github.winefoxbot.core.exception.bot.BotPluginRateLimitException;
+import com.github.winefoxbot.core.manager.ExpiringStateRegistry;
+import com.google.common.cache.Cache;
 import com.mikuac.shiro.core.Bot;
 import com.mikuac.shiro.dto.event.message.AnyMessageEvent;
 import com.mikuac.shiro.dto.event.message.GroupMessageEvent;
 import com.mikuac.shiro.dto.event.message.MessageEvent;
 import com.mikuac.shiro.dto.event.message.PrivateMessageEvent;
 import lombok.Data;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
@@ -20,9 +21,9 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -31,12 +32,22 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 @Aspect
 @Component
-@RequiredArgsConstructor
 @Order(4)
 public class LimitAspect {
 
+    /**
+     * 现有限流的时间窗口和通知间隔都在分钟以内，空闲一小时的状态可以安全淘汰
+     */
+    private static final Duration LIMIT_STATE_IDLE = Duration.ofHours(1);
+    private static final long MAX_LIMIT_STATES = 100_000;
+
     // Value 从 Object[] 变为更清晰的 LimitState 对象
-    private final Map<String, LimitState> limiterCache = new ConcurrentHashMap<>();
+    private final Map<String, LimitState> limiterCache;
+
+    public LimitAspect(ExpiringStateRegistry stateRegistry) {
+        Cache<String, LimitState> cache = stateRegistry.expireAfterAccess("limit-aspect:state", MAX_LIMIT_STATES, LIMIT_STATE_IDLE);
+        this.limiterCache = cache.asMap();
+    }
 
     @Before("@within(com.github.winefoxbot.core.annotation.common.Limit) || @annotation(com.github.winefoxbot.core.annotation.common.Limit)")
     public void before(JoinPoint joinPoint) throws Throwable {
@@ -1,8 +1,9 @@
 package com.github.winefoxbot.core.aop.aspect;
 
 import com.github.winefoxbot.core.annotation.common.RedissonLock;
+import com.github.winefoxbot.core.config.app.WineFoxBotLockProperties;
 import com.github.winefoxbot.core.constants.CacheConstants;
-import lombok.RequiredArgsConstructor;
+import com.google.common.util.concurrent.Striped;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -13,30 +14,91 @@ import org.redisson.api.RedissonClient;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 
 /**
+ * {@link RedissonLock} 切面
+ * <p>
+ * 每个方法的注解、Key 表达式和参数名只解析一次并缓存，表达式以 MIXED 模式编译，
+ * 多次执行后会编译为字节码，无法编译时自动回退为解释执行。
+ * 加锁方式由 winefoxbot.lock.mode 决定：默认使用 Redisson 分布式锁；
+ * 单实例部署时可以开启进程内分段锁，不需要访问 Redis。
+ *
  * @author FlanChan
  */
 @Slf4j
 @Aspect
 @Component
-@RequiredArgsConstructor
 public class RedissonLockAspect {
 
+    /**
+     * 方法的加锁元数据
+     *
+     * @param annotation 注解
+     * @param keyExpression 已解析的 Key 表达式
+     * @param paramNames 参数名，无法获取时为 null
+     * @param keyPrefix  完整的 Key 前缀
+     */
+    private record LockMetadata(RedissonLock annotation, Expression keyExpression, String[] paramNames, String keyPrefix) {
+    }
+
     private final RedissonClient redissonClient;
-    private final ExpressionParser parser = new SpelExpressionParser();
+    private final WineFoxBotLockProperties lockProperties;
+    private final ExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, RedissonLockAspect.class.getClassLoader()));
     private final DefaultParameterNameDiscoverer nameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final ConcurrentHashMap<Method, LockMetadata> metadataCache = new ConcurrentHashMap<>();
+    private final Striped<Lock> localLocks;
+
+    public RedissonLockAspect(RedissonClient redissonClient, WineFoxBotLockProperties lockProperties) {
+        this.redissonClient = redissonClient;
+        this.lockProperties = lockProperties;
+        this.localLocks = Striped.lock(Math.max(1, lockProperties.getLocalStripes()));
+    }
 
     @Around("@annotation(com.github.winefoxbot.core.annotation.common.RedissonLock)")
     public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
-        RedissonLock redissonLock = findRedissionLockAnnotation(joinPoint);
-        String lockKey = generateKey(joinPoint, redissonLock);
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        LockMetadata metadata = metadataCache.computeIfAbsent(method, this::resolveMetadata);
+        String lockKey = generateKey(metadata, joinPoint.getArgs());
+        if (lockProperties.getMode() == WineFoxBotLockProperties.Mode.LOCAL) {
+            return proceedWithLocalLock(joinPoint, metadata.annotation(), lockKey);
+        }
+        return proceedWithRedisLock(joinPoint, metadata.annotation(), lockKey);
+    }
+
+    /**
+     * 计算方法调用对应的锁 Key，与切面加锁时使用的完全一致
+     */
+    String lockKey(Method method, Object[] args) {
+        return generateKey(metadataCache.computeIfAbsent(method, this::resolveMetadata), args);
+    }
+
+    private Object proceedWithLocalLock(ProceedingJoinPoint joinPoint, RedissonLock redissonLock, String lockKey) throws Throwable {
+        // 进程内的锁随线程结束释放，不需要 leaseTime 防止死锁
+        Lock lock = localLocks.get(lockKey);
+        if (!lock.tryLock(redissonLock.waitTime(), redissonLock.unit())) {
+            log.warn("Failed to acquire local lock for key: {}", lockKey);
+            return null;
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object proceedWithRedisLock(ProceedingJoinPoint joinPoint, RedissonLock redissonLock, String lockKey) throws Throwable {
         RLock lock = redissonClient.getLock(lockKey);
 
         boolean isLocked = false;
@@ -49,7 +111,7 @@ public class RedissonLockAspect {
                 log.warn("Failed to acquire lock for key: {}", lockKey);
                 // 根据业务需求，这里可以抛出异常或者直接返回
                 // throw new RuntimeException("系统繁忙，请稍后再试");
-                return null; 
+                return null;
             }
         } finally {
             if (isLocked && lock.isHeldByCurrentThread()) {
@@ -58,31 +120,28 @@ public class RedissonLockAspect {
         }
     }
 
-
-    private RedissonLock findRedissionLockAnnotation(ProceedingJoinPoint joinPoint) {
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        return AnnotationUtils.findAnnotation(method, RedissonLock.class);
+    private LockMetadata resolveMetadata(Method method) {
+        RedissonLock redissonLock = AnnotationUtils.findAnnotation(method, RedissonLock.class);
+        if (redissonLock == null) {
+            throw new IllegalStateException("方法上没有 @RedissonLock 注解: " + method);
+        }
+        return new LockMetadata(
+                redissonLock,
+                parser.parseExpression(redissonLock.key()),
+                nameDiscoverer.getParameterNames(method),
+                "%s:%s:".formatted(CacheConstants.CACHE_KEY_PREFIX, redissonLock.prefix()));
     }
 
-
-
-    private String generateKey(ProceedingJoinPoint joinPoint, RedissonLock redissonLock) {
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
-        String[] paramNames = nameDiscoverer.getParameterNames(method);
-        Object[] args = joinPoint.getArgs();
-
+    private String generateKey(LockMetadata metadata, Object[] args) {
         EvaluationContext context = new StandardEvaluationContext();
+        String[] paramNames = metadata.paramNames();
         if (paramNames != null) {
             for (int i = 0; i < paramNames.length; i++) {
                 context.setVariable(paramNames[i], args[i]);
             }
         }
-        
-        // 解析 SpEL
-        String keyPart = parser.parseExpression(redissonLock.key()).getValue(context, String.class);
-        
-        return "%s:%s:%s".formatted(CacheConstants.CACHE_KEY_PREFIX, redissonLock.prefix(), keyPart);
+
+        String keyPart = metadata.keyExpression().getValue(context, String.class);
+        return metadata.keyPrefix() + keyPart;
     }
 }
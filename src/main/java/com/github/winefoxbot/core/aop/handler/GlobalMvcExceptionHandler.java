@@ -1,12 +1,15 @@
 package com.github.winefoxbot.core.aop.handler;
 
 import com.github.winefoxbot.core.exception.common.BusinessException;
+import com.github.winefoxbot.core.exception.common.FileVersionConflictException;
 import com.github.winefoxbot.core.model.vo.common.Result;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
@@ -32,6 +35,16 @@ public class GlobalMvcExceptionHandler {
         return Result.error(e.getMessage());
     }
 
+    /**
+     * 处理文件版本冲突 (FileVersionConflictException)
+     * 例如：分段保存时文件已被其他人修改，返回 412 让前端重新读取
+     */
+    @ExceptionHandler(FileVersionConflictException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public Result<Void> handleFileVersionConflictException(FileVersionConflictException e) {
+        log.warn("文件版本冲突: {}", e.getMessage());
+        return Result.error(e.getMessage());
+    }
 
     /**
      * 处理自定义业务逻辑校验异常 (IllegalArgumentException)
@@ -0,0 +1,51 @@
+package com.github.winefoxbot.core.config.app;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * 消息广播配置
+ *
+ * @author FlanChan (badapple495@outlook.com)
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "winefoxbot.broadcast")
+public class WineFoxBotBroadcastProperties {
+
+    /**
+     * 每个 Bot 同时进行中的发送数上限
+     */
+    @Positive
+    private int maxConcurrencyPerBot = 8;
+
+    /**
+     * 每个 Bot 每秒最多发送的消息数
+     */
+    @Positive
+    private double sendRatePerBot = 5.0;
+
+    /**
+     * 单个目标发送失败后的最大重试次数
+     */
+    @PositiveOrZero
+    private int maxRetries = 3;
+
+    /**
+     * 首次重试的基础等待时间，之后每次翻倍并附加随机抖动
+     */
+    @NotNull
+    private Duration retryBaseDelay = Duration.ofMillis(500);
+
+    /**
+     * 重试等待时间上限
+     */
+    @NotNull
+    private Duration retryMaxDelay = Duration.ofSeconds(10);
+}
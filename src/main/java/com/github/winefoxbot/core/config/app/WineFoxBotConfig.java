@@ -1,7 +1,11 @@
 package com.github.winefoxbot.core.config.app;
 
+import com.github.winefoxbot.core.utils.MsgBroadcaster;
+import com.github.winefoxbot.core.utils.SendMsgUtil;
 import lombok.Data;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
@@ -10,7 +14,7 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 @Data
-@EnableConfigurationProperties({WineFoxBotProperties.class, WineFoxBotRobotProperties.class,WineFoxBotAppProperties.class,WineFoxBotAppUpdateProperties.class, WineFoxBotDataProperties.class})
+@EnableConfigurationProperties({WineFoxBotProperties.class, WineFoxBotRobotProperties.class,WineFoxBotAppProperties.class,WineFoxBotAppUpdateProperties.class, WineFoxBotDataProperties.class, WineFoxBotBroadcastProperties.class, WineFoxBotDatabaseProperties.class, WineFoxBotLockProperties.class})
 public class WineFoxBotConfig {
 
     public final static String COMMAND_PREFIX = "/";
@@ -20,4 +24,25 @@ public class WineFoxBotConfig {
     public final static String COMMAND_SUFFIX = "";
 
     public final static String COMMAND_SUFFIX_REGEX = COMMAND_SUFFIX;
-}
\ No newline at end of file
+
+    /**
+     * 按配置创建的广播执行器，需要广播的组件可以直接注入
+     */
+    @Bean
+    public MsgBroadcaster msgBroadcaster(WineFoxBotBroadcastProperties properties) {
+        return new MsgBroadcaster(new MsgBroadcaster.Options(
+                properties.getMaxConcurrencyPerBot(),
+                properties.getSendRatePerBot(),
+                properties.getMaxRetries(),
+                properties.getRetryBaseDelay(),
+                properties.getRetryMaxDelay()));
+    }
+
+    /**
+     * 所有单例初始化完成后，再把广播执行器交给静态的 SendMsgUtil，只执行一次，与 Bean 的初始化顺序无关
+     */
+    @Bean
+    public SmartInitializingSingleton sendMsgUtilBroadcasterInstaller(MsgBroadcaster msgBroadcaster) {
+        return () -> SendMsgUtil.installBroadcaster(msgBroadcaster);
+    }
+}
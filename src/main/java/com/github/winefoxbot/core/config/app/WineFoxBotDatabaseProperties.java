@@ -0,0 +1,46 @@
+package com.github.winefoxbot.core.config.app;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 数据库相关配置
+ *
+ * @author FlanChan (badapple495@outlook.com)
+ */
+@Data
+@ConfigurationProperties(prefix = "winefoxbot.database")
+public class WineFoxBotDatabaseProperties {
+
+    /**
+     * 消息表（shiro_messages）分区与保留策略
+     */
+    private Messages messages = new Messages();
+
+    @Data
+    public static class Messages {
+
+        /**
+         * 提前创建的未来月分区数量
+         */
+        private int partitionAheadMonths = 2;
+
+        /**
+         * 全局保留月数，整月早于该范围的分区会被移出；0 表示永久保留
+         */
+        private int retentionMonths = 0;
+
+        /**
+         * 过期分区是否直接删除；关闭时只从分区表中分离（DETACH），数据表保留以便归档
+         */
+        private boolean dropExpiredPartitions = false;
+
+        /**
+         * 单个 Bot 的保留天数（Bot QQ 号 -> 天数），比全局保留更短时按天删除该 Bot 的旧消息
+         */
+        private Map<Long, Integer> botRetentionDays = new HashMap<>();
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.winefoxbot.core.config.app;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * {@link com.github.winefoxbot.core.annotation.common.RedissonLock} 加锁方式配置
+ *
+ * @author FlanChan (badapple495@outlook.com)
+ */
+@Data
+@ConfigurationProperties(prefix = "winefoxbot.lock")
+public class WineFoxBotLockProperties {
+
+    public enum Mode {
+        /**
+         * 进程内分段锁，只能在单实例部署时开启，加锁不需要访问 Redis
+         */
+        LOCAL,
+        /**
+         * Redisson 分布式锁，部署多个实例时必须使用
+         */
+        REDIS
+    }
+
+    /**
+     * 加锁方式，默认使用分布式锁；确认只部署单个实例时可以改为 local
+     */
+    private Mode mode = Mode.REDIS;
+
+    /**
+     * 本地模式的锁分段数量，不同 key 落在同一分段时会互相等待
+     */
+    private int localStripes = 1024;
+}
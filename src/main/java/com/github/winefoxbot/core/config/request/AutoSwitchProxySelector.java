@@ -1,46 +1,124 @@
 package com.github.winefoxbot.core.config.request;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.CollectionUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.*;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 自定义自动切换代理选择器
- * 优先级：ThreadLocal强制指定 > 白名单(noProxyHosts) > 全局默认配置
+ * 优先级：ThreadLocal强制指定 > 白名单(noProxyHosts) > 代理池
+ * <p>
+ * 代理池由主代理和 {@code request.proxy.pool} 中的备用代理组成，后台定期探测每个代理的可用性和连接延迟：
+ * <ul>
+ *     <li>select() 按延迟从低到高返回健康的代理，OkHttp 会依次尝试，前一个失败时自动切换到下一个</li>
+ *     <li>connectFailed() 会把代理移出轮换，直到下一次探测成功；同时记住该主机经此代理失败过，之后对该主机优先使用其他代理</li>
+ *     <li>所有代理都不可用时仍按延迟返回全部代理，开启 directFallback 时最后追加直连</li>
+ * </ul>
  */
 @Slf4j
-public class AutoSwitchProxySelector extends ProxySelector {
+public class AutoSwitchProxySelector extends ProxySelector implements AutoCloseable {
 
-    private final Proxy globalProxy;
-    private final List<String> noProxyHosts;
+    /**
+     * 延迟的指数加权平均系数
+     */
+    private static final double LATENCY_EWMA_ALPHA = 0.3;
+
+    private final List<ProxyRoute> routes;
+    private final Set<String> noProxySuffixes;
+    private final ProxyConfig.HealthCheck healthCheck;
+    private final Map<SocketAddress, ProxyRoute> routesByAddress = new ConcurrentHashMap<>();
+    /**
+     * 主机 -> 经过时连接失败的代理地址
+     */
+    private final Cache<String, Set<SocketAddress>> hostFailures = CacheBuilder.newBuilder()
+            .maximumSize(4096)
+            .expireAfterWrite(10, TimeUnit.MINUTES)
+            .build();
+    private ScheduledExecutorService prober;
 
     // 用于在代码中临时强制指定某个请求的代理（或强制直连）
     private static final ThreadLocal<Proxy> PROXY_THREAD_LOCAL = new ThreadLocal<>();
 
+    /**
+     * 代理池中的一个代理
+     */
+    private static final class ProxyRoute {
+        private final Proxy proxy;
+        private volatile boolean healthy = true;
+        /**
+         * 连接延迟的指数加权平均（毫秒），未探测过时为 0
+         */
+        private volatile double latencyMillis;
+        private volatile long lastProbeAt;
+
+        private ProxyRoute(Proxy proxy) {
+            this.proxy = proxy;
+        }
+    }
+
+    /**
+     * 代理状态快照
+     */
+    public record RouteStatus(String proxy, boolean healthy, double latencyMillis, long lastProbeAt) {
+    }
+
     public AutoSwitchProxySelector(ProxyConfig proxyConfig) {
-        // 1. 初始化全局代理
+        // 1. 初始化代理池
         if (proxyConfig != null && proxyConfig.getEnabled()) {
-            Proxy.Type type = proxyConfig.getType() == ProxyConfig.ProxyType.HTTP
-                    ? Proxy.Type.HTTP
-                    : Proxy.Type.SOCKS;
-            this.globalProxy = new Proxy(type, new InetSocketAddress(proxyConfig.getHost(), proxyConfig.getPort()));
-            this.noProxyHosts = proxyConfig.getNoProxyHosts();
-            log.info("代理选择器已初始化: {}://{}:{}", type, proxyConfig.getHost(), proxyConfig.getPort());
+            List<ProxyRoute> pool = new ArrayList<>();
+            pool.add(new ProxyRoute(toProxy(proxyConfig.getType(), proxyConfig.getHost(), proxyConfig.getPort())));
+            if (proxyConfig.getPool() != null) {
+                for (ProxyConfig.Endpoint endpoint : proxyConfig.getPool()) {
+                    pool.add(new ProxyRoute(toProxy(endpoint.getType(), endpoint.getHost(), endpoint.getPort())));
+                }
+            }
+            this.routes = List.copyOf(pool);
+            this.noProxySuffixes = compileNoProxyRules(proxyConfig.getNoProxyHosts());
+            this.healthCheck = proxyConfig.getHealthCheck() != null ? proxyConfig.getHealthCheck() : new ProxyConfig.HealthCheck();
+            log.info("代理选择器已初始化: {} 个代理 {}", routes.size(), routes.stream().map(r -> r.proxy).toList());
         } else {
-            this.globalProxy = Proxy.NO_PROXY;
-            this.noProxyHosts = Collections.emptyList();
+            this.routes = List.of();
+            this.noProxySuffixes = Set.of();
+            this.healthCheck = new ProxyConfig.HealthCheck();
             log.info("代理选择器已初始化: 直连模式 (无代理)");
         }
+        routes.forEach(route -> routesByAddress.put(route.proxy.address(), route));
+    }
+
+    /**
+     * 启动后台健康检查，直连模式下不做任何事
+     */
+    public void start() {
+        if (routes.isEmpty() || prober != null) {
+            return;
+        }
+        prober = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("proxy-health-probe").daemon(true).factory());
+        long intervalMillis = Math.max(1000, healthCheck.getInterval().toMillis());
+        prober.scheduleWithFixedDelay(this::probeAll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
     }
 
     @Override
     public List<Proxy> select(URI uri) {
         String host = uri.getHost();
-        
+
         // 0. 基础校验
         if (host == null) {
             return Collections.singletonList(Proxy.NO_PROXY);
@@ -64,40 +142,182 @@ public class AutoSwitchProxySelector extends ProxySelector {
         // 策略2: 检查白名单 (noProxyHosts)
         // 适用场景: 内网地址、国内域名、bgm.tv 等需要直连的地址
         // ==========================================================
-        if (!CollectionUtils.isEmpty(noProxyHosts)) {
-            String lowerHost = host.toLowerCase();
-            // 特殊日志：调试 bgm.tv
-            boolean isDebugTarget = lowerHost.contains("bgm.tv");
-
-            boolean shouldDirect = noProxyHosts.stream()
-                    .map(String::trim)
-                    .map(String::toLowerCase)
-                    .anyMatch(rule -> lowerHost.equals(rule) || lowerHost.endsWith("." + rule));
-
-            if (shouldDirect) {
-                if (isDebugTarget) {
-                    log.info(">>> [Proxy] 域名 {} 命中白名单，强制直连", host);
-                } else {
-                    log.debug("[Proxy] 域名 {} 命中白名单，直连", host);
-                }
-                return Collections.singletonList(Proxy.NO_PROXY);
-            }
+        if (routes.isEmpty() || isNoProxyHost(host)) {
+            return Collections.singletonList(Proxy.NO_PROXY);
         }
 
         // ==========================================================
-        // 策略3: 使用全局默认代理
+        // 策略3: 使用代理池
         // ==========================================================
-        // 只有当全局代理不是 NO_PROXY 时才打印日志，避免日志刷屏
-        if (globalProxy != Proxy.NO_PROXY) {
-            log.debug("[Proxy] 域名 {} 使用全局代理: {}", host, globalProxy);
-        }
-        
-        return Collections.singletonList(globalProxy);
+        return rankRoutes(host);
     }
 
     @Override
     public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {
-        log.error("代理连接失败: URI={}, Proxy={}", uri, sa, ioe);
+        ProxyRoute route = routesByAddress.get(sa);
+        if (route == null) {
+            log.error("代理连接失败: URI={}, Proxy={}", uri, sa, ioe);
+            return;
+        }
+        if (route.healthy) {
+            route.healthy = false;
+            log.warn("代理连接失败，已移出轮换直到下次探测成功: URI={}, Proxy={}, Error={}", uri, sa, ioe.getMessage());
+        }
+        if (uri.getHost() != null) {
+            hostFailures.asMap()
+                    .computeIfAbsent(uri.getHost().toLowerCase(Locale.ROOT), k -> ConcurrentHashMap.newKeySet())
+                    .add(sa);
+        }
+    }
+
+    /**
+     * 代理池状态，便于监控
+     */
+    public List<RouteStatus> getRouteStatuses() {
+        return routes.stream()
+                .map(r -> new RouteStatus(r.proxy.toString(), r.healthy, r.latencyMillis, r.lastProbeAt))
+                .toList();
+    }
+
+    /**
+     * 健康且未对该主机失败过的代理按延迟排在最前，其次是对该主机失败过的健康代理，最后是不健康的代理
+     */
+    private List<Proxy> rankRoutes(String host) {
+        if (routes.size() == 1 && !healthCheck.isDirectFallback()) {
+            return Collections.singletonList(routes.getFirst().proxy);
+        }
+        Set<SocketAddress> failed = hostFailures.getIfPresent(host.toLowerCase(Locale.ROOT));
+        List<ProxyRoute> ranked = new ArrayList<>(routes);
+        ranked.sort(Comparator
+                .comparingInt((ProxyRoute r) -> rank(r, failed))
+                .thenComparingDouble(r -> r.latencyMillis));
+        List<Proxy> proxies = new ArrayList<>(ranked.size() + 1);
+        for (ProxyRoute route : ranked) {
+            proxies.add(route.proxy);
+        }
+        if (healthCheck.isDirectFallback()) {
+            proxies.add(Proxy.NO_PROXY);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("[Proxy] 域名 {} 使用代理: {}", host, proxies);
+        }
+        return proxies;
+    }
+
+    private static int rank(ProxyRoute route, Set<SocketAddress> failedForHost) {
+        if (!route.healthy) {
+            return 2;
+        }
+        return failedForHost != null && failedForHost.contains(route.proxy.address()) ? 1 : 0;
+    }
+
+    /**
+     * 依次检查主机本身及其各级父域名，每次都是一次哈希查找
+     */
+    private boolean isNoProxyHost(String host) {
+        if (noProxySuffixes.isEmpty()) {
+            return false;
+        }
+        String candidate = host.toLowerCase(Locale.ROOT);
+        while (true) {
+            if (noProxySuffixes.contains(candidate)) {
+                log.debug("[Proxy] 域名 {} 命中白名单，直连", host);
+                return true;
+            }
+            int dot = candidate.indexOf('.');
+            if (dot < 0) {
+                return false;
+            }
+            candidate = candidate.substring(dot + 1);
+        }
+    }
+
+    private static Set<String> compileNoProxyRules(List<String> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> suffixes = new HashSet<>();
+        for (String rule : rules) {
+            if (rule == null) {
+                continue;
+            }
+            String normalized = rule.trim().toLowerCase(Locale.ROOT);
+            // 兼容 "*.example.com" 和 ".example.com" 的写法
+            if (normalized.startsWith("*.")) {
+                normalized = normalized.substring(2);
+            } else if (normalized.startsWith(".")) {
+                normalized = normalized.substring(1);
+            }
+            if (!normalized.isEmpty()) {
+                suffixes.add(normalized);
+            }
+        }
+        return Set.copyOf(suffixes);
+    }
+
+    /**
+     * 探测一遍所有代理；定时任务调用，测试中也可以直接调用而不必等待探测间隔
+     */
+    void probeAll() {
+        for (ProxyRoute route : routes) {
+            try {
+                probe(route);
+            } catch (Exception e) {
+                log.debug("代理探测异常: {}", route.proxy, e);
+            }
+        }
+    }
+
+    /**
+     * 建立 TCP 连接测量延迟；SOCKS 代理额外完成一次无认证握手，确认对端确实是 SOCKS5 服务
+     */
+    private void probe(ProxyRoute route) {
+        InetSocketAddress address = (InetSocketAddress) route.proxy.address();
+        int timeout = (int) healthCheck.getTimeout().toMillis();
+        long start = System.nanoTime();
+        boolean ok;
+        try (Socket socket = new Socket()) {
+            InetSocketAddress target = address.isUnresolved()
+                    ? new InetSocketAddress(address.getHostString(), address.getPort())
+                    : address;
+            socket.connect(target, timeout);
+            socket.setSoTimeout(timeout);
+            ok = route.proxy.type() != Proxy.Type.SOCKS || socks5Handshake(socket);
+        } catch (IOException e) {
+            ok = false;
+        }
+        double elapsed = (System.nanoTime() - start) / 1_000_000.0;
+        route.lastProbeAt = System.currentTimeMillis();
+        if (ok) {
+            route.latencyMillis = route.latencyMillis == 0
+                    ? elapsed
+                    : LATENCY_EWMA_ALPHA * elapsed + (1 - LATENCY_EWMA_ALPHA) * route.latencyMillis;
+            if (!route.healthy) {
+                log.info("代理 {} 恢复可用，延迟 {} ms", route.proxy, Math.round(elapsed));
+            }
+            route.healthy = true;
+        } else {
+            if (route.healthy) {
+                log.warn("代理 {} 探测失败，已移出轮换", route.proxy);
+            }
+            route.healthy = false;
+        }
+    }
+
+    private static boolean socks5Handshake(Socket socket) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        InputStream in = socket.getInputStream();
+        // VER=5, NMETHODS=1, METHOD=0 (无认证)
+        out.write(new byte[]{0x05, 0x01, 0x00});
+        out.flush();
+        int version = in.read();
+        int method = in.read();
+        return version == 0x05 && method != 0xFF && method != -1;
+    }
+
+    private static Proxy toProxy(ProxyConfig.ProxyType type, String host, int port) {
+        Proxy.Type proxyType = type == ProxyConfig.ProxyType.HTTP ? Proxy.Type.HTTP : Proxy.Type.SOCKS;
+        return new Proxy(proxyType, new InetSocketAddress(host, port));
     }
 
     // ================== 静态工具方法 ==================
@@ -115,7 +335,7 @@ public class AutoSwitchProxySelector extends ProxySelector {
     public static void forceProxy(Proxy proxy) {
         PROXY_THREAD_LOCAL.set(proxy);
     }
-    
+
     /**
      * 清除强制设置
      */
@@ -1,5 +1,7 @@
 package com.github.winefoxbot.core.config.request;
 
+import com.github.winefoxbot.core.config.request.interceptor.CircuitBreakerInterceptor;
+import com.github.winefoxbot.core.config.request.interceptor.HostCircuitBreakerRegistry;
 import com.github.winefoxbot.core.config.request.interceptor.RetryInterceptor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -24,20 +26,31 @@ public class OkHttpClientConfig {
 
     private ProxyConfig proxyConfig;
 
-    @Bean
+    @Bean(destroyMethod = "close")
     public AutoSwitchProxySelector autoSwitchProxySelector(ProxyConfig proxyConfig) {
         this.proxyConfig = proxyConfig;
-        return new AutoSwitchProxySelector(proxyConfig);
+        AutoSwitchProxySelector selector = new AutoSwitchProxySelector(proxyConfig);
+        selector.start();
+        return selector;
+    }
+
+    @Bean
+    public HostCircuitBreakerRegistry hostCircuitBreakerRegistry(ResilienceConfig resilienceConfig) {
+        ResilienceConfig.CircuitBreaker cb = resilienceConfig.getCircuitBreaker();
+        return new HostCircuitBreakerRegistry(cb.getFailureThreshold(), cb.getOpenDuration());
     }
 
     @Bean
-    public OkHttpClient okHttpClient(AutoSwitchProxySelector proxySelector) {
+    public OkHttpClient okHttpClient(AutoSwitchProxySelector proxySelector,
+                                     ResilienceConfig resilienceConfig,
+                                     HostCircuitBreakerRegistry circuitBreakerRegistry) {
         try {
+            ResilienceConfig.Retry retry = resilienceConfig.getRetry();
             Dispatcher dispatcher = new Dispatcher();
             dispatcher.setMaxRequests(500);
             dispatcher.setMaxRequestsPerHost(100);
             ConnectionPool connectionPool = new ConnectionPool(50, 5, TimeUnit.MINUTES);
-            return new OkHttpClient.Builder()
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
                     .connectTimeout(10, TimeUnit.SECONDS)
                     .readTimeout(30, TimeUnit.SECONDS)
                     .retryOnConnectionFailure(true)
@@ -46,9 +59,13 @@ public class OkHttpClientConfig {
                     .followRedirects(true)
                     .followSslRedirects(true)
                     .addInterceptor(BrotliInterceptor.INSTANCE)
-                    .addInterceptor(new RetryInterceptor(3, 1000))
-                    .proxySelector(proxySelector)
-                    .build();
+                    .addInterceptor(new RetryInterceptor(retry.getMaxAttempts(), retry.getBaseDelay(), retry.getMaxDelay(),
+                            retry.getBudgetMaxTokens(), retry.getBudgetTokenRatio()));
+            if (resilienceConfig.getCircuitBreaker().isEnabled()) {
+                // 放在重试之后，每次实际尝试都计入熔断统计，熔断后重试立即停止
+                builder.addInterceptor(new CircuitBreakerInterceptor(circuitBreakerRegistry));
+            }
+            return builder.proxySelector(proxySelector).build();
 
         } catch (Exception e) {
             log.error("创建 OkHttpClient 失败", e);
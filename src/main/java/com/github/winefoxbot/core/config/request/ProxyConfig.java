@@ -4,6 +4,7 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -37,4 +38,37 @@ public class ProxyConfig {
     }
 
     private List<String> noProxyHosts = new ArrayList<>();
+
+    /**
+     * 备用代理，与上面的主代理一起组成代理池
+     */
+    private List<Endpoint> pool = new ArrayList<>();
+
+    /**
+     * 代理池健康检查
+     */
+    private HealthCheck healthCheck = new HealthCheck();
+
+    @Data
+    public static class Endpoint {
+        private String host;
+        private int port;
+        private ProxyType type = ProxyType.SOCKS5;
+    }
+
+    @Data
+    public static class HealthCheck {
+        /**
+         * 探测间隔
+         */
+        private Duration interval = Duration.ofSeconds(30);
+        /**
+         * 单次探测超时时间
+         */
+        private Duration timeout = Duration.ofSeconds(3);
+        /**
+         * 所有代理都不可用时是否回退为直连
+         */
+        private boolean directFallback = false;
+    }
 }
\ No newline at end of file
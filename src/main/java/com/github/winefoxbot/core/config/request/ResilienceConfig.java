@@ -0,0 +1,62 @@
+package com.github.winefoxbot.core.config.request;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * HTTP 请求重试与熔断配置
+ *
+ * @author FlanChan (badapple495@outlook.com)
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "request.resilience")
+public class ResilienceConfig {
+
+    private Retry retry = new Retry();
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Data
+    public static class Retry {
+        /**
+         * 总尝试次数（含首次请求）
+         */
+        private int maxAttempts = 3;
+        /**
+         * 首次重试的基础等待时间，之后每次翻倍并附加随机抖动
+         */
+        private Duration baseDelay = Duration.ofMillis(200);
+        /**
+         * 单次重试等待时间上限，同时也是 Retry-After 的上限
+         */
+        private Duration maxDelay = Duration.ofSeconds(3);
+        /**
+         * 重试预算令牌上限，令牌低于一半时停止重试
+         */
+        private double budgetMaxTokens = 20;
+        /**
+         * 每次成功请求归还的令牌数
+         */
+        private double budgetTokenRatio = 0.2;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * 是否启用熔断
+         */
+        private boolean enabled = true;
+        /**
+         * 连续失败多少次后熔断
+         */
+        private int failureThreshold = 5;
+        /**
+         * 熔断持续时间，到期后放行一个探测请求
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.winefoxbot.core.config.request.interceptor;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * 按主机熔断拦截器
+ * <p>
+ * 网络异常和 5xx / 429 视为失败，其余响应视为主机健康。
+ * 注册在重试拦截器之后，每一次实际尝试都会计入熔断统计。
+ *
+ * @author FlanChan
+ */
+public class CircuitBreakerInterceptor implements Interceptor {
+
+    private final HostCircuitBreakerRegistry registry;
+
+    public CircuitBreakerInterceptor(HostCircuitBreakerRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String host = request.url().host();
+        registry.acquire(host);
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            registry.onFailure(host);
+            throw e;
+        }
+        if (response.code() >= 500 || response.code() == 429) {
+            registry.onFailure(host);
+        } else {
+            registry.onSuccess(host);
+        }
+        return response;
+    }
+}
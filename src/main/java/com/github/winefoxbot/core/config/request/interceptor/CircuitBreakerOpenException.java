@@ -0,0 +1,17 @@
+package com.github.winefoxbot.core.config.request.interceptor;
+
+import java.io.IOException;
+
+/**
+ * 目标主机处于熔断状态，请求被直接拒绝
+ * <p>
+ * 继承 {@link IOException}，调用方现有的网络异常处理逻辑无需修改。
+ *
+ * @author FlanChan
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    public CircuitBreakerOpenException(String host, long retryAfterMillis) {
+        super("Circuit breaker is open for host " + host + ", retry after " + retryAfterMillis + " ms");
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.winefoxbot.core.config.request.interceptor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 按主机维护的熔断器
+ * <p>
+ * 连续失败达到阈值后进入 OPEN 状态，期间该主机的请求直接失败；
+ * 熔断时间到期后进入 HALF_OPEN，只放行一个探测请求，成功则恢复，失败则重新熔断。
+ *
+ * @author FlanChan
+ */
+@Slf4j
+public class HostCircuitBreakerRegistry {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 熔断器状态快照
+     *
+     * @param host                主机名
+     * @param state               当前状态
+     * @param consecutiveFailures 连续失败次数
+     * @param totalSuccesses      累计成功次数
+     * @param totalFailures       累计失败次数
+     * @param rejected            熔断期间被拒绝的请求数
+     * @param retryAfterMillis    距离放行探测请求的剩余时间，非 OPEN 状态为 0
+     */
+    public record Snapshot(String host, State state, int consecutiveFailures, long totalSuccesses,
+                           long totalFailures, long rejected, long retryAfterMillis) {
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final Map<String, HostBreaker> breakers = new ConcurrentHashMap<>();
+
+    public HostCircuitBreakerRegistry(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    public HostCircuitBreakerRegistry(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 请求前调用，熔断中则抛出异常
+     */
+    public void acquire(String host) throws CircuitBreakerOpenException {
+        breakers.computeIfAbsent(host, HostBreaker::new).acquire();
+    }
+
+    public void onSuccess(String host) {
+        HostBreaker breaker = breakers.get(host);
+        if (breaker != null) {
+            breaker.onSuccess();
+        }
+    }
+
+    public void onFailure(String host) {
+        breakers.computeIfAbsent(host, HostBreaker::new).onFailure();
+    }
+
+    /**
+     * 手动重置某个主机的熔断状态
+     */
+    public void reset(String host) {
+        breakers.remove(host);
+    }
+
+    public List<Snapshot> snapshots() {
+        return breakers.values().stream()
+                .map(HostBreaker::snapshot)
+                .sorted(Comparator.comparing(Snapshot::host))
+                .toList();
+    }
+
+    private final class HostBreaker {
+        private final String host;
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean probeInFlight;
+        private long totalSuccesses;
+        private long totalFailures;
+        private long rejected;
+
+        private HostBreaker(String host) {
+            this.host = host;
+        }
+
+        synchronized void acquire() throws CircuitBreakerOpenException {
+            if (state == State.OPEN) {
+                long remaining = openedAt + openNanos - nanoClock.getAsLong();
+                if (remaining > 0) {
+                    rejected++;
+                    throw new CircuitBreakerOpenException(host, remaining / 1_000_000);
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = false;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probeInFlight) {
+                    rejected++;
+                    throw new CircuitBreakerOpenException(host, 0);
+                }
+                probeInFlight = true;
+            }
+        }
+
+        synchronized void onSuccess() {
+            totalSuccesses++;
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                log.info("主机 {} 探测请求成功，熔断器恢复", host);
+            }
+            state = State.CLOSED;
+            probeInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            totalFailures++;
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = State.OPEN;
+                openedAt = nanoClock.getAsLong();
+                probeInFlight = false;
+                log.warn("主机 {} 连续失败 {} 次，熔断 {} 秒", host, consecutiveFailures, openNanos / 1_000_000_000);
+            }
+        }
+
+        synchronized Snapshot snapshot() {
+            long retryAfter = state == State.OPEN
+                    ? Math.max(0, (openedAt + openNanos - nanoClock.getAsLong()) / 1_000_000)
+                    : 0;
+            return new Snapshot(host, state, consecutiveFailures, totalSuccesses, totalFailures, rejected, retryAfter);
+        }
+    }
+}
@@ -7,82 +7,172 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * 请求重试拦截器
+ * <p>
+ * <ul>
+ *     <li>只重试幂等请求（GET/HEAD/OPTIONS/PUT/DELETE），POST 等请求需带上 {@code Idempotency-Key} 请求头才会重试</li>
+ *     <li>只重试网络异常、408、429 和 5xx，其余 4xx 直接返回</li>
+ *     <li>等待时间为指数退避 + 随机抖动，响应带 Retry-After 时以其为准，均不超过上限</li>
+ *     <li>全局重试预算：每次失败扣一个令牌，每次成功归还一部分，令牌不足一半时不再重试，避免故障时放大流量</li>
+ *     <li>熔断异常不重试</li>
+ * </ul>
+ * 等待发生在调用线程上；本项目的请求基本都在虚拟线程中同步执行，等待不会占用平台线程或 Dispatcher 的并发名额。
+ */
 public class RetryInterceptor implements Interceptor {
     private static final Logger log = LoggerFactory.getLogger(RetryInterceptor.class);
 
-    private final int maxRetries;
-    private final long retryDelayMs;
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE", "TRACE");
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
-    public RetryInterceptor(int maxRetries, long retryDelayMs) {
-        // 总尝试次数 = 1次初始尝试 + (maxRetries-1)次重试
-        this.maxRetries = maxRetries;
-        this.retryDelayMs = retryDelayMs;
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final RetryBudget budget;
+
+    public RetryInterceptor(int maxAttempts, Duration baseDelay, Duration maxDelay, double budgetMaxTokens, double budgetTokenRatio) {
+        // 总尝试次数 = 1次初始尝试 + (maxAttempts-1)次重试
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelay.toMillis();
+        this.maxDelayMs = maxDelay.toMillis();
+        this.budget = new RetryBudget(budgetMaxTokens, budgetTokenRatio);
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Response response = null;
-        IOException lastException = null;
+        boolean retryable = isIdempotent(request);
 
-        for (int attempt = 0; attempt < maxRetries; attempt++) {
+        for (int attempt = 1; ; attempt++) {
+            Response response;
             try {
                 response = chain.proceed(request);
+            } catch (CircuitBreakerOpenException e) {
+                throw e;
+            } catch (IOException e) {
+                budget.onFailure();
+                if (!canRetry(retryable, attempt) || isCanceled(chain, e)) {
+                    throw e;
+                }
+                log.warn("Request to {} failed with IOException. Attempt {}/{}. Retrying... Error: {}",
+                        request.url(), attempt, maxAttempts, e.getMessage());
+                sleep(backoffMillis(attempt), e);
+                continue;
+            }
 
-                // 如果请求成功，直接返回响应，让调用者处理
+            if (!isRetryableStatus(response.code())) {
                 if (response.isSuccessful()) {
-                    return response;
+                    budget.onSuccess();
                 }
+                return response;
+            }
+            budget.onFailure();
+            if (!canRetry(retryable, attempt)) {
+                // 最后一次失败的响应交给调用者处理和关闭
+                return response;
+            }
+            long delay = retryAfterMillis(response.header("Retry-After"), attempt);
+            log.warn("Request to {} failed with code {}. Attempt {}/{}. Retrying in {} ms...",
+                    request.url(), response.code(), attempt, maxAttempts, delay);
+            // 准备重试，当前响应不再使用
+            response.close();
+            sleep(delay, null);
+        }
+    }
 
-                // 如果是客户端错误 (4xx)，这种错误重试也无用，直接返回
-                if (isClientError(response.code())) {
-                    log.warn("Request to {} failed with client error code {}. No retries will be performed.", request.url(), response.code());
-                    return response; // 直接返回这个失败的响应
-                }
+    /**
+     * 当前重试预算中的令牌数，便于监控
+     */
+    public double getBudgetTokens() {
+        return budget.tokens();
+    }
 
-                // 请求失败（例如 404, 500），关闭当前响应体准备重试
-                // 注意：这里必须关闭，因为我们要进行下一次循环，这个response没用了
-                response.close();
+    private boolean canRetry(boolean retryable, int attempt) {
+        return retryable && attempt < maxAttempts && budget.allowRetry();
+    }
 
-                log.warn("Request to {} failed with code {}. Attempt {}/{}. Retrying...",
-                        request.url(), response.code(), attempt + 1, maxRetries);
+    private static boolean isIdempotent(Request request) {
+        return IDEMPOTENT_METHODS.contains(request.method()) || request.header(IDEMPOTENCY_KEY_HEADER) != null;
+    }
 
-            } catch (IOException e) {
-                lastException = e;
-                log.warn("Request to {} failed with IOException. Attempt {}/{}. Retrying... Error: {}",
-                        request.url(), attempt + 1, maxRetries, e.getMessage());
-            }
+    private static boolean isRetryableStatus(int code) {
+        return code == 408 || code == 429 || code >= 500;
+    }
 
-            // 如果还不是最后一次尝试，就等待一段时间
-            if (attempt < maxRetries - 1) {
-                try {
-                    TimeUnit.MILLISECONDS.sleep(retryDelayMs);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    // 提前因中断而抛出异常，附加上一次的网络异常信息
-                    throw new IOException("Retry was interrupted", lastException != null ? lastException : e);
-                }
+    private static boolean isCanceled(Chain chain, IOException e) {
+        return chain.call().isCanceled() || (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * 指数退避 + 全抖动：[0, min(max, base * 2^(attempt-1))]
+     */
+    private long backoffMillis(int attempt) {
+        long exp = baseDelayMs << Math.min(attempt - 1, 16);
+        long capped = Math.min(exp, maxDelayMs);
+        return ThreadLocalRandom.current().nextLong(capped + 1);
+    }
+
+    /**
+     * 只支持秒数形式的 Retry-After，HTTP 日期形式按普通退避处理
+     */
+    private long retryAfterMillis(String retryAfter, int attempt) {
+        if (retryAfter != null) {
+            try {
+                long seconds = Long.parseLong(retryAfter.trim());
+                return Math.min(TimeUnit.SECONDS.toMillis(Math.max(0, seconds)), maxDelayMs);
+            } catch (NumberFormatException ignored) {
+                // 使用默认退避
             }
         }
+        return backoffMillis(attempt);
+    }
 
-        // 如果循环结束仍然没有成功，抛出最后的异常
-        if (lastException != null) {
-            throw new IOException("Failed to execute request for " + request.url() + " after " + maxRetries + " attempts.", lastException);
+    private static void sleep(long millis, IOException lastException) throws IOException {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // 提前因中断而抛出异常，附加上一次的网络异常信息
+            InterruptedIOException interrupted = new InterruptedIOException("Retry was interrupted");
+            interrupted.initCause(lastException != null ? lastException : e);
+            throw interrupted;
         }
-
-        // 如果循环结束是因为最后一次尝试返回了失败的HTTP代码，则返回这个失败的response
-        // 注意：此时response不能关闭，需要由最终的调用者关闭
-        return response;
     }
 
     /**
-     * 判断HTTP状态码是否为客户端错误 (4xx).
-     * @param code The HTTP status code.
-     * @return true if the code is between 400 and 499, false otherwise.
+     * 令牌桶式重试预算，语义与 gRPC 的 retry throttling 一致
      */
-    private boolean isClientError(int code) {
-        return code >= 400 && code < 500;
+    static final class RetryBudget {
+        private final double maxTokens;
+        private final double tokenRatio;
+        private double tokens;
+
+        RetryBudget(double maxTokens, double tokenRatio) {
+            this.maxTokens = Math.max(1, maxTokens);
+            this.tokenRatio = tokenRatio;
+            this.tokens = this.maxTokens;
+        }
+
+        synchronized void onSuccess() {
+            tokens = Math.min(maxTokens, tokens + tokenRatio);
+        }
+
+        synchronized void onFailure() {
+            tokens = Math.max(0, tokens - 1);
+        }
+
+        synchronized boolean allowRetry() {
+            return tokens > maxTokens / 2;
+        }
+
+        synchronized double tokens() {
+            return tokens;
+        }
     }
 }
@@ -3,26 +3,31 @@ package com.github.winefoxbot.core.controller;
 
 import com.github.winefoxbot.core.model.vo.common.Result;
 import com.github.winefoxbot.core.model.vo.webui.req.filemanager.CreateFileRequest;
+import com.github.winefoxbot.core.model.vo.webui.req.filemanager.SaveFileChunkRequest;
 import com.github.winefoxbot.core.model.vo.webui.req.filemanager.SaveFileRequest;
 import com.github.winefoxbot.core.model.vo.webui.resp.FileItemResponse;
+import com.github.winefoxbot.core.model.vo.webui.resp.FilePageResponse;
+import com.github.winefoxbot.core.model.vo.webui.resp.TextChunkResponse;
 import com.github.winefoxbot.core.service.webui.WebUIFileManagerService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.apache.tika.Tika;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author FlanChan
@@ -36,6 +41,17 @@ public class WebUIFileManagerController {
 
     private static final Tika TIKA_INSTANCE = new Tika();
 
+    /**
+     * 扩展名 -> MIME 类型
+     */
+    private static final Map<String, MediaType> MIME_CACHE = new ConcurrentHashMap<>();
+
+    // Tomcat sendfile 相关的请求属性
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
     /**
      * 获取文件列表
      * 返回 List<FileItem> -> 前端收到 Result<List<FileItem>>
@@ -45,6 +61,19 @@ public class WebUIFileManagerController {
         return webUIFileManagerService.listFiles(path);
     }
 
+    /**
+     * 游标分页获取文件列表，适用于文件数量很多的目录
+     */
+    @GetMapping("/list/page")
+    public FilePageResponse listPage(@RequestParam(required = false, defaultValue = "") String path,
+                                     @RequestParam(required = false) String cursor,
+                                     @RequestParam(defaultValue = "100") int limit,
+                                     @RequestParam(defaultValue = "name") String sort,
+                                     @RequestParam(defaultValue = "false") boolean desc,
+                                     @RequestParam(required = false) String keyword) throws IOException {
+        return webUIFileManagerService.listFilesPage(path, cursor, limit, sort, desc, keyword);
+    }
+
     /**
      * 新建文件/文件夹
      * 返回 String -> 前端收到 Result<String> (注意你的Handler里对String特殊处理了)
@@ -84,32 +113,132 @@ public class WebUIFileManagerController {
 
 
 
+    /**
+     * 分段读取文本内容，用于在编辑器中分页浏览大文件
+     */
+    @GetMapping("/content/chunk")
+    public TextChunkResponse getContentChunk(@RequestParam String path,
+                                             @RequestParam(defaultValue = "0") long offset,
+                                             @RequestParam(defaultValue = "262144") int length) throws IOException {
+        return webUIFileManagerService.readTextChunk(path, offset, length);
+    }
+
+    /**
+     * 分段保存文本内容，只替换读取时的那一段
+     * 文件在读取后被修改时返回 412，前端需要重新读取
+     */
+    @PostMapping("/save/chunk")
+    public Result<Long> saveContentChunk(@RequestBody SaveFileChunkRequest request) throws IOException {
+        long size = webUIFileManagerService.replaceTextChunk(request.path(), request.offset(), request.originalLength(), request.content(), request.etag());
+        return Result.ok(size);
+    }
+
     /**
      * 下载文件
      * 建议在 GlobalResponseHandler 中排除 ResponseEntity 类型
      */
     @GetMapping("/download")
-    public ResponseEntity<Resource> download(@RequestParam String path) throws IOException {
-        Path filePath = webUIFileManagerService.getFilePath(path);
-        Resource resource = new UrlResource(filePath.toUri());
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(TIKA_INSTANCE.detect(filePath)))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" +
-                        URLEncoder.encode(filePath.getFileName().toString(), StandardCharsets.UTF_8) + "\"")
-                .body(resource);
+    public ResponseEntity<Resource> download(@RequestParam String path, HttpServletRequest request, WebRequest webRequest) throws IOException {
+        return serveFile(path, true, request, webRequest);
     }
 
     /**
      * 预览图片/文件流
      */
     @GetMapping("/view")
-    public ResponseEntity<Resource> view(@RequestParam String path) throws IOException {
+    public ResponseEntity<Resource> view(@RequestParam String path, HttpServletRequest request, WebRequest webRequest) throws IOException {
+        return serveFile(path, false, request, webRequest);
+    }
+
+    /**
+     * 带缓存校验和断点续传的文件输出
+     * <ul>
+     *     <li>ETag 由文件大小、修改时间和文件标识生成，命中 If-None-Match / If-Modified-Since 时返回 304</li>
+     *     <li>容器支持 sendfile（Tomcat NIO）且为整文件或单段 Range 请求时，交给容器零拷贝发送</li>
+     *     <li>其余情况（多段 Range 等）交给 Spring 按 Resource 处理，同样支持 206</li>
+     * </ul>
+     */
+    private ResponseEntity<Resource> serveFile(String path, boolean attachment, HttpServletRequest request, WebRequest webRequest) throws IOException {
         Path filePath = webUIFileManagerService.getFilePath(path);
-        Resource resource = new UrlResource(filePath.toUri());
+        BasicFileAttributes attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+        long fileSize = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = WebUIFileManagerService.etagOf(attrs);
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            // 304 已由 Spring 写入
+            return null;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(mediaTypeOf(filePath));
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setCacheControl(CacheControl.noCache());
+        if (attachment) {
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" +
+                    URLEncoder.encode(filePath.getFileName().toString(), StandardCharsets.UTF_8) + "\"");
+        }
+
+        List<HttpRange> ranges = parseRanges(request.getHeader(HttpHeaders.RANGE), request.getHeader(HttpHeaders.IF_RANGE), etag);
+        if (ranges != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR)) && ranges.size() <= 1) {
+            long start = 0;
+            long end = fileSize - 1;
+            HttpStatus status = HttpStatus.OK;
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.getFirst();
+                try {
+                    start = range.getRangeStart(fileSize);
+                    end = range.getRangeEnd(fileSize);
+                } catch (IllegalArgumentException e) {
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+                }
+                status = HttpStatus.PARTIAL_CONTENT;
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+            }
+            headers.setContentLength(end - start + 1);
+            if (end >= start) {
+                request.setAttribute(SENDFILE_FILENAME_ATTR, filePath.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START_ATTR, start);
+                // 结束位置不包含在内
+                request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            }
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+
+        // 不支持 sendfile 或 Range 不合法时由 Spring 处理（包括 416）
+        return ResponseEntity.ok().headers(headers).body(new FileSystemResource(filePath));
+    }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(TIKA_INSTANCE.detect(filePath)))
-                .body(resource);
+    /**
+     * @return 解析后的 Range，无 Range 或 If-Range 不匹配时返回空列表，格式错误时返回 null
+     */
+    private static List<HttpRange> parseRanges(String rangeHeader, String ifRange, String etag) {
+        if (rangeHeader == null || (ifRange != null && !ifRange.equals(etag))) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 按扩展名缓存 MIME 类型，只根据文件名判断，不读取文件内容
+     */
+    private static MediaType mediaTypeOf(Path filePath) {
+        String fileName = filePath.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        if (dot <= 0 || dot == fileName.length() - 1) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        String ext = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return MIME_CACHE.computeIfAbsent(ext, e -> {
+            try {
+                return MediaType.parseMediaType(TIKA_INSTANCE.detect("file." + e));
+            } catch (Exception ex) {
+                return MediaType.APPLICATION_OCTET_STREAM;
+            }
+        });
     }
 }
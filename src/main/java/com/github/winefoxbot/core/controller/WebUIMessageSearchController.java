@@ -0,0 +1,60 @@
+package com.github.winefoxbot.core.controller;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.github.winefoxbot.core.model.dto.MessageSearchQuery;
+import com.github.winefoxbot.core.model.entity.ShiroUserMessage;
+import com.github.winefoxbot.core.model.enums.common.MessageType;
+import com.github.winefoxbot.core.service.shiro.ShiroMessagesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息记录搜索
+ * @author FlanChan
+ */
+@RestController
+@RequestMapping("/api/messages")
+@RequiredArgsConstructor
+public class WebUIMessageSearchController {
+
+    private final ShiroMessagesService messagesService;
+
+    /**
+     * 按关键词搜索消息记录，按时间倒序分页
+     * @param keyword 关键词
+     * @param fuzzy   是否启用模糊匹配（子串/相似度），默认只按分词匹配
+     * @param messageType 会话类型：group / private
+     * @param since   起始时间（ISO 格式，含），建议带上以缩小扫描范围
+     * @param until   结束时间（ISO 格式，不含）
+     */
+    @GetMapping("/search")
+    public Page<ShiroUserMessage> search(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false) Long sessionId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long botId,
+            @RequestParam(required = false) String messageType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestParam(defaultValue = "1") long page,
+            @RequestParam(defaultValue = "20") long size
+    ) {
+        MessageSearchQuery query = new MessageSearchQuery();
+        query.setKeyword(keyword);
+        query.setFuzzy(fuzzy);
+        query.setSessionId(sessionId);
+        query.setUserId(userId);
+        query.setSelfId(botId);
+        query.setMessageType(messageType == null ? null : MessageType.fromValue(messageType));
+        query.setSince(since);
+        query.setUntil(until);
+        return messagesService.searchMessages(query, page, size);
+    }
+}
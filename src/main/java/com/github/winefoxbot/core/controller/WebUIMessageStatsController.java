@@ -49,11 +49,12 @@ public class WebUIMessageStatsController {
     }
 
     /**
-     * 统计指定时间之后的消息数量
+     * 统计指定时间之后的消息数量，上界到明天 0 点，让未来分区也能被裁剪
      */
     private long countSince(LocalDateTime since, Long botId) {
         return messagesService.count(new LambdaQueryWrapper<ShiroMessage>()
                         .eq(ShiroMessage::getSelfId,botId)
-                .ge(ShiroMessage::getTime, since));
+                .ge(ShiroMessage::getTime, since)
+                .lt(ShiroMessage::getTime, LocalDate.now().plusDays(1).atStartOfDay()));
     }
 }
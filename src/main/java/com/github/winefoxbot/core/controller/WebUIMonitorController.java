@@ -1,12 +1,20 @@
 package com.github.winefoxbot.core.controller;
 
 
+import com.github.winefoxbot.core.config.request.AutoSwitchProxySelector;
+import com.github.winefoxbot.core.config.request.interceptor.HostCircuitBreakerRegistry;
+import com.github.winefoxbot.core.manager.ExpiringStateRegistry;
+import com.github.winefoxbot.core.manager.SingleFlightManager;
+import com.github.winefoxbot.core.model.vo.common.Result;
 import com.github.winefoxbot.core.model.vo.webui.resp.SystemStatusResponse;
+import com.github.winefoxbot.core.model.vo.webui.resp.TelemetryFrameResponse;
 import com.github.winefoxbot.core.service.webui.WebUISystemMonitorService;
+import com.github.winefoxbot.core.utils.SingleFlight;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
 
 /**
  * @author FlanChan
@@ -18,8 +26,77 @@ public class WebUIMonitorController {
     @Autowired
     private WebUISystemMonitorService monitorService;
 
+    @Autowired
+    private HostCircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private AutoSwitchProxySelector proxySelector;
+
+    @Autowired
+    private ExpiringStateRegistry stateRegistry;
+
+    @Autowired
+    private SingleFlightManager singleFlightManager;
+
     @GetMapping("/status")
     public SystemStatusResponse getStatus() {
         return monitorService.getSystemStatus();
     }
+
+    /**
+     * 前端订阅 "/app/monitor/history" 时返回最近的采样历史，之后的增量帧从 "/topic/monitor/status" 接收
+     */
+    @SubscribeMapping("/monitor/history")
+    public List<TelemetryFrameResponse> getStatusHistory() {
+        return monitorService.getHistory();
+    }
+
+    /**
+     * 最近的采样历史（HTTP 方式）
+     */
+    @GetMapping("/status/history")
+    public List<TelemetryFrameResponse> getStatusHistoryHttp() {
+        return monitorService.getHistory();
+    }
+
+    /**
+     * 各外部主机的熔断器状态
+     */
+    @GetMapping("/circuit-breakers")
+    public List<HostCircuitBreakerRegistry.Snapshot> getCircuitBreakers() {
+        return circuitBreakerRegistry.snapshots();
+    }
+
+    /**
+     * 代理池中各代理的健康状态和探测延迟，未启用代理时为空
+     */
+    @GetMapping("/proxies")
+    public List<AutoSwitchProxySelector.RouteStatus> getProxies() {
+        return proxySelector.getRouteStatuses();
+    }
+
+    /**
+     * 各内存状态表的大小和淘汰次数
+     */
+    @GetMapping("/state-maps")
+    public List<ExpiringStateRegistry.Stats> getStateMaps() {
+        return stateRegistry.getAllStats();
+    }
+
+    /**
+     * 各处请求合并的调用次数和被合并次数
+     */
+    @GetMapping("/single-flights")
+    public List<SingleFlight.Stats> getSingleFlights() {
+        return singleFlightManager.getAllStats();
+    }
+
+    /**
+     * 手动重置某个主机的熔断器
+     */
+    @PostMapping("/circuit-breakers/reset")
+    public Result<Void> resetCircuitBreaker(@RequestParam String host) {
+        circuitBreakerRegistry.reset(host);
+        return Result.ok();
+    }
 }
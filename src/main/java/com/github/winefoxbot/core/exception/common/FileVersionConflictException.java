@@ -0,0 +1,12 @@
+package com.github.winefoxbot.core.exception.common;
+
+/**
+ * 文件在读取后已被修改，基于旧版本的写入被拒绝
+ *
+ * @author FlanChan
+ */
+public class FileVersionConflictException extends BusinessException {
+    public FileVersionConflictException(String message) {
+        super(message);
+    }
+}
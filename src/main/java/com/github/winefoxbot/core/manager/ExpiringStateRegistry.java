@@ -0,0 +1,120 @@
+package com.github.winefoxbot.core.manager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 具名的内存状态表
+ * <p>
+ * 按用户或群记录的内存状态（计数器、冷却时间、会话等）统一在这里声明容量和生命周期，
+ * 而不是各自使用永不清理的 ConcurrentHashMap。每张表都是有容量上限和过期时间的 Guava Cache：
+ * <ul>
+ *     <li>expireAfterAccess：一段时间没有读写后淘汰，适合“只要还在用就保留”的状态</li>
+ *     <li>expireAfterWrite：写入后固定时间淘汰，适合本身就有时间窗口的状态</li>
+ * </ul>
+ * Guava 只在读写时顺带清理过期条目，这里用一个共享的定时任务定期清理所有表，
+ * 没有访问的表也能及时释放内存。各表的大小和淘汰次数可以通过 {@link #getAllStats()} 查看。
+ *
+ * @author FlanChan
+ */
+@Component
+@Slf4j
+public class ExpiringStateRegistry {
+
+    /**
+     * 状态表统计
+     *
+     * @param name          名称
+     * @param size          当前条目数
+     * @param maximumSize   容量上限
+     * @param expireMode    过期方式：access 或 write
+     * @param ttl           过期时间
+     * @param expired       因过期被淘汰的条目数
+     * @param evictedBySize 因超出容量被淘汰的条目数
+     */
+    public record Stats(String name, long size, long maximumSize, String expireMode, Duration ttl,
+                        long expired, long evictedBySize) {
+    }
+
+    private record Registration(String name, Cache<?, ?> cache, long maximumSize, String expireMode, Duration ttl,
+                                LongAdder expired, LongAdder evictedBySize) {
+    }
+
+    private final ConcurrentHashMap<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * 注册一张一段时间没有读写后淘汰的状态表
+     *
+     * @param name        名称，全局唯一
+     * @param maximumSize 容量上限，超出后淘汰最久未使用的条目
+     * @param idleTimeout 空闲多久后淘汰
+     */
+    public <K, V> Cache<K, V> expireAfterAccess(String name, long maximumSize, Duration idleTimeout) {
+        return register(name, maximumSize, "access", idleTimeout);
+    }
+
+    /**
+     * 注册一张写入后固定时间淘汰的状态表
+     *
+     * @param name        名称，全局唯一
+     * @param maximumSize 容量上限，超出后淘汰最久未使用的条目
+     * @param ttl         写入多久后淘汰
+     */
+    public <K, V> Cache<K, V> expireAfterWrite(String name, long maximumSize, Duration ttl) {
+        return register(name, maximumSize, "write", ttl);
+    }
+
+    /**
+     * 共享的清理任务
+     */
+    @Scheduled(fixedDelayString = "${winefoxbot.state.cleanup-interval-ms:60000}")
+    public void cleanUp() {
+        for (Registration registration : registrations.values()) {
+            registration.cache().cleanUp();
+        }
+    }
+
+    public List<Stats> getAllStats() {
+        return registrations.values().stream()
+                .map(r -> new Stats(r.name(), r.cache().size(), r.maximumSize(), r.expireMode(), r.ttl(),
+                        r.expired().sum(), r.evictedBySize().sum()))
+                .sorted(Comparator.comparing(Stats::name))
+                .toList();
+    }
+
+    private <K, V> Cache<K, V> register(String name, long maximumSize, String expireMode, Duration ttl) {
+        LongAdder expired = new LongAdder();
+        LongAdder evictedBySize = new LongAdder();
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize);
+        if ("access".equals(expireMode)) {
+            builder.expireAfterAccess(ttl);
+        } else {
+            builder.expireAfterWrite(ttl);
+        }
+        Cache<K, V> cache = builder
+                .<K, V>removalListener(notification -> {
+                    if (notification.getCause() == RemovalCause.EXPIRED) {
+                        expired.increment();
+                    } else if (notification.getCause() == RemovalCause.SIZE) {
+                        evictedBySize.increment();
+                    }
+                })
+                .build();
+        Registration registration = new Registration(name, cache, maximumSize, expireMode, ttl, expired, evictedBySize);
+        if (registrations.putIfAbsent(name, registration) != null) {
+            throw new IllegalArgumentException("状态表名称重复: " + name);
+        }
+        log.debug("已注册状态表 {}: 容量 {}, expireAfter{} {}", name, maximumSize, expireMode, ttl);
+        return cache;
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.winefoxbot.core.manager;
+
+import com.github.winefoxbot.core.utils.SingleFlight;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 统一创建和管理具名的 {@link SingleFlight}，便于集中查看各处的请求合并统计
+ *
+ * @author FlanChan
+ */
+@Component
+public class SingleFlightManager {
+
+    private final ConcurrentHashMap<String, SingleFlight<?, ?>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * 获取指定名称的 SingleFlight，不存在时创建
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> SingleFlight<K, V> getOrCreate(String name) {
+        return (SingleFlight<K, V>) flights.computeIfAbsent(name, SingleFlight::new);
+    }
+
+    public List<SingleFlight.Stats> getAllStats() {
+        return flights.values().stream()
+                .map(SingleFlight::getStats)
+                .sorted(Comparator.comparing(SingleFlight.Stats::name))
+                .toList();
+    }
+}
@@ -1,11 +1,14 @@
 package com.github.winefoxbot.core.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.github.winefoxbot.core.model.dto.MessageSearchQuery;
 import com.github.winefoxbot.core.model.entity.ShiroMessage;
 import com.github.winefoxbot.core.model.entity.ShiroUserMessage;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -21,9 +24,21 @@ public interface ShiroMessagesMapper extends BaseMapper<ShiroMessage> {
      *
      * @param sessionId     ID
      * @param messageType  訊息類型
+     * @param since        只查詢該時間之後的訊息，為 null 時不限制
+     * @param until        只查詢該時間之前的訊息，為 null 時不限制
      * @return 包含詳細訊息的列表
      */
-    List<ShiroUserMessage> selectUserMessages(@Param("sessionId") Long sessionId , @Param("messageType") MessageType messageType, @Param("limit") int limit);
+    List<ShiroUserMessage> selectUserMessages(@Param("sessionId") Long sessionId , @Param("messageType") MessageType messageType, @Param("limit") int limit,
+                                              @Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+    /**
+     * 搜索消息，按時間倒序分頁
+     *
+     * @param page  分頁參數
+     * @param query 搜索條件，tokens 和 likePattern 需已填充
+     * @return 分頁結果
+     */
+    IPage<ShiroUserMessage> searchMessages(IPage<ShiroUserMessage> page, @Param("q") MessageSearchQuery query);
 }
 
 
@@ -0,0 +1,65 @@
+package com.github.winefoxbot.core.model.dto;
+
+import com.github.winefoxbot.core.model.enums.common.MessageType;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息搜索条件
+ * <p>
+ * keyword 为必填，其余条件为空时不过滤。
+ */
+@Data
+public class MessageSearchQuery {
+
+    /**
+     * 搜索关键词
+     */
+    private String keyword;
+
+    /**
+     * 是否同时进行模糊匹配（子串和相似度），关闭时只按分词全文匹配
+     */
+    private boolean fuzzy;
+
+    /**
+     * 会话 ID（群号或私聊对象）
+     */
+    private Long sessionId;
+
+    /**
+     * 发送者 QQ 号
+     */
+    private Long userId;
+
+    /**
+     * Bot QQ 号
+     */
+    private Long selfId;
+
+    /**
+     * 会话类型
+     */
+    private MessageType messageType;
+
+    /**
+     * 起始时间（含），带上时间范围可以只扫描相关分区
+     */
+    private LocalDateTime since;
+
+    /**
+     * 结束时间（不含）
+     */
+    private LocalDateTime until;
+
+    /**
+     * 关键词分词结果，由服务层填充
+     */
+    private String tokens;
+
+    /**
+     * 子串匹配用的 ILIKE 模式，由服务层填充
+     */
+    private String likePattern;
+}
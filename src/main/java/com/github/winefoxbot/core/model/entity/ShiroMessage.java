@@ -2,6 +2,7 @@ package com.github.winefoxbot.core.model.entity;
 
 import cn.hutool.json.JSONArray;
 import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.github.winefoxbot.core.model.enums.common.MessageDirection;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
 import com.github.winefoxbot.core.model.type.PGJsonTypeHandler;
@@ -70,4 +71,10 @@ public class ShiroMessage {
      */
     private String plainText;
 
+    /**
+     * 全文检索用的分词文本（空格分隔），保存时由服务层生成
+     */
+    @JsonIgnore
+    private String searchTokens;
+
 }
\ No newline at end of file
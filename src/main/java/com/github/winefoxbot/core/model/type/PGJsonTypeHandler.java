@@ -12,18 +12,21 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 /**
- * PGJsonTypeHandler:处理Object对象类型与postgresql中JSON类型之间的转换
+ * PGJsonTypeHandler:处理Object对象类型与postgresql中JSON/JSONB类型之间的转换
+ * <p>
+ * 参数以 jsonb 类型绑定（shiro_messages.message 已迁移为 JSONB），读取时两种类型都按字符串解析。
  * @param <T>
  */
 @SuppressWarnings("unchecked")
 @MappedTypes(value = {Object.class})
 public class PGJsonTypeHandler<T extends Object> extends BaseTypeHandler<T> {
-    private static final PGobject pgObject = new PGobject();
 
     @Override
     public void setNonNullParameter(PreparedStatement preparedStatement, int i, T parameter, JdbcType jdbcType) throws SQLException {
         if (preparedStatement != null) {
-            pgObject.setType("json");
+            // PGobject 有状态，不能在多个线程间共享
+            PGobject pgObject = new PGobject();
+            pgObject.setType("jsonb");
             pgObject.setValue(JSONUtil.toJsonStr(parameter));
             preparedStatement.setObject(i, pgObject);
         }
@@ -0,0 +1,10 @@
+package com.github.winefoxbot.core.model.vo.webui.req.filemanager;
+
+// 分段保存文本请求：用 content 替换文件中 [offset, offset + originalLength) 的字节
+public record SaveFileChunkRequest(
+    String path,
+    long offset,
+    long originalLength,
+    String content,
+    String etag         // 读取该段时返回的 etag，文件已被修改时拒绝保存
+) {}
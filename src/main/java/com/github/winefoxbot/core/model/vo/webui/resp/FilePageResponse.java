@@ -0,0 +1,11 @@
+package com.github.winefoxbot.core.model.vo.webui.resp;
+
+import java.util.List;
+
+// 分页文件列表响应
+public record FilePageResponse(
+    List<FileItemResponse> items,  // 当前页
+    String nextCursor,             // 下一页游标，没有更多时为 null
+    int total,                     // 过滤后的条目总数
+    boolean hasMore                // 是否还有下一页
+) {}
@@ -0,0 +1,13 @@
+package com.github.winefoxbot.core.model.vo.webui.resp;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// 系统监控推送帧；增量帧中未变化的指标为 null，不会被序列化
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TelemetryFrameResponse(
+    long seq,            // 采样序号，单调递增
+    long timestamp,      // 采样时间（毫秒）
+    Double cpuUsage,     // CPU 使用率（百分比）
+    Double memoryUsage,  // 内存使用率（百分比）
+    Double diskUsage     // 磁盘使用率（百分比）
+) {}
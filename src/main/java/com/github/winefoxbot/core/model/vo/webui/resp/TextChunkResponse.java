@@ -0,0 +1,12 @@
+package com.github.winefoxbot.core.model.vo.webui.resp;
+
+// 文本文件分段读取响应
+public record TextChunkResponse(
+    String content,     // 本段文本
+    long offset,        // 本段起始字节偏移（已对齐到字符边界）
+    long length,        // 本段字节数，保存本段时作为 originalLength 传回
+    long nextOffset,    // 下一段的起始字节偏移
+    long fileSize,      // 文件总字节数
+    boolean eof,        // 是否已读到文件末尾
+    String etag         // 读取时的文件版本，保存本段时原样传回
+) {}
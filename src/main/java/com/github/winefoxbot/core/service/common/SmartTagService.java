@@ -23,6 +23,9 @@ public class SmartTagService {
     // 分隔符正则
     private static final String SEPARATOR_REGEX = "[\\s,，|;；、]+";
 
+    // 标点、符号和空白
+    private static final Pattern PUNCTUATION = Pattern.compile("[\\p{P}\\p{S}\\s]+");
+
     /**
      * 提供给外部添加词汇的方法 (供初始化器调用)
      */
@@ -62,6 +65,22 @@ public class SmartTagService {
         return analyzeSmartSegment(rawParts.get(0));
     }
 
+    /**
+     * 生成全文检索用的分词文本：HanLP 分词后去掉标点和空白，转小写，以空格连接
+     * <p>
+     * 数据库用 'simple' 配置按空格切分建立 tsvector，写入和查询使用同一套分词，中文也能按词匹配。
+     */
+    public String toSearchTokens(String text) {
+        if (StrUtil.isBlank(text)) return "";
+        StringJoiner joiner = new StringJoiner(" ");
+        for (Term term : HanLP.segment(text)) {
+            String word = term.word.trim();
+            if (word.isEmpty() || PUNCTUATION.matcher(word).matches()) continue;
+            joiner.add(word.toLowerCase(Locale.ROOT));
+        }
+        return joiner.toString();
+    }
+
     private List<String> analyzeSmartSegment(String text) {
         // 白名单检查 (忽略大小写)
         if (protectedIps.contains(text) || protectedIps.contains(text.toLowerCase())) {
@@ -1,20 +1,27 @@
 package com.github.winefoxbot.core.service.helpdoc.impl;
 
 import cn.hutool.core.convert.NumberChineseFormatter;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.winefoxbot.core.init.HelpDocLoader;
 import com.github.winefoxbot.core.model.dto.HelpData;
 import com.github.winefoxbot.core.model.dto.HelpGroup;
 import com.github.winefoxbot.core.service.file.FileStorageService;
 import com.github.winefoxbot.core.service.helpdoc.HelpImageService;
 import com.github.winefoxbot.core.utils.Base64Utils;
+import com.github.winefoxbot.core.utils.DynamicResourceLoader;
+import com.google.common.util.concurrent.Striped;
 import com.microsoft.playwright.*;
 import com.microsoft.playwright.options.ScreenshotType;
 import com.microsoft.playwright.options.WaitForSelectorState;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
@@ -23,10 +30,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -45,41 +51,61 @@ public class HelpImageServiceImpl implements HelpImageService {
     private final ResourcePatternResolver resourceResolver;
     private final Browser browser;
     private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
     private static final String HTML_TEMPLATE = "help_report/main";
+    private static final String HTML_TEMPLATE_FILE = "templates/help_report/main.html";
     private static final String RESOURCE_BASE_PATH = "templates/help_report/res";
     private static final String CACHE_PARENT_DIR = "help";
-    private final Lock generateHelpLock = new ReentrantLock();
+    private static final String ALL_HELP_IMAGE_NAME = "all_help_image.png";
+    private static final int FINGERPRINT_LENGTH = 16;
 
-    @PostConstruct
-    private void clearHelpFolder() {
+    /**
+     * 按缓存 Key 加锁，不同分组的渲染互不阻塞
+     */
+    private final Striped<Lock> generateHelpLocks = Striped.lock(32);
+
+    /**
+     * 模板资源（Base64 data-uri）只在首次渲染前加载一次
+     */
+    private volatile Map<String, String> templateResources;
+
+    /**
+     * 当前帮助数据 + 模板资源的指纹，作为缓存目录名
+     */
+    private volatile String fingerprint;
+
+    /**
+     * 帮助文档加载完成后，在后台清理旧指纹的缓存并预渲染全部帮助图片。
+     * 缓存目录以指纹命名，指纹不变时重启后直接复用磁盘上的图片。
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void preRenderHelpImages() {
+        String currentFingerprint = currentFingerprint();
+        removeStaleCaches(currentFingerprint);
+
+        HelpData allHelpData = helpDocLoader.getSortedHelpData();
+        int rendered = 0;
         try {
-            fileStorageService.deleteDirectory(CACHE_PARENT_DIR);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            if (getOrRender(cacheKey(ALL_HELP_IMAGE_NAME), () -> allHelpData).rendered()) {
+                rendered++;
+            }
+            if (allHelpData.getGroups() != null) {
+                for (HelpGroup group : allHelpData.getGroups()) {
+                    if (getOrRender(groupCacheKey(group), () -> singleGroupData(allHelpData, group)).rendered()) {
+                        rendered++;
+                    }
+                }
+            }
+            log.info("帮助图片预渲染完成，指纹: {}，新渲染 {} 张", currentFingerprint, rendered);
+        } catch (Exception e) {
+            log.error("帮助图片预渲染失败", e);
         }
     }
 
     @Override
     public byte[] generateAllHelpImage() {
-
-        String cacheKey = CACHE_PARENT_DIR + "/all_help_image.png";
-        byte[] cachedImage = fileStorageService.getFileByCacheKey(cacheKey);
-        if (cachedImage != null) {
-            return cachedImage;
-        }
-        generateHelpLock.lock();
-        try {
-            cachedImage = fileStorageService.getFileByCacheKey(cacheKey);
-            if (cachedImage != null) {
-                return cachedImage;
-            }
-            HelpData allHelpData = helpDocLoader.getSortedHelpData();
-            byte[] image = renderHelpImage(allHelpData);
-            fileStorageService.saveFileByCacheKey(cacheKey, image, Duration.ofDays(1));
-            return image;
-        } finally {
-            generateHelpLock.unlock();
-        }
+        return getOrRender(cacheKey(ALL_HELP_IMAGE_NAME), helpDocLoader::getSortedHelpData).image();
     }
 
     @Override
@@ -101,38 +127,124 @@ public class HelpImageServiceImpl implements HelpImageService {
         if (targetGroupOpt.isEmpty()) return null;
 
         HelpGroup targetGroup = targetGroupOpt.get();
-        String normalizedGroupName = targetGroup.getName().trim().toLowerCase();
 
-        // 3. 构建统一的 Cache Key (始终使用组名，而非输入的数字)
-        String cacheKey = String.format("%s/group_%s.png", CACHE_PARENT_DIR, normalizedGroupName);
+        // 3. 构建统一的 Cache Key (始终使用组名，而非输入的数字)，并按 Key 加锁生成
+        return getOrRender(groupCacheKey(targetGroup), () -> singleGroupData(allHelpData, targetGroup)).image();
+    }
 
-        // 4. 尝试从缓存获取
-        byte[] cachedImage = fileStorageService.getFileByCacheKey(cacheKey);
-        if (cachedImage != null) return cachedImage;
+    /**
+     * @param image    图片字节
+     * @param rendered 是否为本次新渲染
+     */
+    private record RenderResult(byte[] image, boolean rendered) {
+    }
 
-        // 5. 双重检查锁生成图片
-        generateHelpLock.lock();
+    /**
+     * 先查缓存，未命中时按 Key 加锁并二次检查后渲染
+     */
+    private RenderResult getOrRender(String cacheKey, Supplier<HelpData> dataSupplier) {
+        byte[] cachedImage = fileStorageService.getFileByCacheKey(cacheKey);
+        if (cachedImage != null) {
+            return new RenderResult(cachedImage, false);
+        }
+        Lock lock = generateHelpLocks.get(cacheKey);
+        lock.lock();
         try {
-            // 二次检查缓存
             cachedImage = fileStorageService.getFileByCacheKey(cacheKey);
             if (cachedImage != null) {
-                return cachedImage;
+                return new RenderResult(cachedImage, false);
             }
+            byte[] image = renderHelpImage(dataSupplier.get());
+            // 缓存由指纹目录区分版本，不设置过期时间
+            fileStorageService.saveFileByCacheKey(cacheKey, image, null);
+            return new RenderResult(image, true);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            // 构造仅包含该组的数据对象
-            HelpData singleGroupData = new HelpData();
-            singleGroupData.setDefaultIcon(allHelpData.getDefaultIcon());
-            singleGroupData.setGroups(List.of(targetGroup));
+    private HelpData singleGroupData(HelpData allHelpData, HelpGroup targetGroup) {
+        // 构造仅包含该组的数据对象
+        HelpData singleGroupData = new HelpData();
+        singleGroupData.setDefaultIcon(allHelpData.getDefaultIcon());
+        singleGroupData.setGroups(List.of(targetGroup));
+        return singleGroupData;
+    }
 
-            // 渲染图片
-            byte[] image = renderHelpImage(singleGroupData);
+    private String groupCacheKey(HelpGroup group) {
+        return cacheKey("group_" + group.getName().trim().toLowerCase() + ".png");
+    }
 
-            // 存入缓存
-            fileStorageService.saveFileByCacheKey(cacheKey, image, Duration.ofDays(1));
-            return image;
-        } finally {
-            generateHelpLock.unlock();
+    private String cacheKey(String fileName) {
+        return CACHE_PARENT_DIR + "/" + currentFingerprint() + "/" + fileName;
+    }
+
+    /**
+     * 计算帮助数据（插件注解 + help-docs.json）与模板资源的指纹
+     */
+    private String currentFingerprint() {
+        String current = fingerprint;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (fingerprint == null) {
+                StringBuilder source = new StringBuilder();
+                try {
+                    source.append(objectMapper.writeValueAsString(helpDocLoader.getSortedHelpData()));
+                } catch (JsonProcessingException e) {
+                    log.warn("序列化帮助数据失败，指纹仅基于模板资源计算", e);
+                }
+                source.append('\n').append(readTemplateSource());
+                new TreeMap<>(getTemplateResources()).forEach((key, value) ->
+                        source.append('\n').append(key).append('=').append(value));
+                fingerprint = DigestUtil.sha256Hex(source.toString()).substring(0, FINGERPRINT_LENGTH);
+            }
+            return fingerprint;
+        }
+    }
+
+    private String readTemplateSource() {
+        try {
+            return DynamicResourceLoader.getResourceAsString(HTML_TEMPLATE_FILE);
+        } catch (RuntimeException e) {
+            log.warn("读取帮助模板失败: {}", e.getMessage());
+            return "";
+        }
+    }
+
+    /**
+     * 删除 help 目录下不属于当前指纹的缓存（包括旧版本直接存放在 help 目录下的图片）
+     */
+    private void removeStaleCaches(String currentFingerprint) {
+        try {
+            for (Path path : fileStorageService.listFiles(CACHE_PARENT_DIR)) {
+                if (path.getFileName().toString().equals(currentFingerprint)) {
+                    continue;
+                }
+                if (Files.isDirectory(path)) {
+                    fileStorageService.deleteDirectory(path);
+                } else {
+                    fileStorageService.deleteFile(path, null);
+                }
+                log.info("已清理过期的帮助图片缓存: {}", path.getFileName());
+            }
+        } catch (IOException e) {
+            log.warn("清理过期的帮助图片缓存失败", e);
+        }
+    }
+
+    private Map<String, String> getTemplateResources() {
+        Map<String, String> resources = templateResources;
+        if (resources == null) {
+            synchronized (this) {
+                if (templateResources == null) {
+                    templateResources = Map.copyOf(loadResourcesAsDataUri(RESOURCE_BASE_PATH));
+                }
+                resources = templateResources;
+            }
         }
+        return resources;
     }
 
     /**
@@ -182,8 +294,7 @@ public class HelpImageServiceImpl implements HelpImageService {
         Context context = new Context();
         context.setVariable("help_data", helpData);
         context.setVariable("hint_text", "具体命令参数请查看详细说明或咨询管理员。");
-        Map<String, String> res = loadResourcesAsDataUri(RESOURCE_BASE_PATH);
-        context.setVariable("res", res);
+        context.setVariable("res", getTemplateResources());
         String htmlContent = templateEngine.process(HTML_TEMPLATE, context);
         try (BrowserContext browserContext = browser.newContext(
                 new Browser.NewContextOptions()
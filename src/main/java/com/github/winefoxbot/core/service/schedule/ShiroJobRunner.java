@@ -16,19 +16,38 @@ import org.jobrunr.jobs.annotations.Job;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.ResolvableType;
 import org.springframework.stereotype.Component; // 使用 Component 即可
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 /**
  * 专门供 JobRunr 调用的任务执行代理
  * 它的作用是：JobRunr -> ShiroJobRunner -> BotJobHandler (你的业务逻辑)
+ * <p>
+ * 同一时刻可能有上百个群的任务一起触发，Handler 实例、run 方法的参数类型和插件配置
+ * 按 Handler 类只解析一次；任务配置由 {@link ShiroScheduleTaskService#getTaskConfig} 从内存中读取。
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ShiroJobRunner {
 
+    /**
+     * Handler 类的执行元数据
+     *
+     * @param handler       Handler 实例
+     * @param parameterType run 方法的参数类型，无法解析泛型时为 Object
+     * @param config        Handler 提供的插件配置
+     */
+    private record HandlerMetadata(BotJobHandler<?, ? extends BasePluginConfig> handler,
+                                   Class<?> parameterType,
+                                   BasePluginConfig config) {
+    }
+
+    private final ConcurrentHashMap<Class<?>, HandlerMetadata> handlerMetadataCache = new ConcurrentHashMap<>();
+
     private final BotContainer botContainer;
     private final ApplicationContext applicationContext;
     private final ObjectMapper objectMapper;
@@ -56,10 +75,11 @@ public class ShiroJobRunner {
 
         try {
             executeInternal(botId, targetType, targetId, handlerClass.getSimpleName(), bot -> {
-                // 1. 获取 Handler 实例
-                BotJobHandler<?,? extends BasePluginConfig> handler = getHandlerInstance(handlerClass);
+                // 1. 获取 Handler 元数据 (实例、参数类型、配置)
+                HandlerMetadata metadata = handlerMetadataCache.computeIfAbsent(handlerClass, this::resolveHandlerMetadata);
+                BotJobHandler<?,? extends BasePluginConfig> handler = metadata.handler();
                 // 2. 参数转换
-                Object typedParam = convertParameter(handler, parameter);
+                Object typedParam = convertParameter(metadata.parameterType(), parameter);
                 // 3. 准备上下文数据
                 // 构造虚拟 Event
                 var virtualEvent = switch (targetType) {
@@ -68,8 +88,8 @@ public class ShiroJobRunner {
                 };
 
 
-                // 获取 Handler 提供的 Config (利用默认方法，可能是 None)
-                BasePluginConfig config = handler.getPluginConfig();
+                // Handler 提供的 Config (利用默认方法，可能是 None)
+                BasePluginConfig config = metadata.config();
 
                 // 4. 【核心】自动绑定 ScopedValue 并执行
                 // 利用 BotContext 里我们之前写的辅助方法，或者直接在这里 where
@@ -107,30 +127,20 @@ public class ShiroJobRunner {
     /**
      * 参数类型转换器
      */
-    private Object convertParameter(BotJobHandler<?,? extends BasePluginConfig> handler, Object rawParam) {
+    private Object convertParameter(Class<?> targetType, Object rawParam) {
         if (rawParam == null) {
             return null;
         }
 
-        // 1. 反射分析 Handler 的 run 方法参数类型
-        Class<?> targetType = Object.class;
-        for (var method : handler.getClass().getMethods()) {
-            if ("run".equals(method.getName()) && method.getParameterCount() == 3) {
-                // run(Bot bot, Long targetId, T parameter) -> 第三个参数下标是 2
-                targetType = method.getParameterTypes()[2];
-                break;
-            }
-        }
-
-        // 2. 如果已经是目标类型，直接返回
+        // 1. 如果已经是目标类型，直接返回
         if (targetType.isInstance(rawParam)) {
             return rawParam;
         }
 
-        // 3. 如果是 JSON 字符串，先尝试解析 (根据情况可选)
+        // 2. 如果是 JSON 字符串，先尝试解析 (根据情况可选)
         // if (rawParam instanceof String strParam && !targetType.equals(String.class)) { ... }
 
-        // 4. 使用 Jackson 进行 Convert (处理 Map -> DTO 的情况)
+        // 3. 使用 Jackson 进行 Convert (处理 Map -> DTO 的情况)
         try {
             return objectMapper.convertValue(rawParam, targetType);
         } catch (IllegalArgumentException e) {
@@ -139,6 +149,28 @@ public class ShiroJobRunner {
         }
     }
 
+    /**
+     * 解析 Handler 类的执行元数据，每个类只在第一次执行时解析一次
+     */
+    private HandlerMetadata resolveHandlerMetadata(Class<?> handlerClass) {
+        @SuppressWarnings("unchecked")
+        var typedClass = (Class<? extends BotJobHandler<?, ? extends BasePluginConfig>>) handlerClass;
+        BotJobHandler<?, ? extends BasePluginConfig> handler = getHandlerInstance(typedClass);
+
+        // 1. 从 BotJobHandler<P, C> 的泛型声明中解析 run 方法的参数类型 P
+        Class<?> parameterType = ResolvableType.forClass(handler.getClass())
+                .as(BotJobHandler.class)
+                .resolveGeneric(0);
+        if (parameterType == null) {
+            parameterType = Object.class;
+        }
+
+        // 2. 插件配置是单例 Bean（或默认的 None），引用不会变化
+        BasePluginConfig config = handler.getPluginConfig();
+        log.debug("已解析任务 Handler [{}]: 参数类型 {}", handlerClass.getSimpleName(), parameterType.getSimpleName());
+        return new HandlerMetadata(handler, parameterType, config);
+    }
+
     /**
      * 获取 Handler 实例 (优先 Spring 容器，其次反射)
      */
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.github.winefoxbot.core.annotation.schedule.BotTask;
 import com.github.winefoxbot.core.config.plugin.BasePluginConfig;
 import com.github.winefoxbot.core.init.BotTaskRegistry;
+import com.github.winefoxbot.core.manager.ExpiringStateRegistry;
 import com.github.winefoxbot.core.mapper.ShiroScheduleTaskMapper;
 import com.github.winefoxbot.core.model.entity.ShiroScheduleTask;
 import com.github.winefoxbot.core.model.enums.common.PushTargetType;
@@ -12,13 +13,20 @@ import com.github.winefoxbot.core.service.schedule.JobRunrScheduleTaskService;
 import com.github.winefoxbot.core.service.schedule.ShiroJobRunner;
 import com.github.winefoxbot.core.service.schedule.ShiroScheduleTaskService;
 import com.github.winefoxbot.core.service.schedule.handler.BotJobHandler;
+import com.google.common.cache.Cache;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jobrunr.jobs.lambdas.JobLambda;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 
 /**
  * 定时任务服务实现类
@@ -27,6 +35,9 @@ import java.util.List;
  * 1. 管理数据库中的任务配置 (CRUD)
  * 2. 对接 JobRunr 进行实际的调度控制 (Schedule/Delete/Trigger)
  * 3. 负责任务执行时的运行环境准备 (Bot实例获取、参数转换、异常处理)
+ * <p>
+ * 每次任务触发都要读取一次任务配置，这里按 JobId 把配置缓存在内存中（不存在的任务也会缓存），
+ * 本类中新增、修改、删除任务时会同步失效对应的缓存；直接修改数据库的情况由过期时间兜底。
  *
  * @author FlanChan
  */
@@ -41,6 +52,17 @@ public class ShiroScheduleTaskServiceImpl extends ServiceImpl<ShiroScheduleTaskM
     private final BotTaskRegistry taskRegistry;
 
     private final ShiroJobRunner shiroJobRunner;
+
+    private final ExpiringStateRegistry stateRegistry;
+
+    // JobId -> 任务配置，Optional.empty() 表示数据库中没有这个任务
+    private Cache<String, Optional<ShiroScheduleTask>> taskConfigCache;
+
+    @PostConstruct
+    public void initTaskConfigCache() {
+        taskConfigCache = stateRegistry.expireAfterWrite("schedule:task-config", 20_000, Duration.ofMinutes(10));
+    }
+
     // ==================== 1. 核心调度入口 (WebUI 创建/更新) ====================
 
     /**
@@ -174,6 +196,7 @@ public class ShiroScheduleTaskServiceImpl extends ServiceImpl<ShiroScheduleTaskM
         }
 
         this.updateById(task);
+        evictTaskConfig(jobId);
     }
 
     // ==================== 4. 任务取消 (彻底删除) ====================
@@ -188,6 +211,7 @@ public class ShiroScheduleTaskServiceImpl extends ServiceImpl<ShiroScheduleTaskM
 
         // 2. 数据库删除
         var removed = this.remove(buildWrapper(botId, targetType, targetId, taskName));
+        evictTaskConfig(jobId);
 
         if (removed) {
             log.info("任务已彻底删除: {}", jobId);
@@ -204,13 +228,20 @@ public class ShiroScheduleTaskServiceImpl extends ServiceImpl<ShiroScheduleTaskM
 
     @Override
     public ShiroScheduleTask getTaskConfig(Long botId, PushTargetType targetType, Long targetId, String taskName) {
-        return this.getOne(buildWrapper(botId, targetType, targetId, taskName));
+        String jobId = generateJobId(botId, targetType, targetId, taskName);
+        try {
+            return taskConfigCache.get(jobId,
+                    () -> Optional.ofNullable(this.getOne(buildWrapper(botId, targetType, targetId, taskName))))
+                    .orElse(null);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("读取任务配置失败: " + jobId, e.getCause());
+        }
     }
 
 
     @Override
     public ShiroScheduleTask getTaskConfig(Long botId, PushTargetType targetType, Long targetId, Class<? extends BotJobHandler<?,? extends BasePluginConfig>> handlerClass) {
-        return this.getOne(buildWrapper(botId, targetType, targetId, resolveTaskKey(handlerClass)));
+        return getTaskConfig(botId, targetType, targetId, resolveTaskKey(handlerClass));
     }
 
 
@@ -242,6 +273,23 @@ public class ShiroScheduleTaskServiceImpl extends ServiceImpl<ShiroScheduleTaskM
                 .eq(ShiroScheduleTask::getTaskType, taskType);
     }
 
+    /**
+     * 失效任务配置缓存
+     * <p>
+     * 事务提交前其他线程仍可能读到旧数据并重新缓存，所以事务结束后再失效一次
+     */
+    private void evictTaskConfig(String jobId) {
+        taskConfigCache.invalidate(jobId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    taskConfigCache.invalidate(jobId);
+                }
+            });
+        }
+    }
+
     private void upsertTaskRecord(Long botId, PushTargetType targetType, Long targetId, String taskKey,
                                   Object taskParam, String cron, String desc, boolean isEnabled) {
         ShiroScheduleTask task = this.getOne(buildWrapper(botId, targetType, targetId, taskKey));
@@ -261,6 +309,7 @@ public class ShiroScheduleTaskServiceImpl extends ServiceImpl<ShiroScheduleTaskM
         task.setIsEnabled(isEnabled);
 
         this.saveOrUpdate(task);
+        evictTaskConfig(generateJobId(botId, targetType, targetId, taskKey));
     }
 
     private String formatDesc(PushTargetType targetType, Long targetId, Class<?> handlerClass, String taskKey) {
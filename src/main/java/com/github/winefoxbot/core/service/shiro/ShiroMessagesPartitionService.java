@@ -0,0 +1,23 @@
+package com.github.winefoxbot.core.service.shiro;
+
+import java.util.List;
+
+/**
+ * shiro_messages 分区维护
+ *
+ * @author FlanChan
+ */
+public interface ShiroMessagesPartitionService {
+
+    /**
+     * 执行一次维护：创建未来分区、移出过期分区、按 Bot 的保留天数清理旧消息
+     */
+    void maintain();
+
+    /**
+     * 当前挂载在 shiro_messages 上的月分区名，按时间先后排列
+     *
+     * @return 分区表名列表
+     */
+    List<String> listPartitions();
+}
@@ -1,6 +1,8 @@
 package com.github.winefoxbot.core.service.shiro;
 
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.github.winefoxbot.core.model.dto.MessageSearchQuery;
 import com.github.winefoxbot.core.model.entity.ShiroMessage;
 import com.github.winefoxbot.core.model.entity.ShiroUserMessage;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
@@ -39,4 +41,21 @@ public interface ShiroMessagesService extends IService<ShiroMessage> {
      * @return
      */
     boolean removeByMessageId(Integer messageId);
+
+    /**
+     * 搜索消息，按时间倒序分页
+     *
+     * @param query 搜索条件
+     * @param page  页码，从 1 开始
+     * @param size  每页条数
+     * @return 分页结果
+     */
+    Page<ShiroUserMessage> searchMessages(MessageSearchQuery query, long page, long size);
+
+    /**
+     * 为尚未分词的历史消息补齐检索分词
+     *
+     * @return 本次补齐的消息数
+     */
+    int backfillSearchTokens();
 }
@@ -0,0 +1,151 @@
+package com.github.winefoxbot.core.service.shiro.impl;
+
+import com.github.winefoxbot.core.config.app.WineFoxBotDatabaseProperties;
+import com.github.winefoxbot.core.service.shiro.ShiroMessagesPartitionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * shiro_messages 按月分区的维护任务
+ * <p>
+ * 每天执行一次（启动完成后也会执行一次）：
+ * <ul>
+ *     <li>提前创建未来几个月的分区，避免新消息落入默认分区</li>
+ *     <li>整月早于全局保留期的分区从分区表中分离，按配置删除或保留为独立表</li>
+ *     <li>配置了更短保留天数的 Bot，按天删除其旧消息；条件带时间范围，只会扫描相关的旧分区</li>
+ * </ul>
+ *
+ * @author FlanChan
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ShiroMessagesPartitionServiceImpl implements ShiroMessagesPartitionService {
+
+    private static final String TABLE = "shiro_messages";
+    private static final Pattern PARTITION_NAME = Pattern.compile("^" + TABLE + "_(\\d{4})_(\\d{2})$");
+    private static final DateTimeFormatter SUFFIX_FORMATTER = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcClient jdbcClient;
+    private final WineFoxBotDatabaseProperties databaseProperties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${winefoxbot.database.messages.maintenance-cron:0 10 4 * * ?}")
+    @Override
+    public synchronized void maintain() {
+        WineFoxBotDatabaseProperties.Messages config = databaseProperties.getMessages();
+        YearMonth current = YearMonth.now();
+        try {
+            createFuturePartitions(current, Math.max(1, config.getPartitionAheadMonths()));
+            if (config.getRetentionMonths() > 0) {
+                removeExpiredPartitions(current.minusMonths(config.getRetentionMonths()), config.isDropExpiredPartitions());
+            }
+            purgeBotMessages(config.getBotRetentionDays());
+            warnIfDefaultPartitionUsed();
+        } catch (Exception e) {
+            log.error("消息表分区维护失败: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<String> listPartitions() {
+        return jdbcClient.sql("""
+                        SELECT c.relname
+                        FROM pg_inherits i
+                                 JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'shiro_messages'::regclass
+                        ORDER BY c.relname
+                        """)
+                .query(String.class)
+                .list()
+                .stream()
+                .filter(name -> PARTITION_NAME.matcher(name).matches())
+                .toList();
+    }
+
+    private void createFuturePartitions(YearMonth current, int aheadMonths) {
+        for (int i = 0; i <= aheadMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            // 表名和边界均由日期生成，不含外部输入
+            jdbcClient.sql("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE
+                            + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')")
+                    .update();
+        }
+    }
+
+    /**
+     * 移出早于 cutoff（不含）月份的分区
+     */
+    private void removeExpiredPartitions(YearMonth cutoff, boolean drop) {
+        for (String name : listPartitions()) {
+            YearMonth month = parseMonth(name);
+            if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            }
+            jdbcClient.sql("ALTER TABLE " + TABLE + " DETACH PARTITION " + name).update();
+            if (drop) {
+                jdbcClient.sql("DROP TABLE IF EXISTS " + name).update();
+                log.info("已删除过期消息分区: {}", name);
+            } else {
+                log.info("已分离过期消息分区: {}（数据表保留，可手动归档或删除）", name);
+            }
+        }
+    }
+
+    private void purgeBotMessages(Map<Long, Integer> botRetentionDays) {
+        for (Map.Entry<Long, Integer> entry : botRetentionDays.entrySet()) {
+            Integer days = entry.getValue();
+            if (entry.getKey() == null || days == null || days <= 0) {
+                continue;
+            }
+            LocalDateTime cutoff = LocalDate.now().minusDays(days).atStartOfDay();
+            int deleted = jdbcClient.sql("DELETE FROM " + TABLE + " WHERE self_id = :botId AND time < :cutoff")
+                    .param("botId", entry.getKey())
+                    .param("cutoff", cutoff)
+                    .update();
+            if (deleted > 0) {
+                log.info("已清理 Bot {} 早于 {} 的消息 {} 条", entry.getKey(), cutoff, deleted);
+            }
+        }
+    }
+
+    private void warnIfDefaultPartitionUsed() {
+        Boolean hasRows = jdbcClient.sql("SELECT EXISTS (SELECT 1 FROM " + TABLE + "_default)")
+                .query(Boolean.class)
+                .single();
+        if (Boolean.TRUE.equals(hasRows)) {
+            log.warn("消息默认分区 {}_default 中存在数据，说明有消息未落入月分区，请检查分区维护是否正常", TABLE);
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return TABLE + "_" + month.format(SUFFIX_FORMATTER);
+    }
+
+    private static YearMonth parseMonth(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
@@ -1,15 +1,24 @@
 package com.github.winefoxbot.core.service.shiro.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.github.winefoxbot.core.mapper.ShiroMessagesMapper;
+import com.github.winefoxbot.core.model.dto.MessageSearchQuery;
 import com.github.winefoxbot.core.model.entity.ShiroMessage;
 import com.github.winefoxbot.core.model.entity.ShiroUserMessage;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
+import com.github.winefoxbot.core.service.common.SmartTagService;
 import com.github.winefoxbot.core.service.shiro.ShiroMessagesService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -17,11 +26,27 @@ import java.util.List;
  * @description 针对表【shiro_messages】的数据库操作Service实现
  * @createDate 2025-12-20 07:46:49
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ShiroMessagesServiceImpl extends ServiceImpl<ShiroMessagesMapper, ShiroMessage>
         implements ShiroMessagesService {
 
+    private static final long MAX_SEARCH_PAGE_SIZE = 100;
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final SmartTagService smartTagService;
+
+    /**
+     * 保存前生成检索分词
+     */
+    @Override
+    public boolean save(ShiroMessage entity) {
+        if (entity.getSearchTokens() == null) {
+            entity.setSearchTokens(smartTagService.toSearchTokens(entity.getPlainText()));
+        }
+        return super.save(entity);
+    }
 
     @Override
     public void clearConversation(Long sessionId, MessageType messageType) {
@@ -31,9 +56,19 @@ public class ShiroMessagesServiceImpl extends ServiceImpl<ShiroMessagesMapper, S
         this.remove(queryWrapper);
     }
 
+    /**
+     * 先只查最近的分区（本月和上月），条数不足时再查全部历史
+     */
     @Override
-        public List<ShiroUserMessage> findLatestMessagesForContext(Long sessionId, MessageType messageType, int limit) {
-        return this.baseMapper.selectUserMessages(sessionId,messageType,limit);
+    public List<ShiroUserMessage> findLatestMessagesForContext(Long sessionId, MessageType messageType, int limit) {
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+        LocalDateTime since = monthStart.minusMonths(1).atStartOfDay();
+        LocalDateTime until = monthStart.plusMonths(1).atStartOfDay();
+        List<ShiroUserMessage> recent = this.baseMapper.selectUserMessages(sessionId, messageType, limit, since, until);
+        if (recent.size() >= limit) {
+            return recent;
+        }
+        return this.baseMapper.selectUserMessages(sessionId, messageType, limit, null, null);
     }
 
     @Override
@@ -42,6 +77,68 @@ public class ShiroMessagesServiceImpl extends ServiceImpl<ShiroMessagesMapper, S
         queryWrapper.eq(ShiroMessage::getMessageId,messageId);
         return this.remove(queryWrapper);
     }
+
+    @Override
+    public Page<ShiroUserMessage> searchMessages(MessageSearchQuery query, long page, long size) {
+        String keyword = query.getKeyword() == null ? "" : query.getKeyword().trim();
+        if (keyword.isEmpty()) {
+            throw new IllegalArgumentException("搜索关键词不能为空");
+        }
+        query.setKeyword(keyword);
+        String tokens = smartTagService.toSearchTokens(keyword);
+        query.setTokens(tokens.isEmpty() ? keyword : tokens);
+        query.setLikePattern("%" + escapeLike(keyword) + "%");
+        Page<ShiroUserMessage> pageParam = new Page<>(Math.max(1, page), Math.clamp(size, 1, MAX_SEARCH_PAGE_SIZE));
+        this.baseMapper.searchMessages(pageParam, query);
+        return pageParam;
+    }
+
+    /**
+     * 按主键顺序分批补齐，每批只扫描主键索引上的一小段
+     */
+    @Override
+    public int backfillSearchTokens() {
+        int total = 0;
+        Integer lastId = 0;
+        while (true) {
+            List<ShiroMessage> batch = this.lambdaQuery()
+                    .select(ShiroMessage::getId, ShiroMessage::getTime, ShiroMessage::getPlainText)
+                    .gt(ShiroMessage::getId, lastId)
+                    .isNull(ShiroMessage::getSearchTokens)
+                    .orderByAsc(ShiroMessage::getId)
+                    .last("LIMIT " + BACKFILL_BATCH_SIZE)
+                    .list();
+            if (batch.isEmpty()) {
+                return total;
+            }
+            for (ShiroMessage message : batch) {
+                this.lambdaUpdate()
+                        .set(ShiroMessage::getSearchTokens, smartTagService.toSearchTokens(message.getPlainText()))
+                        .eq(ShiroMessage::getId, message.getId())
+                        .eq(ShiroMessage::getTime, message.getTime())
+                        .update();
+            }
+            total += batch.size();
+            lastId = batch.getLast().getId();
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSearchTokensOnStartup() {
+        try {
+            int count = backfillSearchTokens();
+            if (count > 0) {
+                log.info("已为 {} 条历史消息补齐检索分词", count);
+            }
+        } catch (Exception e) {
+            log.warn("补齐历史消息检索分词失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private static String escapeLike(String keyword) {
+        return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
 
 
@@ -13,15 +13,12 @@ import com.mikuac.shiro.dto.event.message.GroupMessageEvent;
 import com.mikuac.shiro.dto.event.message.MessageEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
-import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
@@ -230,37 +227,26 @@ public class ShiroSafeSendMessageServiceImpl implements ShiroSafeSendMessageServ
         }
     }
 
+    /**
+     * 打包待发送文件：总大小超过阈值时打包为 ZIP，否则包装为 PDF。
+     * 两种方式都逐个文件流式写入磁盘，内存占用只与单个文件大小相关。
+     */
     private Path packFiles(List<Path> filePaths, String outputDir, String baseName) throws IOException {
-        long totalSize = filePaths.stream().mapToLong(p -> p.toFile().length()).sum();
-        File dir = new File(outputDir);
-        if (!dir.exists()) {
-            dir.mkdirs();
+        long totalSize = 0;
+        for (Path p : filePaths) {
+            if (Files.isRegularFile(p)) {
+                totalSize += Files.size(p);
+            }
         }
+        Files.createDirectories(Paths.get(outputDir));
 
         if (totalSize >= ZIP_THRESHOLD) {
             String zipName = baseName + "_" + UUID.randomUUID().toString().substring(0, 8) + ".zip";
             Path zipPath = Paths.get(outputDir, zipName);
-            createZip(filePaths, zipPath);
+            ZipUtil.zipFiles(filePaths, zipPath);
             return zipPath;
         } else {
             return PdfUtil.wrapImageIntoPdf(filePaths, outputDir + File.separator + baseName);
         }
     }
-
-    private void createZip(List<Path> files, Path zipFilePath) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(zipFilePath.toFile());
-             ZipArchiveOutputStream zaos = new ZipArchiveOutputStream(fos)) {
-            for (Path path : files) {
-                File file = path.toFile();
-                if (file.exists() && file.isFile()) {
-                    ZipArchiveEntry entry = new ZipArchiveEntry(file.getName());
-                    zaos.putArchiveEntry(entry);
-                    try (FileInputStream fis = new FileInputStream(file)) {
-                        fis.transferTo(zaos);
-                    }
-                    zaos.closeArchiveEntry();
-                }
-            }
-        }
-    }
 }
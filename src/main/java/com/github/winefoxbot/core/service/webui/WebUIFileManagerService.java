@@ -1,21 +1,29 @@
 package com.github.winefoxbot.core.service.webui;
 
+import com.github.winefoxbot.core.exception.common.FileVersionConflictException;
 import com.github.winefoxbot.core.model.vo.webui.resp.FileItemResponse;
+import com.github.winefoxbot.core.model.vo.webui.resp.FilePageResponse;
+import com.github.winefoxbot.core.model.vo.webui.resp.TextChunkResponse;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Stream;
 
 @Service
@@ -23,6 +31,76 @@ public class WebUIFileManagerService {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
 
+    /**
+     * 分段读取时单段的最大字节数
+     */
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * 分页列表单页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * 分段保存时按文件加锁，避免两次保存基于同一版本交错写入
+     */
+    private final Striped<Lock> saveLocks = Striped.lock(64);
+
+    /**
+     * 目录路径 -> 目录条目缓存，目录修改时间变化后失效
+     */
+    private final Cache<Path, DirListing> listingCache = CacheBuilder.newBuilder()
+            .maximumSize(32)
+            // 目录修改时间感知不到文件内容变化（大小、修改时间），外部修改最多延迟这么久可见
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 目录中的一个条目，大小和修改时间只在需要时读取
+     */
+    private static final class Entry {
+        private final Path path;
+        private final String name;
+        private final boolean directory;
+        private volatile BasicFileAttributes attrs;
+
+        private Entry(Path path, String name, boolean directory) {
+            this.path = path;
+            this.name = name;
+            this.directory = directory;
+        }
+
+        private BasicFileAttributes attrs() {
+            BasicFileAttributes current = attrs;
+            if (current == null) {
+                try {
+                    current = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // 无权限或已被删除，按空属性处理
+                    return null;
+                }
+                attrs = current;
+            }
+            return current;
+        }
+
+        private long size() {
+            BasicFileAttributes a = attrs();
+            return a == null ? 0 : a.size();
+        }
+
+        private long modified() {
+            BasicFileAttributes a = attrs();
+            return a == null ? 0 : a.lastModifiedTime().toMillis();
+        }
+    }
+
+    /**
+     * 一个目录的条目快照，以及按不同排序/过滤条件生成的视图
+     */
+    private record DirListing(long dirModified, List<Entry> entries, Map<String, List<Entry>> views) {
+    }
+
 
     // 定义支持编辑的文件后缀白名单 (尽量使用 Set 提高查询速度)
     private static final Set<String> EDITABLE_EXTENSIONS = Set.of(
@@ -93,6 +171,158 @@ public class WebUIFileManagerService {
         }
     }
 
+    /**
+     * 游标分页获取文件列表
+     * <p>
+     * 目录条目按目录修改时间缓存，翻页时不再重新扫描目录；
+     * 排序和过滤在服务端完成，文件大小、修改时间等属性只为当前页（或按大小/时间排序时）读取。
+     *
+     * @param pathString 目标目录
+     * @param cursor     上一页返回的游标，第一页传 null
+     * @param limit      每页条数
+     * @param sort       排序字段：name / date / size，文件夹始终在前
+     * @param desc       是否倒序
+     * @param keyword    文件名过滤（忽略大小写），可为空
+     */
+    public FilePageResponse listFilesPage(String pathString, String cursor, int limit, String sort, boolean desc, String keyword) throws IOException {
+        if (!StringUtils.hasText(pathString)) {
+            List<FileItemResponse> roots = listFiles(pathString);
+            return new FilePageResponse(roots, null, roots.size(), false);
+        }
+        Path dir = Paths.get(pathString).toAbsolutePath().normalize();
+        if (!Files.isDirectory(dir)) {
+            throw new RuntimeException("路径不存在: " + pathString);
+        }
+        String sortKey = sort == null ? "name" : sort.toLowerCase(Locale.ROOT);
+        String filter = StringUtils.hasText(keyword) ? keyword.toLowerCase(Locale.ROOT) : "";
+        List<Entry> view = view(listing(dir), sortKey, desc, filter);
+
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        int from = resolveCursor(cursor, view);
+        int to = Math.min(view.size(), from + pageSize);
+        List<FileItemResponse> items = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            FileItemResponse item = toItem(view.get(i));
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        boolean hasMore = to < view.size();
+        String nextCursor = hasMore ? encodeCursor(to - 1, view.get(to - 1).name) : null;
+        return new FilePageResponse(items, nextCursor, view.size(), hasMore);
+    }
+
+    private DirListing listing(Path dir) throws IOException {
+        long dirModified = Files.getLastModifiedTime(dir).toMillis();
+        DirListing cached = listingCache.getIfPresent(dir);
+        if (cached != null && cached.dirModified() == dirModified) {
+            return cached;
+        }
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path p : stream) {
+                entries.add(new Entry(p, p.getFileName().toString(), Files.isDirectory(p)));
+            }
+        }
+        DirListing listing = new DirListing(dirModified, List.copyOf(entries), new ConcurrentHashMap<>());
+        listingCache.put(dir, listing);
+        return listing;
+    }
+
+    /**
+     * 通过本服务修改文件后立即失效所在目录的缓存
+     */
+    private void invalidateListing(Path path) {
+        Path parent = path.toAbsolutePath().normalize().getParent();
+        if (parent != null) {
+            listingCache.invalidate(parent);
+        }
+    }
+
+    private static List<Entry> view(DirListing listing, String sort, boolean desc, String filter) {
+        String viewKey = sort + "|" + desc + "|" + filter;
+        List<Entry> cached = listing.views().get(viewKey);
+        if (cached != null) {
+            return cached;
+        }
+        Comparator<Entry> order = switch (sort) {
+            case "date" -> Comparator.comparingLong(Entry::modified);
+            case "size" -> Comparator.comparingLong(Entry::size);
+            default -> Comparator.comparing((Entry e) -> e.name, String.CASE_INSENSITIVE_ORDER);
+        };
+        order = order.thenComparing(e -> e.name);
+        if (desc) {
+            order = order.reversed();
+        }
+        // 文件夹始终在前
+        Comparator<Entry> comparator = Comparator.comparing((Entry e) -> !e.directory).thenComparing(order);
+        List<Entry> result = listing.entries().stream()
+                .filter(e -> filter.isEmpty() || e.name.toLowerCase(Locale.ROOT).contains(filter))
+                .sorted(comparator)
+                .toList();
+        // 视图数量有限（排序字段 x 顺序 x 关键词），过多时直接清空，避免无限增长
+        if (listing.views().size() >= 16) {
+            listing.views().clear();
+        }
+        listing.views().put(viewKey, result);
+        return result;
+    }
+
+    /**
+     * 游标记录上一页最后一条的位置和名称；目录变化导致位置偏移时按名称重新定位
+     */
+    private static int resolveCursor(String cursor, List<Entry> view) {
+        if (!StringUtils.hasText(cursor)) {
+            return 0;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+        int separator = decoded.indexOf('|');
+        if (separator < 0) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+        int lastIndex = Integer.parseInt(decoded.substring(0, separator));
+        String lastName = decoded.substring(separator + 1);
+        if (lastIndex >= 0 && lastIndex < view.size() && view.get(lastIndex).name.equals(lastName)) {
+            return lastIndex + 1;
+        }
+        for (int i = 0; i < view.size(); i++) {
+            if (view.get(i).name.equals(lastName)) {
+                return i + 1;
+            }
+        }
+        return Math.clamp(lastIndex + 1L, 0, view.size());
+    }
+
+    private static String encodeCursor(int index, String name) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((index + "|" + name).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private FileItemResponse toItem(Entry entry) {
+        BasicFileAttributes attrs = entry.attrs();
+        if (attrs == null) {
+            return null;
+        }
+        String formattedDate = LocalDateTime.ofInstant(attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault())
+                .format(DATE_FORMATTER);
+        String absolutePath = entry.path.toAbsolutePath().toString();
+        return new FileItemResponse(
+                String.valueOf(entry.path.toAbsolutePath().hashCode()),
+                entry.name,
+                absolutePath,
+                formattedDate,
+                entry.directory ? "-" : formatSize(attrs.size()),
+                entry.directory ? "folder" : "file",
+                attrs.size(),
+                !entry.directory && isEditableFile(entry.name)
+        );
+    }
+
     // 创建文件或文件夹
     public void create(String parentPath, String name, boolean isFolder) throws IOException {
         Path targetPath = Paths.get(parentPath, name);
@@ -104,6 +334,7 @@ public class WebUIFileManagerService {
         } else {
             Files.createFile(targetPath);
         }
+        invalidateListing(targetPath);
     }
 
     // 读取文本内容
@@ -119,6 +350,161 @@ public class WebUIFileManagerService {
     public void saveTextFile(String pathStr, String content) throws IOException {
         Path path = Paths.get(pathStr);
         Files.writeString(path, content, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        invalidateListing(path);
+    }
+
+    /**
+     * 分段读取文本文件
+     * <p>
+     * 起点落在多字节字符中间时向后移动到下一个字符开头，终点向前收缩到完整字符结尾，
+     * 因此返回的 offset / length 可能与请求的不同，前端应以返回值为准。
+     * 每段至少包含一个完整字符，length 小于该字符的字节数时也会完整返回这个字符，保证 nextOffset 一定前进。
+     *
+     * @param offset 起始字节偏移
+     * @param length 期望读取的字节数，最大 1MB
+     */
+    public TextChunkResponse readTextChunk(String pathStr, long offset, int length) throws IOException {
+        Path path = getFilePath(pathStr);
+        int want = Math.clamp(length, 1, MAX_CHUNK_SIZE);
+        // 先取版本再读内容：读取期间文件被修改时，保存会因版本不一致被拒绝
+        String etag = etagOf(Files.readAttributes(path, BasicFileAttributes.class));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long start = Math.clamp(offset, 0, fileSize);
+            // 多读 6 个字节：开头最多跳过 3 个续字节，结尾最多补齐一个字符的 3 个字节
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(want + 6L, fileSize - start));
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+                // 读满为止
+            }
+            byte[] bytes = buffer.array();
+            int read = buffer.position();
+
+            int from = 0;
+            while (from < read && start + from > 0 && isContinuationByte(bytes[from])) {
+                from++;
+            }
+            int to = Math.min(read, from + want);
+            if (start + to < fileSize) {
+                to = alignToCharEnd(bytes, from, to);
+            }
+            if (to == from && from < read) {
+                // 期望长度不足一个字符，至少返回一个完整字符
+                to = Math.min(read, from + utf8Length(bytes[from]));
+            }
+            String content = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+            long chunkStart = start + from;
+            long nextOffset = start + to;
+            return new TextChunkResponse(content, chunkStart, to - from, nextOffset, fileSize, nextOffset >= fileSize, etag);
+        }
+    }
+
+    /**
+     * 用新内容替换文件中 [offset, offset + originalLength) 的字节，其余部分原样保留
+     * <p>
+     * 按字节偏移拼接只有在文件没有变化时才正确，所以要求传回读取时的 etag，不一致时拒绝保存。
+     * 同一文件的保存串行执行；内容先写入同目录下的独立临时文件，前后未修改的部分通过 FileChannel 直接拷贝，
+     * 完成后原子替换原文件。
+     *
+     * @param expectedEtag 读取该段时返回的 etag
+     * @return 替换后的文件大小
+     * @throws FileVersionConflictException 文件在读取后已被修改
+     */
+    public long replaceTextChunk(String pathStr, long offset, long originalLength, String content, String expectedEtag) throws IOException {
+        if (!StringUtils.hasText(expectedEtag)) {
+            throw new IllegalArgumentException("缺少 etag，请重新读取后再保存");
+        }
+        Path path = getFilePath(pathStr);
+        byte[] replacement = (content == null ? "" : content).getBytes(StandardCharsets.UTF_8);
+        Lock lock = saveLocks.get(path.toAbsolutePath().normalize());
+        lock.lock();
+        try {
+            String currentEtag = etagOf(Files.readAttributes(path, BasicFileAttributes.class));
+            if (!currentEtag.equals(expectedEtag)) {
+                throw new FileVersionConflictException("文件在读取后已被修改，请重新读取后再保存");
+            }
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".part");
+            try {
+                // 临时文件默认只有所有者可读写，替换前沿用原文件的权限
+                if (Files.getFileStore(path).supportsFileAttributeView("posix")) {
+                    Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(path));
+                }
+                try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+                     FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long fileSize = source.size();
+                    if (offset < 0 || originalLength < 0 || offset + originalLength > fileSize) {
+                        throw new IllegalArgumentException("保存范围超出文件大小: " + offset + "+" + originalLength + " > " + fileSize);
+                    }
+                    transferFully(source, 0, offset, target);
+                    ByteBuffer buffer = ByteBuffer.wrap(replacement);
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    long suffixStart = offset + originalLength;
+                    transferFully(source, suffixStart, fileSize - suffixStart, target);
+                    target.force(false);
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                invalidateListing(path);
+                return Files.size(path);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 文件版本标识，由大小、修改时间和文件标识（inode）生成
+     * <p>
+     * 保存会用新文件替换原文件，即使大小和修改时间恰好相同，文件标识也会变化
+     */
+    public static String etagOf(BasicFileAttributes attrs) {
+        String etag = Long.toHexString(attrs.size()) + "-" + Long.toHexString(attrs.lastModifiedTime().toMillis());
+        Object fileKey = attrs.fileKey();
+        if (fileKey != null) {
+            etag += "-" + Integer.toHexString(fileKey.hashCode());
+        }
+        return "\"" + etag + "\"";
+    }
+
+    private static void transferFully(FileChannel source, long position, long count, FileChannel target) throws IOException {
+        long done = 0;
+        while (done < count) {
+            long transferred = source.transferTo(position + done, count - done, target);
+            if (transferred <= 0) {
+                throw new IOException("文件拷贝中断");
+            }
+            done += transferred;
+        }
+    }
+
+    private static boolean isContinuationByte(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    /**
+     * 将 [from, to) 的终点向前移动，保证不截断最后一个 UTF-8 字符
+     */
+    private static int alignToCharEnd(byte[] bytes, int from, int to) {
+        int lead = to;
+        while (lead > from && isContinuationByte(bytes[lead - 1])) {
+            lead--;
+        }
+        if (lead == from) {
+            return to;
+        }
+        int charLength = utf8Length(bytes[lead - 1]);
+        return (lead - 1) + charLength <= to ? to : lead - 1;
+    }
+
+    /**
+     * 根据首字节判断 UTF-8 字符的字节数
+     */
+    private static int utf8Length(byte leadByte) {
+        int b = leadByte & 0xFF;
+        return b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
     }
 
     // 删除文件或文件夹 (递归删除)
@@ -140,6 +526,7 @@ public class WebUIFileManagerService {
                 return FileVisitResult.CONTINUE;
             }
         });
+        invalidateListing(path);
     }
 
     // 下载文件 Resource 获取逻辑放在 Controller 中更合适，Service只负责检查
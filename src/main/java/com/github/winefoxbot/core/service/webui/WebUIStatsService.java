@@ -78,8 +78,9 @@ public class WebUIStatsService {
                 queryWrapper.ge("time", startDate.atStartOfDay())
                         .lt("time", startDate.plusDays(1).atStartOfDay());
             } else {
-                // 其他情况 (周/月/年)
-                queryWrapper.ge("time", startDate.atStartOfDay());
+                // 其他情况 (周/月/年)，上界到明天 0 点，让未来分区也能被裁剪
+                queryWrapper.ge("time", startDate.atStartOfDay())
+                        .lt("time", LocalDate.now().plusDays(1).atStartOfDay());
             }
         }
 
@@ -136,7 +137,8 @@ public class WebUIStatsService {
 
         // 查出该时间段内的所有数据
         var messageStatsList = shiroMessagesService.list(new LambdaQueryWrapper<ShiroMessage>()
-                .ge(ShiroMessage::getTime, startDate));
+                .ge(ShiroMessage::getTime, startDate)
+                .lt(ShiroMessage::getTime, endDate.plusDays(1)));
 
         // 按日期分组求和
         Map<LocalDate, Long> callMap = invokeStatsList.stream()
@@ -1,6 +1,10 @@
 package com.github.winefoxbot.core.service.webui;
 
 import com.github.winefoxbot.core.model.vo.webui.resp.SystemStatusResponse;
+import com.github.winefoxbot.core.model.vo.webui.resp.TelemetryFrameResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import oshi.SystemInfo;
 import oshi.hardware.CentralProcessor;
@@ -10,54 +14,164 @@ import oshi.software.os.OSFileStore;
 import oshi.software.os.OperatingSystem;
 
 import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
+/**
+ * 系统资源监控
+ * <p>
+ * 由定时任务以固定频率采样一次，结果存入一个固定长度的环形历史，并通过 STOMP 推送到 {@code /topic/monitor/status}。
+ * 推送的是增量帧，只包含变化超过阈值的指标；新打开的面板订阅 {@code /app/monitor/history} 一次性拿到最近的历史。
+ * 无论多少个面板在看，采样开销都是固定的，HTTP 接口也只读取最近一次的采样结果。
+ */
 @Service
+@Slf4j
 public class WebUISystemMonitorService {
 
-    private final SystemInfo systemInfo = new SystemInfo();
-    private final HardwareAbstractionLayer hardware = systemInfo.getHardware();
-    private final OperatingSystem os = systemInfo.getOperatingSystem();
-    // 使用 JDK 21 的 String Template 需要开启预览，这里为了通用仍使用 DecimalFormat，但做静态常量优化
+    public static final String STATUS_TOPIC = "/topic/monitor/status";
+
+    /**
+     * 环形历史保留的采样数（默认 2 秒一次，约 10 分钟）
+     */
+    private static final int HISTORY_SIZE = 300;
+
+    /**
+     * 磁盘需要遍历所有文件存储，变化也很慢，每隔这么多次采样才统计一次
+     */
+    private static final int DISK_SAMPLE_EVERY = 15;
+
+    /**
+     * 指标变化小于该值（百分点）时不在增量帧中推送
+     */
+    private static final double DELTA_THRESHOLD = 0.1;
+
+    /**
+     * 每隔这么多次采样推送一次完整帧，便于丢帧的客户端自我修正
+     */
+    private static final int FULL_FRAME_EVERY = 30;
+
     private static final DecimalFormat DF = new DecimalFormat("0.0"); // 修改格式：0.0 避免 .0% 的情况
 
-    // 保存上一次的 CPU ticks
+    private final SimpMessagingTemplate messagingTemplate;
+    private final HardwareAbstractionLayer hardware;
+    private final OperatingSystem os;
+
+    private final Deque<TelemetryFrameResponse> history = new ArrayDeque<>(HISTORY_SIZE);
+
+    // 以下状态只在采样线程中读写
     private long[] prevTicks;
+    private long seq;
+    private double lastDiskUsage;
+    private TelemetryFrameResponse lastPushed;
+
+    private volatile TelemetryFrameResponse latest;
 
-    public WebUISystemMonitorService() {
+    public WebUISystemMonitorService(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+        SystemInfo systemInfo = new SystemInfo();
+        this.hardware = systemInfo.getHardware();
+        this.os = systemInfo.getOperatingSystem();
         // 初始化时先获取一次 ticks
         this.prevTicks = hardware.getProcessor().getSystemCpuLoadTicks();
+        this.lastDiskUsage = sampleDiskUsage();
+        this.latest = new TelemetryFrameResponse(0, System.currentTimeMillis(), 0.0, sampleMemoryUsage(), lastDiskUsage);
     }
 
+    /**
+     * 最近一次采样结果
+     */
     public SystemStatusResponse getSystemStatus() {
-        CentralProcessor processor = hardware.getProcessor();
+        TelemetryFrameResponse current = latest;
+        return new SystemStatusResponse(
+                format(current.cpuUsage()),
+                format(current.memoryUsage()),
+                format(current.diskUsage())
+        );
+    }
+
+    /**
+     * 最近的完整采样历史，按时间先后排列
+     */
+    public List<TelemetryFrameResponse> getHistory() {
+        synchronized (history) {
+            return List.copyOf(history);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${winefoxbot.monitor.sample-interval-ms:2000}")
+    public void sample() {
+        try {
+            TelemetryFrameResponse frame = collect();
+            latest = frame;
+            synchronized (history) {
+                if (history.size() >= HISTORY_SIZE) {
+                    history.pollFirst();
+                }
+                history.offerLast(frame);
+            }
+            TelemetryFrameResponse delta = toDelta(frame);
+            if (delta != null) {
+                messagingTemplate.convertAndSend(STATUS_TOPIC, delta);
+            }
+        } catch (Exception e) {
+            log.warn("系统资源采样失败: {}", e.getMessage());
+        }
+    }
 
-        // --- 1. 获取 CPU 使用率 (无阻塞算法) ---
-        // 获取当前的 ticks
+    private TelemetryFrameResponse collect() {
+        CentralProcessor processor = hardware.getProcessor();
+        // 计算的是两次采样之间的平均负载
         long[] currentTicks = processor.getSystemCpuLoadTicks();
-        // 计算当前 ticks 和上一次 ticks 之间的负载
         double cpuLoad = processor.getSystemCpuLoadBetweenTicks(prevTicks) * 100;
-
-        // 更新 prevTicks 为当前 ticks，供下一次计算使用
-        // 注意：这种方式计算的是"两次请求之间"的平均负载，比瞬时 sleep 更能反映真实压力
         prevTicks = currentTicks;
-
         // 如果计算结果是 NaN (通常发生在刚启动第一次计算时)，默认给 0
         if (Double.isNaN(cpuLoad)) {
             cpuLoad = 0.0;
         }
 
-        // --- 2. 获取内存使用率 (JDK 21 风格简化) ---
+        seq++;
+        if (seq % DISK_SAMPLE_EVERY == 0) {
+            lastDiskUsage = sampleDiskUsage();
+        }
+        return new TelemetryFrameResponse(seq, System.currentTimeMillis(), round(cpuLoad), sampleMemoryUsage(), lastDiskUsage);
+    }
+
+    /**
+     * 与上一次推送的帧比较，只保留变化明显的指标；没有任何变化时返回 null，本轮不推送
+     */
+    private TelemetryFrameResponse toDelta(TelemetryFrameResponse frame) {
+        TelemetryFrameResponse previous = lastPushed;
+        if (previous == null || frame.seq() % FULL_FRAME_EVERY == 0) {
+            lastPushed = frame;
+            return frame;
+        }
+        Double cpu = changed(previous.cpuUsage(), frame.cpuUsage());
+        Double memory = changed(previous.memoryUsage(), frame.memoryUsage());
+        Double disk = changed(previous.diskUsage(), frame.diskUsage());
+        if (cpu == null && memory == null && disk == null) {
+            return null;
+        }
+        lastPushed = new TelemetryFrameResponse(frame.seq(), frame.timestamp(),
+                cpu != null ? cpu : previous.cpuUsage(),
+                memory != null ? memory : previous.memoryUsage(),
+                disk != null ? disk : previous.diskUsage());
+        return new TelemetryFrameResponse(frame.seq(), frame.timestamp(), cpu, memory, disk);
+    }
+
+    private static Double changed(Double previous, Double current) {
+        return Math.abs(current - previous) >= DELTA_THRESHOLD ? current : null;
+    }
+
+    private double sampleMemoryUsage() {
         GlobalMemory memory = hardware.getMemory();
-        double memoryLoad = 100d * (memory.getTotal() - memory.getAvailable()) / memory.getTotal();
+        return round(100d * (memory.getTotal() - memory.getAvailable()) / memory.getTotal());
+    }
 
-        // --- 3. 获取磁盘使用率 ---
-        List<OSFileStore> fileStores = os.getFileSystem().getFileStores();
+    private double sampleDiskUsage() {
         long total = 0;
         long used = 0;
-
-        // 使用 Stream API 简化计算 (更适合现代 Java)
-        for (OSFileStore fs : fileStores) {
+        for (OSFileStore fs : os.getFileSystem().getFileStores()) {
             long totalSpace = fs.getTotalSpace();
             // 简单过滤逻辑：只统计大于 1GB 的盘
             if (totalSpace > 1L * 1024 * 1024 * 1024) {
@@ -65,12 +179,17 @@ public class WebUISystemMonitorService {
                 used += (totalSpace - fs.getUsableSpace());
             }
         }
-        double diskLoad = total > 0 ? 100d * used / total : 0;
+        return total > 0 ? round(100d * used / total) : 0;
+    }
 
-        return new SystemStatusResponse(
-                DF.format(cpuLoad) + "%",
-                DF.format(memoryLoad) + "%",
-                DF.format(diskLoad) + "%"
-        );
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static String format(double value) {
+        // DecimalFormat 非线程安全，HTTP 请求可能并发调用
+        synchronized (DF) {
+            return DF.format(value) + "%";
+        }
     }
 }
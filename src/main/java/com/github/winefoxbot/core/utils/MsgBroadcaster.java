@@ -0,0 +1,235 @@
+package com.github.winefoxbot.core.utils;
+
+import com.github.winefoxbot.core.model.dto.BroadcastMessageResult;
+import com.google.common.util.concurrent.RateLimiter;
+import com.mikuac.shiro.dto.action.common.ActionData;
+import com.mikuac.shiro.dto.action.common.MsgId;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 消息广播执行器
+ * <p>
+ * 每个目标在独立的虚拟线程中发送，同一个 Bot 的所有广播共享一个并发上限和发送速率，
+ * 避免大规模广播触发风控；单个目标失败时按指数退避 + 随机抖动重试，
+ * 每个目标完成后立即通过回调推送结果，调用方无需等待整个广播结束。
+ * <p>
+ * 发送动作通过 {@link SendAction} 注入，测试时可以用带延迟和失败的假实现替换真实 Bot。
+ *
+ * @author FlanChan
+ */
+@Slf4j
+public class MsgBroadcaster {
+
+    /**
+     * 单个目标的发送动作
+     */
+    @FunctionalInterface
+    public interface SendAction {
+        ActionData<MsgId> send(Long targetId);
+    }
+
+    /**
+     * 单个目标的发送结果
+     *
+     * @param targetId 群号或 QQ 号
+     * @param success  是否发送成功
+     * @param attempts 实际尝试次数
+     * @param error    失败原因，成功时为 null
+     */
+    public record TargetResult(Long targetId, boolean success, int attempts, String error) {
+    }
+
+    /**
+     * 广播参数
+     *
+     * @param maxConcurrencyPerBot 每个 Bot 同时进行中的发送数上限
+     * @param sendRatePerBot       每个 Bot 每秒最多发送的消息数
+     * @param maxRetries           单个目标失败后的最大重试次数
+     * @param retryBaseDelay       首次重试的基础等待时间，之后每次翻倍
+     * @param retryMaxDelay        重试等待时间上限
+     */
+    public record Options(int maxConcurrencyPerBot, double sendRatePerBot, int maxRetries,
+                          Duration retryBaseDelay, Duration retryMaxDelay) {
+
+        public Options {
+            if (maxConcurrencyPerBot <= 0) {
+                throw new IllegalArgumentException("maxConcurrencyPerBot 必须大于 0: " + maxConcurrencyPerBot);
+            }
+            if (!(sendRatePerBot > 0)) {
+                throw new IllegalArgumentException("sendRatePerBot 必须大于 0: " + sendRatePerBot);
+            }
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries 不能小于 0: " + maxRetries);
+            }
+            if (retryBaseDelay == null || retryBaseDelay.isNegative() || retryMaxDelay == null || retryMaxDelay.isNegative()) {
+                throw new IllegalArgumentException("重试等待时间不能为空或负数");
+            }
+        }
+
+        public static Options defaults() {
+            return new Options(8, 5.0, 3, Duration.ofMillis(500), Duration.ofSeconds(10));
+        }
+    }
+
+    /**
+     * 每个 Bot 的发送节流状态
+     */
+    private record BotPacer(Semaphore permits, RateLimiter rateLimiter) {
+    }
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final Options options;
+    private final Map<Long, BotPacer> pacers = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public MsgBroadcaster(Options options) {
+        this.options = options;
+    }
+
+    public Options getOptions() {
+        return options;
+    }
+
+    /**
+     * 向多个目标并发广播
+     *
+     * @param botId     发送方 Bot 的 QQ 号，用于共享节流状态
+     * @param targetIds 目标 ID 列表
+     * @param action    发送动作
+     * @param onResult  每个目标完成后的回调，可以为 null
+     * @return 全部目标完成后的汇总结果，成功和失败列表保持目标的原始顺序
+     */
+    public CompletableFuture<BroadcastMessageResult> broadcast(long botId, List<Long> targetIds, SendAction action, Consumer<TargetResult> onResult) {
+        BotPacer pacer = pacerOf(botId);
+        List<CompletableFuture<TargetResult>> futures = new ArrayList<>(targetIds.size());
+        for (Long targetId : targetIds) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                TargetResult result = sendToTarget(pacer, targetId, action);
+                if (onResult != null) {
+                    try {
+                        onResult.accept(result);
+                    } catch (Exception e) {
+                        log.warn("广播结果回调执行失败, targetId: {}", targetId, e);
+                    }
+                }
+                return result;
+            }, executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    List<Long> successList = new ArrayList<>();
+                    List<Long> failedList = new ArrayList<>();
+                    for (CompletableFuture<TargetResult> future : futures) {
+                        TargetResult result = future.join();
+                        (result.success() ? successList : failedList).add(result.targetId());
+                    }
+                    return new BroadcastMessageResult(successList, failedList, failedList.isEmpty());
+                });
+    }
+
+    /**
+     * 执行一次发送，失败时按退避策略重试（不受 Bot 并发和速率限制）
+     *
+     * @param sender    发送动作
+     * @param isSuccess 判断结果是否成功
+     * @param desc      日志中的描述
+     * @return 最后一次发送的结果
+     */
+    public <T> T sendWithRetry(Supplier<T> sender, Predicate<T> isSuccess, String desc) {
+        T result = sender.get();
+        for (int retry = 0; !isSuccess.test(result) && retry < options.maxRetries(); retry++) {
+            log.warn("{}发送失败，正在重试... 第 {} 次", desc, retry + 1);
+            if (!sleepBackoff(retry)) {
+                break;
+            }
+            result = sender.get();
+        }
+        return result;
+    }
+
+    private TargetResult sendToTarget(BotPacer pacer, Long targetId, SendAction action) {
+        String error = null;
+        int attempts = 0;
+        while (attempts <= options.maxRetries()) {
+            if (attempts > 0 && !sleepBackoff(attempts - 1)) {
+                error = "interrupted";
+                break;
+            }
+            attempts++;
+            try {
+                pacer.permits().acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = "interrupted";
+                break;
+            }
+            try {
+                pacer.rateLimiter().acquire();
+                ActionData<MsgId> response = action.send(targetId);
+                if (response != null && response.getRetCode() == 0) {
+                    return new TargetResult(targetId, true, attempts, null);
+                }
+                error = "retCode = " + (response != null ? response.getRetCode() : "null");
+            } catch (Exception e) {
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+                log.debug("广播发送异常, targetId: {}", targetId, e);
+            } finally {
+                // 退避等待期间不占用并发名额
+                pacer.permits().release();
+            }
+        }
+        log.error("Failed to send broadcast message to id: {} after {} attempt(s), {}", targetId, attempts, error);
+        return new TargetResult(targetId, false, attempts, error);
+    }
+
+    /**
+     * 停止接收新的发送任务，等待进行中的发送完成，超时后中断
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 指数退避 + 随机抖动（0.5 ~ 1.5 倍）
+     *
+     * @return 是否正常等待完成，被中断时返回 false
+     */
+    private boolean sleepBackoff(int retry) {
+        long base = options.retryBaseDelay().toMillis() << Math.min(retry, 16);
+        long capped = Math.min(base, options.retryMaxDelay().toMillis());
+        long delay = (long) (capped * (0.5 + ThreadLocalRandom.current().nextDouble()));
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private BotPacer pacerOf(long botId) {
+        return pacers.computeIfAbsent(botId, id -> new BotPacer(
+                new Semaphore(options.maxConcurrencyPerBot()),
+                RateLimiter.create(options.sendRatePerBot())));
+    }
+}
@@ -3,37 +3,43 @@ package com.github.winefoxbot.core.utils;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Image;
-import com.itextpdf.text.pdf.PdfDate;
-import com.itextpdf.text.pdf.PdfReader;
-import com.itextpdf.text.pdf.PdfStamper;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfString;
 import com.itextpdf.text.pdf.PdfWriter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.UUID;
 
 @Slf4j
 public final class PdfUtil {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
     private PdfUtil() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
 
     /**
-     * 将多个图片包装成一个PDF。采用全内存流处理，彻底避免磁盘临时文件和文件句柄问题。
+     * 将多个图片包装成一个PDF。
+     * <p>
+     * 页面与元数据在一次遍历中直接写入磁盘上的临时文件，写完后再重命名为最终文件，
+     * 不会在内存中保留整份文档，峰值内存只与单张图片的大小相关。
      *
      * @param images    图片文件列表
      * @param outputDir 输出目录
      * @return 成功则返回PDF文件路径，失败返回null
      */
     public static Path wrapImagesIntoPdf(List<File> images, String outputDir) {
+        Path partPdfPath = null;
         Path finalPdfPath = null;
         try {
             // 1. 确定最终输出路径
@@ -41,70 +47,51 @@ public final class PdfUtil {
             Files.createDirectories(tempDir);
             String randomFileName = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
             finalPdfPath = tempDir.resolve(randomFileName + ".pdf");
+            partPdfPath = tempDir.resolve(randomFileName + ".pdf.part");
 
-            // 2. 步骤一：将图片生成为内存中的PDF字节流
-            byte[] pdfBytes = generatePdfBytesFromImages(images);
-
-            // 3. 步骤二：从内存字节流中读取PDF，修改元数据后，直接写入最终文件
-            modifyPdfAndCreateFinal(pdfBytes, finalPdfPath);
+            // 2. 将图片逐页写入临时文件
+            writePdf(images, partPdfPath);
 
+            // 3. 写入完成后再改名，避免外部读到不完整的文件
+            Files.move(partPdfPath, finalPdfPath, StandardCopyOption.REPLACE_EXISTING);
             return finalPdfPath;
 
         } catch (Exception e) {
-            log.error("在内存中处理PDF时发生严重错误", e);
-            // 如果出错，清理掉可能已经创建的最终文件
+            log.error("生成PDF时发生严重错误", e);
+            // 如果出错，清理掉可能已经创建的文件
+            deleteIfExists(partPdfPath);
             deleteIfExists(finalPdfPath);
             return null;
         }
-        // finally 块不再需要，因为没有临时文件需要清理
     }
 
     /**
-     * 从图片列表生成一个PDF，并将其作为字节数组返回。
+     * 将图片逐页写入目标文件，元数据在写入时一并设置，无需二次读写。
      */
-    private static byte[] generatePdfBytesFromImages(List<File> images) throws DocumentException, IOException {
-        // 使用 try-with-resources 确保所有流都被正确关闭
+    private static void writePdf(List<File> images, Path targetPdfPath) throws DocumentException, IOException {
         Document document = new Document();
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
-            PdfWriter.getInstance(document, baos);
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(targetPdfPath), WRITE_BUFFER_SIZE)) {
+            PdfWriter writer = PdfWriter.getInstance(document, os);
+            writer.setFullCompression();
+            writer.getInfo().put(new PdfName("ModificationGuid"), new PdfString(UUID.randomUUID().toString()));
+            writer.createXmpMetadata();
             document.open();
 
             float printableWidth = document.getPageSize().getWidth() - document.leftMargin() - document.rightMargin();
             for (File imageFile : images) {
-                Image img = Image.getInstance(imageFile.toURI().toURL());
+                // 图片在翻页时就会被写出，之后不再持有其字节
+                Image img = Image.getInstance(imageFile.getAbsolutePath());
                 img.scaleToFit(printableWidth, Float.MAX_VALUE);
                 document.newPage();
                 document.add(img);
             }
 
-            // Document.close() 会将所有内容刷入 ByteArrayOutputStream
+            // Document.close() 会写出最后一页和交叉引用表
             document.close();
-            return baos.toByteArray();
         } finally {
-            document.close();
-        }
-    }
-
-    /**
-     * 读取内存中的PDF字节数组，修改元数据后，写入到一个新的目标PDF文件。
-     */
-    private static void modifyPdfAndCreateFinal(byte[] sourcePdfBytes, Path targetPdfPath) throws IOException, DocumentException {
-        // 使用 try-with-resources 确保所有流和reader/stamper都被正确关闭
-        try (FileOutputStream fos = new FileOutputStream(targetPdfPath.toFile())) {
-            PdfReader reader = new PdfReader(sourcePdfBytes);
-            PdfStamper stamper = new PdfStamper(reader, fos);
-            try {
-                stamper.createXmpMetadata();
-
-                HashMap<String, String> info = reader.getInfo();
-                info.put("ModificationGuid", UUID.randomUUID().toString());
-                info.put("ModDate", new PdfDate().getW3CDate());
-                stamper.setMoreInfo(info);
-            } finally {
-                stamper.close();
+            if (document.isOpen()) {
+                document.close();
             }
-            reader.close(); // PdfReader 需要手动关闭
         }
     }
 
@@ -16,13 +16,12 @@ import com.mikuac.shiro.dto.event.notice.PokeNoticeEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.NonNull;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 /**
  * @author FlanChan (badapple495@outlook.com)
@@ -35,7 +34,18 @@ public final class SendMsgUtil {
         throw new UnsupportedOperationException("工具类不允许实例化");
     }
 
-    private final static int RETRY_TIMES = 3;
+    /**
+     * 广播执行器。容器启动完成后由 {@code WineFoxBotConfig} 安装按配置创建的实例；
+     * 在此之前（以及不启动容器时）使用默认参数的实例
+     */
+    private static volatile MsgBroadcaster broadcaster = new MsgBroadcaster(MsgBroadcaster.Options.defaults());
+
+    /**
+     * 安装按配置创建的广播执行器，由容器中唯一的 SmartInitializingSingleton 在启动完成后调用
+     */
+    public static void installBroadcaster(MsgBroadcaster msgBroadcaster) {
+        broadcaster = Objects.requireNonNull(msgBroadcaster);
+    }
 
     public static SendMsgResult sendMsgByBotContainer(BotContainer botContainer, Long targetId, String message, boolean escape, MessageType messageType) {
         Bot bot = getFirstBot(botContainer);
@@ -52,24 +62,47 @@ public final class SendMsgUtil {
 
     public static List<Map<Long, BroadcastMessageResult>> broadcastSendGroupMsgByContainer(BotContainer botContainer, List<Long> groupIds, String message, boolean escape) {
         validateBotContainer(botContainer);
-        return botContainer.robots.values().stream()
-                .map(bot -> Map.of(bot.getSelfId(), broadcastSendGroupMsg(bot, groupIds, message, escape)))
-                .collect(Collectors.toList());
+        // 各个 Bot 之间互不影响，同时开始广播
+        return joinAll(botContainer.robots.values().stream()
+                .map(bot -> broadcastSendGroupMsgAsync(bot, groupIds, message, escape, null)
+                        .thenApply(result -> Map.of(bot.getSelfId(), result)))
+                .toList());
     }
 
     public static BroadcastMessageResult broadcastSendGroupMsg(Bot bot, List<Long> groupIds, String message, boolean escape) {
-        return broadcast(groupIds, groupId -> bot.sendGroupMsg(groupId, message, escape));
+        return broadcastSendGroupMsgAsync(bot, groupIds, message, escape, null).join();
     }
 
     public static BroadcastMessageResult broadcastSendPrivateMsg(Bot bot, List<Long> userIds, String message, boolean escape) {
-        return broadcast(userIds, userId -> bot.sendPrivateMsg(userId, message, escape));
+        return broadcastSendPrivateMsgAsync(bot, userIds, message, escape, null).join();
+    }
+
+    /**
+     * 异步群聊广播，每个群发送完成后立即回调 onResult
+     *
+     * @param onResult 单个目标的结果回调，可以为 null
+     */
+    public static CompletableFuture<BroadcastMessageResult> broadcastSendGroupMsgAsync(Bot bot, List<Long> groupIds, String message, boolean escape,
+                                                                                        Consumer<MsgBroadcaster.TargetResult> onResult) {
+        return broadcaster.broadcast(bot.getSelfId(), groupIds, groupId -> bot.sendGroupMsg(groupId, message, escape), onResult);
+    }
+
+    /**
+     * 异步私聊广播，每个用户发送完成后立即回调 onResult
+     *
+     * @param onResult 单个目标的结果回调，可以为 null
+     */
+    public static CompletableFuture<BroadcastMessageResult> broadcastSendPrivateMsgAsync(Bot bot, List<Long> userIds, String message, boolean escape,
+                                                                                          Consumer<MsgBroadcaster.TargetResult> onResult) {
+        return broadcaster.broadcast(bot.getSelfId(), userIds, userId -> bot.sendPrivateMsg(userId, message, escape), onResult);
     }
 
     public static List<Map<Long, BroadcastMessageResult>> broadcastSendPrivateMsgByContainer(BotContainer botContainer, List<Long> userIds, String message, boolean escape) {
         validateBotContainer(botContainer);
-        return botContainer.robots.values().stream()
-                .map(bot -> Map.of(bot.getSelfId(), broadcastSendPrivateMsg(bot, userIds, message, escape)))
-                .collect(Collectors.toList());
+        return joinAll(botContainer.robots.values().stream()
+                .map(bot -> broadcastSendPrivateMsgAsync(bot, userIds, message, escape, null)
+                        .thenApply(result -> Map.of(bot.getSelfId(), result)))
+                .toList());
     }
 
     public static SendMsgResult sendMsgByEvent(Bot bot, Event event, String message, boolean escape) {
@@ -96,25 +129,11 @@ public final class SendMsgUtil {
     }
 
     public static SendMsgResult sendPrivateMsg(Bot bot, Long userId, String message, boolean escape) {
-        int retry = 0;
-        SendMsgResult sendMsgResult = buildResult(bot.sendPrivateMsg(userId, message, escape));
-        while (!sendMsgResult.isSuccess() && retry < RETRY_TIMES) {
-            log.warn("私聊消息发送失败，正在重试... 第 {} 次", retry + 1);
-            sendMsgResult = buildResult(bot.sendPrivateMsg(userId, message, escape));
-            retry++;
-        }
-        return sendMsgResult;
+        return broadcaster.sendWithRetry(() -> buildResult(bot.sendPrivateMsg(userId, message, escape)), SendMsgResult::isSuccess, "私聊消息");
     }
 
     public static SendMsgResult sendGroupMsg(Bot bot, Long groupId, String message, boolean escape) {
-        int retry = 0;
-        SendMsgResult sendMsgResult = buildResult(bot.sendGroupMsg(groupId, message, escape));
-        while (!sendMsgResult.isSuccess() && retry < RETRY_TIMES) {
-            log.warn("群聊消息发送失败，正在重试... 第 {} 次", retry + 1);
-            sendMsgResult = buildResult(bot.sendGroupMsg(groupId, message, escape));
-            retry++;
-        }
-        return sendMsgResult;
+        return broadcaster.sendWithRetry(() -> buildResult(bot.sendGroupMsg(groupId, message, escape)), SendMsgResult::isSuccess, "群聊消息");
     }
 
     public static CompletableFuture<SendMsgResult> sendMsgByEventAsync(Bot bot, Event event, String message, boolean escape) {
@@ -164,24 +183,8 @@ public final class SendMsgUtil {
         }
     }
 
-    private static BroadcastMessageResult broadcast(List<Long> ids, Function<Long, ActionData<MsgId>> action) {
-        List<Long> successList = new ArrayList<>();
-        List<Long> failedList = new ArrayList<>();
-
-        for (Long id : ids) {
-            try {
-                ActionData<MsgId> response = action.apply(id);
-                if (response != null && response.getRetCode() == 0) {
-                    successList.add(id);
-                } else {
-                    failedList.add(id);
-                }
-            } catch (Exception e) {
-                log.error("Failed to send broadcast message to id: {}", id, e);
-                failedList.add(id);
-            }
-        }
-        return new BroadcastMessageResult(successList, failedList, failedList.isEmpty());
+    private static <T> List<T> joinAll(List<CompletableFuture<T>> futures) {
+        return futures.stream().map(CompletableFuture::join).toList();
     }
 
     private static CompletableFuture<SendMsgResult> supplyAsyncResult(Supplier<SendMsgResult> supplier) {
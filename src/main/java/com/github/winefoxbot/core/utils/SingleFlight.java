@@ -0,0 +1,78 @@
+package com.github.winefoxbot.core.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并（Single-Flight）
+ * <p>
+ * 同一个 key 同一时刻只会执行一次加载，期间到达的其他调用者共享同一个进行中的
+ * {@link CompletableFuture}。加载完成（无论成功或失败）后立即移除该 key，
+ * 失败会传递给所有等待者，下一次调用会重新发起加载。
+ * 每个调用者拿到的都是共享结果的副本，单个调用者取消或手动完成不会影响其他人。
+ *
+ * @param <K> key 类型
+ * @param <V> 结果类型
+ * @author FlanChan
+ */
+public final class SingleFlight<K, V> {
+
+    /**
+     * 合并统计
+     *
+     * @param name      名称
+     * @param calls     总调用次数
+     * @param coalesced 被合并（未实际执行加载）的调用次数
+     * @param inFlight  当前进行中的 key 数量
+     */
+    public record Stats(String name, long calls, long coalesced, int inFlight) {
+    }
+
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 执行或加入一个进行中的加载
+     *
+     * @param key    合并的 key
+     * @param loader 实际的加载逻辑，只会在没有进行中的同 key 请求时调用
+     * @return 共享结果的副本
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        calls.increment();
+        CompletableFuture<V> shared = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+        CompletableFuture<V> source;
+        try {
+            source = loader.get();
+        } catch (Throwable e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        source.whenComplete((value, error) -> {
+            // 先移除再完成，保证完成之后到达的调用会发起新的加载
+            inFlight.remove(key, shared);
+            if (error != null) {
+                shared.completeExceptionally(error);
+            } else {
+                shared.complete(value);
+            }
+        });
+        return shared.copy();
+    }
+
+    public Stats getStats() {
+        return new Stats(name, calls.sum(), coalesced.sum(), inFlight.size());
+    }
+}
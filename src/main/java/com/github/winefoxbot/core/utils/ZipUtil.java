@@ -0,0 +1,74 @@
+package com.github.winefoxbot.core.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ZIP 打包工具
+ *
+ * @author FlanChan
+ */
+@Slf4j
+public final class ZipUtil {
+
+    private ZipUtil() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * 将多个文件打包为 ZIP。
+     * <p>
+     * 条目逐个从磁盘流式写入临时文件，写完后再重命名为目标文件。
+     * 图片本身已经是压缩格式，因此使用 STORED 方式直接存储，省去无意义的 Deflate 开销；
+     * 输出为可随机访问的文件，CRC 与大小在条目写完后回填，不需要预先读一遍文件。
+     *
+     * @param files       待打包文件，不存在的文件会被跳过
+     * @param zipFilePath 目标 ZIP 文件路径
+     * @throws IOException 写入失败时抛出，此时不会留下残缺文件
+     */
+    public static void zipFiles(List<Path> files, Path zipFilePath) throws IOException {
+        Path partPath = zipFilePath.resolveSibling(zipFilePath.getFileName() + ".part");
+        try {
+            try (ZipArchiveOutputStream zaos = new ZipArchiveOutputStream(partPath)) {
+                zaos.setMethod(ZipArchiveOutputStream.STORED);
+                Set<String> entryNames = new HashSet<>();
+                for (Path path : files) {
+                    if (!Files.isRegularFile(path)) {
+                        continue;
+                    }
+                    ZipArchiveEntry entry = new ZipArchiveEntry(uniqueEntryName(path.getFileName().toString(), entryNames));
+                    entry.setSize(Files.size(path));
+                    zaos.putArchiveEntry(entry);
+                    Files.copy(path, zaos);
+                    zaos.closeArchiveEntry();
+                }
+            }
+            Files.move(partPath, zipFilePath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(partPath);
+            throw e;
+        }
+    }
+
+    private static String uniqueEntryName(String fileName, Set<String> usedNames) {
+        String name = fileName;
+        int index = 1;
+        while (!usedNames.add(name)) {
+            int dot = fileName.lastIndexOf('.');
+            name = dot > 0
+                    ? fileName.substring(0, dot) + "_" + index + fileName.substring(dot)
+                    : fileName + "_" + index;
+            index++;
+        }
+        return name;
+    }
+}
@@ -44,5 +44,25 @@ public class BitTorrentConfig {
      * Origin 请求头
      */
     private String origin = "https://ginger25.top";
+    /**
+     * 同时获取磁力链详情页的最大并发数
+     */
+    private int detailConcurrency = 5;
+    /**
+     * 获取全部磁力链详情的总超时时间，单位：秒，超时未完成的条目不显示磁力链
+     */
+    private int detailTimeoutSeconds = 15;
+    /**
+     * 搜索结果页缓存时间，单位：分钟
+     */
+    private int searchCacheTtlMinutes = 10;
+    /**
+     * 磁力链详情缓存时间，单位：分钟
+     */
+    private int magnetCacheTtlMinutes = 60;
+    /**
+     * 遇到 403 时重新探测 baseUrl 的最大次数
+     */
+    private int maxRediscoverAttempts = 1;
 
 }
\ No newline at end of file
@@ -1,17 +1,24 @@
 package com.github.winefoxbot.plugins.bittorrent.service.impl;
 
 import cn.hutool.core.util.StrUtil;
+import com.github.winefoxbot.core.manager.SingleFlightManager;
+import com.github.winefoxbot.core.utils.SingleFlight;
 import com.github.winefoxbot.plugins.bittorrent.config.BitTorrentConfig;
 import com.github.winefoxbot.plugins.bittorrent.model.dto.BitTorrentMagnetInfo;
 import com.github.winefoxbot.plugins.bittorrent.model.dto.BitTorrentPageInfo;
 import com.github.winefoxbot.plugins.bittorrent.model.dto.BitTorrentSearchResult;
 import com.github.winefoxbot.plugins.bittorrent.model.dto.BitTorrentSearchResultItem;
 import com.github.winefoxbot.plugins.bittorrent.service.BitTorrentService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.options.WaitUntilState;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -29,23 +36,79 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * 磁力链搜索
+ * <p>
+ * 搜索结果页按「关键词 + 页码」缓存，详情页按 URI 缓存；
+ * 详情页在虚拟线程中并发获取，并发数和总耗时均有上限；
+ * baseUrl 失效时的重新探测通过 Single-Flight 合并，并限制探测次数。
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BitTorrentServiceImpl implements BitTorrentService {
 
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/143.0.0.0 Safari/537.36 Edg/143.0.0.0";
+    private static final Pattern SIZE_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*([KMGTP]?B)", Pattern.CASE_INSENSITIVE);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     private final BitTorrentConfig bitTorrentConfig;
     private final OkHttpClient client;
     private final Browser browser;
+    private final SingleFlightManager singleFlightManager;
+
+    private final ExecutorService detailExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore detailPermits;
+    private Cache<String, BitTorrentSearchResult> searchCache;
+    private Cache<String, BitTorrentMagnetInfo> magnetCache;
+    /**
+     * key 为失效的 baseUrl，value 为探测到的新 baseUrl
+     */
+    private SingleFlight<String, String> rediscoverFlight;
+
+    @PostConstruct
+    public void init() {
+        detailPermits = new Semaphore(Math.max(1, bitTorrentConfig.getDetailConcurrency()));
+        searchCache = CacheBuilder.newBuilder()
+                .maximumSize(256)
+                .expireAfterWrite(bitTorrentConfig.getSearchCacheTtlMinutes(), TimeUnit.MINUTES)
+                .build();
+        magnetCache = CacheBuilder.newBuilder()
+                .maximumSize(2048)
+                .expireAfterWrite(bitTorrentConfig.getMagnetCacheTtlMinutes(), TimeUnit.MINUTES)
+                .build();
+        rediscoverFlight = singleFlightManager.getOrCreate("bittorrent:rediscover-base-url");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        detailExecutor.shutdownNow();
+    }
 
     @Override
     public BitTorrentSearchResult search(String keyword, int page) {
-        return search(keyword, page, false, null);
+        if (StrUtil.isBlank(keyword)) {
+            throw new IllegalArgumentException("搜索关键词不能为空");
+        }
+        String cacheKey = keyword.trim() + "#" + page;
+        BitTorrentSearchResult cached = searchCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            log.info("命中搜索缓存: {} , 页码: {}", keyword, page);
+            return cached;
+        }
+        BitTorrentSearchResult result = search(keyword, page, false, null, 0);
+        // 失败或空结果不缓存，下次重新请求
+        if (result != null && result.getItems() != null && !result.getItems().isEmpty()) {
+            searchCache.put(cacheKey, result);
+        }
+        return result;
     }
 
     public String getRedirectedUrl() {
@@ -59,25 +122,24 @@ public class BitTorrentServiceImpl implements BitTorrentService {
     }
 
 
-    private BitTorrentSearchResult search(String keyword, int page, boolean nextPage, String nextUrl) {
-        if (StrUtil.isBlank(keyword)) {
-            throw new IllegalArgumentException("搜索关键词不能为空");
-        }
+    private BitTorrentSearchResult search(String keyword, int page, boolean nextPage, String nextUrl, int rediscoverAttempts) {
         log.info("开始搜索关键词: {} , 页码: {} , nextPage: {} , nextUrl: {}", keyword, page, nextPage, nextUrl);
 
+        // 本次请求所基于的 baseUrl，翻页地址也是由它跳转得到的
+        String baseUrl = bitTorrentConfig.getBaseUrl();
         try {
-            Request request = buildSearchRequest(keyword, nextPage, nextUrl);
+            Request request = buildSearchRequest(baseUrl, keyword, nextPage, nextUrl);
             try (Response response = client.newCall(request).execute()) {
                 // 如果遇到403禁止访问，说明可能域名已更新，触发重定向探测逻辑
                 if (response.code() == HttpStatus.FORBIDDEN.value()) {
+                    if (rediscoverAttempts >= bitTorrentConfig.getMaxRediscoverAttempts()) {
+                        log.error("访问被禁止(403)，已重新探测 baseUrl {} 次，放弃本次搜索", rediscoverAttempts);
+                        return null;
+                    }
                     log.warn("访问被禁止(403)，尝试通过访问根域名来探测并更新 baseUrl...");
-                    String redirectedUrl = getRedirectedUrl().replaceAll("(https://[^/]+).*", "$1");
-                    log.info("探测到新的 baseUrl: {}", redirectedUrl);
-                    // 更新成员变量
-                    bitTorrentConfig.setBaseUrl(redirectedUrl);
-                    bitTorrentConfig.setReferer(redirectedUrl + "/");
-                    bitTorrentConfig.setOrigin(redirectedUrl);
-                    return search(keyword, page, nextPage, nextUrl);
+                    rediscoverBaseUrl(baseUrl);
+                    // 翻页 URL 基于旧域名，重新从第一步开始
+                    return search(keyword, page, false, null, rediscoverAttempts + 1);
                 }
 
                 // 如果页数大于1，且不是通过 nextUrl 访问的，说明需要拼接分页URL
@@ -90,7 +152,7 @@ public class BitTorrentServiceImpl implements BitTorrentService {
                         String nextPageUrl = redirectedUrl.substring(0, lastUnderscoreIndex + 1) + page + redirectedUrl.substring(lastDotIndex);
                         log.info("生成下一页URL: {}", nextPageUrl);
                         // 递归调用，nextPage设为true以避免无限递归
-                        return search(keyword, page, true, nextPageUrl);
+                        return search(keyword, page, true, nextPageUrl, rediscoverAttempts);
                     }
                 }
 
@@ -107,15 +169,61 @@ public class BitTorrentServiceImpl implements BitTorrentService {
     /**
      * 根据参数构建搜索请求。
      */
-    private Request buildSearchRequest(String keyword, boolean nextPage, String nextUrl) {
-        String url = nextPage ? nextUrl : bitTorrentConfig.getBaseUrl() + "/search?kw=" + keyword;
+    private Request buildSearchRequest(String baseUrl, String keyword, boolean nextPage, String nextUrl) {
+        String url = nextPage ? nextUrl : StrUtil.removeSuffix(baseUrl, "/") + "/search?kw=" + keyword;
         return new Request.Builder().url(url)
                 .addHeader(HttpHeaders.REFERER, bitTorrentConfig.getReferer())
                 .addHeader(HttpHeaders.ORIGIN, bitTorrentConfig.getOrigin())
-                .addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/143.0.0.0 Safari/537.36 Edg/143.0.0.0")
+                .addHeader(HttpHeaders.USER_AGENT, USER_AGENT)
                 .build();
     }
 
+    /**
+     * 重新探测 baseUrl，并发的多个 403 只会触发一次浏览器访问
+     *
+     * @param staleBaseUrl 返回 403 的请求所基于的 baseUrl，与当前 baseUrl 的协议、域名、端口不一致时说明其他线程已经更新过
+     */
+    private void rediscoverBaseUrl(String staleBaseUrl) {
+        String currentBaseUrl = bitTorrentConfig.getBaseUrl();
+        HttpUrl current = HttpUrl.parse(currentBaseUrl);
+        HttpUrl stale = HttpUrl.parse(staleBaseUrl);
+        if (current != null && stale != null && !originOf(current).equals(originOf(stale))) {
+            // 其他线程已经更新过了
+            return;
+        }
+        try {
+            String redirectedUrl = rediscoverFlight.execute(currentBaseUrl,
+                    () -> CompletableFuture.supplyAsync(() -> {
+                        String redirected = getRedirectedUrl();
+                        HttpUrl parsed = HttpUrl.parse(redirected);
+                        if (parsed == null) {
+                            throw new IllegalStateException("探测到的地址无效: " + redirected);
+                        }
+                        String url = originOf(parsed);
+                        log.info("探测到新的 baseUrl: {}", url);
+                        // 更新成员变量
+                        bitTorrentConfig.setBaseUrl(url);
+                        bitTorrentConfig.setReferer(url + "/");
+                        bitTorrentConfig.setOrigin(url);
+                        return url;
+                    }, detailExecutor)
+            ).get(60, TimeUnit.SECONDS);
+            log.debug("baseUrl 已更新为: {}", redirectedUrl);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("探测 baseUrl 失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 协议 + 域名 + 端口（默认端口省略），不含路径和结尾的斜杠
+     */
+    private static String originOf(HttpUrl url) {
+        String origin = url.scheme() + "://" + url.host();
+        return url.port() == HttpUrl.defaultPort(url.scheme()) ? origin : origin + ":" + url.port();
+    }
+
     /**
      * 解析搜索结果的 HTML 页面。
      */
@@ -130,6 +238,8 @@ public class BitTorrentServiceImpl implements BitTorrentService {
             return null;
         }
 
+        // 条目字段还会继续填充，hashCode 会变化，不能作为 Map 的 key
+        List<Map.Entry<BitTorrentSearchResultItem, String>> links = new ArrayList<>();
         for (Element divElement : divElements) {
             List<Map<String, String>> items = parseItems(divElement);
             for (Map<String, String> item : items) {
@@ -138,7 +248,7 @@ public class BitTorrentServiceImpl implements BitTorrentService {
                 BitTorrentSearchResultItem resultItem = new BitTorrentSearchResultItem();
                 String link = item.get("link");
                 if (link != null) {
-                    resultItem.setMagnetInfo(getMagnet(link));
+                    links.add(Map.entry(resultItem, link));
                 }
                 resultItem.setTitle(item.get("title"));
 
@@ -149,7 +259,7 @@ public class BitTorrentServiceImpl implements BitTorrentService {
 
                 String dateStr = item.get("date");
                 if (dateStr != null) {
-                    LocalDate date = LocalDate.parse(dateStr, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+                    LocalDate date = LocalDate.parse(dateStr, DATE_FORMATTER);
                     resultItem.setDate(date.atStartOfDay());
                 }
 
@@ -162,6 +272,9 @@ public class BitTorrentServiceImpl implements BitTorrentService {
             if (results.size() >= bitTorrentConfig.getMaxSearchSize()) break;
         }
 
+        Map<String, BitTorrentMagnetInfo> magnets = resolveMagnets(links.stream().map(Map.Entry::getValue).toList());
+        links.forEach(link -> link.getKey().setMagnetInfo(magnets.get(link.getValue())));
+
         if (!results.isEmpty()) {
             searchResult.setItems(results);
             searchResult.setPageInfo(parsePagination(doc));
@@ -173,8 +286,7 @@ public class BitTorrentServiceImpl implements BitTorrentService {
      * 解析文件大小字符串。
      */
     private DataSize parseSize(String sizeStr) {
-        Pattern pattern = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*([KMGTP]?B)", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(sizeStr.trim());
+        Matcher matcher = SIZE_PATTERN.matcher(sizeStr.trim());
         if (matcher.matches()) {
             double number = Double.parseDouble(matcher.group(1));
             String unit = matcher.group(2).toUpperCase();
@@ -193,10 +305,59 @@ public class BitTorrentServiceImpl implements BitTorrentService {
     }
 
 
+    /**
+     * 并发获取多个详情页的磁力链，超过总超时时间仍未完成的条目不会出现在结果中
+     */
+    private Map<String, BitTorrentMagnetInfo> resolveMagnets(List<String> uris) {
+        Map<String, BitTorrentMagnetInfo> magnets = new HashMap<>();
+        Map<String, Future<BitTorrentMagnetInfo>> pending = new LinkedHashMap<>();
+        for (String uri : uris) {
+            BitTorrentMagnetInfo cached = magnetCache.getIfPresent(uri);
+            if (cached != null) {
+                magnets.put(uri, cached);
+            } else if (!pending.containsKey(uri)) {
+                pending.put(uri, detailExecutor.submit(() -> fetchMagnetWithPermit(uri)));
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(bitTorrentConfig.getDetailTimeoutSeconds());
+        for (Map.Entry<String, Future<BitTorrentMagnetInfo>> entry : pending.entrySet()) {
+            Future<BitTorrentMagnetInfo> future = entry.getValue();
+            try {
+                BitTorrentMagnetInfo info = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (info != null) {
+                    magnets.put(entry.getKey(), info);
+                }
+            } catch (TimeoutException e) {
+                log.warn("获取磁力链 {} 超时", entry.getKey());
+                future.cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.values().forEach(f -> f.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                log.error("获取磁力链 {} 失败: {}", entry.getKey(), e.getCause().getMessage());
+            }
+        }
+        return magnets;
+    }
+
+    private BitTorrentMagnetInfo fetchMagnetWithPermit(String uri) throws InterruptedException {
+        detailPermits.acquire();
+        try {
+            BitTorrentMagnetInfo info = getMagnet(uri);
+            if (info != null) {
+                magnetCache.put(uri, info);
+            }
+            return info;
+        } finally {
+            detailPermits.release();
+        }
+    }
+
     private BitTorrentMagnetInfo getMagnet(String uri) {
         try {
-            Request request = new Request.Builder().url(bitTorrentConfig.getBaseUrl() + uri)
-                    .addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/143.0.0.0 Safari/537.36 Edg/143.0.0.0")
+            Request request = new Request.Builder().url(StrUtil.removeSuffix(bitTorrentConfig.getBaseUrl(), "/") + uri)
+                    .addHeader(HttpHeaders.USER_AGENT, USER_AGENT)
                     .build();
             try (Response response = client.newCall(request).execute()) {
                 if (!response.isSuccessful() || response.body() == null) {
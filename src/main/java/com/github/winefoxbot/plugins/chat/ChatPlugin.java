@@ -4,6 +4,7 @@ import com.github.winefoxbot.core.annotation.common.Block;
 import com.github.winefoxbot.core.annotation.common.Limit;
 import com.github.winefoxbot.core.annotation.plugin.Plugin;
 import com.github.winefoxbot.core.annotation.plugin.PluginFunction;
+import com.github.winefoxbot.core.manager.ExpiringStateRegistry;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
 import com.github.winefoxbot.core.model.enums.common.Permission;
 import com.github.winefoxbot.core.service.reply.VoiceReplyService;
@@ -14,6 +15,7 @@ import com.github.winefoxbot.core.utils.MessageConverter;
 import com.github.winefoxbot.plugins.chat.service.AiInteractionHelper;
 import com.github.winefoxbot.plugins.chat.service.AiInteractionHelper.AiMessageInput;
 import com.github.winefoxbot.plugins.chat.service.OpenAiService;
+import com.google.common.cache.Cache;
 import com.mikuac.shiro.annotation.*;
 import com.mikuac.shiro.annotation.common.Order;
 import com.mikuac.shiro.common.utils.MsgUtils;
@@ -24,6 +26,7 @@ import com.mikuac.shiro.dto.event.message.PrivateMessageEvent;
 import com.mikuac.shiro.dto.event.notice.PokeNoticeEvent;
 import com.mikuac.shiro.enums.AtEnum;
 import com.mikuac.shiro.enums.MsgTypeEnum;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -31,9 +34,9 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.scheduling.annotation.Async;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
@@ -58,11 +61,22 @@ public class ChatPlugin {
     private final ShiroMessagesService shiroMessagesService;
     private final VoiceReplyService voiceReplyService;
     private final AiInteractionHelper aiInteractionHelper;
+    private final ExpiringStateRegistry stateRegistry;
 
-    private final Map<Long, Integer> pokePityCounter = new ConcurrentHashMap<>();
+    /**
+     * 戳一戳语音保底计数，一天没有戳过的用户重新计数
+     */
+    private Map<Long, Integer> pokePityCounter;
     private static final int PITY_THRESHOLD = 30;
     private static final double PROACTIVE_POKE_BACK_CHANCE = 0.3;
     private static final double VOICE_REPLY_CHANCE = 0.2;
+    private static final long MAX_POKE_PITY_USERS = 100_000;
+
+    @PostConstruct
+    public void initStates() {
+        Cache<Long, Integer> cache = stateRegistry.expireAfterAccess("chat:poke-pity", MAX_POKE_PITY_USERS, Duration.ofDays(1));
+        pokePityCounter = cache.asMap();
+    }
 
 
     @PluginFunction(
@@ -1,9 +1,9 @@
 package com.github.winefoxbot.plugins.chat.aitools;
 
-import cn.hutool.core.io.resource.ResourceUtil;
+import com.github.winefoxbot.core.annotation.plugin.AiToolRoute;
 import com.github.winefoxbot.core.context.BotContext;
-import com.github.winefoxbot.core.utils.Base64Utils;
 import com.github.winefoxbot.plugins.chat.init.EmoteVectorStoreLoader;
+import com.github.winefoxbot.plugins.chat.manager.EmoteAssetCache;
 import com.github.winefoxbot.plugins.chat.manager.EmoteManager;
 import com.github.winefoxbot.plugins.chat.model.dto.EmoteResponse;
 import com.mikuac.shiro.common.utils.MsgUtils;
@@ -22,6 +22,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Description;
 import org.springframework.core.io.Resource;
 
+import java.io.IOException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -53,17 +54,28 @@ public class EmojiTool {
     }
 
     @Bean("searchEmoteTool")
+    @AiToolRoute(always = true)
     @Description("根据对话意图搜索最合适的表情包图片然后发送")
-    public Function<EmoteSearchRequest, EmoteSearchResponse> searchEmoteTool(EmoteManager manager) {
+    public Function<EmoteSearchRequest, EmoteSearchResponse> searchEmoteTool(EmoteManager manager, EmoteAssetCache assetCache) {
         return request -> {
 
             // 直接调用分离出来的 Service 进行查询
             Bot bot = BotContext.CURRENT_BOT.get();
             MessageEvent messageEvent = BotContext.CURRENT_MESSAGE_EVENT.get();
             EmoteResponse emoteResponse = manager.searchBestMatch(request.intentDescription());
+            if (emoteResponse == null) {
+                return new EmoteSearchResponse(false, "没有找到合适的表情包");
+            }
+            String payload;
+            try {
+                payload = assetCache.getPayload(emoteResponse.path());
+            } catch (IOException e) {
+                log.error("读取表情包失败: {}", emoteResponse.path(), e);
+                return new EmoteSearchResponse(false, "表情包读取失败");
+            }
             String msg = MsgUtils.builder().img(new OneBotMedia()
                             .summary("[动画表情]")
-                            .file(Base64Utils.toBase64String(ResourceUtil.readBytes("classpath:emoji/" + emoteResponse.path()))))
+                            .file(payload))
                     .build();
             if (messageEvent instanceof PrivateMessageEvent e) {
                 bot.sendPrivateMsg(e.getUserId(), msg, false);
@@ -1,6 +1,7 @@
 package com.github.winefoxbot.plugins.chat.config;
 
 import com.github.winefoxbot.core.utils.DynamicResourceLoader;
+import com.github.winefoxbot.plugins.chat.manager.ChatToolRouter;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
@@ -35,14 +36,15 @@ public class ChatClientConfig {
                 .toList();
     }
 
+    /**
+     * 工具不再作为全局默认工具注册，而是由 {@link ChatToolRouter} 每轮按需挑选
+     */
     @Bean
-    public ChatClient openAiChatClient(ChatClient.Builder builder, List<String> aiToolNames) throws IOException {
+    public ChatClient openAiChatClient(ChatClient.Builder builder) throws IOException {
         try (InputStream inputStream = DynamicResourceLoader.getInputStream("chat" + File.separator + "avatar.md")) {
             String systemPrompt = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-            // 将扫描到的所有工具名称注册为全局默认工具
             return builder
                     .defaultSystem(systemPrompt)
-                    .defaultToolNames(aiToolNames.toArray(new String[0]))
                     .build();
         }
     }
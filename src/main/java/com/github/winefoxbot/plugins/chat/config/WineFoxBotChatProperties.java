@@ -23,4 +23,28 @@ public class WineFoxBotChatProperties {
      * 是否启用表情发送
      */
     private Boolean enableEmoji = false;
+    /**
+     * 表情包向量同步时每批 embedding 的最大条数
+     */
+    private Integer emojiEmbeddingBatchSize = 32;
+    /**
+     * 表情包图片缓存的最大字节数（按 Base64 编码后计算）
+     */
+    private Long emojiCacheMaxBytes = 32L * 1024 * 1024;
+    /**
+     * 启动时按使用次数预热的表情包数量
+     */
+    private Integer emojiPreloadSize = 20;
+    /**
+     * 表情包检索时缓存的查询文本 embedding 数量
+     */
+    private Integer emojiQueryCacheSize = 1000;
+    /**
+     * 是否按对话内容挑选本轮提供给模型的工具，关闭时每轮提供全部工具
+     */
+    private Boolean enableToolRouting = true;
+    /**
+     * 会话中用过的工具在之后多少分钟内继续提供
+     */
+    private Integer toolStickyMinutes = 10;
 }
@@ -0,0 +1,28 @@
+package com.github.winefoxbot.plugins.chat.controller;
+
+import com.github.winefoxbot.plugins.chat.manager.ChatToolRouter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * AI 对话插件的运行监控，与核心的监控接口共用 /api/monitor 前缀
+ *
+ * @author FlanChan
+ */
+@RestController
+@RequestMapping("/api/monitor")
+@RequiredArgsConstructor
+public class WebUIChatMonitorController {
+
+    private final ChatToolRouter chatToolRouter;
+
+    /**
+     * AI 对话的工具路由效果：每轮提供的工具数、Schema 大小和对话耗时
+     */
+    @GetMapping("/chat-tools")
+    public ChatToolRouter.RoutingStats getChatToolRouting() {
+        return chatToolRouter.getStats();
+    }
+}
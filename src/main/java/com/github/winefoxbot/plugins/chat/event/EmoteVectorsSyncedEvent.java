@@ -0,0 +1,21 @@
+package com.github.winefoxbot.plugins.chat.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 表情包向量库同步完成（包括无需变更的情况）后发布
+ *
+ * @author FlanChan
+ */
+@Getter
+public class EmoteVectorsSyncedEvent extends ApplicationEvent {
+    private final int added;
+    private final int deleted;
+
+    public EmoteVectorsSyncedEvent(Object source, int added, int deleted) {
+        super(source);
+        this.added = added;
+        this.deleted = deleted;
+    }
+}
@@ -1,6 +1,10 @@
 package com.github.winefoxbot.plugins.chat.init;
 
+import cn.hutool.crypto.digest.DigestUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.winefoxbot.core.utils.DynamicResourceLoader;
+import com.github.winefoxbot.plugins.chat.config.WineFoxBotChatProperties;
+import com.github.winefoxbot.plugins.chat.event.EmoteVectorsSyncedEvent;
 import com.github.winefoxbot.plugins.chat.model.dto.EmoteData;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,18 +12,23 @@ import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 /**
  * 在应用启动时，读取 JSON，将 intent（意图）和 description（描述）转化为向量并存储。
+ * <p>
+ * 同步采用增量方式：每个表情根据「图片字节 + 描述文本」计算内容哈希并写入 metadata，
+ * 启动时用哈希表比对磁盘上的表情库与向量库，只对新增或变更的表情分批做 embedding，
+ * 并删除磁盘上已不存在的表情对应的向量。
  *
  * @author FlanChan
  */
@@ -29,9 +38,38 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class EmoteVectorStoreLoader {
 
+    private static final String EMOJI_DIR = "emoji/";
+    private static final String META_ID = "id";
+    private static final String META_PATH = "path";
+    private static final String META_HASH = "hash";
+
     private final VectorStore vectorStore;
     private final ObjectMapper objectMapper;
     private final JdbcClient jdbcClient;
+    private final WineFoxBotChatProperties chatProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 向量库中已存在的一条表情记录
+     *
+     * @param emoteId    表情 ID
+     * @param documentId 向量库中的文档 ID
+     * @param hash       入库时的内容哈希，旧版本数据可能为 null
+     */
+    record StoredEmote(String emoteId, String documentId, String hash) {
+    }
+
+    /**
+     * 一次同步需要执行的变更
+     *
+     * @param toAdd    需要 embedding 并写入的文档（新增 + 变更）
+     * @param toDelete 需要删除的文档 ID（变更前的旧文档 + 已移除的表情）
+     */
+    record SyncPlan(List<Document> toAdd, List<String> toDelete) {
+        boolean isEmpty() {
+            return toAdd.isEmpty() && toDelete.isEmpty();
+        }
+    }
 
     @EventListener(ApplicationReadyEvent.class)
     public void init() throws IOException {
@@ -39,35 +77,114 @@ public class EmoteVectorStoreLoader {
                 objectMapper.readValue(new ClassPathResource("config/emoji.json").getInputStream(), EmoteData[].class)
         );
 
-        // 1. 从数据库查出所有已存在的 ID (假设 metadata 字段里存了原始 id)
-        // 注意：PostgreSQL 的 JSONB 查询语法
-        List<String> existingIds = jdbcClient.sql("SELECT metadata->>'id' FROM vector_store")
-                .query(String.class)
+        SyncPlan plan = plan(allEmotes, loadStoredEmotes());
+        if (plan.isEmpty()) {
+            log.info("数据已是最新，无需加载。");
+        } else {
+            apply(plan);
+            log.info("表情包向量同步完成：写入 {} 条，删除 {} 条。", plan.toAdd().size(), plan.toDelete().size());
+        }
+        // 通知检索端重建内存索引
+        eventPublisher.publishEvent(new EmoteVectorsSyncedEvent(this, plan.toAdd().size(), plan.toDelete().size()));
+    }
+
+    /**
+     * 从数据库查出所有已存在的表情
+     * 注意：PostgreSQL 的 JSONB 查询语法
+     */
+    private List<StoredEmote> loadStoredEmotes() {
+        return jdbcClient.sql("SELECT metadata->>'id' AS emote_id, id::text AS doc_id, metadata->>'hash' AS hash FROM vector_store")
+                .query((rs, rowNum) -> new StoredEmote(rs.getString("emote_id"), rs.getString("doc_id"), rs.getString("hash")))
                 .list();
+    }
 
-        // 2. 过滤掉已经存在的，只保留新增的
-        List<Document> newDocuments = allEmotes.stream()
-                .filter(emote -> !existingIds.contains(emote.id())) // 只留新 ID
-                .map(emoteData -> {
-                    String content = "意图: " + emoteData.intent() +
-                            " | 描述: " + emoteData.description() +
-                            " | 关键词: " + String.join(", ", emoteData.keywords());
-                    Map<String, Object> metadata = Map.of(
-                            "id", emoteData.id(),
-                            "path", emoteData.path()
-                    );
-                    // 这里的 Document ID 建议和 emoteData.id 保持一致，方便管理
-                    return new Document(content, metadata);
-                })
-                .toList();
-
-        // 3. 如果有新数据，才执行 embedding 和 存储
-        if (!newDocuments.isEmpty()) {
-            vectorStore.add(newDocuments);
-            log.info("新增加载了 {} 个表情包向量数据！", newDocuments.size());
-        } else {
-            log.info("数据已是最新，无需加载。");
+    /**
+     * 比对磁盘上的表情库与向量库，得出需要新增、更新、删除的条目
+     *
+     * @param emotes 磁盘上的表情库
+     * @param storedRows 向量库中已有的表情
+     */
+    SyncPlan plan(List<EmoteData> emotes, List<StoredEmote> storedRows) {
+        List<Document> toAdd = new ArrayList<>();
+        List<String> toDelete = new ArrayList<>();
+        Map<String, StoredEmote> stored = HashMap.newHashMap(storedRows.size());
+        for (StoredEmote row : storedRows) {
+            // 旧版本曾重复写入同一表情（或缺少表情 ID），多余的记录直接清理
+            if (row.emoteId() == null || stored.putIfAbsent(row.emoteId(), row) != null) {
+                toDelete.add(row.documentId());
+            }
         }
+        Set<String> liveIds = HashSet.newHashSet(emotes.size());
+
+        for (EmoteData emote : emotes) {
+            String emoteId = String.valueOf(emote.id());
+            if (!liveIds.add(emoteId)) {
+                log.warn("表情 ID 重复，已忽略: {}", emoteId);
+                continue;
+            }
+            String content = buildContent(emote);
+            String hash = contentHash(emote, content);
+            StoredEmote existing = stored.get(emoteId);
+            if (existing != null && hash.equals(existing.hash())) {
+                continue;
+            }
+            if (existing != null) {
+                toDelete.add(existing.documentId());
+            }
+            Map<String, Object> metadata = Map.of(
+                    META_ID, emote.id(),
+                    META_PATH, emote.path(),
+                    META_HASH, hash
+            );
+            // 文档 ID 由表情 ID 确定性生成，方便管理
+            toAdd.add(new Document(documentId(emoteId), content, metadata));
+        }
+
+        for (StoredEmote entry : stored.values()) {
+            if (!liveIds.contains(entry.emoteId())) {
+                toDelete.add(entry.documentId());
+            }
+        }
+        return new SyncPlan(toAdd, toDelete);
+    }
+
+    private void apply(SyncPlan plan) {
+        if (!plan.toDelete().isEmpty()) {
+            vectorStore.delete(plan.toDelete());
+        }
+        int batchSize = Math.max(1, chatProperties.getEmojiEmbeddingBatchSize());
+        List<Document> toAdd = plan.toAdd();
+        for (int from = 0; from < toAdd.size(); from += batchSize) {
+            List<Document> batch = toAdd.subList(from, Math.min(from + batchSize, toAdd.size()));
+            vectorStore.add(batch);
+            log.debug("已写入表情包向量 {}/{}", from + batch.size(), toAdd.size());
+        }
+    }
+
+    private static String buildContent(EmoteData emoteData) {
+        return "意图: " + emoteData.intent() +
+                " | 描述: " + emoteData.description() +
+                " | 关键词: " + String.join(", ", emoteData.keywords());
+    }
+
+    /**
+     * 内容哈希 = SHA-256(图片字节 + 路径 + 向量化文本)，图片读取失败时仅使用文本部分
+     */
+    private static String contentHash(EmoteData emote, String content) {
+        byte[] text = (emote.path() + '\n' + content).getBytes(StandardCharsets.UTF_8);
+        try (InputStream is = DynamicResourceLoader.getInputStream(EMOJI_DIR + emote.path())) {
+            byte[] image = is.readAllBytes();
+            byte[] joined = Arrays.copyOf(image, image.length + text.length);
+            System.arraycopy(text, 0, joined, image.length, text.length);
+            return DigestUtil.sha256Hex(joined);
+        } catch (IOException e) {
+            log.warn("读取表情文件失败，仅使用描述计算哈希: {}", emote.path());
+            return DigestUtil.sha256Hex(text);
+        }
+    }
+
+    static String documentId(String emoteId) {
+        return UUID.nameUUIDFromBytes(("emote:" + emoteId).getBytes(StandardCharsets.UTF_8)).toString();
     }
 
 }
@@ -0,0 +1,279 @@
+package com.github.winefoxbot.plugins.chat.manager;
+
+import com.github.winefoxbot.core.annotation.plugin.AiToolRoute;
+import com.github.winefoxbot.core.service.plugin.PluginService;
+import com.github.winefoxbot.plugins.chat.config.WineFoxBotChatProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AI 工具路由
+ * <p>
+ * 每一轮对话只把可能用到的工具提供给模型，减少每次请求携带的工具 Schema：
+ * <ul>
+ *     <li>没有 {@link AiToolRoute} 注解或标记为 always 的工具始终提供</li>
+ *     <li>用户消息命中工具的关键词时提供</li>
+ *     <li>同一会话最近用过的工具在一段时间内继续提供，便于追问</li>
+ *     <li>工具所属插件被关闭时不提供</li>
+ * </ul>
+ * 判断只依赖本地信息，不会额外请求模型。
+ *
+ * @author FlanChan
+ */
+@Component
+@Slf4j
+public class ChatToolRouter {
+
+    /**
+     * 工具路由规则
+     *
+     * @param name     工具名称（即 Bean 名称）
+     * @param keywords 小写关键词
+     * @param pluginId 所属插件 ID（插件类名），不属于插件时为 null
+     * @param always   是否始终提供
+     * @param callback 工具回调
+     * @param schemaSize 工具名称、描述和参数 Schema 的总字符数，用于估算提示词大小
+     */
+    private record ToolRoute(String name, List<String> keywords, String pluginId, boolean always,
+                             ToolCallback callback, int schemaSize) {
+    }
+
+    /**
+     * 路由统计
+     *
+     * @param turns            路由次数
+     * @param offeredTools     累计提供的工具数
+     * @param availableTools   累计可用的工具数
+     * @param offeredSchemaChars   累计提供的 Schema 字符数
+     * @param availableSchemaChars 累计可用的 Schema 字符数（即不做路由时的大小）
+     * @param completedTurns   已记录耗时的对话轮数
+     * @param totalLatencyMillis 累计对话耗时（含模型调用工具的往返）
+     * @param averageLatencyMillis 平均每轮耗时，尚无记录时为 0
+     * @param maxLatencyMillis 单轮最大耗时
+     */
+    public record RoutingStats(long turns, long offeredTools, long availableTools,
+                               long offeredSchemaChars, long availableSchemaChars,
+                               long completedTurns, long totalLatencyMillis,
+                               long averageLatencyMillis, long maxLatencyMillis) {
+    }
+
+    private final ApplicationContext context;
+    private final List<String> aiToolNames;
+    private final ToolCallbackResolver toolCallbackResolver;
+    private final PluginService pluginService;
+    private final WineFoxBotChatProperties chatProperties;
+    /**
+     * 会话 ID -> (工具名 -> 最近使用时间)
+     */
+    private final Cache<Long, Map<String, Long>> recentUsage;
+
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder offeredTools = new LongAdder();
+    private final LongAdder availableTools = new LongAdder();
+    private final LongAdder offeredSchemaChars = new LongAdder();
+    private final LongAdder availableSchemaChars = new LongAdder();
+    private final LongAdder completedTurns = new LongAdder();
+    private final LongAdder totalLatencyMillis = new LongAdder();
+    private final LongAccumulator maxLatencyMillis = new LongAccumulator(Math::max, 0);
+
+    private volatile List<ToolRoute> routes;
+
+    public ChatToolRouter(ApplicationContext context,
+                          @Qualifier("aiToolNames") List<String> aiToolNames,
+                          ToolCallbackResolver toolCallbackResolver,
+                          PluginService pluginService,
+                          WineFoxBotChatProperties chatProperties) {
+        this.context = context;
+        this.aiToolNames = aiToolNames;
+        this.toolCallbackResolver = toolCallbackResolver;
+        this.pluginService = pluginService;
+        this.chatProperties = chatProperties;
+        this.recentUsage = CacheBuilder.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(chatProperties.getToolStickyMinutes(), TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * 为本轮对话挑选工具
+     *
+     * @param sessionId 会话 ID（群号或私聊用户 ID）
+     * @param text      用户本轮消息文本
+     * @return 包装后的工具回调，调用时会记录到会话的最近使用中
+     */
+    public List<ToolCallback> select(Long sessionId, String text) {
+        List<ToolRoute> all = routes();
+        String lowerText = text == null ? "" : text.toLowerCase(Locale.ROOT);
+        Map<String, Long> used = sessionId == null ? null : recentUsage.getIfPresent(sessionId);
+        long stickyMillis = TimeUnit.MINUTES.toMillis(chatProperties.getToolStickyMinutes());
+        long now = System.currentTimeMillis();
+        boolean routing = Boolean.TRUE.equals(chatProperties.getEnableToolRouting());
+
+        List<ToolCallback> selected = new ArrayList<>();
+        int offeredChars = 0;
+        int allChars = 0;
+        for (ToolRoute route : all) {
+            allChars += route.schemaSize();
+            if (route.pluginId() != null && !pluginService.getPluginEnabledStatus(route.pluginId())) {
+                continue;
+            }
+            if (routing && !route.always() && !matchesKeyword(route, lowerText) && !recentlyUsed(used, route.name(), now, stickyMillis)) {
+                continue;
+            }
+            selected.add(new UsageRecordingToolCallback(route.callback(), route.name(), sessionId));
+            offeredChars += route.schemaSize();
+        }
+
+        turns.increment();
+        offeredTools.add(selected.size());
+        availableTools.add(all.size());
+        offeredSchemaChars.add(offeredChars);
+        availableSchemaChars.add(allChars);
+        log.debug("本轮提供 {} / {} 个工具, Schema {} / {} 字符: {}", selected.size(), all.size(), offeredChars, allChars,
+                selected.stream().map(c -> c.getToolDefinition().name()).toList());
+        return selected;
+    }
+
+    /**
+     * 记录一轮对话从发出请求到拿到最终回复的耗时，用于对比路由前后的响应速度
+     *
+     * @param latencyMillis 本轮耗时（毫秒）
+     */
+    public void recordLatency(long latencyMillis) {
+        completedTurns.increment();
+        totalLatencyMillis.add(latencyMillis);
+        maxLatencyMillis.accumulate(latencyMillis);
+    }
+
+    public RoutingStats getStats() {
+        long completed = completedTurns.sum();
+        long totalLatency = totalLatencyMillis.sum();
+        return new RoutingStats(turns.sum(), offeredTools.sum(), availableTools.sum(),
+                offeredSchemaChars.sum(), availableSchemaChars.sum(),
+                completed, totalLatency, completed == 0 ? 0 : totalLatency / completed, maxLatencyMillis.get());
+    }
+
+    private static boolean matchesKeyword(ToolRoute route, String lowerText) {
+        for (String keyword : route.keywords()) {
+            if (lowerText.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean recentlyUsed(Map<String, Long> used, String toolName, long now, long stickyMillis) {
+        if (used == null) {
+            return false;
+        }
+        Long lastUsed = used.get(toolName);
+        return lastUsed != null && now - lastUsed <= stickyMillis;
+    }
+
+    private void recordUsage(Long sessionId, String toolName) {
+        if (sessionId == null) {
+            return;
+        }
+        recentUsage.asMap()
+                .computeIfAbsent(sessionId, k -> new ConcurrentHashMap<>())
+                .put(toolName, System.currentTimeMillis());
+    }
+
+    /**
+     * 工具 Bean 之间可能互相依赖，首次使用时再解析
+     */
+    private List<ToolRoute> routes() {
+        List<ToolRoute> current = routes;
+        if (current == null) {
+            synchronized (this) {
+                current = routes;
+                if (current == null) {
+                    current = buildRoutes();
+                    routes = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<ToolRoute> buildRoutes() {
+        List<ToolRoute> built = new ArrayList<>();
+        for (String name : aiToolNames) {
+            ToolCallback callback = toolCallbackResolver.resolve(name);
+            if (callback == null) {
+                log.warn("无法解析 AI 工具: {}", name);
+                continue;
+            }
+            ToolDefinition definition = callback.getToolDefinition();
+            int schemaSize = definition.name().length() + definition.description().length() + definition.inputSchema().length();
+            AiToolRoute annotation = context.findAnnotationOnBean(name, AiToolRoute.class);
+            if (annotation == null) {
+                built.add(new ToolRoute(name, List.of(), null, true, callback, schemaSize));
+                continue;
+            }
+            List<String> keywords = new ArrayList<>();
+            for (String keyword : annotation.keywords()) {
+                keywords.add(keyword.toLowerCase(Locale.ROOT));
+            }
+            String pluginId = annotation.plugin() == Void.class ? null : annotation.plugin().getSimpleName();
+            built.add(new ToolRoute(name, List.copyOf(keywords), pluginId, annotation.always(), callback, schemaSize));
+        }
+        log.info("AI 工具路由已初始化: {}", built.stream().map(ToolRoute::name).toList());
+        return List.copyOf(built);
+    }
+
+    /**
+     * 调用时记录到会话最近使用的工具中
+     */
+    private final class UsageRecordingToolCallback implements ToolCallback {
+        private final ToolCallback delegate;
+        private final String toolName;
+        private final Long sessionId;
+
+        private UsageRecordingToolCallback(ToolCallback delegate, String toolName, Long sessionId) {
+            this.delegate = delegate;
+            this.toolName = toolName;
+            this.sessionId = sessionId;
+        }
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return delegate.getToolDefinition();
+        }
+
+        @Override
+        public ToolMetadata getToolMetadata() {
+            return delegate.getToolMetadata();
+        }
+
+        @Override
+        public String call(String toolInput) {
+            recordUsage(sessionId, toolName);
+            return delegate.call(toolInput);
+        }
+
+        @Override
+        public String call(String toolInput, ToolContext toolContext) {
+            recordUsage(sessionId, toolName);
+            return delegate.call(toolInput, toolContext);
+        }
+    }
+}
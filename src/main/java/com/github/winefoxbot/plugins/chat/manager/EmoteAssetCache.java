@@ -0,0 +1,162 @@
+package com.github.winefoxbot.plugins.chat.manager;
+
+import com.github.winefoxbot.core.constants.CacheConstants;
+import com.github.winefoxbot.core.utils.Base64Utils;
+import com.github.winefoxbot.plugins.chat.config.WineFoxBotChatProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.github.winefoxbot.core.constants.AppConstants.OUTTERNAL_ROOT;
+
+/**
+ * 表情包图片缓存
+ * <p>
+ * 缓存已经编码好的 Base64 data-uri，按编码后的字节数限制总大小。
+ * 文件来自文件系统时，每次命中都会比对修改时间，文件被替换后自动重新加载；
+ * 来自 classpath（jar 内）的资源不会变化，命中后直接返回。
+ * 使用次数先在内存中累加，定期批量写入 Redis，启动时按使用次数预热最常用的表情。
+ *
+ * @author FlanChan
+ */
+@ConditionalOnBooleanProperty("winefox.ai.chat.enable-emoji")
+@Component
+@Slf4j
+public class EmoteAssetCache {
+
+    private static final String EMOJI_DIR = "emoji/";
+
+    /**
+     * 表情包使用次数有序集合
+     * TTL: 永久
+     */
+    private static final String ZSET_EMOJI_USAGE_KEY = CacheConstants.CACHE_KEY_PREFIX + "chat:emoji:usage";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final WineFoxBotChatProperties chatProperties;
+    private final Cache<String, CachedEmote> cache;
+    private final Map<String, LongAdder> pendingUsage = new ConcurrentHashMap<>();
+
+    /**
+     * @param payload      带 MIME 前缀的 Base64 字符串
+     * @param lastModified 加载时的文件修改时间，classpath 资源为 -1
+     */
+    private record CachedEmote(String payload, long lastModified) {
+    }
+
+    public EmoteAssetCache(RedisTemplate<String, String> redisTemplate, WineFoxBotChatProperties chatProperties) {
+        this.redisTemplate = redisTemplate;
+        this.chatProperties = chatProperties;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(chatProperties.getEmojiCacheMaxBytes())
+                // Base64 字符串按 Latin-1 紧凑存储，长度即为占用字节数
+                .<String, CachedEmote>weigher((path, emote) -> emote.payload().length())
+                .build();
+    }
+
+    /**
+     * 获取表情图片的 Base64 data-uri，并记录一次使用
+     *
+     * @param path 表情在 emoji 目录下的相对路径
+     */
+    public String getPayload(String path) throws IOException {
+        String payload = load(path);
+        recordUsage(path);
+        return payload;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        int preloadSize = chatProperties.getEmojiPreloadSize();
+        if (preloadSize <= 0) {
+            return;
+        }
+        Set<String> topPaths;
+        try {
+            topPaths = redisTemplate.opsForZSet().reverseRange(ZSET_EMOJI_USAGE_KEY, 0, preloadSize - 1L);
+        } catch (Exception e) {
+            log.warn("读取表情包使用统计失败，跳过预热: {}", e.getMessage());
+            return;
+        }
+        if (topPaths == null || topPaths.isEmpty()) {
+            return;
+        }
+        int loaded = 0;
+        for (String path : topPaths) {
+            try {
+                load(path);
+                loaded++;
+            } catch (IOException e) {
+                log.debug("预热表情包失败: {}", path);
+            }
+        }
+        log.info("已预热 {} 个常用表情包", loaded);
+    }
+
+    private String load(String path) throws IOException {
+        Path externalPath = Paths.get(OUTTERNAL_ROOT, EMOJI_DIR, path);
+        boolean external = Files.isRegularFile(externalPath);
+        long lastModified = external ? Files.getLastModifiedTime(externalPath).toMillis() : -1L;
+
+        CachedEmote cached = cache.getIfPresent(path);
+        if (cached != null && cached.lastModified() == lastModified) {
+            return cached.payload();
+        }
+
+        Resource resource = external ? new FileSystemResource(externalPath) : new ClassPathResource(EMOJI_DIR + path);
+        String payload;
+        try (InputStream is = resource.getInputStream()) {
+            payload = Base64Utils.toBase64String(is.readAllBytes());
+        }
+        cache.put(path, new CachedEmote(payload, lastModified));
+        return payload;
+    }
+
+    private void recordUsage(String path) {
+        pendingUsage.computeIfAbsent(path, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * 将内存中累加的使用次数写入 Redis
+     * <p>
+     * 计数器留在 Map 中只做清零（条目数量不超过表情包文件数），清零后到达的计数留到下一次写入；
+     * 写入失败时把本次的数量加回去，不会丢失。
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void flushUsage() {
+        for (Map.Entry<String, LongAdder> entry : pendingUsage.entrySet()) {
+            LongAdder adder = entry.getValue();
+            long count = adder.sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            try {
+                redisTemplate.opsForZSet().incrementScore(ZSET_EMOJI_USAGE_KEY, entry.getKey(), count);
+            } catch (Exception e) {
+                adder.add(count);
+                log.debug("记录表情包使用次数失败，下次重试: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -1,26 +1,62 @@
 package com.github.winefoxbot.plugins.chat.manager;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.winefoxbot.plugins.chat.config.WineFoxBotChatProperties;
+import com.github.winefoxbot.plugins.chat.event.EmoteVectorsSyncedEvent;
 import com.github.winefoxbot.plugins.chat.model.dto.EmoteResponse;
-import lombok.RequiredArgsConstructor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.simple.JdbcClient;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 专门负责表情包的语义检索服务
+ * <p>
+ * 表情向量在 {@link EmoteVectorsSyncedEvent} 后从向量库整体加载到内存索引，
+ * 查询文本的 embedding 结果也会缓存，重复的查询不需要访问 embedding 模型和数据库。
+ * 内存索引尚未加载时回退为直接查询向量库。
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class EmoteManager {
 
+    /**
+     * 相似度门槛，防止AI在完全不相关的语境下乱发图
+     */
+    private static final double SIMILARITY_THRESHOLD = 0.65;
+
     private final VectorStore vectorStore;
+    private final EmbeddingModel embeddingModel;
+    private final JdbcClient jdbcClient;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, float[]> queryEmbeddingCache;
 
+    private volatile EmoteVectorIndex index;
+
+    public EmoteManager(VectorStore vectorStore, EmbeddingModel embeddingModel, JdbcClient jdbcClient,
+                        ObjectMapper objectMapper, WineFoxBotChatProperties chatProperties) {
+        this.vectorStore = vectorStore;
+        this.embeddingModel = embeddingModel;
+        this.jdbcClient = jdbcClient;
+        this.objectMapper = objectMapper;
+        this.queryEmbeddingCache = CacheBuilder.newBuilder()
+                .maximumSize(chatProperties.getEmojiQueryCacheSize())
+                .expireAfterAccess(6, TimeUnit.HOURS)
+                .build();
+    }
 
     /**
      * 在向量库中搜索最匹配的表情
@@ -29,14 +65,102 @@ public class EmoteManager {
      * @return 匹配到的表情包信息，如果没有达到相似度阈值则返回 null
      */
     public EmoteResponse searchBestMatch(String query) {
-        // 1. 构建搜索请求
+        EmoteVectorIndex current = index;
+        if (current == null || current.size() == 0) {
+            return searchFromVectorStore(query);
+        }
+
+        EmoteVectorIndex.Match match = current.searchBest(embed(query), SIMILARITY_THRESHOLD);
+        if (match == null) {
+            log.debug("未找到与 '{}' 匹配度足够的表情包", query);
+            return null;
+        }
+        log.info("表情包匹配成功: Query='{}' -> ID={}, Path={}, Score={}", query, match.id(), match.path(), match.score());
+        return new EmoteResponse(match.id(), match.path(), "匹配成功");
+    }
+
+    /**
+     * 向量库同步完成后重建内存索引
+     */
+    @EventListener(EmoteVectorsSyncedEvent.class)
+    public void refreshIndex() {
+        try {
+            List<EmoteVectorIndex.Entry> entries = new ArrayList<>();
+            jdbcClient.sql("SELECT embedding::text AS embedding, metadata::text AS metadata FROM vector_store")
+                    .query(rs -> {
+                        EmoteVectorIndex.Entry entry = toEntry(rs.getString("embedding"), rs.getString("metadata"));
+                        if (entry != null) {
+                            entries.add(entry);
+                        }
+                    });
+            index = new EmoteVectorIndex(entries);
+            log.info("表情包向量索引已加载: {} 条, 维度 {}", entries.size(), index.dimensions());
+        } catch (Exception e) {
+            // 保留旧索引（或继续回退到向量库查询）
+            log.error("加载表情包向量索引失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private float[] embed(String query) {
+        try {
+            return queryEmbeddingCache.get(query.trim(), () -> embeddingModel.embed(query.trim()));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("表情包查询向量化失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private EmoteVectorIndex.Entry toEntry(String embedding, String metadataJson) {
+        if (embedding == null || metadataJson == null) {
+            return null;
+        }
+        try {
+            JsonNode metadata = objectMapper.readTree(metadataJson);
+            JsonNode id = metadata.get("id");
+            if (id == null || !id.canConvertToInt()) {
+                return null;
+            }
+            return new EmoteVectorIndex.Entry(id.asInt(), metadata.path("path").asText(""), parseVector(embedding));
+        } catch (Exception e) {
+            log.warn("跳过无法解析的表情包向量: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 解析 pgvector 的文本形式 "[0.1,0.2,...]"
+     */
+    private static float[] parseVector(String text) {
+        int start = text.indexOf('[');
+        int end = text.lastIndexOf(']');
+        String body = text.substring(start + 1, end);
+        float[] vector = new float[body.isEmpty() ? 0 : countCommas(body) + 1];
+        int from = 0;
+        for (int i = 0; i < vector.length; i++) {
+            int comma = body.indexOf(',', from);
+            int to = comma < 0 ? body.length() : comma;
+            vector[i] = Float.parseFloat(body.substring(from, to).trim());
+            from = to + 1;
+        }
+        return vector;
+    }
+
+    private static int countCommas(String s) {
+        int count = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == ',') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private EmoteResponse searchFromVectorStore(String query) {
         // topK(1): 我们只需要最合适的那一张
-        // similarityThreshold(0.65): 设置一个相似度门槛，防止AI在完全不相关的语境下乱发图
         List<Document> results = vectorStore.similaritySearch(
                 SearchRequest.builder()
                         .query(query)
                         .topK(1)
-                        .similarityThreshold(0.65)
+                        .similarityThreshold(SIMILARITY_THRESHOLD)
                         .build()
         );
 
@@ -48,22 +172,14 @@ public class EmoteManager {
         Document bestMatch = results.get(0);
         Map<String, Object> metadata = bestMatch.getMetadata();
 
-        // 从 metadata 中提取我们在 Loader 里存入的数据
         // 注意：不同 VectorStore 实现对于数字类型的存储可能不同（Long/Integer/Double），这里做安全转换
         int id = 0;
         if (metadata.get("id") instanceof Number n) {
             id = n.intValue();
         }
-
         String path = (String) metadata.getOrDefault("path", "");
 
-        // 我们可以把原来的 description 也取出来返回给 AI，加强它的理解
-        // 但我们在 Loader 里把 description 混进了 content，没单独存 metadata。
-        // 如果需要，可以在 Loader 的 metadata 里多存一个 "desc" 字段。
-        // 这里暂时只返回 path。
-
         log.info("表情包匹配成功: Query='{}' -> ID={}, Path={}", query, id, path);
-
         return new EmoteResponse(id, path, "匹配成功");
     }
 }
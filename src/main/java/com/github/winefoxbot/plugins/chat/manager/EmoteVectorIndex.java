@@ -0,0 +1,105 @@
+package com.github.winefoxbot.plugins.chat.manager;
+
+import java.util.List;
+
+/**
+ * 表情包向量的内存索引
+ * <p>
+ * 表情库只有几百条，向量归一化后逐条计算点积（即余弦相似度）只需不到一毫秒，
+ * 结果精确且没有 HNSW 之类近似索引的构建和维护成本；索引不可变，刷新时整体替换。
+ *
+ * @author FlanChan
+ */
+public final class EmoteVectorIndex {
+
+    /**
+     * 索引中的一条表情
+     */
+    public record Entry(int id, String path, float[] vector) {
+    }
+
+    /**
+     * 检索结果
+     *
+     * @param score 余弦相似度
+     */
+    public record Match(int id, String path, double score) {
+    }
+
+    private final int[] ids;
+    private final String[] paths;
+    private final float[][] vectors;
+    private final int dimensions;
+
+    public EmoteVectorIndex(List<Entry> entries) {
+        this.dimensions = entries.isEmpty() ? 0 : entries.getFirst().vector().length;
+        this.ids = new int[entries.size()];
+        this.paths = new String[entries.size()];
+        this.vectors = new float[entries.size()][];
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.vector().length != dimensions) {
+                throw new IllegalArgumentException("向量维度不一致: " + entry.vector().length + " != " + dimensions);
+            }
+            ids[i] = entry.id();
+            paths[i] = entry.path();
+            vectors[i] = normalize(entry.vector());
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * 查找与查询向量最相似的表情
+     *
+     * @param query     查询向量，不要求已归一化
+     * @param threshold 最低相似度
+     * @return 最相似且达到阈值的表情，没有则返回 null
+     */
+    public Match searchBest(float[] query, double threshold) {
+        if (ids.length == 0 || query.length != dimensions) {
+            return null;
+        }
+        float[] q = normalize(query);
+        int best = -1;
+        double bestScore = threshold;
+        for (int i = 0; i < vectors.length; i++) {
+            double score = dot(q, vectors[i]);
+            if (score >= bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best < 0 ? null : new Match(ids[best], paths[best], bestScore);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+}
@@ -9,6 +9,7 @@ import com.github.winefoxbot.core.model.enums.common.MessageType;
 import com.github.winefoxbot.core.service.shiro.ShiroMessagesService;
 import com.github.winefoxbot.core.utils.BotUtils;
 import com.github.winefoxbot.plugins.chat.config.WineFoxBotChatProperties;
+import com.github.winefoxbot.plugins.chat.manager.ChatToolRouter;
 import com.github.winefoxbot.plugins.chat.service.AiInteractionHelper;
 import com.github.winefoxbot.plugins.chat.service.AiInteractionHelper.AiMessageInput;
 import com.github.winefoxbot.plugins.chat.service.OpenAiService;
@@ -31,6 +32,7 @@ import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.content.Media;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.stereotype.Service;
@@ -41,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author FlanChan
@@ -56,6 +59,7 @@ public class OpenAiServiceImpl implements OpenAiService {
     private final ObjectMapper objectMapper;
     private final WineFoxBotChatProperties wineFoxBotChatProperties;
     private final OkHttpClient okHttpClient;
+    private final ChatToolRouter chatToolRouter;
 
 
     @Override
@@ -130,7 +134,18 @@ public class OpenAiServiceImpl implements OpenAiService {
 
         Prompt prompt = new Prompt(messages);
         log.info("Sending {} messages to AI.", messages.size());
-        return chatClient.prompt(prompt).call().content();
+        // 3. 按本轮消息挑选需要提供给模型的工具
+        String currentText = currentMessage != null ? currentMessage.getTextContent() : null;
+        List<ToolCallback> tools = chatToolRouter.select(sessionId, currentText);
+        long start = System.nanoTime();
+        try {
+            return chatClient.prompt(prompt)
+                    .toolCallbacks(tools)
+                    .call()
+                    .content();
+        } finally {
+            chatToolRouter.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
     }
 
 
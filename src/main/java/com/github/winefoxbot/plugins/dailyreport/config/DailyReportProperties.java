@@ -4,6 +4,10 @@ import com.github.winefoxbot.plugins.dailyreport.model.enums.HolidayRegion;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * @author FlanChan
  */
@@ -16,4 +20,42 @@ public class DailyReportProperties {
 
     private String preGenerateCron = "0 30 7 * * ?";
 
+    /**
+     * 各数据源的缓存有效期，key 为数据源名称：hitokoto、news、bili-hotword、it-news、anime
+     */
+    private Map<String, Duration> sourceTtl = new HashMap<>(Map.of(
+            "hitokoto", Duration.ofHours(12),
+            "news", Duration.ofMinutes(30),
+            "bili-hotword", Duration.ofMinutes(30),
+            "it-news", Duration.ofMinutes(30),
+            "anime", Duration.ofHours(6)
+    ));
+
+    /**
+     * 未单独配置有效期的数据源使用的默认值
+     */
+    private Duration defaultSourceTtl = Duration.ofMinutes(30);
+
+    /**
+     * 数据源没有可用旧值时最多等待多久，超时的数据源在本次日报中留空
+     */
+    private Duration sourceDeadline = Duration.ofSeconds(8);
+
+    /**
+     * 单独覆盖某个数据源的等待期限
+     */
+    private Map<String, Duration> sourceDeadlines = new HashMap<>();
+
+    /**
+     * 数据源获取失败后多久再重试
+     */
+    private Duration sourceRetryInterval = Duration.ofMinutes(1);
+
+    public Duration ttlOf(String source) {
+        return sourceTtl.getOrDefault(source, defaultSourceTtl);
+    }
+
+    public Duration deadlineOf(String source) {
+        return sourceDeadlines.getOrDefault(source, sourceDeadline);
+    }
 }
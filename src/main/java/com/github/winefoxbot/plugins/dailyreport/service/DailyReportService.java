@@ -5,24 +5,27 @@ import cn.hutool.core.util.RandomUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.winefoxbot.core.config.playwright.PlaywrightConfig;
+import com.github.winefoxbot.core.manager.SingleFlightManager;
 import com.github.winefoxbot.core.service.file.FileStorageService;
 import com.github.winefoxbot.core.utils.DynamicResourceLoader;
+import com.github.winefoxbot.core.utils.SingleFlight;
 import com.github.winefoxbot.plugins.dailyreport.config.DailyReportProperties;
 import com.github.winefoxbot.plugins.dailyreport.model.dto.BiliHotwordDTO;
 import com.github.winefoxbot.plugins.dailyreport.model.dto.HitokotoDTO;
 import com.github.winefoxbot.plugins.dailyreport.model.dto.NewsDataDTO;
+import com.github.winefoxbot.plugins.dailyreport.source.ReportSource;
+import com.github.winefoxbot.plugins.dailyreport.source.ReportSourceCache;
 import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.options.ScreenshotType;
 import com.microsoft.playwright.options.WaitForSelectorState;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpHeaders;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -37,21 +40,28 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
+ * 日报服务
+ * <p>
+ * 五个外部数据源各自缓存（见 {@link ReportSourceCache}），过期后先用旧数据、在后台刷新，
+ * 单个数据源变慢不会拖住整份日报。只有日期或某个数据源的内容真正变化时才会重新渲染图片，
+ * 渲染通过 Single-Flight 合并，同一时刻只会渲染一次。
+ *
  * @author FlanChan
  */
 @Service
@@ -88,7 +98,26 @@ public class DailyReportService {
 
     private record AnimeItem(String name, String image) {}
 
+    /**
+     * 一次日报所需的全部数据
+     *
+     * @param fingerprint 日期 + 各数据源版本号，相同说明渲染结果不会变化
+     */
+    private record ReportData(LocalDate date,
+                              HitokotoDTO hitokoto,
+                              NewsDataDTO news,
+                              BiliHotwordDTO biliHotwords,
+                              List<String> itNews,
+                              Map<Integer, List<AnimeItem>> animeCalendar,
+                              String fingerprint) {}
+
+    /**
+     * 最近一次渲染的日报
+     */
+    private record RenderedReport(LocalDate date, String fingerprint, byte[] image) {}
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_FORMAT_PATTERN);
+    private static final String RENDER_FLIGHT_KEY = "daily-report";
 
     private final OkHttpClient httpClient;
     private final Browser browser;
@@ -99,49 +128,59 @@ public class DailyReportService {
     private final FileStorageService fileStorageService;
     private final HolidayService holidayService;
     private final ExecutorService virtualThreadExecutor;
-    private final Lock lock = new ReentrantLock();
-
+    private final SingleFlightManager singleFlightManager;
 
-    @Lazy
-    @Autowired
-    private DailyReportService self;
+    private ReportSourceCache sourceCache;
+    /**
+     * 渲染请求合并，同一时刻只会有一次渲染，等待中的请求共享结果
+     */
+    private SingleFlight<String, byte[]> renderFlight;
+
+    private ReportSource<HitokotoDTO> hitokotoSource;
+    private ReportSource<NewsDataDTO> newsSource;
+    private ReportSource<BiliHotwordDTO> biliHotwordSource;
+    private ReportSource<List<String>> itNewsSource;
+    private ReportSource<Map<Integer, List<AnimeItem>>> animeSource;
+
+    private volatile RenderedReport lastRendered;
+
+    @PostConstruct
+    public void initSources() {
+        sourceCache = new ReportSourceCache(singleFlightManager.getOrCreate("dailyreport:source-refresh"),
+                virtualThreadExecutor, properties.getSourceRetryInterval(), Clock.systemDefaultZone());
+        renderFlight = singleFlightManager.getOrCreate("dailyreport:render");
+        hitokotoSource = source("hitokoto", () -> fetchJson(HITOKOTO_API_URL, HitokotoDTO.class), null);
+        newsSource = source("news", () -> fetchJson(properties.getAlapiUrl(), NewsDataDTO.class), null);
+        biliHotwordSource = source("bili-hotword", () -> fetchJson(BILI_HOTWORD_API_URL, BiliHotwordDTO.class), null);
+        itNewsSource = source("it-news", this::fetchItNewsData, List.of());
+        animeSource = source("anime", this::fetchAnimeCalendar, Map.of());
+    }
 
     /**
-     * 获取日报图片。优先从缓存读取，否则生成新的图片。
+     * 获取日报图片。数据源都没有变化时直接返回上一次的渲染结果，否则重新渲染。
      *
      * @return 日报图片的字节数组
-     * @throws IOException 如果文件读写或网络请求失败
+     * @throws IOException 如果文件读写或渲染失败
      */
     public byte[] getDailyReportImage() throws IOException {
-        String cacheKey = getCachePathForToday();
-        Path cachePath = fileStorageService.getFilePathByCacheKey(cacheKey);
-
-        if (cachePath != null && Files.exists(cachePath)) {
-            log.info("Serving daily report from cache: {}", cachePath);
-            return Files.readAllBytes(cachePath);
-        }
-
-        lock.lock();
-        try {
-            if (cachePath != null && Files.exists(cachePath)) {
-                log.info("Serving daily report from cache (double-checked): {}", cachePath);
-                return Files.readAllBytes(cachePath);
-            }
-            return generateAndCacheReport(cacheKey);
-        } finally {
-            lock.unlock();
+        ReportData data = collectData(false);
+        RenderedReport rendered = findRendered(data);
+        if (rendered != null) {
+            return rendered.image();
         }
+        return render(false);
     }
 
 
     /**
-     * 定时任务：每天预生成当天的日报图片并缓存。
+     * 定时任务：每天刷新全部数据源并预生成当天的日报图片。
      */
     @Scheduled(cron = "${winefoxbot.plugins.dailyreport.pre-generate-cron:0 30 8 * * ?}")
     public void scheduledPreGenerateDailyReport() {
         try {
             log.info("Scheduled task: Pre-generating daily report image for today.");
-            self.regenerateDailyReportImage();
+            collectData(true);
+            render(false);
             log.info("Scheduled task: Daily report image pre-generation completed.");
         } catch (IOException e) {
             log.error("Scheduled task: Failed to pre-generate daily report image.", e);
@@ -150,193 +189,240 @@ public class DailyReportService {
 
 
     /**
-     * 强制重新生成当天的日报图片。
+     * 强制刷新全部数据源并重新生成当天的日报图片。
      *
-     * @throws IOException 如果文件读写或网络请求失败
+     * @throws IOException 如果文件读写或渲染失败
      */
     public void regenerateDailyReportImage() throws IOException {
-        String cacheKey = getCachePathForToday();
-        fileStorageService.deleteFile(cacheKey, null);
-        generateAndCacheReport(cacheKey);
+        collectData(true);
+        render(true);
+    }
+
+    /**
+     * 找到与当前数据一致的渲染结果。重启后第一次调用时尝试使用当天已缓存的图片文件。
+     */
+    private RenderedReport findRendered(ReportData data) throws IOException {
+        RenderedReport rendered = lastRendered;
+        if (rendered == null || !rendered.date().equals(data.date())) {
+            rendered = restoreFromFile(data);
+        }
+        if (rendered != null && rendered.date().equals(data.date()) && rendered.fingerprint().equals(data.fingerprint())) {
+            return rendered;
+        }
+        return null;
+    }
+
+    /**
+     * 文件里的图片不知道是用哪一版数据渲染的，视为当前数据的渲染结果，之后数据变化时再重新渲染
+     */
+    private RenderedReport restoreFromFile(ReportData data) throws IOException {
+        Path cachePath = fileStorageService.getFilePathByCacheKey(getCacheKey(data.date()));
+        if (cachePath == null || !Files.exists(cachePath)) {
+            return null;
+        }
+        log.info("Serving daily report from cache: {}", cachePath);
+        RenderedReport restored = new RenderedReport(data.date(), data.fingerprint(), Files.readAllBytes(cachePath));
+        lastRendered = restored;
+        return restored;
     }
 
-    private byte[] generateAndCacheReport(String cacheKey) {
-        log.info("Generating new daily report for {}", LocalDate.now());
-        byte[] imageBytes = generateReportImage();
+    private byte[] render(boolean force) throws IOException {
+        try {
+            return renderFlight.execute(RENDER_FLIGHT_KEY,
+                    () -> CompletableFuture.supplyAsync(() -> renderIfChanged(force), virtualThreadExecutor)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 在合并的渲染内重新读取数据和上一次的结果再做判断，排在前一次渲染之后的请求不会重复渲染
+     */
+    private byte[] renderIfChanged(boolean force) {
+        ReportData data = collectData(false);
+        RenderedReport rendered = lastRendered;
+        if (!force && rendered != null && rendered.date().equals(data.date()) && rendered.fingerprint().equals(data.fingerprint())) {
+            return rendered.image();
+        }
+        log.info("Generating new daily report for {}, sources: {}", data.date(), data.fingerprint());
+        byte[] imageBytes;
+        try {
+            imageBytes = renderHtmlToImage(buildContextData(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastRendered = new RenderedReport(data.date(), data.fingerprint(), imageBytes);
 
+        String cacheKey = getCacheKey(data.date());
         CompletableFuture.runAsync(() -> {
             fileStorageService.saveFileByCacheKey(cacheKey, imageBytes, Duration.ofDays(1));
             log.info("Daily report cached successfully");
         }, virtualThreadExecutor);
-
         return imageBytes;
     }
 
-    private byte[] generateReportImage() {
-        // 1. 获取原有数据
-        CompletableFuture<HitokotoDTO> hitokotoFuture = fetchData(HITOKOTO_API_URL, HitokotoDTO.class);
-        CompletableFuture<NewsDataDTO> newsFuture = fetchNewsData();
-        CompletableFuture<BiliHotwordDTO> biliHotwordFuture = fetchData(BILI_HOTWORD_API_URL, BiliHotwordDTO.class);
-
-        // 2. 获取 IT 资讯 (XML) 和 动漫新番 (JSON)
-        CompletableFuture<List<String>> itNewsFuture = fetchItNewsData();
-        CompletableFuture<List<AnimeItem>> animeFuture = fetchAnimeData();
-
-        // 等待所有任务完成
-        CompletableFuture.allOf(hitokotoFuture, newsFuture, biliHotwordFuture, itNewsFuture, animeFuture).join();
+    /**
+     * 读取全部数据源，各数据源并行，最多等待其中最长的 deadline
+     *
+     * @param refresh 是否忽略有效期立即刷新
+     */
+    private ReportData collectData(boolean refresh) {
+        CompletableFuture<ReportSourceCache.Value<HitokotoDTO>> hitokoto = read(hitokotoSource, refresh);
+        CompletableFuture<ReportSourceCache.Value<NewsDataDTO>> news = read(newsSource, refresh);
+        CompletableFuture<ReportSourceCache.Value<BiliHotwordDTO>> biliHotwords = read(biliHotwordSource, refresh);
+        CompletableFuture<ReportSourceCache.Value<List<String>>> itNews = read(itNewsSource, refresh);
+        CompletableFuture<ReportSourceCache.Value<Map<Integer, List<AnimeItem>>>> anime = read(animeSource, refresh);
+        CompletableFuture.allOf(hitokoto, news, biliHotwords, itNews, anime).join();
+
+        LocalDate date = LocalDate.now();
+        String fingerprint = date
+                + "|hitokoto=" + hitokoto.join().version()
+                + "|news=" + news.join().version()
+                + "|bili-hotword=" + biliHotwords.join().version()
+                + "|it-news=" + itNews.join().version()
+                + "|anime=" + anime.join().version();
+        return new ReportData(date, hitokoto.join().value(), news.join().value(), biliHotwords.join().value(),
+                itNews.join().value(), anime.join().value(), fingerprint);
+    }
 
-        try {
-            Map<String, Object> data = new HashMap<>();
-
-            // 填充 Hitokoto
-            data.put(CONTEXT_VARIABLE_HITOKOTO, hitokotoFuture.get());
-
-            // 填充 60s 新闻 (注意这里对应 HTML 的 ${newsList})
-            // NewsDataDTO.data().news() 返回的是 List<String>
-            NewsDataDTO newsDto = newsFuture.get();
-            data.put(CONTEXT_VARIABLE_60SNEWS_LIST, newsDto != null && newsDto.data() != null ? newsDto.data().news() : Collections.emptyList());
-            // 复用 newsData 对象给 header 的日期使用 (HTML中用到了 newsData.date)
-            data.put(CONTEXT_VARIABLE_NEWS_DATA, newsDto != null ? newsDto.data() : null);
-            // 填充节假日信息
-            data.put(CONTEXT_VARIABLE_HOLIDAY_LIST, holidayService.getHolidaysSorted());
-            // 填充 B站热搜
-            List<BiliHotwordDTO.HotwordItem> hotwords = biliHotwordFuture.get() != null
-                    ? biliHotwordFuture.get().list().stream().limit(BILI_HOTWORDS_LIMIT).collect(Collectors.toList())
-                    : Collections.emptyList();
-            data.put(CONTEXT_VARIABLE_BILI_HOTWORDS, hotwords);
-            // 填充 IT 资讯
-            data.put(CONTEXT_VARIABLE_ITNEWS_LIST, itNewsFuture.get());
-            // 填充 动漫数据
-            data.put(CONTEXT_VARIABLE_ANIME_LIST, animeFuture.get());
-            // 填充 历史上的今天 (Python源无此数据，置空)
-            data.put(CONTEXT_VARIABLE_HISTORY_LIST, Collections.emptyList());
-            log.info("All data fetched successfully, rendering image...");
-            return renderHtmlToImage(data);
-        } catch (Exception e) {
-            log.error("Error occurred while getting future results or rendering image", e);
-            throw new RuntimeException("Failed to generate report image", e);
-        }
+    private <T> CompletableFuture<ReportSourceCache.Value<T>> read(ReportSource<T> source, boolean refresh) {
+        return refresh ? sourceCache.refresh(source) : sourceCache.get(source);
     }
 
+    private <T> ReportSource<T> source(String name, Callable<T> fetcher, T emptyValue) {
+        return new ReportSource<>(name, properties.ttlOf(name), properties.deadlineOf(name), fetcher, emptyValue);
+    }
 
+    private Map<String, Object> buildContextData(ReportData reportData) {
+        Map<String, Object> data = new HashMap<>();
+
+        // 填充 Hitokoto
+        data.put(CONTEXT_VARIABLE_HITOKOTO, reportData.hitokoto());
+
+        // 填充 60s 新闻 (注意这里对应 HTML 的 ${newsList})
+        // NewsDataDTO.data().news() 返回的是 List<String>
+        NewsDataDTO newsDto = reportData.news();
+        data.put(CONTEXT_VARIABLE_60SNEWS_LIST, newsDto != null && newsDto.data() != null ? newsDto.data().news() : Collections.emptyList());
+        // 复用 newsData 对象给 header 的日期使用 (HTML中用到了 newsData.date)
+        data.put(CONTEXT_VARIABLE_NEWS_DATA, newsDto != null ? newsDto.data() : null);
+        // 填充节假日信息
+        data.put(CONTEXT_VARIABLE_HOLIDAY_LIST, holidayService.getHolidaysSorted());
+        // 填充 B站热搜
+        BiliHotwordDTO biliHotwords = reportData.biliHotwords();
+        List<BiliHotwordDTO.HotwordItem> hotwords = biliHotwords != null && biliHotwords.list() != null
+                ? biliHotwords.list().stream().limit(BILI_HOTWORDS_LIMIT).collect(Collectors.toList())
+                : Collections.emptyList();
+        data.put(CONTEXT_VARIABLE_BILI_HOTWORDS, hotwords);
+        // 填充 IT 资讯
+        data.put(CONTEXT_VARIABLE_ITNEWS_LIST, reportData.itNews());
+        // 填充 动漫数据
+        data.put(CONTEXT_VARIABLE_ANIME_LIST, animeOf(reportData.animeCalendar(), reportData.date()));
+        // 填充 历史上的今天 (Python源无此数据，置空)
+        data.put(CONTEXT_VARIABLE_HISTORY_LIST, Collections.emptyList());
+        return data;
+    }
 
+    /**
+     * 从一周的番剧表中取出当天的番剧，没找到今天的（比如API变动）取最后一个作为 fallback，模仿 Python 逻辑
+     */
+    private static List<AnimeItem> animeOf(Map<Integer, List<AnimeItem>> calendar, LocalDate date) {
+        if (calendar.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<AnimeItem> today = calendar.get(date.getDayOfWeek().getValue());
+        if (today != null) {
+            return today;
+        }
+        List<List<AnimeItem>> days = new ArrayList<>(calendar.values());
+        return days.getLast();
+    }
 
-    private <T> CompletableFuture<T> fetchData(String url, Class<T> clazz) {
-        return CompletableFuture.supplyAsync(() -> {
-            Request request = new Request.Builder().url(url)
-                    .addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome")
-                    .build();
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    throw new IOException("Unexpected code " + response);
-                }
-                if (response.body() == null) {
-                    throw new IOException("Empty response body from " + url);
-                }
-                String json = response.body().string();
-                return objectMapper.readValue(json, clazz);
-            } catch (IOException e) {
-                log.error("Failed to fetch data from {}", url, e);
-                return null;
+    private <T> T fetchJson(String url, Class<T> clazz) throws IOException {
+        Request request = new Request.Builder().url(url)
+                .addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome")
+                .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Unexpected code " + response);
             }
-        }, virtualThreadExecutor);
+            if (response.body() == null) {
+                throw new IOException("Empty response body from " + url);
+            }
+            String json = response.body().string();
+            return objectMapper.readValue(json, clazz);
+        }
     }
 
-    private CompletableFuture<List<String>> fetchItNewsData() {
-        return CompletableFuture.supplyAsync(() -> {
-            Request request = new Request.Builder().url(IT_RSS_URL)
-                    .addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0")
-                    .build();
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (response.body() == null) {
-                    return Collections.emptyList();
-                }
-                String xmlContent = response.body().string();
-
-                // 简单的 XML 解析
-                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder builder = factory.newDocumentBuilder();
-                Document doc = builder.parse(new InputSource(new StringReader(xmlContent)));
-
-                NodeList items = doc.getElementsByTagName("item");
-                List<String> titles = new ArrayList<>();
-                for (int i = 0; i < items.getLength() && titles.size() < 11; i++) {
-                    Element item = (Element) items.item(i);
-                    NodeList titleNode = item.getElementsByTagName("title");
-                    if (titleNode.getLength() > 0) {
-                        titles.add(titleNode.item(0).getTextContent());
-                    }
+    private List<String> fetchItNewsData() throws Exception {
+        Request request = new Request.Builder().url(IT_RSS_URL)
+                .addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0")
+                .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Unexpected response from " + IT_RSS_URL + ": " + response.code());
+            }
+            String xmlContent = response.body().string();
+
+            // 简单的 XML 解析
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            Document doc = builder.parse(new InputSource(new StringReader(xmlContent)));
+
+            NodeList items = doc.getElementsByTagName("item");
+            List<String> titles = new ArrayList<>();
+            for (int i = 0; i < items.getLength() && titles.size() < 11; i++) {
+                Element item = (Element) items.item(i);
+                NodeList titleNode = item.getElementsByTagName("title");
+                if (titleNode.getLength() > 0) {
+                    titles.add(titleNode.item(0).getTextContent());
                 }
-                return titles;
-            } catch (Exception e) {
-                log.error("Failed to fetch IT news", e);
-                return Collections.emptyList();
             }
-        }, virtualThreadExecutor);
+            return List.copyOf(titles);
+        }
     }
 
     /**
-     * 获取 Bangumi 每日番剧
+     * 获取 Bangumi 一周的番剧表，key 为周几 (1 - 7)，渲染时再按当天取出，跨天不需要重新请求
      */
-    private CompletableFuture<List<AnimeItem>> fetchAnimeData() {
-        return CompletableFuture.supplyAsync(() -> {
-            Request request = new Request.Builder()
-                    .addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome")
-                    .url(ANIME_API_URL).build();
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (response.body() == null) return Collections.emptyList();
-
-                JsonNode root = objectMapper.readTree(response.body().string());
-                int dayOfWeek = LocalDate.now().getDayOfWeek().getValue(); // 1 (Mon) - 7 (Sun)
-
-                // Bangumi API 返回的是一个数组，通常索引对应周几，但也需要检查 weekday.id
-                // API 结构: [ {"weekday": {"en": "Mon", "id": 1}, "items": [...]}, ... ]
-
-                JsonNode todayItems = null;
-                for (JsonNode day : root) {
-                    if (day.get("weekday").get("id").asInt() == dayOfWeek) {
-                        todayItems = day.get("items");
-                        break;
-                    }
-                }
-
-                // 如果没找到今天的（比如API变动），取最后一个作为 fallback，模仿 Python 逻辑
-                if (todayItems == null && root.size() > 0) {
-                    todayItems = root.get(root.size() - 1).get("items");
-                }
+    private Map<Integer, List<AnimeItem>> fetchAnimeCalendar() throws IOException {
+        Request request = new Request.Builder()
+                .addHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome")
+                .url(ANIME_API_URL).build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Unexpected response from " + ANIME_API_URL + ": " + response.code());
+            }
 
+            // API 结构: [ {"weekday": {"en": "Mon", "id": 1}, "items": [...]}, ... ]
+            JsonNode root = objectMapper.readTree(response.body().string());
+            Map<Integer, List<AnimeItem>> calendar = new LinkedHashMap<>();
+            for (JsonNode day : root) {
                 List<AnimeItem> animeList = new ArrayList<>();
-                if (todayItems != null) {
-                    for (JsonNode item : todayItems) {
-//                        if (animeList.size() >= 8) break;
-                        String name = item.has("name_cn") && !item.get("name_cn").asText().isEmpty()
-                                ? item.get("name_cn").asText()
-                                : item.get("name").asText();
-                        String image = "";
-                        if (item.has("images") && item.get("images").has("large")) {
-                            image = item.get("images").get("large").asText();
-                        } else if (item.has("images") && item.get("images").has("common")) {
-                            image = item.get("images").get("common").asText();
-                        }
-
-                        // 替换 http 为 https 防止图片加载失败
-                        if (image.startsWith("http:")) {
-                            image = image.replace("http:", "https:");
-                        }
-
-                        animeList.add(new AnimeItem(name, image));
+                for (JsonNode item : day.path("items")) {
+                    String name = item.has("name_cn") && !item.get("name_cn").asText().isEmpty()
+                            ? item.get("name_cn").asText()
+                            : item.get("name").asText();
+                    String image = "";
+                    if (item.has("images") && item.get("images").has("large")) {
+                        image = item.get("images").get("large").asText();
+                    } else if (item.has("images") && item.get("images").has("common")) {
+                        image = item.get("images").get("common").asText();
                     }
+
+                    // 替换 http 为 https 防止图片加载失败
+                    if (image.startsWith("http:")) {
+                        image = image.replace("http:", "https:");
+                    }
+
+                    animeList.add(new AnimeItem(name, image));
                 }
-                return animeList;
-            } catch (Exception e) {
-                log.error("Failed to fetch Anime data", e);
-                return Collections.emptyList();
+                calendar.put(day.path("weekday").path("id").asInt(), List.copyOf(animeList));
             }
-        }, virtualThreadExecutor);
-    }
-
-    private CompletableFuture<NewsDataDTO> fetchNewsData() {
-        return fetchData(properties.getAlapiUrl(), NewsDataDTO.class);
+            return Collections.unmodifiableMap(calendar);
+        }
     }
 
     private byte[] renderHtmlToImage(Map<String, Object> data) throws IOException {
@@ -368,7 +454,7 @@ public class DailyReportService {
         }
     }
 
-    private String getCachePathForToday() {
-        return DAILY_REPORT_CACHE_DIR + "/" + LocalDate.now().format(DATE_FORMATTER) + ".png";
+    private String getCacheKey(LocalDate date) {
+        return DAILY_REPORT_CACHE_DIR + "/" + date.format(DATE_FORMATTER) + ".png";
     }
 }
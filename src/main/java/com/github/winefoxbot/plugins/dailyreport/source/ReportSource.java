@@ -0,0 +1,22 @@
+package com.github.winefoxbot.plugins.dailyreport.source;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * 日报数据源
+ * <p>
+ * 每个数据源独立缓存，拥有自己的有效期和等待期限。fetcher 抛出异常即视为本次获取失败，
+ * 缓存会继续使用上一次成功的结果；从未成功过时使用 emptyValue。
+ * 数据源只依赖一个 {@link Callable}，可以直接用本地桩数据构造，不需要访问网络。
+ *
+ * @param name       名称，也是缓存的 key
+ * @param ttl        有效期，过期后下一次读取会在后台刷新，刷新完成前继续使用旧值
+ * @param deadline   没有任何可用旧值时，调用方最多等待多久
+ * @param fetcher    实际获取逻辑
+ * @param emptyValue 从未获取成功时使用的空值
+ * @param <T>        数据类型，需要正确实现 equals，用于判断数据是否变化
+ * @author FlanChan
+ */
+public record ReportSource<T>(String name, Duration ttl, Duration deadline, Callable<T> fetcher, T emptyValue) {
+}
@@ -0,0 +1,125 @@
+package com.github.winefoxbot.plugins.dailyreport.source;
+
+import com.github.winefoxbot.core.utils.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日报数据源缓存（stale-while-revalidate）
+ * <ul>
+ *     <li>有效期内直接返回缓存值</li>
+ *     <li>过期后立即返回旧值，同时在后台刷新，同一数据源同一时刻只会有一次刷新</li>
+ *     <li>从未获取成功时最多等待数据源的 deadline，超时返回空值，刷新继续在后台进行</li>
+ *     <li>获取失败保留旧值，在 retryInterval 后才会再次尝试</li>
+ * </ul>
+ * 每个数据源维护一个版本号，只有获取到的数据与上一次不相等时才会递增，
+ * 调用方可以用各数据源的版本号判断是否需要重新渲染。
+ *
+ * @author FlanChan
+ */
+@Slf4j
+public class ReportSourceCache {
+
+    /**
+     * 数据源的一次读取结果
+     *
+     * @param value   数据，从未获取成功时为数据源的空值
+     * @param version 版本号，0 表示从未获取成功
+     */
+    public record Value<T>(T value, long version) {
+    }
+
+    /**
+     * @param value         最近一次成功获取的数据，从未成功时为 null
+     * @param version       版本号
+     * @param nextRefreshAt 到达该时间后需要刷新
+     */
+    private record Entry(Object value, long version, Instant nextRefreshAt) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final SingleFlight<String, Object> refreshFlight;
+    private final Executor executor;
+    private final Duration retryInterval;
+    private final Clock clock;
+
+    public ReportSourceCache(SingleFlight<String, Object> refreshFlight, Executor executor, Duration retryInterval, Clock clock) {
+        this.refreshFlight = refreshFlight;
+        this.executor = executor;
+        this.retryInterval = retryInterval;
+        this.clock = clock;
+    }
+
+    /**
+     * 读取数据源，返回的 Future 最迟在数据源的 deadline 后完成，不会异常完成
+     */
+    public <T> CompletableFuture<Value<T>> get(ReportSource<T> source) {
+        Entry entry = entries.get(source.name());
+        if (entry != null && clock.instant().isBefore(entry.nextRefreshAt())) {
+            return CompletableFuture.completedFuture(toValue(source, entry));
+        }
+        CompletableFuture<Value<T>> refreshing = refresh(source);
+        if (entry != null && entry.value() != null) {
+            // 过期：先用旧值，刷新在后台完成
+            return CompletableFuture.completedFuture(toValue(source, entry));
+        }
+        return refreshing;
+    }
+
+    /**
+     * 忽略有效期立即刷新，最多等待数据源的 deadline，超时或失败时返回当前缓存值
+     */
+    public <T> CompletableFuture<Value<T>> refresh(ReportSource<T> source) {
+        CompletableFuture<Object> fetch = refreshFlight.execute(source.name(),
+                () -> CompletableFuture.supplyAsync(() -> fetchAndStore(source), executor));
+        return fetch
+                .handle((ignored, error) -> toValue(source, entries.get(source.name())))
+                .completeOnTimeout(null, source.deadline().toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(value -> value != null ? value : toValue(source, entries.get(source.name())));
+    }
+
+    /**
+     * 当前已缓存的数据源数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private Object fetchAndStore(ReportSource<?> source) {
+        Object fetched;
+        try {
+            fetched = source.fetcher().call();
+        } catch (Exception e) {
+            log.warn("日报数据源 {} 获取失败，{} 后重试: {}", source.name(), retryInterval, e.getMessage());
+            entries.compute(source.name(), (name, old) -> old == null
+                    ? new Entry(null, 0, clock.instant().plus(retryInterval))
+                    : new Entry(old.value(), old.version(), clock.instant().plus(retryInterval)));
+            throw new IllegalStateException(e);
+        }
+        Instant nextRefreshAt = clock.instant().plus(source.ttl());
+        Entry updated = entries.compute(source.name(), (name, old) -> {
+            if (old != null && old.value() != null && Objects.equals(old.value(), fetched)) {
+                return new Entry(old.value(), old.version(), nextRefreshAt);
+            }
+            return new Entry(fetched, old == null ? 1 : old.version() + 1, nextRefreshAt);
+        });
+        log.debug("日报数据源 {} 已刷新，版本 {}", source.name(), updated.version());
+        return fetched;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Value<T> toValue(ReportSource<T> source, Entry entry) {
+        if (entry == null || entry.value() == null) {
+            return new Value<>(source.emptyValue(), 0);
+        }
+        return new Value<>((T) entry.value(), entry.version());
+    }
+}
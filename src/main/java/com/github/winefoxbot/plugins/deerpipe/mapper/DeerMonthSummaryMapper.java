@@ -0,0 +1,12 @@
+package com.github.winefoxbot.plugins.deerpipe.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.github.winefoxbot.plugins.deerpipe.model.entity.DeerMonthSummary;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 针对表【deer_month_summary】的只读 Mapper
+ */
+@Mapper
+public interface DeerMonthSummaryMapper extends BaseMapper<DeerMonthSummary> {
+}
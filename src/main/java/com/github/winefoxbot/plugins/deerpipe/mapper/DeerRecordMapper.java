@@ -2,6 +2,12 @@ package com.github.winefoxbot.plugins.deerpipe.mapper;
 
 import com.github.winefoxbot.plugins.deerpipe.model.entity.DeerRecord;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
 * @author FlanChan
@@ -9,8 +15,38 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 * @createDate 2026-01-27 21:24:06
 * @Entity com.github.winefoxbot.plugins.deerpipe.model.entity.DeerRecord
 */
-public interface DeerRecordMapper extends BaseMapper<DeerRecord> {}
-
+public interface DeerRecordMapper extends BaseMapper<DeerRecord> {
 
+    /**
+     * 当天签到次数 +1（不存在则插入），返回更新后的次数
+     */
+    @Select("INSERT INTO deer_record (uuid, user_id, year, month, day, count) " +
+            "VALUES (replace(gen_random_uuid()::text, '-', ''), #{userId}, #{year}, #{month}, #{day}, 1) " +
+            "ON CONFLICT (user_id, year, month, day) DO UPDATE SET count = deer_record.count + 1 " +
+            "RETURNING count")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    int upsertIncrement(@Param("userId") long userId, @Param("year") int year, @Param("month") int month, @Param("day") int day);
 
+    /**
+     * 多个用户同一天批量签到，同一用户出现多次时累加；返回每个用户更新后的次数（userId, count）
+     */
+    @Select("<script>" +
+            "INSERT INTO deer_record (uuid, user_id, year, month, day, count) " +
+            "SELECT replace(gen_random_uuid()::text, '-', ''), t.user_id, #{year}, #{month}, #{day}, t.times " +
+            "FROM (SELECT u.user_id, count(*)::int AS times FROM unnest(ARRAY[" +
+            "<foreach collection='userIds' item='id' separator=','>#{id}</foreach>" +
+            "]::bigint[]) AS u(user_id) GROUP BY u.user_id) t " +
+            "ON CONFLICT (user_id, year, month, day) DO UPDATE SET count = deer_record.count + EXCLUDED.count " +
+            "RETURNING user_id, count" +
+            "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<DeerRecord> batchUpsertIncrement(@Param("userIds") List<Long> userIds, @Param("year") int year, @Param("month") int month, @Param("day") int day);
 
+    /**
+     * 补签：当天没有记录时插入，已有记录则不变；返回插入的行数
+     */
+    @Insert("INSERT INTO deer_record (uuid, user_id, year, month, day, count) " +
+            "VALUES (replace(gen_random_uuid()::text, '-', ''), #{userId}, #{year}, #{month}, #{day}, 1) " +
+            "ON CONFLICT (user_id, year, month, day) DO NOTHING")
+    int insertIfAbsent(@Param("userId") long userId, @Param("year") int year, @Param("month") int month, @Param("day") int day);
+}
@@ -0,0 +1,49 @@
+package com.github.winefoxbot.plugins.deerpipe.model.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import org.apache.ibatis.type.ArrayTypeHandler;
+
+/**
+ * 鹿管月度汇总，由数据库触发器根据 deer_record 维护，只读
+ * @TableName deer_month_summary
+ */
+@Data
+@TableName(value = "deer_month_summary", autoResultMap = true)
+public class DeerMonthSummary {
+
+    private Long userId;
+
+    private Integer year;
+
+    private Integer month;
+
+    /**
+     * 第 (day - 1) 位为 1 表示当天已签到
+     */
+    private Integer dayMask;
+
+    /**
+     * 每天的签到次数，下标 0 对应 1 号
+     */
+    @TableField(typeHandler = ArrayTypeHandler.class)
+    private Integer[] dayCounts;
+
+    /**
+     * 本月签到总次数
+     */
+    private Integer totalCount;
+
+    public boolean isAttended(int day) {
+        return dayMask != null && (dayMask & (1 << (day - 1))) != 0;
+    }
+
+    public int countOf(int day) {
+        return dayCounts != null && day >= 1 && day <= dayCounts.length && dayCounts[day - 1] != null ? dayCounts[day - 1] : 0;
+    }
+
+    public int activeDays() {
+        return dayMask == null ? 0 : Integer.bitCount(dayMask);
+    }
+}
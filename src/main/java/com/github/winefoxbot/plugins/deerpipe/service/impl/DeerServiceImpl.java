@@ -5,9 +5,11 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.github.winefoxbot.core.config.playwright.PlaywrightConfig;
 import com.github.winefoxbot.core.utils.DynamicResourceLoader;
+import com.github.winefoxbot.plugins.deerpipe.mapper.DeerMonthSummaryMapper;
 import com.github.winefoxbot.plugins.deerpipe.mapper.DeerRecordMapper;
 import com.github.winefoxbot.plugins.deerpipe.mapper.DeerUserConfigMapper;
 import com.github.winefoxbot.plugins.deerpipe.model.dto.*;
+import com.github.winefoxbot.plugins.deerpipe.model.entity.DeerMonthSummary;
 import com.github.winefoxbot.plugins.deerpipe.model.entity.DeerRecord;
 import com.github.winefoxbot.plugins.deerpipe.model.entity.DeerUserConfig;
 import com.github.winefoxbot.plugins.deerpipe.service.DeerService;
@@ -42,6 +44,7 @@ import java.util.stream.Collectors;
 public class DeerServiceImpl extends ServiceImpl<DeerRecordMapper, DeerRecord>
         implements DeerService {
     private final DeerUserConfigMapper userConfigMapper;
+    private final DeerMonthSummaryMapper monthSummaryMapper;
     private final TemplateEngine templateEngine;
     private final Browser browser;
     private final OkHttpClient httpClient;
@@ -99,10 +102,27 @@ public class DeerServiceImpl extends ServiceImpl<DeerRecordMapper, DeerRecord>
         List<Long> userIds = targets.stream().map(BatchTarget::userId).toList();
         Map<Long, Boolean> allowHelpMap = getUserAllowHelpMap(userIds);
 
+        // 2. 允许被帮的用户一次性批量签到
+        List<Long> allowedIds = targets.stream()
+                .map(BatchTarget::userId)
+                .filter(id -> allowHelpMap.getOrDefault(id, true))
+                .toList();
+        Map<Long, Integer> finalCounts = new HashMap<>();
+        if (!allowedIds.isEmpty()) {
+            for (DeerRecord record : this.baseMapper.batchUpsertIncrement(allowedIds, now.getYear(), now.getMonthValue(), now.getDayOfMonth())) {
+                finalCounts.put(record.getUserId(), record.getCount());
+            }
+        }
+
+        // 3. 同一用户出现多次时，按出现顺序还原每次签到后的次数
+        Map<Long, Long> times = allowedIds.stream().collect(Collectors.groupingBy(id -> id, Collectors.counting()));
+        Map<Long, Integer> seen = new HashMap<>();
         for (BatchTarget target : targets) {
-            boolean allowed = allowHelpMap.getOrDefault(target.userId(), true);
-            if (allowed) {
-                results.add(doAttend(target.userId(), target.nickname(), now));
+            Integer finalCount = finalCounts.get(target.userId());
+            if (finalCount != null) {
+                int occurrence = seen.merge(target.userId(), 1, Integer::sum);
+                int count = (int) (finalCount - times.get(target.userId()) + occurrence);
+                results.add(new AttendResult(target.userId(), target.nickname(), count == 1, count));
             } else {
                 // 如果不允许被帮，记录一个特殊状态 (count = -1 表示被拒绝/失败)
                 results.add(new AttendResult(target.userId(), target.nickname(), false, -1));
@@ -113,12 +133,6 @@ public class DeerServiceImpl extends ServiceImpl<DeerRecordMapper, DeerRecord>
         return generateBatchReportImage(results);
     }
 
-    private AttendResult doAttend(Long userId, String nickname, LocalDate now) {
-        int currentCount = saveOrUpdateRecordAndGetCount(userId, now);
-        boolean isNewDay = (currentCount == 1);
-        return new AttendResult(userId, nickname, isNewDay, currentCount);
-    }
-
     /**
      * 补签逻辑
      */
@@ -142,7 +156,7 @@ public class DeerServiceImpl extends ServiceImpl<DeerRecordMapper, DeerRecord>
 
         // 3. 尝试补签
         LocalDate targetDate = LocalDate.of(now.getYear(), now.getMonth(), day);
-        boolean success = saveOrUpdateRecord(userId, targetDate, true);
+        boolean success = this.baseMapper.insertIfAbsent(userId, targetDate.getYear(), targetDate.getMonthValue(), targetDate.getDayOfMonth()) > 0;
 
         if (success) {
             // 4. 更新补签时间
@@ -213,56 +227,52 @@ public class DeerServiceImpl extends ServiceImpl<DeerRecordMapper, DeerRecord>
         return configs.stream().collect(Collectors.toMap(DeerUserConfig::getUserId, DeerUserConfig::getAllowHelp));
     }
 
+    /**
+     * 单条 INSERT ... ON CONFLICT 完成签到，并发签到不会丢失次数
+     */
     private int saveOrUpdateRecordAndGetCount(Long userId, LocalDate date) {
-        LambdaQueryWrapper<DeerRecord> query = new LambdaQueryWrapper<>();
-        query.eq(DeerRecord::getUserId, userId)
-                .eq(DeerRecord::getYear, date.getYear())
-                .eq(DeerRecord::getMonth, date.getMonthValue())
-                .eq(DeerRecord::getDay, date.getDayOfMonth());
-
-        DeerRecord record = this.getOne(query);
-
-        if (record != null) {
-            record.setCount(record.getCount() + 1);
-            this.updateById(record);
-            return record.getCount();
-        } else {
-            DeerRecord newRecord = DeerRecord.builder()
-                    .userId(userId)
-                    .year(date.getYear())
-                    .month(date.getMonthValue())
-                    .day(date.getDayOfMonth())
-                    .count(1)
-                    .build();
-            this.save(newRecord);
-            return 1;
+        return this.baseMapper.upsertIncrement(userId, date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+    }
+
+    /**
+     * 读取月度汇总，没有记录时返回空汇总
+     */
+    private DeerMonthSummary getMonthSummary(Long userId, YearMonth ym) {
+        DeerMonthSummary summary = monthSummaryMapper.selectOne(new LambdaQueryWrapper<DeerMonthSummary>()
+                .eq(DeerMonthSummary::getUserId, userId)
+                .eq(DeerMonthSummary::getYear, ym.getYear())
+                .eq(DeerMonthSummary::getMonth, ym.getMonthValue()));
+        if (summary == null) {
+            summary = new DeerMonthSummary();
+            summary.setUserId(userId);
+            summary.setYear(ym.getYear());
+            summary.setMonth(ym.getMonthValue());
+            summary.setDayMask(0);
+            summary.setTotalCount(0);
         }
+        return summary;
     }
 
-    // 补签专用的 save，如果是 past 且 record 存在则返回 false
-    private boolean saveOrUpdateRecord(Long userId, LocalDate date, boolean isPast) {
-        LambdaQueryWrapper<DeerRecord> query = new LambdaQueryWrapper<>();
-        query.eq(DeerRecord::getUserId, userId)
-                .eq(DeerRecord::getYear, date.getYear())
-                .eq(DeerRecord::getMonth, date.getMonthValue())
-                .eq(DeerRecord::getDay, date.getDayOfMonth());
-
-        DeerRecord record = this.getOne(query);
-
-        if (record != null) {
-            // 如果是补签模式，且记录已存在，说明已经签过了，不能再补
-            if (isPast) return false;
-            record.setCount(record.getCount() + 1);
-            return this.updateById(record);
-        } else {
-            DeerRecord newRecord = DeerRecord.builder()
-                    .userId(userId)
-                    .year(date.getYear())
-                    .month(date.getMonthValue())
-                    .day(date.getDayOfMonth())
-                    .count(1)
-                    .build();
-            return this.save(newRecord);
+    /**
+     * 截至指定日期的连续签到天数（当天还没签到时从前一天算起），按月读取汇总的位图
+     */
+    private int calculateStreak(Long userId, LocalDate date, DeerMonthSummary currentMonth) {
+        DeerMonthSummary summary = currentMonth;
+        LocalDate day = summary.isAttended(date.getDayOfMonth()) ? date : date.minusDays(1);
+        int streak = 0;
+        while (true) {
+            YearMonth ym = YearMonth.from(day);
+            if (summary.getYear() != ym.getYear() || summary.getMonth() != ym.getMonthValue()) {
+                summary = getMonthSummary(userId, ym);
+                if (summary.getDayMask() == 0) {
+                    return streak;
+                }
+            }
+            if (!summary.isAttended(day.getDayOfMonth())) {
+                return streak;
+            }
+            streak++;
+            day = day.minusDays(1);
         }
     }
 
@@ -296,29 +306,16 @@ public class DeerServiceImpl extends ServiceImpl<DeerRecordMapper, DeerRecord>
     private byte[] generateCalendarImage(Long userId, LocalDate dateToRender, String avatarUrl) {
         Context context = new Context();
 
-        // 1. MP 获取指定年月的数据
-        LambdaQueryWrapper<DeerRecord> query = new LambdaQueryWrapper<>();
-        query.eq(DeerRecord::getUserId, userId)
-                .eq(DeerRecord::getYear, dateToRender.getYear())
-                .eq(DeerRecord::getMonth, dateToRender.getMonthValue());
-
-        List<DeerRecord> records = this.list(query);
+        // 1. 读取该月的汇总（一行）
+        YearMonth ym = YearMonth.from(dateToRender);
+        DeerMonthSummary summary = getMonthSummary(userId, ym);
 
         int lastCount = 0;
-        if (dateToRender.getMonth() == LocalDate.now().getMonth()) {
-            int todayDay = LocalDate.now().getDayOfMonth();
-            lastCount = records.stream()
-                    .filter(r -> r.getDay() == todayDay)
-                    .findFirst()
-                    .map(DeerRecord::getCount)
-                    .orElse(0);
+        if (ym.equals(YearMonth.now())) {
+            lastCount = summary.countOf(LocalDate.now().getDayOfMonth());
         }
 
-        Map<Integer, Integer> deerMap = records.stream()
-                .collect(Collectors.toMap(DeerRecord::getDay, DeerRecord::getCount));
-
         // 2. 构建日历结构
-        YearMonth ym = YearMonth.from(dateToRender);
         List<List<DayInfo>> calendar = new ArrayList<>();
         List<DayInfo> currentWeek = new ArrayList<>();
 
@@ -328,7 +325,7 @@ public class DeerServiceImpl extends ServiceImpl<DeerRecordMapper, DeerRecord>
         }
 
         for (int day = 1; day <= ym.lengthOfMonth(); day++) {
-            currentWeek.add(new DayInfo(day, deerMap.getOrDefault(day, 0)));
+            currentWeek.add(new DayInfo(day, summary.countOf(day)));
             if (currentWeek.size() == 7) {
                 calendar.add(currentWeek);
                 currentWeek = new ArrayList<>();
@@ -345,6 +342,9 @@ public class DeerServiceImpl extends ServiceImpl<DeerRecordMapper, DeerRecord>
         context.setVariable("year", dateToRender.getYear());
         context.setVariable("month", dateToRender.getMonthValue());
         context.setVariable("calendar", calendar);
+        context.setVariable("activeDays", summary.activeDays());
+        context.setVariable("totalCount", summary.getTotalCount());
+        context.setVariable("streak", ym.equals(YearMonth.now()) ? calculateStreak(userId, LocalDate.now(), summary) : 0);
 
         try {
             String avatarBase64 = downloadUrlToBase64(avatarUrl);
@@ -7,6 +7,7 @@ import com.github.winefoxbot.core.context.BotContext;
 import com.github.winefoxbot.core.model.enums.common.Permission;
 import com.github.winefoxbot.core.utils.BotUtils;
 import com.github.winefoxbot.plugins.fortune.config.FortunePluginConfig;
+import com.github.winefoxbot.plugins.fortune.manager.FortuneImagePool;
 import com.github.winefoxbot.plugins.fortune.service.FortuneDataService;
 import com.mikuac.shiro.annotation.AnyMessageHandler;
 import com.mikuac.shiro.annotation.MessageHandlerFilter;
@@ -34,6 +35,7 @@ import java.util.Objects;
 public class FortunePlugin {
 
     private final FortuneDataService fortuneService;
+    private final FortuneImagePool imagePool;
     private final WineFoxBotRobotProperties robotProperties;
 
     @Async
@@ -84,4 +86,21 @@ public class FortunePlugin {
         fortuneService.refreshAllFortune(bot, event);
     }
 
+    @PluginFunction(
+            name = "运势图片预取状态",
+            description = "查看运势背景图片预取池的容量和命中率",
+            commands = {"/运势预取状态"},
+            permission = Permission.ADMIN
+    )
+    @Order(8)
+    @AnyMessageHandler
+    @MessageHandlerFilter(types = MsgTypeEnum.text, at = AtEnum.NOT_NEED, cmd = "^/运势预取状态$")
+    public void imagePoolStats(Bot bot, AnyMessageEvent event) {
+        FortuneImagePool.Stats stats = imagePool.getStats();
+        String msg = "运势图片预取池: %d/%d\n命中 %d 次, 未命中 %d 次, 命中率 %.1f%%\n已预取 %d 张, 失败 %d 次, 丢弃 %d 张".formatted(
+                stats.size(), stats.capacity(), stats.hits(), stats.misses(), stats.hitRate() * 100,
+                stats.fetched(), stats.fetchFailures(), stats.discarded());
+        bot.sendMsg(event, msg, false);
+    }
+
 }
@@ -1,8 +1,10 @@
 package com.github.winefoxbot.plugins.fortune.aitools;
 
+import com.github.winefoxbot.core.annotation.plugin.AiToolRoute;
 import com.github.winefoxbot.core.context.BotContext;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
 import com.github.winefoxbot.core.utils.PluginConfigBinder;
+import com.github.winefoxbot.plugins.fortune.FortunePlugin;
 import com.github.winefoxbot.plugins.fortune.config.FortunePluginConfig;
 import com.github.winefoxbot.plugins.fortune.model.vo.FortuneRenderVO;
 import com.github.winefoxbot.plugins.fortune.service.FortuneDataService;
@@ -43,6 +45,7 @@ public class FortuneTool {
 
 
     @Bean("fortuneGetTool")
+    @AiToolRoute(plugin = FortunePlugin.class, keywords = {"运势", "抽签", "人品", "jrrp", "运气", "占卜", "fortune"})
     @Description("""
             获取今日运势信息的工具。
             当用户想要查询今日运势时，应该调用此工具。
@@ -47,10 +47,43 @@ public class FortuneApiConfig {
             "七星同耀，奇迹频现，今日万事皆成。"
     );
 
+    /**
+     * 背景图片预取配置 (api 为 wr、lolicon、custom 时生效)
+     */
+    private Prefetch prefetch = new Prefetch();
+
 
 
     // --- 内部配置类 ---
 
+    @Data
+    public static class Prefetch {
+        /**
+         * 是否在后台预取背景图片，关闭后每次抽取运势都会直接请求图片接口
+         */
+        private boolean enabled = true;
+
+        /**
+         * 预取池容量
+         */
+        private int poolSize = 16;
+
+        /**
+         * 补充预取池时每秒最多请求几次图片接口
+         */
+        private double fillRatePerSecond = 0.5;
+
+        /**
+         * 后台检查并补充预取池的间隔（毫秒）
+         */
+        private long fillDelayMs = 30_000;
+
+        /**
+         * 单张图片的大小上限（字节），超过的图片会被丢弃
+         */
+        private long maxImageBytes = 10 * 1024 * 1024;
+    }
+
     @Data
     public static class CustomApiConfig {
         /**
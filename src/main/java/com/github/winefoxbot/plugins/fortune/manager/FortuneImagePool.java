@@ -0,0 +1,184 @@
+package com.github.winefoxbot.plugins.fortune.manager;
+
+import com.github.winefoxbot.plugins.fortune.config.FortuneApiConfig;
+import com.github.winefoxbot.plugins.fortune.service.FortuneImageService;
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 运势背景图片预取池
+ * <p>
+ * 早上集中抽取运势时，每个请求都要先调用外部图片接口、再下载图片才能渲染，请求会排队等在网络上。
+ * 这里在后台按限速把图片提前下载到内存里，抽取运势时直接取一张本地图片；池子空了才回退为同步请求。
+ * <ul>
+ *     <li>池子容量固定，满了就停止补充</li>
+ *     <li>定时检查一次，每次取走图片后也会立即触发一次补充；同一时刻只有一个补充任务</li>
+ *     <li>补充时按 fillRatePerSecond 限速，连续失败时本轮直接结束，等下一次检查</li>
+ *     <li>图片按标签入池，标签修改后旧标签的图片在取出时被丢弃</li>
+ * </ul>
+ *
+ * @author FlanChan
+ */
+@Component
+@Slf4j
+public class FortuneImagePool {
+
+    /**
+     * 与 FortunePluginConfig 中 tag 的默认值一致，还没有人抽取过运势时使用
+     */
+    private static final String DEFAULT_TAG = "ブルーアーカイブ";
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    /**
+     * 预取池统计
+     *
+     * @param size          当前池中图片数
+     * @param capacity      池容量
+     * @param hits          直接从池中取到图片的次数
+     * @param misses        池为空、回退为同步请求的次数
+     * @param fetched       后台成功预取的图片数
+     * @param fetchFailures 后台预取失败次数
+     * @param discarded     因标签变化被丢弃的图片数
+     */
+    public record Stats(int size, int capacity, long hits, long misses, long fetched, long fetchFailures, long discarded) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private record PooledImage(String tag, byte[] bytes) {
+    }
+
+    private final FortuneApiConfig apiConfig;
+    private final FortuneImageService imageService;
+    private final ExecutorService virtualThreadExecutor;
+    private final ArrayBlockingQueue<PooledImage> pool;
+    private final RateLimiter rateLimiter;
+    private final AtomicBoolean filling = new AtomicBoolean(false);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder fetched = new LongAdder();
+    private final LongAdder fetchFailures = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    /**
+     * 最近一次抽取运势使用的标签，后台按它预取
+     */
+    private volatile String wantedTag = DEFAULT_TAG;
+
+    public FortuneImagePool(FortuneApiConfig apiConfig, FortuneImageService imageService, ExecutorService virtualThreadExecutor) {
+        this.apiConfig = apiConfig;
+        this.imageService = imageService;
+        this.virtualThreadExecutor = virtualThreadExecutor;
+        FortuneApiConfig.Prefetch prefetch = apiConfig.getPrefetch();
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, prefetch.getPoolSize()));
+        this.rateLimiter = RateLimiter.create(prefetch.getFillRatePerSecond() > 0 ? prefetch.getFillRatePerSecond() : 0.5);
+    }
+
+    /**
+     * 取出一张指定标签的预取图片
+     *
+     * @param tag 图片标签，为 null 时沿用上一次的标签
+     * @return 图片内容，池中没有可用图片时返回 null
+     */
+    public byte[] take(String tag) {
+        if (!isActive()) {
+            return null;
+        }
+        String effectiveTag = tag != null ? tag : wantedTag;
+        wantedTag = effectiveTag;
+        try {
+            PooledImage image;
+            while ((image = pool.poll()) != null) {
+                if (Objects.equals(image.tag(), effectiveTag)) {
+                    hits.increment();
+                    return image.bytes();
+                }
+                discarded.increment();
+            }
+            misses.increment();
+            return null;
+        } finally {
+            triggerFill();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${winefoxbot.plugins.fortune.prefetch.fill-delay-ms:30000}",
+            initialDelayString = "${winefoxbot.plugins.fortune.prefetch.fill-delay-ms:30000}")
+    public void scheduledFill() {
+        triggerFill();
+    }
+
+    public Stats getStats() {
+        return new Stats(pool.size(), pool.size() + pool.remainingCapacity(), hits.sum(), misses.sum(),
+                fetched.sum(), fetchFailures.sum(), discarded.sum());
+    }
+
+    private boolean isActive() {
+        return apiConfig.getPrefetch().isEnabled() && imageService.isRemoteApi(apiConfig.getApi());
+    }
+
+    /**
+     * 在虚拟线程中补充预取池，限速等待不会占用定时任务线程
+     */
+    private void triggerFill() {
+        if (!isActive() || pool.remainingCapacity() == 0 || !filling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            virtualThreadExecutor.execute(() -> {
+                try {
+                    fill();
+                } finally {
+                    filling.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            filling.set(false);
+            log.warn("提交运势图片预取任务失败: {}", e.getMessage());
+        }
+    }
+
+    private void fill() {
+        String tag = wantedTag;
+        int failures = 0;
+        while (pool.remainingCapacity() > 0 && failures < MAX_CONSECUTIVE_FAILURES) {
+            rateLimiter.acquire();
+            byte[] bytes = fetchOne(tag);
+            if (bytes == null) {
+                failures++;
+                fetchFailures.increment();
+                continue;
+            }
+            failures = 0;
+            if (!pool.offer(new PooledImage(tag, bytes))) {
+                break;
+            }
+            fetched.increment();
+        }
+        log.debug("运势图片预取池补充完成: {}", getStats());
+    }
+
+    private byte[] fetchOne(String tag) {
+        String url = imageService.fetchImageUrl(apiConfig.getApi(), tag);
+        if (url == null) {
+            return null;
+        }
+        try {
+            return imageService.download(url);
+        } catch (Exception e) {
+            log.warn("预取运势图片失败: {}, {}", url, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.winefoxbot.plugins.fortune.service;
+
+import java.io.IOException;
+
+/**
+ * 运势背景图片接口
+ *
+ * @author FlanChan
+ */
+public interface FortuneImageService {
+
+    /**
+     * 是否为需要访问外部接口的图片来源（wr、lolicon、custom）
+     */
+    boolean isRemoteApi(String apiType);
+
+    /**
+     * 调用图片接口获取一张图片的地址
+     *
+     * @param apiType 图片来源类型
+     * @param tag     图片标签，为 null 时不带标签
+     * @return 图片地址，获取失败或无需图片时返回 null
+     */
+    String fetchImageUrl(String apiType, String tag);
+
+    /**
+     * 下载图片
+     *
+     * @param url 图片地址
+     * @return 图片内容
+     * @throws IOException 下载失败、内容不是图片或超过大小限制
+     */
+    byte[] download(String url) throws IOException;
+}
@@ -5,23 +5,21 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.github.winefoxbot.core.annotation.common.RedissonLock;
 import com.github.winefoxbot.core.context.BotContext;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
+import com.github.winefoxbot.core.service.file.FileStorageService;
 import com.github.winefoxbot.plugins.fortune.config.FortuneApiConfig;
 import com.github.winefoxbot.plugins.fortune.config.FortunePluginConfig;
+import com.github.winefoxbot.plugins.fortune.manager.FortuneImagePool;
 import com.github.winefoxbot.plugins.fortune.mapper.FortuneDataMapper;
 import com.github.winefoxbot.plugins.fortune.model.entity.FortuneData;
 import com.github.winefoxbot.plugins.fortune.model.vo.FortuneRenderVO;
 import com.github.winefoxbot.plugins.fortune.service.FortuneDataService;
+import com.github.winefoxbot.plugins.fortune.service.FortuneImageService;
 import com.github.winefoxbot.plugins.fortune.service.FortuneRenderService;
-import com.jayway.jsonpath.JsonPath;
 import com.mikuac.shiro.common.utils.MsgUtils;
 import com.mikuac.shiro.core.Bot;
 import com.mikuac.shiro.dto.event.message.AnyMessageEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.HttpUrl;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
@@ -29,8 +27,12 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 
@@ -45,9 +47,14 @@ import java.util.Random;
 public class FortuneDataServiceImpl extends ServiceImpl<FortuneDataMapper, FortuneData>
         implements FortuneDataService {
 
+    private static final String USER_IMAGE_CACHE_DIR = "fortune";
+    private static final Duration USER_IMAGE_EXPIRE = Duration.ofDays(2);
+
     private final FortuneApiConfig apiConfig;
-    private final OkHttpClient httpClient;
     private final FortuneRenderService renderService;
+    private final FortuneImageService imageService;
+    private final FortuneImagePool imagePool;
+    private final FileStorageService fileStorageService;
 
     @Lazy
     @Autowired
@@ -156,8 +163,17 @@ public class FortuneDataServiceImpl extends ServiceImpl<FortuneDataMapper, Fortu
     @Cacheable(value = "fortune:img", key = "#userId + ':' + #dateStr", unless = "#result == null")
     @Override
     public String getSyncedImageUrl(String apiType, long userId, String dateStr) {
+        String tag = currentTag();
+        byte[] pooled = imagePool.take(tag);
+        if (pooled != null) {
+            String localUrl = storeUserImage(userId, dateStr, pooled);
+            if (localUrl != null) {
+                log.debug("使用预取的运势图片: User={}, Date={}", userId, dateStr);
+                return localUrl;
+            }
+        }
         log.debug("Cache Miss - 调用 API 获取图片: User={}, Date={}", userId, dateStr);
-        return getImageUrlInternal(apiType);
+        return imageService.fetchImageUrl(apiType, tag);
     }
 
     @Override
@@ -230,68 +246,28 @@ public class FortuneDataServiceImpl extends ServiceImpl<FortuneDataMapper, Fortu
         return 0;
     }
 
-    // 将原 getImageUrl 改名为 Internal，供缓存方法调用
-    private String getImageUrlInternal(String apiType) {
-        if ("none".equals(apiType)) {
-            return null;
-        }
-        FortunePluginConfig fortuneConfig = (FortunePluginConfig) BotContext.CURRENT_PLUGIN_CONFIN.get();
-        try {
-            return switch (apiType) {
-                case "wr" -> fetchUrlFromJson("https://api.obfs.dev/api/bafortune", "$.url");
-                case "lolicon" -> {
-                    String loliconBase = "https://api.lolicon.app/setu/v1";
-                    HttpUrl loliconUrl = HttpUrl.parse(loliconBase).newBuilder()
-                            .addQueryParameter("r18", "0")
-                            .addQueryParameter("tag", fortuneConfig.getTag())
-                            .addQueryParameter("excludeAI", "true")
-                            .build();
-                    yield fetchUrlFromJson(loliconUrl.toString(), "$.data[0].url");
-                }
-                case "custom" -> {
-                    FortuneApiConfig.CustomApiConfig custom = apiConfig.getCustomApi();
-                    if (custom == null || custom.getUrl() == null) yield null;
-                    String targetUrl = buildUrlWithParams(custom.getUrl(), custom.getParams());
-                    if (custom.getResponseType() == FortuneApiConfig.ResponseType.IMAGE) yield targetUrl;
-                    yield fetchUrlFromJson(targetUrl, custom.getJsonPath());
-                }
-                case "local" -> null;
-                default -> null;
-            };
-        } catch (Exception e) {
-            log.error("获取运势图片异常: apiType={}", apiType, e);
-            return null;
-        }
-    }
-
-    private String fetchUrlFromJson(String url, String jsonPath) {
-        if (jsonPath == null || jsonPath.isBlank()) return null;
-        Request request = new Request.Builder().url(url).get().build();
-        try (Response response = httpClient.newCall(request).execute()) {
-            if (!response.isSuccessful() || response.body() == null) return null;
-            Object result = JsonPath.read(response.body().string(), jsonPath);
-            if (result instanceof List<?> list && !list.isEmpty() && list.get(0) != null) {
-                return list.get(0).toString();
-            } else if (result != null) {
-                return result.toString();
-            }
-        } catch (Exception e) {
-            // ignore
+    /**
+     * 当前插件配置中的图片标签，不在插件上下文中（如 AI 工具调用）时返回 null
+     */
+    private static String currentTag() {
+        if (BotContext.CURRENT_PLUGIN_CONFIN.isBound()
+                && BotContext.CURRENT_PLUGIN_CONFIN.get() instanceof FortunePluginConfig fortuneConfig) {
+            return fortuneConfig.getTag();
         }
         return null;
     }
 
-    private String buildUrlWithParams(String baseUrl, FortuneApiConfig.Params params) {
-        FortunePluginConfig fortuneConfig = (FortunePluginConfig) BotContext.CURRENT_PLUGIN_CONFIN.get();
-        HttpUrl httpUrl = HttpUrl.parse(baseUrl);
-        if (httpUrl == null) return baseUrl;
-        HttpUrl.Builder builder = httpUrl.newBuilder();
-        if (params != null && params.getStaticParams() != null) {
-            for (FortuneApiConfig.ParamItem item : params.getStaticParams()) {
-                builder.addQueryParameter(item.getKey(), item.getValue());
-            }
-            builder.addQueryParameter("tag",fortuneConfig.getTag());
+    /**
+     * 预取的图片保存为本地文件，缓存里只记录文件地址，渲染时直接读取本地文件
+     */
+    private String storeUserImage(long userId, String dateStr, byte[] bytes) {
+        String cacheKey = USER_IMAGE_CACHE_DIR + "/" + dateStr + "/" + userId;
+        try (InputStream inputStream = new ByteArrayInputStream(bytes)) {
+            Path path = fileStorageService.saveFileByCacheKey(cacheKey, inputStream, USER_IMAGE_EXPIRE);
+            return path.toUri().toString();
+        } catch (IOException e) {
+            log.warn("保存预取的运势图片失败: {}", cacheKey, e);
+            return null;
         }
-        return builder.build().toString();
     }
 }
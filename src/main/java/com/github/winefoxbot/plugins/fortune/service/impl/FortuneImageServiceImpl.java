@@ -0,0 +1,132 @@
+package com.github.winefoxbot.plugins.fortune.service.impl;
+
+import com.github.winefoxbot.plugins.fortune.config.FortuneApiConfig;
+import com.github.winefoxbot.plugins.fortune.service.FortuneImageService;
+import com.jayway.jsonpath.JsonPath;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.apache.tika.Tika;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author FlanChan
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FortuneImageServiceImpl implements FortuneImageService {
+
+    private static final Set<String> REMOTE_API_TYPES = Set.of("wr", "lolicon", "custom");
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+    private static final Tika TIKA = new Tika();
+
+    private final FortuneApiConfig apiConfig;
+    private final OkHttpClient httpClient;
+
+    @Override
+    public boolean isRemoteApi(String apiType) {
+        return REMOTE_API_TYPES.contains(apiType);
+    }
+
+    @Override
+    public String fetchImageUrl(String apiType, String tag) {
+        if (!isRemoteApi(apiType)) {
+            return null;
+        }
+        try {
+            return switch (apiType) {
+                case "wr" -> fetchUrlFromJson("https://api.obfs.dev/api/bafortune", "$.url");
+                case "lolicon" -> {
+                    String loliconBase = "https://api.lolicon.app/setu/v1";
+                    HttpUrl.Builder loliconUrl = HttpUrl.parse(loliconBase).newBuilder()
+                            .addQueryParameter("r18", "0")
+                            .addQueryParameter("excludeAI", "true");
+                    if (tag != null) {
+                        loliconUrl.addQueryParameter("tag", tag);
+                    }
+                    yield fetchUrlFromJson(loliconUrl.build().toString(), "$.data[0].url");
+                }
+                case "custom" -> {
+                    FortuneApiConfig.CustomApiConfig custom = apiConfig.getCustomApi();
+                    if (custom == null || custom.getUrl() == null) yield null;
+                    String targetUrl = buildUrlWithParams(custom.getUrl(), custom.getParams(), tag);
+                    if (custom.getResponseType() == FortuneApiConfig.ResponseType.IMAGE) yield targetUrl;
+                    yield fetchUrlFromJson(targetUrl, custom.getJsonPath());
+                }
+                default -> null;
+            };
+        } catch (Exception e) {
+            log.error("获取运势图片异常: apiType={}", apiType, e);
+            return null;
+        }
+    }
+
+    @Override
+    public byte[] download(String url) throws IOException {
+        Request request = new Request.Builder().url(url)
+                .addHeader(HttpHeaders.USER_AGENT, USER_AGENT)
+                .get()
+                .build();
+        long maxBytes = apiConfig.getPrefetch().getMaxImageBytes();
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("下载运势图片失败: HTTP " + response.code());
+            }
+            if (body.contentLength() > maxBytes) {
+                throw new IOException("运势图片过大: " + body.contentLength() + " bytes");
+            }
+            byte[] bytes = body.bytes();
+            if (bytes.length > maxBytes) {
+                throw new IOException("运势图片过大: " + bytes.length + " bytes");
+            }
+            String mimeType = TIKA.detect(bytes);
+            if (!mimeType.startsWith("image/")) {
+                throw new IOException("运势图片接口返回的不是图片: " + mimeType);
+            }
+            return bytes;
+        }
+    }
+
+    private String fetchUrlFromJson(String url, String jsonPath) {
+        if (jsonPath == null || jsonPath.isBlank()) return null;
+        Request request = new Request.Builder().url(url).get().build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) return null;
+            Object result = JsonPath.read(response.body().string(), jsonPath);
+            if (result instanceof List<?> list && !list.isEmpty() && list.get(0) != null) {
+                return list.get(0).toString();
+            } else if (result != null) {
+                return result.toString();
+            }
+        } catch (Exception e) {
+            // ignore
+        }
+        return null;
+    }
+
+    private String buildUrlWithParams(String baseUrl, FortuneApiConfig.Params params, String tag) {
+        HttpUrl httpUrl = HttpUrl.parse(baseUrl);
+        if (httpUrl == null) return baseUrl;
+        HttpUrl.Builder builder = httpUrl.newBuilder();
+        if (params != null && params.getStaticParams() != null) {
+            for (FortuneApiConfig.ParamItem item : params.getStaticParams()) {
+                builder.addQueryParameter(item.getKey(), item.getValue());
+            }
+            if (tag != null) {
+                builder.addQueryParameter("tag", tag);
+            }
+        }
+        return builder.build().toString();
+    }
+}
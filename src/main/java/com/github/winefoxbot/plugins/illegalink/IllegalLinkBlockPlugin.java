@@ -2,8 +2,10 @@ package com.github.winefoxbot.plugins.illegalink;
 
 import cn.hutool.core.collection.ConcurrentHashSet;
 import com.github.winefoxbot.core.annotation.plugin.PluginFunction;
+import com.github.winefoxbot.core.manager.ExpiringStateRegistry;
 import com.github.winefoxbot.core.model.enums.common.Permission;
 import com.github.winefoxbot.plugins.illegalink.service.DomainAllowListService;
+import com.google.common.cache.Cache;
 import com.mikuac.shiro.annotation.GroupMessageHandler;
 import com.mikuac.shiro.annotation.MessageHandlerFilter;
 import com.mikuac.shiro.annotation.common.Shiro;
@@ -12,6 +14,7 @@ import com.mikuac.shiro.core.Bot;
 import com.mikuac.shiro.dto.action.common.ActionRaw;
 import com.mikuac.shiro.dto.event.message.GroupMessageEvent;
 import com.mikuac.shiro.enums.MsgTypeEnum;
+import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -25,7 +28,6 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -56,9 +58,21 @@ public class IllegalLinkBlockPlugin {
     );
 
 
-    // Key: 用户QQ号 (Long), Value: 违规记录对象 (ViolationRecord)
-    private final Map<Long, ViolationRecord> violationTracker = new ConcurrentHashMap<>();
+    private static final long MAX_TRACKED_VIOLATORS = 50_000;
+
     private final DomainAllowListService domainAllowListService;
+    private final ExpiringStateRegistry stateRegistry;
+
+    // Key: 用户QQ号 (Long), Value: 违规记录对象 (ViolationRecord)
+    // 超过冷却时间的记录本来就会被重置，写入后冷却时间一到即可淘汰
+    private Map<Long, ViolationRecord> violationTracker;
+
+    @PostConstruct
+    public void initStates() {
+        Cache<Long, ViolationRecord> cache = stateRegistry.expireAfterWrite("illegal-link:violations",
+                MAX_TRACKED_VIOLATORS, Duration.ofMinutes(VIOLATION_RESET_MINUTES));
+        violationTracker = cache.asMap();
+    }
 
     private final Set<Long> enableIllegalLinkBlockGroups = new ConcurrentHashSet<>();
 
@@ -6,6 +6,7 @@ import com.github.winefoxbot.core.annotation.plugin.PluginFunction;
 import com.github.winefoxbot.core.config.plugin.BasePluginConfig;
 import com.github.winefoxbot.core.context.BotContext;
 import com.github.winefoxbot.core.exception.bot.BotException;
+import com.github.winefoxbot.core.manager.ExpiringStateRegistry;
 import com.github.winefoxbot.core.model.entity.ShiroScheduleTask;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
 import com.github.winefoxbot.core.model.enums.common.Permission;
@@ -25,6 +26,7 @@ import com.github.winefoxbot.plugins.pixiv.model.entity.PixivBookmark;
 import com.github.winefoxbot.plugins.pixiv.model.enums.PixivRankPushMode;
 import com.github.winefoxbot.plugins.pixiv.service.*;
 import com.github.winefoxbot.plugins.pixiv.utils.PixivUtils;
+import com.google.common.cache.Cache;
 import com.mikuac.shiro.annotation.AnyMessageHandler;
 import com.mikuac.shiro.annotation.MessageHandlerFilter;
 import com.mikuac.shiro.annotation.common.Order;
@@ -33,6 +35,7 @@ import com.mikuac.shiro.common.utils.ShiroUtils;
 import com.mikuac.shiro.core.Bot;
 import com.mikuac.shiro.dto.event.message.AnyMessageEvent;
 import com.mikuac.shiro.enums.MsgTypeEnum;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tomcat.util.buf.StringUtils;
@@ -43,9 +46,9 @@ import javax.net.ssl.SSLHandshakeException;
 import java.io.File;
 import java.io.IOException;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -387,14 +390,30 @@ public class PixivPlugin {
     private final PixivSearchService pixivSearchService;
     private final ShiroSessionStateService sessionStateService;
 
+    private final ExpiringStateRegistry stateRegistry;
+
     // 会话管理
-    private final Map<String, LastSearchResult> lastSearchResultMap = new ConcurrentHashMap<>();
+    // 会话正常由超时任务结束，过期淘汰只是兜底，防止截图等结果一直留在内存里
+    private Map<String, LastSearchResult> lastSearchResultMap;
     private final Map<String, ScheduledFuture<?>> sessionTimeoutTasks = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler;
 
     // 用户并发请求控制
-    private final ConcurrentHashMap<Long, AtomicInteger> userRequestCounts = new ConcurrentHashMap<>();
+    // 检查和计数都在 Map 的原子操作里完成，计数归零时移除条目
+    private Map<Long, Integer> userRequestCounts;
     private static final int MAX_CONCURRENT_REQUESTS_PER_USER = 3;
+    private static final long MAX_TRACKED_SESSIONS = 10_000;
+    private static final long MAX_TRACKED_USERS = 50_000;
+
+    @PostConstruct
+    public void initStates() {
+        Cache<String, LastSearchResult> searchResults = stateRegistry.expireAfterAccess("pixiv:last-search-result",
+                MAX_TRACKED_SESSIONS, Duration.ofSeconds(SESSION_TIMEOUT_SECONDS * 2L));
+        lastSearchResultMap = searchResults.asMap();
+        Cache<Long, Integer> requestCounts = stateRegistry.expireAfterAccess("pixiv:user-request-count",
+                MAX_TRACKED_USERS, Duration.ofMinutes(30));
+        userRequestCounts = requestCounts.asMap();
+    }
 
     // 常量定义
     private static final Pattern NUMBER_SELECTION_PATTERN = Pattern.compile("^[\\d,，\\s]+$");
@@ -558,10 +577,21 @@ public class PixivPlugin {
      */
     private void processArtworkRequest(Bot bot, AnyMessageEvent event, String pid) {
         Long userId = event.getUserId();
-        AtomicInteger count = userRequestCounts.computeIfAbsent(userId, k -> new AtomicInteger(0));
+        // 在同一次 compute 中检查上限并计数，避免与结束时的移除交错导致超出上限
+        int[] running = new int[1];
+        boolean[] accepted = new boolean[1];
+        userRequestCounts.compute(userId, (id, count) -> {
+            int current = count == null ? 0 : count;
+            running[0] = current;
+            if (current >= MAX_CONCURRENT_REQUESTS_PER_USER) {
+                return count;
+            }
+            accepted[0] = true;
+            return current + 1;
+        });
 
-        if (count.get() >= MAX_CONCURRENT_REQUESTS_PER_USER) {
-            String tipMessage = String.format("你当前有 %d 个图片正在获取中，请稍后再试哦。", count.get());
+        if (!accepted[0]) {
+            String tipMessage = String.format("你当前有 %d 个图片正在获取中，请稍后再试哦。", running[0]);
             String message = (event.getGroupId() != null)
                     ? MsgUtils.builder().at(userId).text(" " + tipMessage).build()
                     : tipMessage;
@@ -569,7 +599,6 @@ public class PixivPlugin {
             return;
         }
 
-        count.incrementAndGet();
         sendArtworkByPidAsync(bot, event, pid);
     }
 
@@ -598,7 +627,7 @@ public class PixivPlugin {
             bot.sendMsg(event, MsgUtils.builder().reply(event.getMessageId()).text("处理 Pixiv 图片时发生未知错误：" + e.getMessage()).build(), false);
         } finally {
             // 任务结束，减少并发计数
-            userRequestCounts.get(event.getUserId()).decrementAndGet();
+            userRequestCounts.computeIfPresent(event.getUserId(), (id, count) -> count <= 1 ? null : count - 1);
             log.info("PID: {} 获取任务完成，用户 {} 的并发数减一", pid, event.getUserId());
         }
     }
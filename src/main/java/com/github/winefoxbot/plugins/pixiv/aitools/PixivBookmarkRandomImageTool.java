@@ -1,8 +1,10 @@
 package com.github.winefoxbot.plugins.pixiv.aitools;
 
+import com.github.winefoxbot.core.annotation.plugin.AiToolRoute;
 import com.github.winefoxbot.core.context.BotContext;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
 import com.github.winefoxbot.core.utils.SendMsgUtil;
+import com.github.winefoxbot.plugins.pixiv.PixivPlugin;
 import com.github.winefoxbot.plugins.pixiv.model.dto.common.PixivArtworkInfo;
 import com.github.winefoxbot.plugins.pixiv.model.entity.PixivBookmark;
 import com.github.winefoxbot.plugins.pixiv.service.PixivArtworkService;
@@ -47,6 +49,7 @@ public class PixivBookmarkRandomImageTool {
 
 
     @Bean("randomPixivBookmarkTool")
+    @AiToolRoute(plugin = PixivPlugin.class, keywords = {"pixiv", "p站", "收藏", "插画", "来张", "来点", "图"})
     @Description("""
     获取用户随机收藏的P站作品图片。
     当用户想要随机查看主人收藏的P站作品时，调用此工具。
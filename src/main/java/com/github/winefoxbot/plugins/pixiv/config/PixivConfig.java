@@ -21,7 +21,8 @@ import org.springframework.http.HttpHeaders;
         PixivProperties.AuthorizationProperties.class,
         PixivProperties.ApiProperties.class,
         PixivProperties.CookieProperties.class,
-        PixivProperties.Bookmark.class})
+        PixivProperties.Bookmark.class,
+        PixivProperties.UgoiraProperties.class})
 public class PixivConfig {
     private final PixivProperties pixivProperties;
 
@@ -10,6 +10,7 @@ public class PixivProperties {
     private CookieProperties cookie;
     private AuthorizationProperties authorization;
     private ApiProperties api;
+    private UgoiraProperties ugoira;
 
     @Data
     @ConfigurationProperties(prefix = "winefoxbot.plugins.pixiv.bookmark")
@@ -49,4 +50,17 @@ public class PixivProperties {
         private String unmarkUrlTemplate = "https://www.pixiv.net/ajax/illusts/bookmarks/delete";
         private String downloadMirrorHost = "www.pixiv.net";
     }
-}
\ No newline at end of file
+
+    @Data
+    @ConfigurationProperties(prefix = "winefoxbot.plugins.pixiv.ugoira")
+    public static class UgoiraProperties {
+        /**
+         * 动图编码线程数，编码为 CPU 密集型任务，默认取 CPU 核数的一半
+         */
+        private Integer encoderThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        /**
+         * 元数据中缺少帧延迟时使用的默认值（毫秒）
+         */
+        private Integer defaultFrameDelay = 100;
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.winefoxbot.plugins.pixiv.controller;
+
+import com.github.winefoxbot.plugins.pixiv.service.UgoiraEncodeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Pixiv 插件的运行监控，与核心的监控接口共用 /api/monitor 前缀
+ *
+ * @author FlanChan
+ */
+@RestController
+@RequestMapping("/api/monitor")
+@RequiredArgsConstructor
+public class WebUIPixivMonitorController {
+
+    private final UgoiraEncodeService ugoiraEncodeService;
+
+    /**
+     * 动图编码线程池的任务数、帧数、累计耗时和正在执行的任务数
+     */
+    @GetMapping("/ugoira")
+    public UgoiraEncodeService.EncodeStats getUgoiraStats() {
+        return ugoiraEncodeService.getStats();
+    }
+}
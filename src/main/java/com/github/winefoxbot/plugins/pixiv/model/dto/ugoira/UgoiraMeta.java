@@ -0,0 +1,25 @@
+package com.github.winefoxbot.plugins.pixiv.model.dto.ugoira;
+
+import java.util.List;
+
+/**
+ * Pixiv 动图（Ugoira）元数据，对应 /ajax/illust/{pid}/ugoira_meta 的 body
+ *
+ * @param zipUrl 原始帧压缩包地址
+ * @param frames 按播放顺序排列的帧信息
+ * @author FlanChan
+ */
+public record UgoiraMeta(
+        String zipUrl,
+        List<Frame> frames
+) {
+
+    /**
+     * 单帧信息
+     *
+     * @param file  压缩包内的文件名，例如 000000.jpg
+     * @param delay 该帧的显示时长（毫秒）
+     */
+    public record Frame(String file, int delay) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.winefoxbot.plugins.pixiv.service;
+
+import com.github.winefoxbot.plugins.pixiv.model.dto.ugoira.UgoiraMeta;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Ugoira 动图编码服务，纯 Java 实现，不依赖 unzip / ffmpeg 等外部程序
+ *
+ * @author FlanChan
+ */
+public interface UgoiraEncodeService {
+
+    /**
+     * 编码统计
+     *
+     * @param encoded     已完成的编码任务数
+     * @param frames      已编码的总帧数
+     * @param totalMillis 编码累计耗时（毫秒）
+     * @param running     正在执行的编码任务数
+     */
+    record EncodeStats(long encoded, long frames, long totalMillis, int running) {
+    }
+
+    /**
+     * 直接从 Ugoira 压缩包流中逐帧解码，并按元数据中的帧延迟编码为 GIF。
+     * 任务在编码线程池中执行，调用线程阻塞直到完成；同一时刻内存中只保留一帧。
+     *
+     * @param zipStream Ugoira 压缩包输入流，不会被关闭
+     * @param meta      动图元数据
+     * @param target    输出的 GIF 文件
+     * @return 输出文件
+     * @throws IOException 解码或编码失败
+     */
+    Path encodeGif(InputStream zipStream, UgoiraMeta meta, Path target) throws IOException;
+
+    /**
+     * 按比例缩放 GIF 的每一帧并保留原有帧延迟。
+     * 只包含变化区域的帧会按位置和处置方式先合成为完整画面再缩放；没有设置延迟的帧使用默认帧延迟。
+     *
+     * @param source 源 GIF 文件
+     * @param target 输出的 GIF 文件
+     * @param scale  缩放比例 (0, 1]
+     * @return 输出文件
+     * @throws IOException 解码或编码失败
+     */
+    Path rescaleGif(Path source, Path target, double scale) throws IOException;
+
+    /**
+     * 获取编码统计，用于衡量和调整编码线程池
+     */
+    EncodeStats getStats();
+}
@@ -3,12 +3,16 @@ package com.github.winefoxbot.plugins.pixiv.service.impl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.winefoxbot.core.constants.CacheConstants;
+import com.github.winefoxbot.core.manager.SingleFlightManager;
 import com.github.winefoxbot.core.service.file.FileStorageService;
+import com.github.winefoxbot.core.utils.SingleFlight;
 import com.github.winefoxbot.plugins.pixiv.config.PixivConfig;
 import com.github.winefoxbot.plugins.pixiv.model.dto.common.PixivArtworkInfo;
+import com.github.winefoxbot.plugins.pixiv.model.dto.ugoira.UgoiraMeta;
 import com.github.winefoxbot.plugins.pixiv.model.enums.PixivArtworkType;
 import com.github.winefoxbot.plugins.pixiv.service.PixivService;
-import com.google.common.util.concurrent.Striped;
+import com.github.winefoxbot.plugins.pixiv.service.UgoiraEncodeService;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,15 +36,9 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static com.github.winefoxbot.core.utils.CommandUtil.*;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -51,13 +49,13 @@ public class PixivServiceImpl implements PixivService {
     private final PixivConfig pixivConfig;
     private final ObjectMapper objectMapper;
     private final FileStorageService fileStorageService;
+    private final UgoiraEncodeService ugoiraEncodeService;
+    private final SingleFlightManager singleFlightManager;
     private final ExecutorService downloadExecutor = Executors.newVirtualThreadPerTaskExecutor();
-    private final ConcurrentHashMap<String, Lock> pidLocks = new ConcurrentHashMap<>();
 
     private static final String PIXIV_BASE = "https://www.pixiv.net";
     private static final Duration CACHE_EXPIRATION = Duration.ofHours(6); // 缓存过期时间
     private static final String PIXIV_IMAGE_SUBFOLDER = "pixiv/images";
-    private final Striped<Lock> IMAGE_CACHE_LOCK = Striped.lock(64);
     private static final boolean ENABLE_COMPRESSION = false;
 
     /**
@@ -75,116 +73,118 @@ public class PixivServiceImpl implements PixivService {
      */
     private final Semaphore downloadPermits = new Semaphore(20);
 
+    /**
+     * 作品详情请求合并，同一 PID 的并发请求只发起一次网络调用
+     */
+    private SingleFlight<String, PixivArtworkInfo> artworkInfoFlight;
+
+    /**
+     * 作品图片请求合并，同一 PID 的并发请求共享同一次获取
+     */
+    private SingleFlight<String, List<File>> fetchFlight;
+
+    /**
+     * 单页图片下载请求合并，key 为图片的相对存储路径
+     */
+    private SingleFlight<String, File> pageDownloadFlight;
+
+    @PostConstruct
+    public void initSingleFlights() {
+        artworkInfoFlight = singleFlightManager.getOrCreate("pixiv:artwork-info");
+        fetchFlight = singleFlightManager.getOrCreate("pixiv:fetch-images");
+        pageDownloadFlight = singleFlightManager.getOrCreate("pixiv:page-download");
+    }
+
     /**
      * 异步获取作品图片，优先使用本地缓存。
-     * 全局最多有10个任务同时获取图片，多余的任务会在此方法阻塞等待。
+     * 同一 PID 的并发请求会合并为一次获取；全局最多有10个获取任务同时执行，多余的任务会阻塞等待。
      *
      * @param pid 作品ID
      * @return 一个代表未来文件列表的 CompletableFuture<List<File>>
      */
     @Override
     public CompletableFuture<List<File>> fetchImages(String pid) {
-
-        return CompletableFuture.supplyAsync(() -> {
+        return fetchFlight.execute(pid, () -> CompletableFuture.supplyAsync(() -> {
             try {
                 // 在开始任何操作前，获取一个全局获取许可。如果达到并发上限，线程将在此阻塞。
                 log.info("PID: {} 正在等待获取全局下载许可... (剩余许可: {})", pid, fetchPermits.availablePermits());
                 fetchPermits.acquire();
-                log.info("PID: {} 已获取全局下载许可，开始处理。(剩余许可: {})", pid, fetchPermits.availablePermits());
-                return processFetch(pid);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt(); // 恢复中断状态
                 log.warn("PID: {} 等待全局获取许可时被中断", pid, e);
                 throw new CompletionException("Task for PID " + pid + " was interrupted while waiting for a fetch permit.", e);
+            }
+            try {
+                log.info("PID: {} 已获取全局下载许可，开始处理。(剩余许可: {})", pid, fetchPermits.availablePermits());
+                return processFetch(pid);
             } finally {
                 // 确保在任务执行完毕（无论成功或异常）后释放许可
                 fetchPermits.release();
                 log.info("PID: {} 已处理完毕，释放全局下载许可。(剩余许可: {})", pid, fetchPermits.availablePermits());
             }
-        }, downloadExecutor);
+        }, downloadExecutor));
     }
 
     private List<File> processFetch(String pid) {
-        // 使用 computeIfAbsent 来原子性地获取或创建锁，确保每个PID只有一个锁实例
-        Lock pidLock = pidLocks.computeIfAbsent(pid, k -> new ReentrantLock());
-        boolean lockAcquired = false;
+        String pidRelativePath = PIXIV_IMAGE_SUBFOLDER + "/" + pid;
         try {
-            // 等待获取特定PID的锁
-            if (pidLock.tryLock(2, TimeUnit.MINUTES)) {
-                lockAcquired = true;
-                log.info("Acquired lock for PID: {}", pid);
-                String pidRelativePath = PIXIV_IMAGE_SUBFOLDER + "/" + pid;
-                try {
-                    List<Path> cachedPaths = fileStorageService.listFiles(pidRelativePath);
-                    if (cachedPaths != null && !cachedPaths.isEmpty()) {
-                        List<File> cachedFiles = cachedPaths.stream()
-                                .map(Path::toFile)
-                                .filter(file -> file.length() > 0)
-                                .collect(Collectors.toList());
-                        if (!cachedFiles.isEmpty()) {
-                            log.info("PID: {} 命中缓存，找到 {} 个文件，直接返回。", pid, cachedFiles.size());
-                            cachedFiles.forEach(file -> fileStorageService.registerFile(file.toPath(), CACHE_EXPIRATION, null));
-                            return cachedFiles;
-                        }
-                    }
-
-                } catch (IOException e) {
-                    log.info("检查 PID: {} 的缓存时未找到文件或出错，将继续下载。({})", pid, e.getClass().getSimpleName());
+            List<Path> cachedPaths = fileStorageService.listFiles(pidRelativePath);
+            if (cachedPaths != null && !cachedPaths.isEmpty()) {
+                List<File> cachedFiles = cachedPaths.stream()
+                        .map(Path::toFile)
+                        .filter(file -> file.length() > 0)
+                        .collect(Collectors.toList());
+                if (!cachedFiles.isEmpty()) {
+                    log.info("PID: {} 命中缓存，找到 {} 个文件，直接返回。", pid, cachedFiles.size());
+                    cachedFiles.forEach(file -> fileStorageService.registerFile(file.toPath(), CACHE_EXPIRATION, null));
+                    return cachedFiles;
                 }
+            }
 
-                log.info("PID: {} 缓存未命中或为空，开始从网络获取。", pid);
-                try {
-                    String ugoiraZipUrl = checkUgoiraZip(pid);
-                    if (ugoiraZipUrl != null) {
-                        log.info("PID: {} 识别为动图，开始下载并转换为GIF...", pid);
-                        File gif = downloadUgoiraToGif(pid, ugoiraZipUrl);
-                        if (ENABLE_COMPRESSION && gif.length() >= 15 * 1024 * 1024) {
-                            gif = compressImage(gif, 15, pid);
-                        }
-                        return List.of(gif);
-                    }
-
-                    List<String> imageUrls = getStaticImageUrls(pid);
-                    if (imageUrls.isEmpty()) return List.of();
-
-                    log.info("PID: {}，发现 {} 张静态图片，提交并行下载任务...", pid, imageUrls.size());
-                    List<CompletableFuture<File>> imageFutures = imageUrls.stream()
-                            .map(url -> CompletableFuture.supplyAsync(() -> downloadAndProcessSingleImage(url, pid), downloadExecutor))
-                            .toList();
+        } catch (IOException e) {
+            log.info("检查 PID: {} 的缓存时未找到文件或出错，将继续下载。({})", pid, e.getClass().getSimpleName());
+        }
 
-                    return CompletableFuture.allOf(imageFutures.toArray(new CompletableFuture[0]))
-                            .thenApply(v -> imageFutures.stream().map(CompletableFuture::join).collect(Collectors.toList()))
-                            .join();
-                } catch (Exception e) {
-                    log.error("异步 fetchImages 任务中发生严重错误, PID: {}", pid, e);
-                    throw new CompletionException(e);
+        log.info("PID: {} 缓存未命中或为空，开始从网络获取。", pid);
+        try {
+            UgoiraMeta ugoiraMeta = fetchUgoiraMeta(pid);
+            if (ugoiraMeta != null) {
+                log.info("PID: {} 识别为动图，开始下载并转换为GIF...", pid);
+                File gif = downloadUgoiraToGif(pid, ugoiraMeta);
+                if (ENABLE_COMPRESSION && gif.length() >= 15 * 1024 * 1024) {
+                    gif = compressImage(gif, 15, pid);
                 }
-            } else {
-                log.warn("Could not acquire lock for PID: {} within timeout.", pid);
-                // 考虑返回一个特定的异常或空列表，让调用者知道操作超时
-                return List.of();
+                return List.of(gif);
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // 恢复中断状态
-            log.error("Lock acquisition interrupted for PID: {}", pid, e);
+
+            List<String> imageUrls = getStaticImageUrls(pid);
+            if (imageUrls.isEmpty()) return List.of();
+
+            log.info("PID: {}，发现 {} 张静态图片，提交并行下载任务...", pid, imageUrls.size());
+            List<CompletableFuture<File>> imageFutures = imageUrls.stream()
+                    .map(url -> pageDownloadFlight.execute(pageRelativePath(url, pid),
+                            () -> CompletableFuture.supplyAsync(() -> downloadAndProcessSingleImage(url, pid), downloadExecutor)))
+                    .toList();
+
+            return CompletableFuture.allOf(imageFutures.toArray(new CompletableFuture[0]))
+                    .thenApply(v -> imageFutures.stream().map(CompletableFuture::join).collect(Collectors.toList()))
+                    .join();
+        } catch (Exception e) {
+            log.error("异步 fetchImages 任务中发生严重错误, PID: {}", pid, e);
             throw new CompletionException(e);
-        } finally {
-            if (lockAcquired) {
-                pidLock.unlock();
-                log.info("Released lock for PID: {}", pid);
-                // 可选：当确定一个PID在短时间内不会被再次请求时，可以考虑移除锁以节省内存
-                // 但对于机器人这类应用，为简单起见，一直保留也可以接受
-                pidLocks.remove(pid);
-            }
         }
     }
 
+    private static String pageRelativePath(String url, String pid) {
+        return PIXIV_IMAGE_SUBFOLDER + "/" + pid + "/" + url.substring(url.lastIndexOf("/") + 1);
+    }
+
 
     private File downloadAndProcessSingleImage(String url, String pid) {
         try {
             downloadPermits.acquire();
             String name = url.substring(url.lastIndexOf("/") + 1);
-            String relativePath = PIXIV_IMAGE_SUBFOLDER + "/" + pid + "/" + name;
+            String relativePath = pageRelativePath(url, pid);
             log.info("启动下载任务：{} ", relativePath);
             Request request = new Request.Builder().url(replaceMirrorHost(url)).headers(pixivConfig.getHeaders()).build();
 
@@ -219,41 +219,28 @@ public class PixivServiceImpl implements PixivService {
         }
     }
 
-    private File downloadUgoiraToGif(String pid, String zipUrl) throws Exception {
-        Path tempDir = Files.createTempDirectory("ugoira-" + pid + "-");
+    /**
+     * 下载 Ugoira 压缩包并在进程内直接编码为 GIF，帧从响应流中逐个解码，不落地中间文件
+     */
+    private File downloadUgoiraToGif(String pid, UgoiraMeta meta) throws IOException {
+        Path tempGif = Files.createTempFile("ugoira-" + pid + "-", ".gif");
         try {
-            Path zipFile = tempDir.resolve(pid + ".zip");
-            Path extractDir = tempDir.resolve("extracted");
-            Path tempGif = tempDir.resolve(pid + ".gif");
-            Request zipReq = new Request.Builder().url(replaceMirrorHost(zipUrl)).headers(pixivConfig.getHeaders()).build();
-            try (Response res = httpClient.newCall(zipReq).execute(); InputStream in = res.body().byteStream()) {
+            Request zipReq = new Request.Builder().url(replaceMirrorHost(meta.zipUrl())).headers(pixivConfig.getHeaders()).build();
+            try (Response res = httpClient.newCall(zipReq).execute()) {
                 if (!res.isSuccessful()) throw new IOException("Zip download failed: " + res.code());
-                Files.copy(in, zipFile); // 写入临时文件，这是允许的
-            }
-
-            Files.createDirectories(extractDir);
-            if (isWindows()) {
-                runCmd("tar", "-xf", zipFile.toAbsolutePath().toString(), "-C", extractDir.toAbsolutePath().toString());
-            } else {
-                runCmd("unzip", "-o", zipFile.toAbsolutePath().toString(), "-d", extractDir.toAbsolutePath().toString());
+                ResponseBody body = res.body();
+                if (body == null) throw new IOException("Zip download failed: empty body");
+                try (InputStream in = body.byteStream()) {
+                    ugoiraEncodeService.encodeGif(in, meta, tempGif);
+                }
             }
 
-            runCmd("ffmpeg", "-r", "15", "-i", extractDir.resolve("%06d.jpg").toAbsolutePath().toString(), tempGif.toAbsolutePath().toString(), "-y");
-
             String relativeGifPath = PIXIV_IMAGE_SUBFOLDER + "/" + pid + "/" + pid + ".gif";
             try (InputStream gifStream = Files.newInputStream(tempGif)) {
                 return fileStorageService.writeFile(relativeGifPath, gifStream, CACHE_EXPIRATION, null).toFile();
             }
         } finally {
-            try (Stream<Path> walk = Files.walk(tempDir)) {
-                walk.sorted(java.util.Comparator.reverseOrder()).forEach(path -> {
-                    try {
-                        Files.delete(path);
-                    } catch (IOException e) {
-                        log.warn("Failed to delete temp file: {}", path);
-                    }
-                });
-            }
+            Files.deleteIfExists(tempGif);
         }
     }
 
@@ -329,7 +316,7 @@ public class PixivServiceImpl implements PixivService {
         }
     }
 
-    private String checkUgoiraZip(String pid) {
+    private UgoiraMeta fetchUgoiraMeta(String pid) {
         String url = String.format("%s/ajax/illust/%s/ugoira_meta", PIXIV_BASE, pid);
         Request request = new Request.Builder().url(url).headers(pixivConfig.getHeaders()).build();
         try (Response response = httpClient.newCall(request).execute()) {
@@ -344,15 +331,22 @@ public class PixivServiceImpl implements PixivService {
             if (content.get("error").asBoolean()) {
                 return null;
             }
-            return content.get("body").get("originalSrc").asText();
+            JsonNode metaBody = content.get("body");
+            List<UgoiraMeta.Frame> frames = new ArrayList<>();
+            metaBody.path("frames").forEach(frame -> frames.add(
+                    new UgoiraMeta.Frame(frame.path("file").asText(), frame.path("delay").asInt(100))));
+            return new UgoiraMeta(metaBody.get("originalSrc").asText(), frames);
         } catch (IOException e) {
-            log.error("checkUgoiraZip 失败 pid={}", pid, e);
+            log.error("fetchUgoiraMeta 失败 pid={}", pid, e);
             return null;
         }
     }
 
 
-    private File compressImage(File originalFile, long targetMB, String pid) throws Exception {
+    /**
+     * 逐步缩小 GIF 直到低于目标大小，每次将宽高缩放为上一轮的 80%
+     */
+    private File compressImage(File originalFile, long targetMB, String pid) throws IOException {
         Path tempDir = Files.createTempDirectory("compress-" + originalFile.getName() + "-");
         try {
             Path currentPath = originalFile.toPath();
@@ -360,16 +354,10 @@ public class PixivServiceImpl implements PixivService {
 
             while (Files.size(currentPath) / 1024 / 1024 >= targetMB) {
                 Path tempOut = tempDir.resolve("temp_" + System.nanoTime() + "_" + originalName);
-                String info = runCmdGetOutput("ffmpeg", "-i", currentPath.toAbsolutePath().toString());
-                if (info == null) throw new IOException("ffmpeg -i command returned null for " + currentPath);
-
-                int[] wh = extractDimensions(info);
-                int w = Math.max((int) (wh[0] * 0.8), 10);
-
-                runCmd("ffmpeg", "-i", currentPath.toAbsolutePath().toString(), "-vf", "scale=" + w + ":-1", "-q:v", "4", tempOut.toAbsolutePath().toString(), "-y");
+                ugoiraEncodeService.rescaleGif(currentPath, tempOut, 0.8);
 
                 if (Files.notExists(tempOut) || Files.size(tempOut) == 0) {
-                    throw new IOException("ffmpeg failed to create or wrote an empty temp file.");
+                    throw new IOException("GIF 压缩失败，输出文件为空");
                 }
 
                 // 如果当前文件不是原始文件（即上一次循环的临时输出），则删除它
@@ -403,16 +391,6 @@ public class PixivServiceImpl implements PixivService {
         }
     }
 
-    private int[] extractDimensions(String ffmpegOutput) {
-        Pattern pattern = Pattern.compile("\\s(\\d{2,})x(\\d{2,})\\s");
-        Matcher matcher = pattern.matcher(ffmpegOutput);
-        if (matcher.find()) {
-            return new int[]{Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))};
-        } else {
-            throw new IllegalArgumentException("无法从ffmpeg输出中提取尺寸: " + ffmpegOutput);
-        }
-    }
-
     // 使用@PreDestroy注解确保应用关闭时线程池被优雅地关闭
     @PreDestroy
     public void shutdownExecutor() {
@@ -448,6 +426,25 @@ public class PixivServiceImpl implements PixivService {
     @Cacheable(value = CacheConstants.PIXIV_ARTWORK_INFO_CACHE, key = "#pid", unless = "#result == null")
     @Override
     public PixivArtworkInfo getPixivArtworkInfo(String pid) throws IOException {
+        // 缓存未命中时，同一 PID 的并发请求只由第一个调用者在当前线程加载，其余调用者等待共享结果
+        CompletableFuture<PixivArtworkInfo> future = artworkInfoFlight.execute(pid, () -> {
+            try {
+                return CompletableFuture.completedFuture(loadPixivArtworkInfo(pid));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw e;
+        }
+    }
+
+    private PixivArtworkInfo loadPixivArtworkInfo(String pid) throws IOException {
         String apiUrl = String.format("%s/ajax/illust/%s?lang=zh", PIXIV_BASE, pid);
         Request request = new Request.Builder()
                 .url(apiUrl)
@@ -0,0 +1,366 @@
+package com.github.winefoxbot.plugins.pixiv.service.impl;
+
+import com.github.winefoxbot.plugins.pixiv.config.PixivProperties;
+import com.github.winefoxbot.plugins.pixiv.model.dto.ugoira.UgoiraMeta;
+import com.github.winefoxbot.plugins.pixiv.service.UgoiraEncodeService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Ugoira 动图编码服务实现
+ * <p>
+ * 帧直接从压缩包流中按顺序解码，解码一帧就写入一帧，内存中始终只有当前帧；
+ * 编码任务在固定大小的平台线程池中执行，线程数可通过
+ * {@code winefoxbot.plugins.pixiv.ugoira.encoder-threads} 调整。
+ *
+ * @author FlanChan
+ */
+@Service
+@Slf4j
+public class UgoiraEncodeServiceImpl implements UgoiraEncodeService {
+
+    private static final String GIF_METADATA_FORMAT = "javax_imageio_gif_image_1.0";
+
+    private final PixivProperties.UgoiraProperties ugoiraProperties;
+    private final ExecutorService encodeExecutor;
+
+    private final AtomicLong encodedCount = new AtomicLong();
+    private final AtomicLong frameCount = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+
+    public UgoiraEncodeServiceImpl(PixivProperties.UgoiraProperties ugoiraProperties) {
+        this.ugoiraProperties = ugoiraProperties;
+        this.encodeExecutor = Executors.newFixedThreadPool(
+                Math.max(1, ugoiraProperties.getEncoderThreads()),
+                Thread.ofPlatform().name("ugoira-encoder-", 0).daemon(true).factory());
+    }
+
+    @Override
+    public Path encodeGif(InputStream zipStream, UgoiraMeta meta, Path target) throws IOException {
+        Map<String, Integer> delays = new HashMap<>();
+        if (meta.frames() != null) {
+            meta.frames().forEach(frame -> delays.put(frame.file(), frame.delay()));
+        }
+        return submit(() -> {
+            int frames = 0;
+            ImageWriter writer = gifWriter();
+            // ZipInputStream 关闭时会关闭底层流，这里不关闭，交给调用方
+            ZipInputStream zis = new ZipInputStream(zipStream);
+            try (ImageOutputStream ios = ImageIO.createImageOutputStream(target.toFile())) {
+                writer.setOutput(ios);
+                writer.prepareWriteSequence(null);
+                ZipEntry entry;
+                while ((entry = zis.getNextEntry()) != null) {
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    BufferedImage frame = ImageIO.read(new NonClosingInputStream(zis));
+                    if (frame == null) {
+                        log.debug("跳过无法解码的动图帧: {}", entry.getName());
+                        continue;
+                    }
+                    int delay = delays.getOrDefault(entry.getName(), ugoiraProperties.getDefaultFrameDelay());
+                    writeFrame(writer, frame, delay, frames == 0);
+                    frames++;
+                }
+                if (frames == 0) {
+                    throw new IOException("Ugoira 压缩包中没有可解码的帧");
+                }
+                writer.endWriteSequence();
+            } finally {
+                writer.dispose();
+            }
+            return frames;
+        }, target);
+    }
+
+    @Override
+    public Path rescaleGif(Path source, Path target, double scale) throws IOException {
+        if (scale <= 0 || scale > 1) {
+            throw new IllegalArgumentException("scale must be in (0, 1]: " + scale);
+        }
+        return submit(() -> {
+            int frames = 0;
+            ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+            ImageWriter writer = gifWriter();
+            try (ImageInputStream iis = ImageIO.createImageInputStream(source.toFile());
+                 ImageOutputStream ios = ImageIO.createImageOutputStream(target.toFile())) {
+                // 只向前读取，已读过的帧不再保留；合成画面需要帧位置和处置方式，不能忽略元数据
+                reader.setInput(iis, true, false);
+                writer.setOutput(ios);
+                writer.prepareWriteSequence(null);
+                GifCanvas canvas = null;
+                while (true) {
+                    BufferedImage frame;
+                    IIOMetadata metadata;
+                    try {
+                        frame = reader.read(frames);
+                        metadata = reader.getImageMetadata(frames);
+                    } catch (IndexOutOfBoundsException e) {
+                        break;
+                    }
+                    if (canvas == null) {
+                        canvas = GifCanvas.create(reader.getStreamMetadata(), frame);
+                    }
+                    // 经过优化的 GIF 中后续帧可能只包含变化的区域，先合成到画布上再整帧缩放
+                    IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(GIF_METADATA_FORMAT);
+                    BufferedImage composed = canvas.draw(frame, root);
+                    writeFrame(writer, scale(composed, scale), readDelay(root), frames == 0);
+                    frames++;
+                }
+                if (frames == 0) {
+                    throw new IOException("GIF 中没有可解码的帧: " + source);
+                }
+                writer.endWriteSequence();
+            } finally {
+                reader.dispose();
+                writer.dispose();
+            }
+            return frames;
+        }, target);
+    }
+
+    @Override
+    public EncodeStats getStats() {
+        return new EncodeStats(encodedCount.get(), frameCount.get(), totalMillis.get(), running.get());
+    }
+
+    @PreDestroy
+    public void shutdownExecutor() {
+        encodeExecutor.shutdownNow();
+    }
+
+    /**
+     * 在编码线程池中执行任务并等待结果，失败时删除不完整的输出文件
+     */
+    private Path submit(Callable<Integer> task, Path target) throws IOException {
+        Future<Integer> future = encodeExecutor.submit(() -> {
+            running.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                int frames = task.call();
+                encodedCount.incrementAndGet();
+                frameCount.addAndGet(frames);
+                return frames;
+            } finally {
+                totalMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                running.decrementAndGet();
+            }
+        });
+        try {
+            future.get();
+            return target;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            Files.deleteIfExists(target);
+            throw new IOException("动图编码被中断", e);
+        } catch (ExecutionException e) {
+            Files.deleteIfExists(target);
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("动图编码失败", e.getCause());
+        }
+    }
+
+    private static ImageWriter gifWriter() {
+        return ImageIO.getImageWritersByFormatName("gif").next();
+    }
+
+    private static void writeFrame(ImageWriter writer, BufferedImage frame, int delayMillis, boolean first) throws IOException {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(frame), null);
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(GIF_METADATA_FORMAT);
+
+        IIOMetadataNode gce = childNode(root, "GraphicControlExtension");
+        gce.setAttribute("disposalMethod", "none");
+        gce.setAttribute("userInputFlag", "FALSE");
+        gce.setAttribute("transparentColorFlag", "FALSE");
+        gce.setAttribute("transparentColorIndex", "0");
+        // GIF 的延迟单位为 1/100 秒，小于 2 的值会被大多数客户端当作 10 处理
+        gce.setAttribute("delayTime", Integer.toString(Math.max(2, Math.round(delayMillis / 10f))));
+
+        if (first) {
+            // NETSCAPE2.0 扩展，循环次数 0 表示无限循环
+            IIOMetadataNode appExtensions = childNode(root, "ApplicationExtensions");
+            IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+            loop.setAttribute("applicationID", "NETSCAPE");
+            loop.setAttribute("authenticationCode", "2.0");
+            loop.setUserObject(new byte[]{0x1, 0x0, 0x0});
+            appExtensions.appendChild(loop);
+        }
+
+        metadata.setFromTree(GIF_METADATA_FORMAT, root);
+        writer.writeToSequence(new IIOImage(frame, null, metadata), null);
+    }
+
+    /**
+     * 读取帧延迟（毫秒），没有设置或为 0 时使用配置的默认帧延迟
+     */
+    private int readDelay(IIOMetadataNode root) {
+        IIOMetadataNode gce = childNode(root, "GraphicControlExtension");
+        int delay = intAttribute(gce, "delayTime", 0) * 10;
+        return delay > 0 ? delay : ugoiraProperties.getDefaultFrameDelay();
+    }
+
+    private static int intAttribute(IIOMetadataNode node, String name, int defaultValue) {
+        String value = node.getAttribute(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static IIOMetadataNode childNode(IIOMetadataNode root, String name) {
+        for (int i = 0; i < root.getLength(); i++) {
+            if (root.item(i).getNodeName().equalsIgnoreCase(name)) {
+                return (IIOMetadataNode) root.item(i);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        root.appendChild(node);
+        return node;
+    }
+
+    private static BufferedImage scale(BufferedImage source, double scale) {
+        int width = Math.max(10, (int) (source.getWidth() * scale));
+        int height = Math.max(10, (int) (source.getHeight() * scale));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * GIF 逻辑画布，按帧的位置和处置方式（disposalMethod）合成完整画面
+     * <p>
+     * 内存中除当前帧外只保留画布本身，处置方式为 restoreToPrevious 时额外保留一份画布快照。
+     */
+    private static final class GifCanvas {
+        private final BufferedImage image;
+        private String pendingDisposal = "none";
+        private Rectangle pendingArea;
+        private BufferedImage snapshot;
+
+        private GifCanvas(int width, int height) {
+            this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        private static GifCanvas create(IIOMetadata streamMetadata, BufferedImage firstFrame) {
+            int width = 0;
+            int height = 0;
+            if (streamMetadata != null) {
+                IIOMetadataNode root = (IIOMetadataNode) streamMetadata.getAsTree("javax_imageio_gif_stream_1.0");
+                IIOMetadataNode screen = childNode(root, "LogicalScreenDescriptor");
+                width = intAttribute(screen, "logicalScreenWidth", 0);
+                height = intAttribute(screen, "logicalScreenHeight", 0);
+            }
+            // 逻辑画布尺寸缺失时退回第一帧的尺寸
+            return new GifCanvas(width > 0 ? width : firstFrame.getWidth(), height > 0 ? height : firstFrame.getHeight());
+        }
+
+        /**
+         * 处置上一帧后把当前帧画到它的位置上
+         *
+         * @return 合成后的完整画面（共享的画布，下一次调用前有效）
+         */
+        private BufferedImage draw(BufferedImage frame, IIOMetadataNode root) {
+            dispose();
+            IIOMetadataNode descriptor = childNode(root, "ImageDescriptor");
+            int left = intAttribute(descriptor, "imageLeftPosition", 0);
+            int top = intAttribute(descriptor, "imageTopPosition", 0);
+            String disposal = childNode(root, "GraphicControlExtension").getAttribute("disposalMethod");
+            if ("restoreToPrevious".equals(disposal)) {
+                snapshot = copy(image);
+            }
+            Graphics2D g = image.createGraphics();
+            try {
+                g.drawImage(frame, left, top, null);
+            } finally {
+                g.dispose();
+            }
+            pendingDisposal = disposal == null || disposal.isEmpty() ? "none" : disposal;
+            pendingArea = new Rectangle(left, top, frame.getWidth(), frame.getHeight());
+            return image;
+        }
+
+        private void dispose() {
+            switch (pendingDisposal) {
+                case "restoreToBackgroundColor" -> {
+                    // 大多数客户端把背景色处理为透明
+                    Graphics2D g = image.createGraphics();
+                    try {
+                        g.setComposite(AlphaComposite.Clear);
+                        g.fill(pendingArea);
+                    } finally {
+                        g.dispose();
+                    }
+                }
+                case "restoreToPrevious" -> {
+                    if (snapshot != null) {
+                        image.setData(snapshot.getRaster());
+                        snapshot = null;
+                    }
+                }
+                default -> {
+                    // none / doNotDispose：保留画面
+                }
+            }
+        }
+
+        private static BufferedImage copy(BufferedImage source) {
+            BufferedImage copy = new BufferedImage(source.getWidth(), source.getHeight(), source.getType());
+            copy.setData(source.getRaster());
+            return copy;
+        }
+    }
+
+    /**
+     * 防止 ImageIO 读取单个条目时关闭整个压缩包流
+     */
+    private static final class NonClosingInputStream extends FilterInputStream {
+        private NonClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+            // 不关闭底层流
+        }
+    }
+}
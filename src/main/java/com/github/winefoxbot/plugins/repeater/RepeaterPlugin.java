@@ -2,7 +2,10 @@ package com.github.winefoxbot.plugins.repeater;
 
 import com.github.winefoxbot.core.annotation.plugin.Plugin;
 import com.github.winefoxbot.core.annotation.plugin.PluginFunction;
+import com.github.winefoxbot.core.manager.ExpiringStateRegistry;
 import com.github.winefoxbot.core.model.enums.common.Permission;
+import com.github.winefoxbot.plugins.repeater.utils.RepeatMessageHasher;
+import com.google.common.cache.Cache;
 import com.mikuac.shiro.annotation.GroupMessageHandler;
 import com.mikuac.shiro.annotation.MessageHandlerFilter;
 import com.mikuac.shiro.annotation.common.Order;
@@ -10,14 +13,16 @@ import com.mikuac.shiro.common.utils.MsgUtils;
 import com.mikuac.shiro.core.Bot;
 import com.mikuac.shiro.dto.event.message.GroupMessageEvent;
 import com.mikuac.shiro.enums.MsgTypeEnum;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 import static com.github.winefoxbot.core.config.app.WineFoxBotConfig.*;
 
@@ -35,11 +40,18 @@ import static com.github.winefoxbot.core.config.app.WineFoxBotConfig.*;
         description = "提供复读跟随功能和群消息复读功能。"
 )
 @Slf4j
+@RequiredArgsConstructor
 public class RepeaterPlugin {
 
-    private final Map<Long, Set<Long>> repeaterFollowers = new ConcurrentHashMap<>();
+    private final ExpiringStateRegistry stateRegistry;
+
+    /**
+     * 群号 -> 开启复读跟随的用户，群内长时间没有消息时整组淘汰
+     */
+    private Map<Long, Set<Long>> repeaterFollowers;
 
     private static final int MAX_FOLLOWERS_PER_GROUP = 10;
+    private static final Duration FOLLOWER_IDLE_TIMEOUT = Duration.ofDays(7);
 
 
     @PluginFunction( name = "复读",
@@ -141,79 +153,98 @@ public class RepeaterPlugin {
     private static final int SHORTEST_LENGTH = 1; // 最短消息长度
     private static final int SHORTEST_TIMES = 4;  // 最少重复次数
     private static final String[] BLACKLIST = {"黑名单消息1", "黑名单消息2"}; // 黑名单消息
+    private static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10); // 超过该时间没有新消息，复读计数作废
+    private static final int MAX_TRACKED_GROUPS = 50_000;
 
-    private final Map<Long, String> lastMessage = new ConcurrentHashMap<>();
-    private final Map<Long, Integer> messageTimes = new ConcurrentHashMap<>();
-    private final Map<Long, Long> lastSenderId = new ConcurrentHashMap<>();
+    /**
+     * 群复读状态，只保存消息指纹而不是消息内容
+     *
+     * @param hash         上一条消息归一化后的 64 位指纹
+     * @param times        连续相同的次数
+     * @param lastSenderId 上一条消息的发送者
+     * @param lastSeen     上一条消息的时间（毫秒）
+     */
+    private record RepeatState(long hash, int times, long lastSenderId, long lastSeen) {
+    }
 
-    private static final Pattern IMAGE_PATTERN = Pattern.compile("\\[CQ:image.*?file=(.*?).jpg.*?url=(.*?)\\]");
+    /**
+     * 群号 -> 复读状态，长时间没有消息的群自动淘汰
+     */
+    private Cache<Long, RepeatState> repeatStates;
+
+    @PostConstruct
+    public void initStates() {
+        Cache<Long, Set<Long>> followers = stateRegistry.expireAfterAccess("repeater:followers",
+                MAX_TRACKED_GROUPS, FOLLOWER_IDLE_TIMEOUT);
+        repeaterFollowers = followers.asMap();
+        repeatStates = stateRegistry.expireAfterAccess("repeater:repeat-state",
+                MAX_TRACKED_GROUPS, Duration.ofMillis(IDLE_MILLIS));
+    }
 
     @Order(100)
     @GroupMessageHandler
     public void handleRepeatPlusOneMessage(Bot bot, GroupMessageEvent event) {
-        // --- 原有逻辑开始 ---
         if (event.getGroupId() == null) {
             return;
         }
 
         String rawMessage = event.getRawMessage();
-        Long currentSenderId = event.getSender().getUserId();
         long groupId = event.getGroupId();
+        if (recordMessage(groupId, event.getSender().getUserId(), rawMessage, System.currentTimeMillis())) {
+            bot.sendGroupMsg(groupId, rawMessage, false); // 发送原始消息
+        }
+    }
 
+    /**
+     * 记录一条群消息并更新该群的复读状态
+     *
+     * @param now 消息时间（毫秒）
+     * @return 达到复读次数、应当复读这条消息时返回 true
+     */
+    boolean recordMessage(long groupId, long currentSenderId, String rawMessage, long now) {
         // 对于命令消息，直接忽略
         if (rawMessage.startsWith("/")) {
             // 在忽略前，重置计数器，防止 "/命令" 中断计数后，下一条相同消息继续计数
             resetCounter(groupId);
-            return;
+            return false;
         }
 
         // 黑名单检查
         for (String blocked : BLACKLIST) {
             if (rawMessage.equals(blocked)) {
                 resetCounter(groupId); // 中断计数
-                return;
+                return false;
             }
         }
 
         // 忽略过短消息
         if (rawMessage.length() < SHORTEST_LENGTH) {
             resetCounter(groupId); // 中断计数
-            return;
+            return false;
         }
 
-        // 消息预处理，统一图片CQ码，便于比较
-        String processedMessage = preprocessMessage(rawMessage);
-
-        String prevMessage = lastMessage.get(groupId);
-        Long prevSenderId = lastSenderId.get(groupId);
-
-        // 核心逻辑修改：判断消息是否与上一条相同
-        if (processedMessage.equals(prevMessage)) {
-            // **新增规则：当前发送者必须与上一个发送者不同**
-            if (prevSenderId != null && !currentSenderId.equals(prevSenderId)) {
-                // 消息相同，且不是同一个人发的，计数器+1
-                int newTimes = messageTimes.getOrDefault(groupId, 1) + 1;
-                messageTimes.put(groupId, newTimes);
-
-                // 判断是否达到触发复读的次数
-                if (newTimes == SHORTEST_TIMES) {
-                    // log.info("RepeaterPlugin triggered in group {}: message '{}'", groupId, rawMessage);
-                    bot.sendGroupMsg(groupId, rawMessage, false); // 发送原始消息
-
-                    // 触发复读后，立即重置计数器，避免刷屏
-                    resetCounter(groupId);
-                    return; // 结束本次处理，防止更新 lastSenderId 和 lastMessage
-                }
-            }
-            // 如果是同一个人连续发送相同消息，则不增加计数，但也不重置，等待其他人加入复读
-        } else {
-            // 消息与上一条不同，重置计数器，并记录新消息为“第一条”
-            messageTimes.put(groupId, 1);
-        }
+        // 消息指纹，图片 CQ 码只按 file 参数计算，便于比较
+        long hash = RepeatMessageHasher.hash(rawMessage);
+        boolean[] triggered = {false};
 
-        // 无论是否触发复读，都更新最后一条消息的内容和发送者
-        lastMessage.put(groupId, processedMessage);
-        lastSenderId.put(groupId, currentSenderId);
+        repeatStates.asMap().compute(groupId, (id, prev) -> {
+            if (prev == null || prev.hash() != hash || now - prev.lastSeen() > IDLE_MILLIS) {
+                // 消息与上一条不同，记录新消息为“第一条”
+                return new RepeatState(hash, 1, currentSenderId, now);
+            }
+            if (prev.lastSenderId() == currentSenderId) {
+                // 同一个人连续发送相同消息，不增加计数，但也不重置，等待其他人加入复读
+                return new RepeatState(hash, prev.times(), currentSenderId, now);
+            }
+            int newTimes = prev.times() + 1;
+            if (newTimes == SHORTEST_TIMES) {
+                // 触发复读后立即重置计数器，避免刷屏
+                triggered[0] = true;
+                return null;
+            }
+            return new RepeatState(hash, newTimes, currentSenderId, now);
+        });
+        return triggered[0];
     }
 
 
@@ -223,26 +254,6 @@ public class RepeaterPlugin {
      * @param groupId 群号
      */
     private void resetCounter(long groupId) {
-        lastMessage.remove(groupId);
-        messageTimes.remove(groupId);
-        lastSenderId.remove(groupId);
-    }
-
-    /**
-     * 消息预处理，把图片 CQ 码统一成 [file_id]，用于对比重复消息。
-     * 这样可以确保内容相同的多张图片被视为同一消息。
-     */
-    private String preprocessMessage(String message) {
-        Matcher matcher = IMAGE_PATTERN.matcher(message);
-        // 使用 StringBuffer/StringBuilder 以获得更好的性能
-        StringBuffer sb = new StringBuffer();
-        while (matcher.find()) {
-            // group(1) 捕获的是 file ID
-            String fileId = matcher.group(1);
-            // 将整个 CQ 码替换为一个统一的、可识别的占位符
-            matcher.appendReplacement(sb, "[image_id:" + fileId + "]");
-        }
-        matcher.appendTail(sb);
-        return sb.toString();
+        repeatStates.invalidate(groupId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.github.winefoxbot.plugins.repeater.utils;
+
+/**
+ * 复读消息指纹
+ * <p>
+ * 一次遍历原始消息，边归一化边计算 64 位 FNV-1a 哈希，不使用正则，也不生成归一化后的字符串。
+ * 归一化规则：图片 CQ 码只保留 file 参数，{@code [CQ:image,file=abc.jpg,url=...]} 视为 {@code [image:abc.jpg]}，
+ * 同一张图片每次发送的 url 不同也能被识别为相同消息；其余内容按原样参与计算。
+ *
+ * @author FlanChan
+ */
+public final class RepeatMessageHasher {
+
+    private static final String IMAGE_CQ_PREFIX = "[CQ:image";
+    private static final String FILE_PARAM = "file=";
+    private static final String IMAGE_MARKER = "[image:";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private RepeatMessageHasher() {
+        throw new UnsupportedOperationException("RepeatMessageHasher is a utility class and cannot be instantiated");
+    }
+
+    public static long hash(String message) {
+        long hash = FNV_OFFSET_BASIS;
+        int length = message.length();
+        int i = 0;
+        while (i < length) {
+            char c = message.charAt(i);
+            if (c == '[' && message.startsWith(IMAGE_CQ_PREFIX, i)) {
+                int end = message.indexOf(']', i + IMAGE_CQ_PREFIX.length());
+                int fileStart = end < 0 ? -1 : findParam(message, i + IMAGE_CQ_PREFIX.length(), end);
+                if (fileStart >= 0) {
+                    int fileEnd = fileStart;
+                    while (fileEnd < end && message.charAt(fileEnd) != ',') {
+                        fileEnd++;
+                    }
+                    hash = mix(hash, IMAGE_MARKER, 0, IMAGE_MARKER.length());
+                    hash = mix(hash, message, fileStart, fileEnd);
+                    hash = mix(hash, ']');
+                    i = end + 1;
+                    continue;
+                }
+            }
+            hash = mix(hash, c);
+            i++;
+        }
+        return hash;
+    }
+
+    /**
+     * 在 CQ 码的参数区 [from, end) 中查找 file 参数值的起始位置，参数以 ',' 开头
+     */
+    private static int findParam(String message, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (message.charAt(i) == ',' && message.startsWith(FILE_PARAM, i + 1)) {
+                int valueStart = i + 1 + FILE_PARAM.length();
+                return valueStart <= end ? valueStart : -1;
+            }
+        }
+        return -1;
+    }
+
+    private static long mix(long hash, String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            hash = mix(hash, s.charAt(i));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, char c) {
+        hash ^= c & 0xff;
+        hash *= FNV_PRIME;
+        hash ^= c >>> 8;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+}
@@ -1,8 +1,10 @@
 package com.github.winefoxbot.plugins.setu.aitools;
 
+import com.github.winefoxbot.core.annotation.plugin.AiToolRoute;
 import com.github.winefoxbot.core.context.BotContext;
 import com.github.winefoxbot.core.model.enums.common.MessageType;
 import com.github.winefoxbot.core.service.common.SmartTagService;
+import com.github.winefoxbot.plugins.setu.SetuPlugin;
 import com.github.winefoxbot.plugins.setu.service.SetuService;
 import com.mikuac.shiro.core.Bot;
 import com.mikuac.shiro.core.BotContainer;
@@ -42,6 +44,7 @@ public class SetuRandomImageTool {
             @ToolParam(description = "错误信息") String message) {}
 
     @Bean
+    @AiToolRoute(plugin = SetuPlugin.class, keywords = {"色图", "涩图", "瑟图", "setu", "来张", "来点", "来几张", "图"})
     @Description("""
     获取一个随机的色图，可以指定标签和数量。
     当用户需要获取色图时，调用此工具以触发图片发送功能，当你请求成功时，图片已经被发送了。
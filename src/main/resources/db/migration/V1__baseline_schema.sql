@@ -1,5 +1,5 @@
--- PostgreSQL-specific schema
--- This script will only run when the platform is 'postgres'
+-- V1: 基线结构（原 db/schema-postgres.sql）
+-- 已有数据库会以此版本为基线跳过本脚本，结构变更请新增 V{n}__xxx.sql，不要修改已发布的脚本
 
 CREATE TABLE IF NOT EXISTS shiro_users
 (
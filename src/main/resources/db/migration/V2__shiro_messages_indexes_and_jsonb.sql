@@ -0,0 +1,23 @@
+-- V2: shiro_messages 索引与 JSONB
+-- 消息表只有主键，撤回删除、AI 上下文、WebUI 统计都是全表扫描，随着历史增长越来越慢
+
+-- 原始消息改为 JSONB，便于后续按内容查询和建立 GIN 索引
+ALTER TABLE shiro_messages
+    ALTER COLUMN message TYPE JSONB USING message::jsonb;
+
+-- 撤回事件：removeByMessageId
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_message_id ON shiro_messages (message_id);
+
+-- AI 上下文：selectUserMessages，按会话取最近 N 条
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_session_type_time ON shiro_messages (session_id, message_type, time DESC);
+
+-- WebUI 消息统计：按 Bot 计数、按时间范围计数
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_self_time ON shiro_messages (self_id, time);
+
+-- WebUI 活跃群排行：按时间范围过滤后按 session_id 分组
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_type_time_session ON shiro_messages (message_type, time, session_id);
+
+-- 按用户查询消息
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_user_time ON shiro_messages (user_id, time);
+
+ANALYZE shiro_messages;
@@ -0,0 +1,66 @@
+-- V3: shiro_messages 按月分区
+-- 旧表改名后按原结构重建为 RANGE(time) 分区表，迁移数据后删除旧表。
+-- 未来分区和过期分区由 ShiroMessagesPartitionService 定时维护。
+
+ALTER TABLE shiro_messages RENAME TO shiro_messages_legacy;
+ALTER INDEX IF EXISTS shiro_messages_pkey RENAME TO shiro_messages_legacy_pkey;
+ALTER INDEX IF EXISTS idx_shiro_messages_message_id RENAME TO idx_shiro_messages_legacy_message_id;
+ALTER INDEX IF EXISTS idx_shiro_messages_session_type_time RENAME TO idx_shiro_messages_legacy_session_type_time;
+ALTER INDEX IF EXISTS idx_shiro_messages_self_time RENAME TO idx_shiro_messages_legacy_self_time;
+ALTER INDEX IF EXISTS idx_shiro_messages_type_time_session RENAME TO idx_shiro_messages_legacy_type_time_session;
+ALTER INDEX IF EXISTS idx_shiro_messages_user_time RENAME TO idx_shiro_messages_legacy_user_time;
+
+CREATE TABLE shiro_messages
+(
+    id           INTEGER     NOT NULL DEFAULT nextval('shiro_messages_id_seq'),
+    message_id   BIGINT      NOT NULL,
+    time         TIMESTAMP   NOT NULL,
+    self_id      BIGINT      NOT NULL,
+    direction    VARCHAR(20) NOT NULL,
+    message_type VARCHAR(32) NOT NULL,
+    user_id      BIGINT      NOT NULL,
+    session_id   BIGINT      NOT NULL,
+    message      JSONB       NOT NULL,
+    plain_text   TEXT        NOT NULL,
+    -- 分区表的主键必须包含分区键
+    PRIMARY KEY (id, time)
+) PARTITION BY RANGE (time);
+
+-- 序列归属转移到新表，删除旧表时不会连带删除
+ALTER SEQUENCE shiro_messages_id_seq OWNED BY shiro_messages.id;
+
+-- 在父表上创建的索引会自动建到每个分区
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_message_id ON shiro_messages (message_id);
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_session_type_time ON shiro_messages (session_id, message_type, time DESC);
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_self_time ON shiro_messages (self_id, time);
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_type_time_session ON shiro_messages (message_type, time, session_id);
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_user_time ON shiro_messages (user_id, time);
+
+-- 兜底分区：正常情况下应为空，有数据说明未来分区没有及时创建
+CREATE TABLE IF NOT EXISTS shiro_messages_default PARTITION OF shiro_messages DEFAULT;
+
+-- 按旧数据的时间范围创建月分区，并提前创建未来两个月
+DO
+$$
+    DECLARE
+        month_start DATE := date_trunc('month', COALESCE((SELECT min(time) FROM shiro_messages_legacy), now()))::date;
+        last_month  DATE := (date_trunc('month', now()) + INTERVAL '2 months')::date;
+    BEGIN
+        WHILE month_start <= last_month
+            LOOP
+                EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF shiro_messages FOR VALUES FROM (%L) TO (%L)',
+                               'shiro_messages_' || to_char(month_start, 'YYYY_MM'),
+                               month_start,
+                               (month_start + INTERVAL '1 month')::date);
+                month_start := (month_start + INTERVAL '1 month')::date;
+            END LOOP;
+    END
+$$;
+
+INSERT INTO shiro_messages (id, message_id, time, self_id, direction, message_type, user_id, session_id, message, plain_text)
+SELECT id, message_id, time, self_id, direction, message_type, user_id, session_id, message, plain_text
+FROM shiro_messages_legacy;
+
+DROP TABLE shiro_messages_legacy;
+
+ANALYZE shiro_messages;
@@ -0,0 +1,18 @@
+-- V4: 消息全文检索与模糊搜索
+-- search_tokens 由应用写入 HanLP 分词结果（空格分隔），search_vector 由数据库生成；
+-- 分词前的历史消息 search_tokens 为空时退回 plain_text，并由应用在后台补齐。
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE shiro_messages
+    ADD COLUMN IF NOT EXISTS search_tokens TEXT;
+
+ALTER TABLE shiro_messages
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR
+        GENERATED ALWAYS AS (to_tsvector('simple', COALESCE(search_tokens, plain_text))) STORED;
+
+-- 全文检索：按词匹配
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_search_vector ON shiro_messages USING GIN (search_vector);
+
+-- 模糊匹配：ILIKE '%关键词%' 和 word_similarity（<%）
+CREATE INDEX IF NOT EXISTS idx_shiro_messages_plain_text_trgm ON shiro_messages USING GIN (plain_text gin_trgm_ops);
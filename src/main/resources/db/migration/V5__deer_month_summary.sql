@@ -0,0 +1,55 @@
+-- V5: 鹿管月度汇总
+-- 每个用户每月一行：day_mask 第 (day-1) 位表示当天已签到，day_counts[day] 为当天次数。
+-- 由 deer_record 上的触发器维护，日历和连续天数只需读取一两行。
+
+CREATE TABLE IF NOT EXISTS deer_month_summary
+(
+    user_id     BIGINT    NOT NULL,
+    year        INTEGER   NOT NULL,
+    month       INTEGER   NOT NULL,
+    day_mask    INTEGER   NOT NULL DEFAULT 0,
+    day_counts  INTEGER[] NOT NULL DEFAULT array_fill(0, ARRAY [31]),
+    total_count INTEGER   NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, year, month)
+);
+
+CREATE OR REPLACE FUNCTION deer_month_summary_sync() RETURNS TRIGGER AS
+$$
+DECLARE
+    delta  INTEGER   := COALESCE(NEW.count, 0) - CASE WHEN TG_OP = 'UPDATE' THEN COALESCE(OLD.count, 0) ELSE 0 END;
+    counts INTEGER[] := array_fill(0, ARRAY [31]);
+BEGIN
+    counts[NEW.day] := COALESCE(NEW.count, 0);
+    INSERT INTO deer_month_summary AS s (user_id, year, month, day_mask, day_counts, total_count)
+    VALUES (NEW.user_id, NEW.year, NEW.month, 1 << (NEW.day - 1), counts, COALESCE(NEW.count, 0))
+    ON CONFLICT (user_id, year, month) DO UPDATE
+        SET day_mask            = s.day_mask | (1 << (NEW.day - 1)),
+            day_counts[NEW.day] = s.day_counts[NEW.day] + delta,
+            total_count         = s.total_count + delta;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_deer_month_summary_sync ON deer_record;
+CREATE TRIGGER trg_deer_month_summary_sync
+    AFTER INSERT OR UPDATE OF count
+    ON deer_record
+    FOR EACH ROW
+EXECUTE FUNCTION deer_month_summary_sync();
+
+-- 根据已有记录生成汇总
+INSERT INTO deer_month_summary (user_id, year, month, day_mask, day_counts, total_count)
+SELECT g.user_id,
+       g.year,
+       g.month,
+       g.mask,
+       ARRAY(SELECT COALESCE(r.count, 0)
+             FROM generate_series(1, 31) AS d(day)
+                      LEFT JOIN deer_record r
+                                ON r.user_id = g.user_id AND r.year = g.year AND r.month = g.month AND r.day = d.day
+             ORDER BY d.day),
+       g.total
+FROM (SELECT user_id, year, month, bit_or(1 << (day - 1)) AS mask, COALESCE(sum(count), 0) AS total
+      FROM deer_record
+      GROUP BY user_id, year, month) g
+ON CONFLICT (user_id, year, month) DO NOTHING;
@@ -0,0 +1,70 @@
+package com.github.winefoxbot.core.aop.aspect;
+
+import com.github.winefoxbot.core.annotation.common.RedissonLock;
+import com.github.winefoxbot.core.constants.CacheConstants;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+
+/**
+ * 缓存元数据之前的 {@link RedissonLockAspect}，原样保留用于对照和基准测试：
+ * 每次调用都查找注解、获取参数名并重新解析 SpEL，然后获取 Redisson 锁
+ */
+@Aspect
+class LegacyRedissonLockAspect {
+
+    private final RedissonClient redissonClient;
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final DefaultParameterNameDiscoverer nameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    LegacyRedissonLockAspect(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @Around("@annotation(com.github.winefoxbot.core.annotation.common.RedissonLock)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        RedissonLock redissonLock = AnnotationUtils.findAnnotation(method, RedissonLock.class);
+        String lockKey = generateKey(method, joinPoint.getArgs());
+        RLock lock = redissonClient.getLock(lockKey);
+
+        boolean isLocked = false;
+        try {
+            isLocked = lock.tryLock(redissonLock.waitTime(), redissonLock.leaseTime(), redissonLock.unit());
+            if (isLocked) {
+                return joinPoint.proceed();
+            }
+            return null;
+        } finally {
+            if (isLocked && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    String generateKey(Method method, Object[] args) {
+        RedissonLock redissonLock = AnnotationUtils.findAnnotation(method, RedissonLock.class);
+        String[] paramNames = nameDiscoverer.getParameterNames(method);
+
+        EvaluationContext context = new StandardEvaluationContext();
+        if (paramNames != null) {
+            for (int i = 0; i < paramNames.length; i++) {
+                context.setVariable(paramNames[i], args[i]);
+            }
+        }
+
+        String keyPart = parser.parseExpression(redissonLock.key()).getValue(context, String.class);
+        return "%s:%s:%s".formatted(CacheConstants.CACHE_KEY_PREFIX, redissonLock.prefix(), keyPart);
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.winefoxbot.core.aop.aspect;
+
+import com.github.winefoxbot.core.annotation.common.RedissonLock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 加锁的测试目标：记录同时进入临界区的最大调用数
+ */
+public class LockedCounter {
+
+    private final AtomicInteger inside = new AtomicInteger();
+    private final AtomicInteger maxInside = new AtomicInteger();
+    private int count;
+
+    @RedissonLock(prefix = "test:lock", key = "#id", waitTime = 5)
+    public int increment(String id) {
+        enter();
+        try {
+            // 非原子的读-改-写，只有锁生效时结果才正确
+            int current = count;
+            Thread.onSpinWait();
+            count = current + 1;
+            return count;
+        } finally {
+            inside.decrementAndGet();
+        }
+    }
+
+    @RedissonLock(prefix = "test:lock", key = "#id", waitTime = 100, unit = TimeUnit.MILLISECONDS)
+    public String hold(String id, CountDownLatch entered, CountDownLatch release) throws InterruptedException {
+        enter();
+        try {
+            entered.countDown();
+            release.await();
+            return id;
+        } finally {
+            inside.decrementAndGet();
+        }
+    }
+
+    @RedissonLock(prefix = "test:lock", key = "#id")
+    public String touch(String id) {
+        return id;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int maxInside() {
+        return maxInside.get();
+    }
+
+    private void enter() {
+        maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+    }
+}
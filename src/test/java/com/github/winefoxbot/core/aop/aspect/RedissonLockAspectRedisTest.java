@@ -0,0 +1,105 @@
+package com.github.winefoxbot.core.aop.aspect;
+
+import com.github.winefoxbot.core.config.app.WineFoxBotLockProperties;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.winefoxbot.core.aop.aspect.RedissonLockAspectTest.medianNanos;
+import static com.github.winefoxbot.core.aop.aspect.RedissonLockAspectTest.proxy;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在真实 Redis 上对比改动前后的切面：Key 计算 + 加锁 + 释放的完整调用耗时
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedissonLockAspectRedisTest {
+
+    /**
+     * 与 env/docker-compose.yaml 使用同一个镜像
+     */
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private static RedissonClient redissonClient;
+
+    @BeforeAll
+    static void connect() {
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://" + REDIS.getHost() + ":" + REDIS.getMappedPort(6379));
+        redissonClient = Redisson.create(config);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+        }
+    }
+
+    @Test
+    void redisModeSerialisesCallersWithTheSameKey() throws Exception {
+        LockedCounter counter = proxy(new LockedCounter(), new RedissonLockAspect(redissonClient, new WineFoxBotLockProperties()));
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        counter.increment("redis");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+
+        assertThat(counter.count()).isEqualTo(4 * 50);
+        assertThat(counter.maxInside()).isEqualTo(1);
+    }
+
+    @Test
+    void callOverheadBeforeAndAfter() {
+        LockedCounter legacy = proxy(new LockedCounter(), new LegacyRedissonLockAspect(redissonClient));
+        LockedCounter redis = proxy(new LockedCounter(), new RedissonLockAspect(redissonClient, new WineFoxBotLockProperties()));
+        LockedCounter local = proxy(new LockedCounter(), new RedissonLockAspect(redissonClient, RedissonLockAspectTest.localMode()));
+        String[] ids = new String[200];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = "user-" + i;
+        }
+
+        long legacyNanos = medianNanos(() -> touchAll(legacy, ids));
+        long redisNanos = medianNanos(() -> touchAll(redis, ids));
+        long localNanos = medianNanos(() -> touchAll(local, ids));
+
+        String summary = "每次调用耗时中位数(µs): 改动前 %.1f, redis 模式 %.1f, local 模式 %.1f".formatted(
+                legacyNanos / 1000.0 / ids.length, redisNanos / 1000.0 / ids.length, localNanos / 1000.0 / ids.length);
+        // redis 模式仍以 Redis 往返为主，Key 缓存只省下解析的几微秒，这里只要求不比改动前更慢太多
+        assertThat(redisNanos).as(summary).isLessThan(legacyNanos * 3 / 2);
+        // local 模式不访问 Redis
+        assertThat(localNanos).as(summary).isLessThan(legacyNanos / 5);
+    }
+
+    private static long touchAll(LockedCounter counter, String[] ids) {
+        long sink = 0;
+        for (String id : ids) {
+            sink += counter.touch(id).length();
+        }
+        return sink;
+    }
+}
@@ -0,0 +1,198 @@
+package com.github.winefoxbot.core.aop.aspect;
+
+import com.github.winefoxbot.core.aop.handler.ShiroBotAfterCompletionMsgHandler;
+import com.github.winefoxbot.core.config.app.WineFoxBotLockProperties;
+import com.github.winefoxbot.core.model.entity.ShiroUser;
+import com.github.winefoxbot.plugins.fortune.service.impl.FortuneDataServiceImpl;
+import com.github.winefoxbot.plugins.watergroup.service.impl.WaterGroupServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedissonLockAspectTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LegacyRedissonLockAspect legacy = new LegacyRedissonLockAspect(null);
+    private final RedissonLockAspect aspect = new RedissonLockAspect(null, localMode());
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void saveUserKeyMatchesTheOldPerCallParse() throws Exception {
+        Method method = ShiroBotAfterCompletionMsgHandler.class.getMethod("saveUserSafe", ShiroUser.class);
+
+        // 超过 MIXED 模式的编译阈值，编译前后结果都应一致
+        for (long userId = 0; userId < 500; userId++) {
+            ShiroUser user = new ShiroUser();
+            user.setUserId(1_000_000_000L + userId);
+            Object[] args = {user};
+            assertThat(aspect.lockKey(method, args)).isEqualTo(legacy.generateKey(method, args));
+        }
+        ShiroUser user = new ShiroUser();
+        user.setUserId(123456L);
+        assertThat(aspect.lockKey(method, new Object[]{user})).isEqualTo("winefoxbot::save_user:lock:123456");
+    }
+
+    @Test
+    void messageCountKeyMatchesTheOldPerCallParse() throws Exception {
+        Method method = WaterGroupServiceImpl.class.getMethod("incrementMessageCount", long.class, long.class);
+
+        for (long i = 0; i < 500; i++) {
+            Object[] args = {700_000_000L + i, 2_000_000_000L - i};
+            assertThat(aspect.lockKey(method, args)).isEqualTo(legacy.generateKey(method, args));
+        }
+        assertThat(aspect.lockKey(method, new Object[]{1L, 2L})).isEqualTo("winefoxbot::msg_stat:lock:1:2");
+    }
+
+    @Test
+    void fortuneKeyMatchesTheOldPerCallParse() throws Exception {
+        Method method = FortuneDataServiceImpl.class.getMethod("getFortuneRenderVO", long.class, String.class);
+
+        for (long userId = 0; userId < 500; userId++) {
+            Object[] args = {userId, "酒狐"};
+            assertThat(aspect.lockKey(method, args)).isEqualTo(legacy.generateKey(method, args));
+        }
+    }
+
+    @Test
+    void localModeSerialisesCallersWithTheSameKey() throws Exception {
+        LockedCounter counter = proxy(new LockedCounter(), aspect);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    counter.increment("a");
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(counter.count()).isEqualTo(8 * 500);
+        assertThat(counter.maxInside()).isEqualTo(1);
+    }
+
+    @Test
+    void localModeReturnsNullWhenTheLockIsNotAcquiredInTime() throws Exception {
+        LockedCounter counter = proxy(new LockedCounter(), aspect);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> holder = executor.submit(() -> counter.hold("a", entered, release));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long start = System.nanoTime();
+        String waiter = counter.hold("a", new CountDownLatch(1), new CountDownLatch(0));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(waiter).isNull();
+        assertThat(waitedMillis).isBetween(90L, 2_000L);
+        // 不同的 key（落在不同的分段）不受影响
+        assertThat(counter.hold("b", new CountDownLatch(1), new CountDownLatch(0))).isEqualTo("b");
+
+        release.countDown();
+        assertThat(holder.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+        // 锁已释放，同一个 key 可以再次获取
+        assertThat(counter.hold("a", new CountDownLatch(1), new CountDownLatch(0))).isEqualTo("a");
+    }
+
+    /**
+     * 旧实现每次调用都查找注解、获取参数名并解析 SpEL；新实现只做一次变量绑定和（编译后的）求值
+     */
+    @Test
+    void cachedKeyEvaluationIsFasterThanParsingOnEveryCall() throws Exception {
+        Method method = WaterGroupServiceImpl.class.getMethod("incrementMessageCount", long.class, long.class);
+        Object[][] args = new Object[2_000][];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = new Object[]{700_000_000L + i, 2_000_000_000L - i};
+        }
+
+        long legacyNanos = medianNanos(() -> {
+            long sink = 0;
+            for (Object[] a : args) {
+                sink += legacy.generateKey(method, a).length();
+            }
+            return sink;
+        });
+        long cachedNanos = medianNanos(() -> {
+            long sink = 0;
+            for (Object[] a : args) {
+                sink += aspect.lockKey(method, a).length();
+            }
+            return sink;
+        });
+
+        assertThat(cachedNanos)
+                .as("2000 次 Key 计算耗时中位数(µs): 每次解析 %d, 缓存 %d", legacyNanos / 1000, cachedNanos / 1000)
+                .isLessThan(legacyNanos);
+    }
+
+    /**
+     * Key 计算加上进程内加锁的完整切面调用：即使加上锁，单次调用也应在微秒级
+     */
+    @Test
+    void localModeCallOverheadStaysInMicroseconds() {
+        LockedCounter counter = proxy(new LockedCounter(), aspect);
+        String[] ids = new String[2_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = "user-" + i;
+        }
+
+        long nanos = medianNanos(() -> {
+            long sink = 0;
+            for (String id : ids) {
+                sink += counter.touch(id).length();
+            }
+            return sink;
+        });
+
+        // 通常每次调用只需几微秒；上限放宽到 50µs，避免机器负载造成误报
+        assertThat(nanos / ids.length).as("每次调用耗时中位数(ns)").isLessThan(50_000);
+    }
+
+    static <T> T proxy(T target, Object aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    static WineFoxBotLockProperties localMode() {
+        WineFoxBotLockProperties properties = new WineFoxBotLockProperties();
+        properties.setMode(WineFoxBotLockProperties.Mode.LOCAL);
+        return properties;
+    }
+
+    static long medianNanos(LongSupplier run) {
+        long sink = 0;
+        // 预热，同时让 SpEL 越过编译阈值
+        for (int i = 0; i < 5; i++) {
+            sink += run.getAsLong();
+        }
+        long[] nanos = new long[15];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            sink += run.getAsLong();
+            nanos[i] = System.nanoTime() - start;
+        }
+        assertThat(sink).isNotZero();
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2];
+    }
+}
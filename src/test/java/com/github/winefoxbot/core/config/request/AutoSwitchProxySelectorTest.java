@@ -0,0 +1,348 @@
+package com.github.winefoxbot.core.config.request;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 用本地的 SOCKS5 / HTTP 替身代理验证代理池的探测、排序和切换
+ */
+class AutoSwitchProxySelectorTest {
+
+    private static final URI TARGET = URI.create("https://api.example.test/path");
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void disabledProxyAlwaysConnectsDirectly() {
+        AutoSwitchProxySelector selector = selector(new ProxyConfig());
+
+        assertThat(selector.select(TARGET)).containsExactly(Proxy.NO_PROXY);
+        assertThat(selector.getRouteStatuses()).isEmpty();
+    }
+
+    @Test
+    void noProxyHostsMatchTheHostAndItsParentDomains() throws IOException {
+        StandIn http = standIn(StandIn.Mode.HTTP);
+        ProxyConfig config = config(http.endpoint(ProxyConfig.ProxyType.HTTP));
+        config.setNoProxyHosts(List.of("*.example.com", ".internal", "bgm.tv"));
+        AutoSwitchProxySelector selector = selector(config);
+
+        assertThat(selector.select(URI.create("https://a.b.example.com/"))).containsExactly(Proxy.NO_PROXY);
+        assertThat(selector.select(URI.create("https://example.com/"))).containsExactly(Proxy.NO_PROXY);
+        assertThat(selector.select(URI.create("http://nas.internal/"))).containsExactly(Proxy.NO_PROXY);
+        assertThat(selector.select(URI.create("https://BGM.TV/"))).containsExactly(Proxy.NO_PROXY);
+        // 只按完整的域名层级匹配，不是简单的字符串后缀
+        assertThat(selector.select(URI.create("https://notexample.com/"))).containsExactly(http.proxy(Proxy.Type.HTTP));
+    }
+
+    @Test
+    void probeMarksStandInsHealthyAndOrdersThemByLatency() throws IOException {
+        StandIn socks = standIn(StandIn.Mode.SOCKS5);
+        socks.delayMillis = 150;
+        StandIn http = standIn(StandIn.Mode.HTTP);
+        AutoSwitchProxySelector selector = selector(config(
+                socks.endpoint(ProxyConfig.ProxyType.SOCKS5), http.endpoint(ProxyConfig.ProxyType.HTTP)));
+
+        selector.probeAll();
+
+        assertThat(selector.getRouteStatuses()).allSatisfy(status -> {
+            assertThat(status.healthy()).isTrue();
+            assertThat(status.lastProbeAt()).isPositive();
+        });
+        assertThat(latencyOf(selector, socks)).isGreaterThanOrEqualTo(150);
+        // 握手更慢的 SOCKS 代理排在后面
+        assertThat(selector.select(TARGET)).containsExactly(http.proxy(Proxy.Type.HTTP), socks.proxy(Proxy.Type.SOCKS));
+    }
+
+    @Test
+    void latencyIsAnExponentiallyWeightedAverage() throws IOException {
+        StandIn socks = standIn(StandIn.Mode.SOCKS5);
+        socks.delayMillis = 200;
+        AutoSwitchProxySelector selector = selector(config(socks.endpoint(ProxyConfig.ProxyType.SOCKS5)));
+        selector.probeAll();
+        double first = latencyOf(selector, socks);
+
+        socks.delayMillis = 0;
+        selector.probeAll();
+
+        // 0.3 * 新样本 + 0.7 * 旧值，一次快速探测不会把延迟直接拉到底
+        assertThat(latencyOf(selector, socks)).isBetween(first * 0.7, first);
+    }
+
+    @Test
+    void peersThatAreNotSocks5OrNotListeningAreUnhealthy() throws IOException {
+        StandIn rejecting = standIn(StandIn.Mode.SOCKS5_NO_ACCEPTABLE_METHOD);
+        StandIn http = standIn(StandIn.Mode.HTTP);
+        int closedPort = closedPort();
+        ProxyConfig.Endpoint closed = new ProxyConfig.Endpoint();
+        closed.setHost("127.0.0.1");
+        closed.setPort(closedPort);
+        closed.setType(ProxyConfig.ProxyType.HTTP);
+        AutoSwitchProxySelector selector = selector(config(
+                rejecting.endpoint(ProxyConfig.ProxyType.SOCKS5), closed, http.endpoint(ProxyConfig.ProxyType.HTTP)));
+
+        selector.probeAll();
+
+        assertThat(selector.getRouteStatuses()).extracting(AutoSwitchProxySelector.RouteStatus::healthy)
+                .containsExactly(false, false, true);
+        assertThat(selector.select(TARGET).getFirst()).isEqualTo(http.proxy(Proxy.Type.HTTP));
+    }
+
+    @Test
+    void connectFailedDemotesTheRouteUntilTheNextProbe() throws IOException {
+        StandIn fast = standIn(StandIn.Mode.HTTP);
+        StandIn slow = standIn(StandIn.Mode.SOCKS5);
+        slow.delayMillis = 100;
+        AutoSwitchProxySelector selector = selector(config(
+                fast.endpoint(ProxyConfig.ProxyType.HTTP), slow.endpoint(ProxyConfig.ProxyType.SOCKS5)));
+        selector.probeAll();
+        Proxy fastProxy = fast.proxy(Proxy.Type.HTTP);
+        Proxy slowProxy = slow.proxy(Proxy.Type.SOCKS);
+        assertThat(selector.select(TARGET)).containsExactly(fastProxy, slowProxy);
+
+        selector.connectFailed(TARGET, fastProxy.address(), new IOException("Connection reset"));
+
+        assertThat(selector.getRouteStatuses().getFirst().healthy()).isFalse();
+        assertThat(selector.select(URI.create("https://other.example.test/"))).containsExactly(slowProxy, fastProxy);
+
+        selector.probeAll();
+
+        assertThat(selector.getRouteStatuses().getFirst().healthy()).isTrue();
+        assertThat(selector.select(URI.create("https://other.example.test/"))).containsExactly(fastProxy, slowProxy);
+        // 对失败过的主机仍优先使用其他代理
+        assertThat(selector.select(URI.create("https://API.example.test/"))).containsExactly(slowProxy, fastProxy);
+    }
+
+    @Test
+    void connectFailedForAnAddressOutsideThePoolIsIgnored() throws IOException {
+        StandIn http = standIn(StandIn.Mode.HTTP);
+        AutoSwitchProxySelector selector = selector(config(http.endpoint(ProxyConfig.ProxyType.HTTP)));
+
+        selector.connectFailed(TARGET, new InetSocketAddress("127.0.0.1", closedPort()), new IOException("refused"));
+
+        assertThat(selector.getRouteStatuses().getFirst().healthy()).isTrue();
+    }
+
+    @Test
+    void directFallbackIsAppendedOnlyWhenEnabled() throws IOException {
+        StandIn http = standIn(StandIn.Mode.HTTP);
+        ProxyConfig config = config(http.endpoint(ProxyConfig.ProxyType.HTTP));
+        assertThat(selector(config).select(TARGET)).containsExactly(http.proxy(Proxy.Type.HTTP));
+
+        config.getHealthCheck().setDirectFallback(true);
+        AutoSwitchProxySelector selector = selector(config);
+        selector.connectFailed(TARGET, http.proxy(Proxy.Type.HTTP).address(), new IOException("refused"));
+
+        assertThat(selector.select(TARGET)).containsExactly(http.proxy(Proxy.Type.HTTP), Proxy.NO_PROXY);
+    }
+
+    @Test
+    void forcedProxyAppliesToTheNextSelectOnly() throws IOException {
+        StandIn http = standIn(StandIn.Mode.HTTP);
+        AutoSwitchProxySelector selector = selector(config(http.endpoint(ProxyConfig.ProxyType.HTTP)));
+
+        AutoSwitchProxySelector.forceDirect();
+
+        assertThat(selector.select(TARGET)).containsExactly(Proxy.NO_PROXY);
+        assertThat(selector.select(TARGET)).containsExactly(http.proxy(Proxy.Type.HTTP));
+    }
+
+    @Test
+    void okHttpFailsOverToTheNextProxyAndReportsTheFailedRoute() throws IOException {
+        StandIn http = standIn(StandIn.Mode.HTTP);
+        ProxyConfig.Endpoint dead = new ProxyConfig.Endpoint();
+        dead.setHost("127.0.0.1");
+        dead.setPort(closedPort());
+        dead.setType(ProxyConfig.ProxyType.HTTP);
+        // 未探测时按配置顺序返回，第一个代理没有在监听
+        AutoSwitchProxySelector selector = selector(config(dead, http.endpoint(ProxyConfig.ProxyType.HTTP)));
+        OkHttpClient client = new OkHttpClient.Builder()
+                .proxySelector(selector)
+                .callTimeout(5, TimeUnit.SECONDS)
+                .build();
+
+        try (Response response = client.newCall(new Request.Builder().url("http://api.example.test/hello").build()).execute()) {
+            assertThat(response.body().string()).isEqualTo("ok");
+        }
+
+        assertThat(http.requestLines).containsExactly("GET http://api.example.test/hello HTTP/1.1");
+        assertThat(selector.getRouteStatuses()).extracting(AutoSwitchProxySelector.RouteStatus::healthy)
+                .containsExactly(false, true);
+        assertThat(selector.select(TARGET).getFirst()).isEqualTo(http.proxy(Proxy.Type.HTTP));
+    }
+
+    private AutoSwitchProxySelector selector(ProxyConfig config) {
+        AutoSwitchProxySelector selector = new AutoSwitchProxySelector(config);
+        closeables.add(selector);
+        return selector;
+    }
+
+    private static ProxyConfig config(ProxyConfig.Endpoint main, ProxyConfig.Endpoint... pool) {
+        ProxyConfig config = new ProxyConfig();
+        config.setEnabled(true);
+        config.setHost(main.getHost());
+        config.setPort(main.getPort());
+        config.setType(main.getType());
+        config.setPool(new ArrayList<>(List.of(pool)));
+        return config;
+    }
+
+    private static double latencyOf(AutoSwitchProxySelector selector, StandIn standIn) {
+        String address = standIn.proxy(Proxy.Type.SOCKS).address().toString();
+        return selector.getRouteStatuses().stream()
+                .filter(status -> status.proxy().endsWith(address))
+                .findFirst()
+                .orElseThrow()
+                .latencyMillis();
+    }
+
+    private StandIn standIn(StandIn.Mode mode) throws IOException {
+        StandIn standIn = new StandIn(mode, executor);
+        closeables.add(standIn);
+        return standIn;
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 只实现探测和转发所需最少协议的本地替身代理
+     */
+    private static final class StandIn implements AutoCloseable {
+
+        enum Mode {
+            /**
+             * 回应 SOCKS5 无认证握手
+             */
+            SOCKS5,
+            /**
+             * 回应 SOCKS5 握手但拒绝所有认证方式
+             */
+            SOCKS5_NO_ACCEPTABLE_METHOD,
+            /**
+             * CONNECT 回应 200，普通代理请求直接回应 "ok"
+             */
+            HTTP
+        }
+
+        private final Mode mode;
+        private final ServerSocket serverSocket;
+        private final List<String> requestLines = new CopyOnWriteArrayList<>();
+        private volatile long delayMillis;
+
+        private StandIn(Mode mode, ExecutorService executor) throws IOException {
+            this.mode = mode;
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            executor.submit(() -> {
+                while (!serverSocket.isClosed()) {
+                    Socket socket;
+                    try {
+                        socket = serverSocket.accept();
+                    } catch (IOException e) {
+                        return;
+                    }
+                    executor.submit(() -> handle(socket));
+                }
+            });
+        }
+
+        ProxyConfig.Endpoint endpoint(ProxyConfig.ProxyType type) {
+            ProxyConfig.Endpoint endpoint = new ProxyConfig.Endpoint();
+            endpoint.setHost("127.0.0.1");
+            endpoint.setPort(serverSocket.getLocalPort());
+            endpoint.setType(type);
+            return endpoint;
+        }
+
+        Proxy proxy(Proxy.Type type) {
+            return new Proxy(type, new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()));
+        }
+
+        private void handle(Socket socket) {
+            try (socket) {
+                socket.setSoTimeout(5000);
+                InputStream in = socket.getInputStream();
+                OutputStream out = socket.getOutputStream();
+                if (mode == Mode.HTTP) {
+                    handleHttp(in, out);
+                    return;
+                }
+                byte[] greeting = in.readNBytes(3);
+                if (greeting.length < 3 || greeting[0] != 0x05) {
+                    return;
+                }
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                out.write(new byte[]{0x05, (byte) (mode == Mode.SOCKS5 ? 0x00 : 0xFF)});
+                out.flush();
+                // 等对端关闭
+                in.read();
+            } catch (IOException e) {
+                // 探测连接随时可能被关闭
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void handleHttp(InputStream in, OutputStream out) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+            String requestLine = reader.readLine();
+            if (requestLine == null) {
+                // 健康检查只建立 TCP 连接
+                return;
+            }
+            requestLines.add(requestLine);
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                // 忽略请求头
+            }
+            String response = requestLine.startsWith("CONNECT ")
+                    ? "HTTP/1.1 200 Connection established\r\n\r\n"
+                    : "HTTP/1.1 200 OK\r\nContent-Length: 2\r\nConnection: close\r\n\r\nok";
+            out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
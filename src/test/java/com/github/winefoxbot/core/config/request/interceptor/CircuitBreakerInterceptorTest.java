@@ -0,0 +1,130 @@
+package com.github.winefoxbot.core.config.request.interceptor;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerInterceptorTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final MockWebServer server = new MockWebServer();
+    private final AtomicLong nanos = new AtomicLong();
+    private final HostCircuitBreakerRegistry registry = new HostCircuitBreakerRegistry(2, OPEN_DURATION, nanos::get);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRejectsWithoutCallingTheHost() throws IOException {
+        OkHttpClient client = client(1);
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+
+        call(client).close();
+        assertThatThrownBy(() -> call(client)).isInstanceOf(IOException.class)
+                .isNotInstanceOf(CircuitBreakerOpenException.class);
+
+        assertThatThrownBy(() -> call(client)).isInstanceOf(CircuitBreakerOpenException.class);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        HostCircuitBreakerRegistry.Snapshot snapshot = registry.snapshots().getFirst();
+        assertThat(snapshot.state()).isEqualTo(HostCircuitBreakerRegistry.State.OPEN);
+        assertThat(snapshot.rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void successfulProbeClosesTheBreaker() throws IOException {
+        OkHttpClient client = client(1);
+        openBreaker(client);
+
+        nanos.addAndGet(OPEN_DURATION.toNanos());
+        server.enqueue(new MockResponse().setBody("ok"));
+        try (Response response = call(client)) {
+            assertThat(response.code()).isEqualTo(200);
+        }
+
+        assertThat(registry.snapshots().getFirst().state()).isEqualTo(HostCircuitBreakerRegistry.State.CLOSED);
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() throws IOException {
+        OkHttpClient client = client(1);
+        openBreaker(client);
+
+        nanos.addAndGet(OPEN_DURATION.toNanos());
+        server.enqueue(new MockResponse().setResponseCode(503));
+        call(client).close();
+
+        assertThat(registry.snapshots().getFirst().state()).isEqualTo(HostCircuitBreakerRegistry.State.OPEN);
+        assertThatThrownBy(() -> call(client)).isInstanceOf(CircuitBreakerOpenException.class);
+    }
+
+    @Test
+    void clientErrorsCountAsHealthy() throws IOException {
+        OkHttpClient client = client(1);
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        for (int i = 0; i < 3; i++) {
+            call(client).close();
+        }
+
+        HostCircuitBreakerRegistry.Snapshot snapshot = registry.snapshots().getFirst();
+        assertThat(snapshot.state()).isEqualTo(HostCircuitBreakerRegistry.State.CLOSED);
+        assertThat(snapshot.consecutiveFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesStopAsSoonAsTheBreakerOpens() {
+        // 与 OkHttpClientConfig 相同的顺序：重试在外层，每次尝试都经过熔断器
+        OkHttpClient client = client(5);
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+
+        assertThatThrownBy(() -> call(client)).isInstanceOf(CircuitBreakerOpenException.class);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    private void openBreaker(OkHttpClient client) throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        call(client).close();
+        call(client).close();
+        assertThat(registry.snapshots().getFirst().state()).isEqualTo(HostCircuitBreakerRegistry.State.OPEN);
+    }
+
+    private Response call(OkHttpClient client) throws IOException {
+        return client.newCall(new Request.Builder().url(server.url("/")).build()).execute();
+    }
+
+    private OkHttpClient client(int maxAttempts) {
+        return new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .callTimeout(5, TimeUnit.SECONDS)
+                .addInterceptor(new RetryInterceptor(maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5), 100, 0.1))
+                .addInterceptor(new CircuitBreakerInterceptor(registry))
+                .build();
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.winefoxbot.core.config.request.interceptor;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryInterceptorTest {
+
+    private final MockWebServer server = new MockWebServer();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(502));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = client(retry(3)).newCall(get()).execute()) {
+            assertThat(response.code()).isEqualTo(200);
+            assertThat(response.body().string()).isEqualTo("ok");
+        }
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesNetworkFailures() throws IOException {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        try (Response response = client(retry(3)).newCall(get()).execute()) {
+            assertThat(response.code()).isEqualTo(200);
+        }
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void lastFailedResponseIsHandedToTheCaller() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500).setBody("boom " + i));
+        }
+
+        try (Response response = client(retry(3)).newCall(get()).execute()) {
+            assertThat(response.code()).isEqualTo(500);
+            assertThat(response.body().string()).isEqualTo("boom 2");
+        }
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        try (Response response = client(retry(3)).newCall(get()).execute()) {
+            assertThat(response.code()).isEqualTo(404);
+        }
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void postIsOnlyRetriedWithAnIdempotencyKey() throws IOException {
+        OkHttpClient client = client(retry(3));
+        RequestBody body = RequestBody.create("{}", MediaType.get("application/json"));
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        try (Response response = client.newCall(new Request.Builder().url(server.url("/")).post(body).build()).execute()) {
+            assertThat(response.code()).isEqualTo(503);
+        }
+        assertThat(server.getRequestCount()).isEqualTo(1);
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+        Request keyed = new Request.Builder().url(server.url("/")).header("Idempotency-Key", "k-1").post(body).build();
+        try (Response response = client.newCall(keyed).execute()) {
+            assertThat(response.code()).isEqualTo(200);
+        }
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void retryAfterIsHonouredButCappedByMaxDelay() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "30"));
+        server.enqueue(new MockResponse().setBody("ok"));
+        RetryInterceptor interceptor = new RetryInterceptor(3, Duration.ofMillis(1), Duration.ofMillis(200), 10, 0.1);
+
+        long start = System.nanoTime();
+        try (Response response = client(interceptor).newCall(get()).execute()) {
+            assertThat(response.code()).isEqualTo(200);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsedMillis).isBetween(190L, 5_000L);
+    }
+
+    @Test
+    void budgetStopsRetriesOnceHalfTheTokensAreSpent() throws IOException {
+        // 4 个令牌：第一次失败后剩 3 个仍可重试，第二次失败后剩 2 个（不超过一半）停止重试
+        RetryInterceptor interceptor = new RetryInterceptor(5, Duration.ofMillis(1), Duration.ofMillis(5), 4, 0.5);
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+
+        try (Response response = client(interceptor).newCall(get()).execute()) {
+            assertThat(response.code()).isEqualTo(503);
+        }
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(interceptor.getBudgetTokens()).isEqualTo(2.0);
+
+        // 成功请求逐步归还令牌
+        server.enqueue(new MockResponse().setBody("ok"));
+        client(interceptor).newCall(get()).execute().close();
+        assertThat(interceptor.getBudgetTokens()).isEqualTo(2.5);
+    }
+
+    private Request get() {
+        return new Request.Builder().url(server.url("/")).build();
+    }
+
+    private static RetryInterceptor retry(int maxAttempts) {
+        return new RetryInterceptor(maxAttempts, Duration.ofMillis(1), Duration.ofMillis(10), 100, 0.1);
+    }
+
+    private static OkHttpClient client(RetryInterceptor interceptor) {
+        return new OkHttpClient.Builder()
+                // 关闭 OkHttp 自带的连接失败重试，只观察拦截器的行为
+                .retryOnConnectionFailure(false)
+                .addInterceptor(interceptor)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.winefoxbot.core.mapper;
+
+import com.github.winefoxbot.support.MigratedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * V3 分区迁移的数据复制
+ * <p>
+ * 在单独的数据库里先迁移到 V2，按旧表结构写入跨越多个月的消息，再迁移到 V3，
+ * 检查每个月的行数、原有 id 和 id 序列是否原样保留。只迁移到 V3，避免 V4 重建全文索引拖慢测试。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ShiroMessagesPartitionMigrationTest {
+
+    private static final int MONTHS = 6;
+    private static final int ROWS_PER_MONTH = 20_000;
+
+    /**
+     * 迁移前按月统计的行数
+     */
+    private static final Map<String, Long> ROWS_BEFORE = new LinkedHashMap<>();
+    private static IdStats idsBefore;
+    private static long sequenceBefore;
+    private static JdbcClient jdbcClient;
+
+    record IdStats(long count, long min, long max, long sum) {
+    }
+
+    @BeforeAll
+    static void migrateWithLegacyData() {
+        DataSource dataSource = MigratedPostgres.emptyDatabase("partition_migration");
+        jdbcClient = JdbcClient.create(dataSource);
+        migrate(dataSource, "2");
+
+        YearMonth first = YearMonth.now().minusMonths(MONTHS);
+        for (int i = 0; i <= MONTHS; i++) {
+            YearMonth month = first.plusMonths(i);
+            // id 由 SERIAL 序列生成，与线上旧表的写入方式一致
+            jdbcClient.sql("""
+                            INSERT INTO shiro_messages (message_id, time, self_id, direction, message_type, user_id, session_id, message, plain_text)
+                            SELECT n, CAST(:monthStart AS TIMESTAMP) + (n % 27) * INTERVAL '1 day' + (n % 86400) * INTERVAL '1 second',
+                                   1, 'message', 'group', n % 500, n % 40, '[]'::jsonb, '消息 ' || n
+                            FROM generate_series(1, :rows) AS n
+                            """)
+                    .param("monthStart", month.atDay(1).atStartOfDay())
+                    .param("rows", ROWS_PER_MONTH)
+                    .update();
+        }
+        // 撤回删除留下的空洞也应原样保留
+        jdbcClient.sql("DELETE FROM shiro_messages WHERE id % 97 = 0").update();
+
+        for (int i = 0; i <= MONTHS; i++) {
+            YearMonth month = first.plusMonths(i);
+            ROWS_BEFORE.put(partitionName(month), countBetween(month));
+        }
+        idsBefore = idStats();
+        sequenceBefore = jdbcClient.sql("SELECT last_value FROM shiro_messages_id_seq").query(Long.class).single();
+
+        migrate(dataSource, "3");
+    }
+
+    @Test
+    void everyMonthIsCopiedIntoItsOwnPartition() {
+        ROWS_BEFORE.forEach((partition, rows) ->
+                assertThat(jdbcClient.sql("SELECT count(*) FROM " + partition).query(Long.class).single())
+                        .as(partition)
+                        .isEqualTo(rows));
+        assertThat(jdbcClient.sql("SELECT count(*) FROM shiro_messages_default").query(Long.class).single()).isZero();
+        assertThat(jdbcClient.sql("SELECT to_regclass('shiro_messages_legacy') IS NULL").query(Boolean.class).single()).isTrue();
+    }
+
+    @Test
+    void originalIdsArePreserved() {
+        long inserted = (MONTHS + 1L) * ROWS_PER_MONTH;
+        assertThat(idsBefore).isEqualTo(new IdStats(inserted - inserted / 97, 1, inserted, idsBefore.sum()));
+        assertThat(idStats()).isEqualTo(idsBefore);
+    }
+
+    /**
+     * 写入下个月的分区，不影响其他用例按月统计的行数
+     */
+    @Test
+    void idSequenceContinuesAfterTheCopiedRows() {
+        long id = jdbcClient.sql("""
+                        INSERT INTO shiro_messages (message_id, time, self_id, direction, message_type, user_id, session_id, message, plain_text)
+                        VALUES (0, now() + INTERVAL '1 month', 2, 'message', 'group', 1, 1, '[]'::jsonb, '迁移后的第一条消息')
+                        RETURNING id
+                        """)
+                .query(Long.class)
+                .single();
+
+        assertThat(id).isEqualTo(sequenceBefore + 1).isGreaterThan(idsBefore.max());
+    }
+
+    private static void migrate(DataSource dataSource, String target) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .target(target)
+                .load()
+                .migrate();
+    }
+
+    private static long countBetween(YearMonth month) {
+        return jdbcClient.sql("SELECT count(*) FROM shiro_messages WHERE time >= :from AND time < :to")
+                .param("from", month.atDay(1).atStartOfDay())
+                .param("to", month.plusMonths(1).atDay(1).atStartOfDay())
+                .query(Long.class)
+                .single();
+    }
+
+    private static IdStats idStats() {
+        return jdbcClient.sql("SELECT count(*), min(id), max(id), sum(id) FROM shiro_messages WHERE self_id = 1")
+                .query((rs, rowNum) -> new IdStats(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)))
+                .single();
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "shiro_messages_" + month.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.winefoxbot.core.mapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.winefoxbot.support.MigratedPostgres;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 热点查询执行计划检查
+ * <p>
+ * 在迁移后的空库上关闭 enable_seqscan 再 EXPLAIN：有可用索引时规划器一定会选择索引，
+ * 计划里仍出现对目标表的 Seq Scan 就说明迁移缺少或改坏了对应索引。
+ * 不带 ANALYZE，语句不会真正执行，事务最后回滚。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ShiroMessagesQueryPlanTest {
+
+    /**
+     * @param name  名称，对应调用方
+     * @param table 不允许被全表扫描的表（分区表的子分区以此为前缀）
+     * @param sql   使用字面量参数的查询语句
+     */
+    record HotQuery(String name, String table, String sql) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    static List<HotQuery> hotQueries() {
+        return List.of(
+                new HotQuery("ShiroMessagesService.removeByMessageId", "shiro_messages",
+                        "DELETE FROM shiro_messages WHERE message_id = 0"),
+                new HotQuery("ShiroMessagesMapper.selectUserMessages", "shiro_messages",
+                        "SELECT * FROM shiro_messages WHERE session_id = 0 AND message_type = 'group' ORDER BY time DESC LIMIT 20"),
+                new HotQuery("WebUIMessageStatsController.total", "shiro_messages",
+                        "SELECT count(*) FROM shiro_messages WHERE self_id = 0"),
+                new HotQuery("WebUIMessageStatsController.countSince", "shiro_messages",
+                        "SELECT count(*) FROM shiro_messages WHERE self_id = 0 AND time >= now() - interval '1 day'"),
+                new HotQuery("WebUIStatsService.topGroups", "shiro_messages",
+                        "SELECT session_id, count(*) FROM shiro_messages WHERE message_type = 'group' AND time >= now() - interval '7 days' GROUP BY session_id"),
+                new HotQuery("ShiroMessagesMapper.searchMessages", "shiro_messages",
+                        "SELECT id FROM shiro_messages WHERE search_vector @@ plainto_tsquery('simple', '酒狐') OR plain_text ILIKE '%酒狐%'")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("hotQueries")
+    void hotQueryUsesAnIndex(HotQuery query) throws Exception {
+        try (Connection connection = MigratedPostgres.dataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL enable_seqscan = off");
+                assertThat(findSeqScans(statement, query))
+                        .as("%s 退化为全表扫描, SQL: %s", query.name(), query.sql())
+                        .isEmpty();
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private static List<String> findSeqScans(Statement statement, HotQuery query) throws Exception {
+        try (ResultSet rs = statement.executeQuery("EXPLAIN (FORMAT JSON) " + query.sql())) {
+            assertThat(rs.next()).isTrue();
+            JsonNode root = OBJECT_MAPPER.readTree(rs.getString(1));
+            List<String> seqScans = new ArrayList<>();
+            collectSeqScans(root.path(0).path("Plan"), query.table(), seqScans);
+            return seqScans;
+        }
+    }
+
+    private static void collectSeqScans(JsonNode plan, String table, List<String> seqScans) {
+        if (plan.isMissingNode()) {
+            return;
+        }
+        String relation = plan.path("Relation Name").asText("");
+        if ("Seq Scan".equals(plan.path("Node Type").asText()) && relation.startsWith(table)) {
+            seqScans.add(relation);
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectSeqScans(child, table, seqScans);
+        }
+    }
+}
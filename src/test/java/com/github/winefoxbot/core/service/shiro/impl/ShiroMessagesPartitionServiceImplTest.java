@@ -0,0 +1,261 @@
+package com.github.winefoxbot.core.service.shiro.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.winefoxbot.core.config.app.WineFoxBotDatabaseProperties;
+import com.github.winefoxbot.support.MigratedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers(disabledWithoutDocker = true)
+class ShiroMessagesPartitionServiceImplTest {
+
+    private static final long BOT_SHORT_RETENTION = 910_001L;
+    private static final long BOT_DEFAULT_RETENTION = 910_002L;
+    private static final List<Long> BOTS = List.of(BOT_SHORT_RETENTION, BOT_DEFAULT_RETENTION);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final WineFoxBotDatabaseProperties properties = new WineFoxBotDatabaseProperties();
+    private JdbcClient jdbcClient;
+    private ShiroMessagesPartitionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcClient = JdbcClient.create(MigratedPostgres.dataSource());
+        service = new ShiroMessagesPartitionServiceImpl(jdbcClient, properties);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcClient.sql("DELETE FROM shiro_messages WHERE self_id IN (:bots)")
+                .param("bots", BOTS)
+                .update();
+    }
+
+    @Test
+    void createsPartitionsAheadOfTheCurrentMonth() {
+        properties.getMessages().setPartitionAheadMonths(4);
+
+        service.maintain();
+
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= 4; i++) {
+            assertThat(service.listPartitions()).contains(partitionName(current.plusMonths(i)));
+        }
+        // 新消息落入月分区而不是默认分区
+        insertMessage(BOT_DEFAULT_RETENTION, LocalDateTime.now());
+        assertThat(rowsIn("shiro_messages_default")).isZero();
+        assertThat(rowsIn(partitionName(current))).isPositive();
+    }
+
+    @Test
+    void detachesExpiredPartitionsAndKeepsTheirData() {
+        String expired = createPartition(YearMonth.of(2001, 1));
+        insertMessage(BOT_DEFAULT_RETENTION, LocalDateTime.of(2001, 1, 15, 12, 0));
+        properties.getMessages().setRetentionMonths(12);
+        properties.getMessages().setDropExpiredPartitions(false);
+
+        service.maintain();
+
+        assertThat(service.listPartitions()).doesNotContain(expired).contains(partitionName(YearMonth.now()));
+        assertThat(tableExists(expired)).isTrue();
+        assertThat(rowsIn(expired)).isEqualTo(1);
+    }
+
+    @Test
+    void dropsExpiredPartitionsWhenConfigured() {
+        String expired = createPartition(YearMonth.of(2001, 2));
+        properties.getMessages().setRetentionMonths(12);
+        properties.getMessages().setDropExpiredPartitions(true);
+
+        service.maintain();
+
+        assertThat(service.listPartitions()).doesNotContain(expired);
+        assertThat(tableExists(expired)).isFalse();
+    }
+
+    @Test
+    void keepsEverythingWhenRetentionIsDisabled() {
+        String old = createPartition(YearMonth.of(2001, 3));
+        properties.getMessages().setRetentionMonths(0);
+
+        service.maintain();
+
+        assertThat(service.listPartitions()).contains(old);
+    }
+
+    @Test
+    void purgesOnlyOldMessagesOfBotsWithShorterRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        insertMessage(BOT_SHORT_RETENTION, now.minusDays(10));
+        insertMessage(BOT_SHORT_RETENTION, now.minusHours(1));
+        insertMessage(BOT_DEFAULT_RETENTION, now.minusDays(10));
+        properties.getMessages().setBotRetentionDays(Map.of(BOT_SHORT_RETENTION, 5));
+
+        service.maintain();
+
+        assertThat(countMessages(BOT_SHORT_RETENTION)).isEqualTo(1);
+        assertThat(countMessages(BOT_DEFAULT_RETENTION)).isEqualTo(1);
+    }
+
+    /**
+     * 与 ShiroMessagesServiceImpl.findLatestMessagesForContext 使用相同的上下界
+     */
+    @Test
+    void contextQueryScansOnlyTheCurrentAndPreviousMonth() {
+        YearMonth current = createPartitionsAroundNow();
+        LocalDate monthStart = current.atDay(1);
+
+        Set<String> scanned = scannedPartitions("""
+                SELECT sm.id, sm.time, su.nickname, gm.member_nickname
+                FROM shiro_messages sm
+                LEFT JOIN shiro_users su ON sm.user_id = su.user_id
+                LEFT JOIN shiro_group_members gm ON sm.user_id = gm.user_id AND sm.session_id = gm.group_id
+                WHERE sm.session_id = 1 AND sm.message_type = 'group'
+                  AND sm.time >= '%s' AND sm.time < '%s'
+                ORDER BY sm.time DESC
+                LIMIT 20
+                """.formatted(monthStart.minusMonths(1).atStartOfDay(), monthStart.plusMonths(1).atStartOfDay()));
+
+        assertThat(scanned).containsExactlyInAnyOrder(partitionName(current.minusMonths(1)), partitionName(current));
+    }
+
+    /**
+     * 与 WebUIStatsService.topGroups 的月/周范围一致：从起始日 0 点到明天 0 点
+     */
+    @Test
+    void topGroupsScansOnlyTheMonthsInItsRange() {
+        YearMonth current = createPartitionsAroundNow();
+        LocalDate today = LocalDate.now();
+        String sql = """
+                SELECT session_id, count(*) FROM shiro_messages
+                WHERE message_type = 'group' AND time >= '%s' AND time < '%s'
+                GROUP BY session_id
+                """;
+
+        Set<String> month = scannedPartitions(sql.formatted(today.minusMonths(1).atStartOfDay(), today.plusDays(1).atStartOfDay()));
+        Set<String> week = scannedPartitions(sql.formatted(today.minusWeeks(1).atStartOfDay(), today.plusDays(1).atStartOfDay()));
+
+        assertThat(month).containsExactlyInAnyOrder(partitionName(current.minusMonths(1)), partitionName(current));
+        assertThat(week).isEqualTo(partitionsBetween(today.minusWeeks(1), today)).contains(partitionName(current));
+    }
+
+    /**
+     * 与 WebUIMessageStatsController.countSince 一致
+     */
+    @Test
+    void countSinceScansOnlyTheCurrentMonth() {
+        YearMonth current = createPartitionsAroundNow();
+        LocalDate today = LocalDate.now();
+
+        Set<String> scanned = scannedPartitions("SELECT count(*) FROM shiro_messages WHERE self_id = 1 AND time >= '%s' AND time < '%s'"
+                .formatted(today.atStartOfDay(), today.plusDays(1).atStartOfDay()));
+
+        assertThat(scanned).containsExactly(partitionName(current));
+    }
+
+    /**
+     * 创建过去三个月和未来几个月的分区，确保被裁剪掉的分区确实存在
+     */
+    private YearMonth createPartitionsAroundNow() {
+        YearMonth current = YearMonth.now();
+        for (int i = 1; i <= 3; i++) {
+            createPartition(current.minusMonths(i));
+        }
+        service.maintain();
+        assertThat(service.listPartitions()).contains(partitionName(current.minusMonths(3)), partitionName(current.plusMonths(2)));
+        return current;
+    }
+
+    /**
+     * EXPLAIN 不执行语句；字面量参数在规划时即可裁剪分区
+     */
+    private Set<String> scannedPartitions(String sql) {
+        String plan = jdbcClient.sql("EXPLAIN (FORMAT JSON) " + sql).query(String.class).single();
+        Set<String> partitions = new TreeSet<>();
+        try {
+            collectPartitions(OBJECT_MAPPER.readTree(plan).path(0).path("Plan"), partitions);
+        } catch (Exception e) {
+            throw new IllegalStateException("无法解析执行计划: " + plan, e);
+        }
+        return partitions;
+    }
+
+    private static void collectPartitions(JsonNode plan, Set<String> partitions) {
+        if (plan.isMissingNode()) {
+            return;
+        }
+        String relation = plan.path("Relation Name").asText("");
+        if (relation.startsWith("shiro_messages_")) {
+            partitions.add(relation);
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectPartitions(child, partitions);
+        }
+    }
+
+    private static Set<String> partitionsBetween(LocalDate from, LocalDate to) {
+        Set<String> partitions = new TreeSet<>();
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            partitions.add(partitionName(month));
+        }
+        return partitions;
+    }
+
+    private String createPartition(YearMonth month) {
+        String name = partitionName(month);
+        jdbcClient.sql("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF shiro_messages FOR VALUES FROM ('"
+                + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')").update();
+        return name;
+    }
+
+    private void insertMessage(long botId, LocalDateTime time) {
+        jdbcClient.sql("""
+                        INSERT INTO shiro_messages (message_id, time, self_id, direction, message_type, user_id, session_id, message, plain_text)
+                        VALUES (1, :time, :botId, 'message', 'group', 1, 1, '[]'::jsonb, '测试')
+                        """)
+                .param("time", time)
+                .param("botId", botId)
+                .update();
+    }
+
+    private long countMessages(long botId) {
+        return jdbcClient.sql("SELECT count(*) FROM shiro_messages WHERE self_id = :botId")
+                .param("botId", botId)
+                .query(Long.class)
+                .single();
+    }
+
+    private long rowsIn(String table) {
+        return jdbcClient.sql("SELECT count(*) FROM " + table + " WHERE self_id IN (:bots)")
+                .param("bots", BOTS)
+                .query(Long.class)
+                .single();
+    }
+
+    private boolean tableExists(String table) {
+        return jdbcClient.sql("SELECT to_regclass(:name) IS NOT NULL")
+                .param("name", table)
+                .query(Boolean.class)
+                .single();
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "shiro_messages_" + month.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+    }
+}
@@ -0,0 +1,225 @@
+package com.github.winefoxbot.core.service.shiro.impl;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.github.winefoxbot.core.mapper.ShiroMessagesMapper;
+import com.github.winefoxbot.core.model.dto.MessageSearchQuery;
+import com.github.winefoxbot.core.model.entity.ShiroUserMessage;
+import com.github.winefoxbot.core.model.enums.common.MessageType;
+import com.github.winefoxbot.core.service.common.SmartTagService;
+import com.github.winefoxbot.support.MigratedPostgres;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 消息搜索：在合成语料上验证匹配结果和查询耗时
+ * <p>
+ * 语料按 Bot 号隔离，测试结束后删除，不影响同一数据库上的其他测试。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ShiroMessagesServiceImplSearchTest {
+
+    private static final long CORPUS_BOT = 920_001L;
+    private static final long NEEDLE_BOT = 920_002L;
+    private static final int CORPUS_SIZE = 200_000;
+    private static final long CORPUS_SESSION = 1000L;
+    private static final long NEEDLE_SESSION = 2000L;
+
+    private static final SmartTagService SMART_TAG_SERVICE = new SmartTagService();
+    private static JdbcClient jdbcClient;
+    private static ShiroMessagesServiceImpl service;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        DataSource dataSource = MigratedPostgres.dataSource();
+        jdbcClient = JdbcClient.create(dataSource);
+        service = new ShiroMessagesServiceImpl(SMART_TAG_SERVICE);
+        ReflectionTestUtils.setField(service, "baseMapper", createMapper(dataSource));
+
+        // 合成语料：由固定词表组合出的短消息，分布在最近几天、20 个群里
+        jdbcClient.sql("""
+                        INSERT INTO shiro_messages (message_id, time, self_id, direction, message_type, user_id, session_id,
+                                                    message, plain_text, search_tokens)
+                        SELECT i,
+                               now() - (i % 72) * interval '1 hour',
+                               :botId,
+                               'message',
+                               'group',
+                               10000 + i % 500,
+                               :session + i % 20,
+                               '[]'::jsonb,
+                               w.text,
+                               w.text
+                        FROM generate_series(1, :size) AS i
+                                 CROSS JOIN LATERAL (
+                            SELECT (ARRAY ['hello', 'morning', 'pixiv', 'deer', 'report', 'weather', 'music', 'game'])[1 + i % 8]
+                                       || ' ' ||
+                                   (ARRAY ['today', 'tomorrow', 'again', 'please', 'thanks', 'later', 'now'])[1 + i % 7]
+                                       || ' ' || (i % 5000) AS text
+                            ) w
+                        """)
+                .param("botId", CORPUS_BOT)
+                .param("session", CORPUS_SESSION)
+                .param("size", CORPUS_SIZE)
+                .update();
+
+        insertNeedle(1, "今天酒狐去河边钓鱼了", NEEDLE_SESSION, 30001L);
+        insertNeedle(2, "酒狐明天还想去钓鱼", NEEDLE_SESSION + 1, 30002L);
+        insertNeedle(3, "winefoxbot123 是机器人", NEEDLE_SESSION, 30003L);
+        jdbcClient.sql("ANALYZE shiro_messages").update();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        if (jdbcClient != null) {
+            jdbcClient.sql("DELETE FROM shiro_messages WHERE self_id IN (:bots)")
+                    .param("bots", List.of(CORPUS_BOT, NEEDLE_BOT))
+                    .update();
+        }
+    }
+
+    @Test
+    void tokenizedSearchMatchesChineseWords() {
+        Page<ShiroUserMessage> page = service.searchMessages(query("酒狐 钓鱼", false), 1, 20);
+
+        assertThat(page.getRecords()).extracting(ShiroUserMessage::getPlainText)
+                .containsExactlyInAnyOrder("今天酒狐去河边钓鱼了", "酒狐明天还想去钓鱼");
+    }
+
+    @Test
+    void filtersNarrowTheResults() {
+        MessageSearchQuery query = query("酒狐", false);
+        query.setSessionId(NEEDLE_SESSION + 1);
+
+        assertThat(service.searchMessages(query, 1, 20).getRecords())
+                .extracting(ShiroUserMessage::getUserId)
+                .containsExactly(30002L);
+    }
+
+    @Test
+    void fuzzySearchAlsoMatchesSubstrings() {
+        assertThat(service.searchMessages(query("efoxbot12", false), 1, 20).getRecords()).isEmpty();
+
+        assertThat(service.searchMessages(query("efoxbot12", true), 1, 20).getRecords())
+                .extracting(ShiroUserMessage::getPlainText)
+                .containsExactly("winefoxbot123 是机器人");
+    }
+
+    @Test
+    void pagesAreOrderedNewestFirst() {
+        MessageSearchQuery query = new MessageSearchQuery();
+        query.setKeyword("pixiv");
+        query.setSelfId(CORPUS_BOT);
+        query.setSince(LocalDateTime.now().minusDays(1));
+
+        Page<ShiroUserMessage> page = service.searchMessages(query, 1, 50);
+
+        assertThat(page.getRecords()).hasSize(50);
+        assertThat(page.getTotal()).isGreaterThan(50);
+        assertThat(page.getRecords()).extracting(ShiroUserMessage::getTime)
+                .isSortedAccordingTo((a, b) -> b.compareTo(a));
+    }
+
+    @Test
+    void searchOverTheSyntheticCorpusStaysFast() {
+        MessageSearchQuery rare = new MessageSearchQuery();
+        rare.setKeyword("4242");
+        rare.setSelfId(CORPUS_BOT);
+        MessageSearchQuery fuzzy = new MessageSearchQuery();
+        fuzzy.setKeyword("4242");
+        fuzzy.setFuzzy(true);
+        fuzzy.setSelfId(CORPUS_BOT);
+
+        // 预热
+        for (int i = 0; i < 3; i++) {
+            service.searchMessages(rare, 1, 20);
+            service.searchMessages(fuzzy, 1, 20);
+        }
+        long[] rareMillis = timeSearches(rare, 20);
+        long[] fuzzyMillis = timeSearches(fuzzy, 20);
+
+        assertThat(service.searchMessages(rare, 1, 20).getTotal()).isEqualTo(CORPUS_SIZE / 5000);
+        // 走索引时在 20 万条语料上应为毫秒级；上限放宽到 200ms，避免机器负载造成误报
+        assertThat(median(rareMillis)).as("分词搜索耗时中位数(ms)").isLessThan(200);
+        assertThat(median(fuzzyMillis)).as("模糊搜索耗时中位数(ms)").isLessThan(200);
+    }
+
+    private static long[] timeSearches(MessageSearchQuery query, int runs) {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            service.searchMessages(query, 1, 20);
+            millis[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        return millis;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static MessageSearchQuery query(String keyword, boolean fuzzy) {
+        MessageSearchQuery query = new MessageSearchQuery();
+        query.setKeyword(keyword);
+        query.setFuzzy(fuzzy);
+        query.setSelfId(NEEDLE_BOT);
+        query.setMessageType(MessageType.GROUP);
+        return query;
+    }
+
+    private static void insertNeedle(long messageId, String text, long sessionId, long userId) {
+        jdbcClient.sql("""
+                        INSERT INTO shiro_messages (message_id, time, self_id, direction, message_type, user_id, session_id,
+                                                    message, plain_text, search_tokens)
+                        VALUES (:messageId, now() - :messageId * interval '1 minute', :botId, 'message', 'group', :userId,
+                                :sessionId, '[]'::jsonb, :text, :tokens)
+                        """)
+                .param("messageId", messageId)
+                .param("botId", NEEDLE_BOT)
+                .param("userId", userId)
+                .param("sessionId", sessionId)
+                .param("text", text)
+                .param("tokens", SMART_TAG_SERVICE.toSearchTokens(text))
+                .update();
+    }
+
+    /**
+     * 按 application.yaml 和 MybatisPlusConfig 的配置加载 ShiroMessagesMapper
+     */
+    private static ShiroMessagesMapper createMapper(DataSource dataSource) throws Exception {
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.POSTGRE_SQL));
+
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setPlugins(interceptor);
+        factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver()
+                .getResources("classpath:mapper/ShiroMessagesMapper.xml"));
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        return new SqlSessionTemplate(sqlSessionFactory).getMapper(ShiroMessagesMapper.class);
+    }
+}
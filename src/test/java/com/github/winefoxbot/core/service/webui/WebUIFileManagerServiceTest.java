@@ -0,0 +1,102 @@
+package com.github.winefoxbot.core.service.webui;
+
+import com.github.winefoxbot.core.exception.common.FileVersionConflictException;
+import com.github.winefoxbot.core.model.vo.webui.resp.TextChunkResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebUIFileManagerServiceTest {
+
+    private final WebUIFileManagerService service = new WebUIFileManagerService();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readTextChunkAlwaysAdvancesByAWholeCharacter() throws Exception {
+        Path file = dir.resolve("cjk.txt");
+        Files.writeString(file, "酒狐a", StandardCharsets.UTF_8);
+
+        StringBuilder content = new StringBuilder();
+        long offset = 0;
+        int pages = 0;
+        while (true) {
+            TextChunkResponse chunk = service.readTextChunk(file.toString(), offset, 1);
+            assertThat(chunk.length()).isPositive();
+            assertThat(chunk.nextOffset()).isGreaterThan(offset);
+            content.append(chunk.content());
+            offset = chunk.nextOffset();
+            pages++;
+            if (chunk.eof()) {
+                break;
+            }
+        }
+        assertThat(content.toString()).isEqualTo("酒狐a");
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void readTextChunkStartingInsideACharacterSkipsToTheNextOne() throws Exception {
+        Path file = dir.resolve("cjk.txt");
+        Files.writeString(file, "酒狐", StandardCharsets.UTF_8);
+
+        TextChunkResponse chunk = service.readTextChunk(file.toString(), 1, 1);
+
+        assertThat(chunk.offset()).isEqualTo(3);
+        assertThat(chunk.content()).isEqualTo("狐");
+        assertThat(chunk.eof()).isTrue();
+    }
+
+    @Test
+    void replaceTextChunkSplicesWhenEtagMatches() throws Exception {
+        Path file = dir.resolve("a.txt");
+        Files.writeString(file, "hello world", StandardCharsets.UTF_8);
+        TextChunkResponse chunk = service.readTextChunk(file.toString(), 6, 5);
+
+        long size = service.replaceTextChunk(file.toString(), chunk.offset(), chunk.length(), "酒狐", chunk.etag());
+
+        assertThat(Files.readString(file, StandardCharsets.UTF_8)).isEqualTo("hello 酒狐");
+        assertThat(size).isEqualTo(Files.size(file));
+        assertNoTempFilesLeft();
+    }
+
+    @Test
+    void replaceTextChunkRejectsStaleEtag() throws Exception {
+        Path file = dir.resolve("a.txt");
+        Files.writeString(file, "0123456789", StandardCharsets.UTF_8);
+        TextChunkResponse first = service.readTextChunk(file.toString(), 0, 5);
+        TextChunkResponse second = service.readTextChunk(file.toString(), 5, 5);
+
+        // 第一段保存后长度变化，基于旧版本的第二段偏移已经失效
+        service.replaceTextChunk(file.toString(), first.offset(), first.length(), "ab", first.etag());
+
+        assertThatThrownBy(() -> service.replaceTextChunk(file.toString(), second.offset(), second.length(), "XYZ", second.etag()))
+                .isInstanceOf(FileVersionConflictException.class);
+        assertThat(Files.readString(file, StandardCharsets.UTF_8)).isEqualTo("ab56789");
+        assertNoTempFilesLeft();
+    }
+
+    @Test
+    void replaceTextChunkRequiresEtag() throws Exception {
+        Path file = dir.resolve("a.txt");
+        Files.writeString(file, "abc", StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> service.replaceTextChunk(file.toString(), 0, 1, "x", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(Files.readString(file, StandardCharsets.UTF_8)).isEqualTo("abc");
+    }
+
+    private void assertNoTempFilesLeft() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.filter(p -> p.getFileName().toString().endsWith(".part"))).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.winefoxbot.core.utils;
+
+import com.github.winefoxbot.core.model.dto.BroadcastMessageResult;
+import com.mikuac.shiro.dto.action.common.ActionData;
+import com.mikuac.shiro.dto.action.common.MsgId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MsgBroadcasterTest {
+
+    private static final ActionData<MsgId> OK = response(0);
+    private static final ActionData<MsgId> FAILED = response(100);
+
+    private MsgBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    void respectsPerBotConcurrencyAndSendRate() throws Exception {
+        broadcaster = new MsgBroadcaster(new MsgBroadcaster.Options(2, 20.0, 0, Duration.ofMillis(1), Duration.ofMillis(1)));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Long> targets = List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+
+        long start = System.nanoTime();
+        BroadcastMessageResult result = broadcaster.broadcast(1L, targets, targetId -> {
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            try {
+                // 模拟网络延迟
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return OK;
+        }, null).get(10, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(result.getSuccessList()).containsExactlyElementsOf(targets);
+        assertThat(result.getFailedList()).isEmpty();
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+        // 每秒 20 条，10 条至少需要 9 个间隔，约 450ms
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(400);
+    }
+
+    @Test
+    void retriesFailedTargetsAndReportsEachResult() throws Exception {
+        broadcaster = new MsgBroadcaster(new MsgBroadcaster.Options(4, 1000.0, 2, Duration.ofMillis(1), Duration.ofMillis(5)));
+        Map<Long, AtomicInteger> calls = new ConcurrentHashMap<>();
+        Map<Long, MsgBroadcaster.TargetResult> reported = new ConcurrentHashMap<>();
+
+        BroadcastMessageResult result = broadcaster.broadcast(1L, List.of(1L, 2L, 3L), targetId -> {
+            int call = calls.computeIfAbsent(targetId, k -> new AtomicInteger()).incrementAndGet();
+            return switch (targetId.intValue()) {
+                // 前两次失败，第三次成功
+                case 1 -> call <= 2 ? FAILED : OK;
+                // 一直抛异常
+                case 2 -> throw new IllegalStateException("connection reset");
+                default -> OK;
+            };
+        }, r -> reported.put(r.targetId(), r)).get(10, TimeUnit.SECONDS);
+
+        assertThat(result.getSuccessList()).containsExactly(1L, 3L);
+        assertThat(result.getFailedList()).containsExactly(2L);
+        assertThat(reported).hasSize(3);
+        assertThat(reported.get(1L).attempts()).isEqualTo(3);
+        assertThat(reported.get(1L).success()).isTrue();
+        assertThat(reported.get(2L).attempts()).isEqualTo(3);
+        assertThat(reported.get(2L).error()).contains("connection reset");
+        assertThat(reported.get(3L).attempts()).isEqualTo(1);
+    }
+
+    @Test
+    void sendWithRetryStopsAfterMaxRetries() {
+        broadcaster = new MsgBroadcaster(new MsgBroadcaster.Options(1, 1.0, 2, Duration.ofMillis(1), Duration.ofMillis(1)));
+        AtomicInteger calls = new AtomicInteger();
+
+        Boolean result = broadcaster.sendWithRetry(() -> {
+            calls.incrementAndGet();
+            return false;
+        }, Boolean::booleanValue, "测试消息");
+
+        assertThat(result).isFalse();
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void rejectsNonPositiveLimits() {
+        assertThatThrownBy(() -> new MsgBroadcaster.Options(0, 5.0, 3, Duration.ofMillis(1), Duration.ofMillis(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MsgBroadcaster.Options(1, 0, 3, Duration.ofMillis(1), Duration.ofMillis(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MsgBroadcaster.Options(1, 5.0, -1, Duration.ofMillis(1), Duration.ofMillis(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ActionData<MsgId> response(int retCode) {
+        ActionData<MsgId> data = mock(ActionData.class);
+        when(data.getRetCode()).thenReturn(retCode);
+        return data;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.winefoxbot.core.utils;
+
+import com.itextpdf.text.io.RandomAccessSourceFactory;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.RandomAccessFileOrArray;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PdfUtilTest {
+
+    /**
+     * 图片总量远大于 small-heap 测试的堆上限（-Xmx256m），整份文档放进内存就会 OOM
+     */
+    private static final long TOTAL_IMAGE_BYTES = 384L * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Tag("small-heap")
+    void largeImageSetIsStreamedIntoThePdf() throws Exception {
+        assumeTrue(Runtime.getRuntime().maxMemory() < TOTAL_IMAGE_BYTES, "需要以较小的 -Xmx 运行，见 pom.xml 中的 small-heap-test 执行");
+        List<Path> images = SyntheticImages.generate(tempDir.resolve("images"), TOTAL_IMAGE_BYTES);
+        long imageBytes = SyntheticImages.totalSize(images);
+
+        Path pdf = PdfUtil.wrapImageIntoPdf(images, tempDir.resolve("out").toString());
+
+        assertThat(pdf).isNotNull().exists();
+        // JPEG 原样嵌入，文件大小与图片总量相当
+        assertThat(Files.size(pdf)).isGreaterThan(imageBytes);
+        try (Stream<Path> outputs = Files.list(pdf.getParent())) {
+            assertThat(outputs).containsExactly(pdf);
+        }
+        // 按需读取，不把整个文件读进内存
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(
+                new RandomAccessSourceFactory().createBestSource(pdf.toString())), null);
+        try {
+            assertThat(reader.getNumberOfPages()).isEqualTo(images.size());
+            assertThat(reader.getInfo()).containsKey("ModificationGuid");
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    void failureLeavesNoPartialFile() {
+        Path out = tempDir.resolve("out");
+
+        Path pdf = PdfUtil.wrapImageIntoPdf(List.of(tempDir.resolve("missing.jpg")), out.toString());
+
+        assertThat(pdf).isNull();
+        assertThat(out).isEmptyDirectory();
+    }
+}
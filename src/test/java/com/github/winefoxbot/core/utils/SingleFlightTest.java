@@ -0,0 +1,110 @@
+package com.github.winefoxbot.core.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallsForTheSameKeyShareOneLoad() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test");
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<Integer> source = new CompletableFuture<>();
+        int callers = 32;
+        CountDownLatch started = new CountDownLatch(callers);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<CompletableFuture<Integer>>> submitted = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                submitted.add(CompletableFuture.supplyAsync(() -> {
+                    started.countDown();
+                    return flight.execute("k", () -> {
+                        loads.incrementAndGet();
+                        return source;
+                    });
+                }, executor));
+            }
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            for (var future : submitted) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        source.complete(42);
+        for (CompletableFuture<Integer> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        }
+        assertThat(loads).hasValue(1);
+        SingleFlight.Stats stats = flight.getStats();
+        assertThat(stats.calls()).isEqualTo(callers);
+        assertThat(stats.coalesced()).isEqualTo(callers - 1);
+        assertThat(stats.inFlight()).isZero();
+    }
+
+    @Test
+    void differentKeysLoadIndependently() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+
+        CompletableFuture<String> a = flight.execute("a", () -> CompletableFuture.completedFuture("A"));
+        CompletableFuture<String> b = flight.execute("b", () -> CompletableFuture.completedFuture("B"));
+
+        assertThat(a.join()).isEqualTo("A");
+        assertThat(b.join()).isEqualTo("B");
+        assertThat(flight.getStats().coalesced()).isZero();
+    }
+
+    @Test
+    void failureIsPropagatedToAllWaitersAndTheNextCallRetries() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        CompletableFuture<String> source = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("k", () -> source);
+        CompletableFuture<String> second = flight.execute("k", () -> CompletableFuture.completedFuture("unused"));
+        source.completeExceptionally(new IllegalStateException("boom"));
+
+        assertThatThrownBy(first::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IllegalStateException.class);
+
+        // 失败后 key 已移除，下一次调用重新加载
+        CompletableFuture<String> retry = flight.execute("k", () -> CompletableFuture.completedFuture("ok"));
+        assertThat(retry.join()).isEqualTo("ok");
+    }
+
+    @Test
+    void loaderThatThrowsFailsTheFlightInsteadOfTheCaller() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+
+        CompletableFuture<String> result = flight.execute("k", () -> {
+            throw new IllegalArgumentException("bad");
+        });
+
+        assertThatThrownBy(result::join).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(flight.getStats().inFlight()).isZero();
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotAffectOthers() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        CompletableFuture<String> source = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute("k", () -> source);
+        CompletableFuture<String> second = flight.execute("k", () -> source);
+        first.cancel(true);
+        source.complete("v");
+
+        assertThat(second.join()).isEqualTo("v");
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.winefoxbot.core.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 在磁盘上生成一批总大小可控的测试图片
+ * <p>
+ * 先生成一张随机噪点的高质量 JPEG（几乎无法压缩），再复制出足够多的文件；
+ * 生成过程中只在内存里保留一张图片。
+ */
+final class SyntheticImages {
+
+    private static final int SIDE = 1600;
+
+    private SyntheticImages() {
+    }
+
+    /**
+     * @param dir        输出目录
+     * @param totalBytes 图片总大小下限
+     * @return 生成的图片文件
+     */
+    static List<Path> generate(Path dir, long totalBytes) throws IOException {
+        Files.createDirectories(dir);
+        Path first = dir.resolve("image_0.jpg");
+        writeNoiseJpeg(first);
+        long size = Files.size(first);
+        int count = (int) Math.max(1, (totalBytes + size - 1) / size);
+        List<Path> images = new ArrayList<>(count);
+        images.add(first);
+        for (int i = 1; i < count; i++) {
+            images.add(Files.copy(first, dir.resolve("image_" + i + ".jpg")));
+        }
+        return images;
+    }
+
+    static long totalSize(List<Path> files) throws IOException {
+        long total = 0;
+        for (Path file : files) {
+            total += Files.size(file);
+        }
+        return total;
+    }
+
+    private static void writeNoiseJpeg(Path target) throws IOException {
+        BufferedImage image = new BufferedImage(SIDE, SIDE, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < SIDE; y++) {
+            for (int x = 0; x < SIDE; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(1.0f);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
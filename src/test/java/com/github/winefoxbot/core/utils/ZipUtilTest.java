@@ -0,0 +1,84 @@
+package com.github.winefoxbot.core.utils;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ZipUtilTest {
+
+    /**
+     * 图片总量远大于 small-heap 测试的堆上限（-Xmx256m），整包放进内存就会 OOM
+     */
+    private static final long TOTAL_IMAGE_BYTES = 384L * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Tag("small-heap")
+    void largeImageSetIsStreamedIntoTheZip() throws Exception {
+        assumeTrue(Runtime.getRuntime().maxMemory() < TOTAL_IMAGE_BYTES, "需要以较小的 -Xmx 运行，见 pom.xml 中的 small-heap-test 执行");
+        List<Path> images = SyntheticImages.generate(tempDir.resolve("images"), TOTAL_IMAGE_BYTES);
+        Path zip = tempDir.resolve("out").resolve("images.zip");
+        Files.createDirectories(zip.getParent());
+
+        ZipUtil.zipFiles(images, zip);
+
+        try (Stream<Path> outputs = Files.list(zip.getParent())) {
+            assertThat(outputs).containsExactly(zip);
+        }
+        try (ZipFile zipFile = ZipFile.builder().setPath(zip).get()) {
+            List<ZipArchiveEntry> entries = Collections.list(zipFile.getEntries());
+            assertThat(entries).hasSize(images.size());
+            assertThat(entries).allSatisfy(entry -> {
+                assertThat(entry.getMethod()).isEqualTo(ZipArchiveEntry.STORED);
+                assertThat(entry.getSize()).isEqualTo(Files.size(images.getFirst()));
+            });
+        }
+        // STORED 不压缩，包大小约等于图片总量
+        assertThat(Files.size(zip)).isGreaterThan(SyntheticImages.totalSize(images));
+    }
+
+    @Test
+    void duplicateNamesAreRenamedAndMissingFilesSkipped() throws Exception {
+        Path a = Files.createDirectories(tempDir.resolve("a")).resolve("same.png");
+        Path b = Files.createDirectories(tempDir.resolve("b")).resolve("same.png");
+        Files.writeString(a, "a");
+        Files.writeString(b, "b");
+        Path zip = tempDir.resolve("out.zip");
+
+        ZipUtil.zipFiles(List.of(a, b, tempDir.resolve("missing.png")), zip);
+
+        try (ZipFile zipFile = ZipFile.builder().setPath(zip).get()) {
+            List<String> names = new ArrayList<>();
+            zipFile.getEntries().asIterator().forEachRemaining(entry -> names.add(entry.getName()));
+            assertThat(names).containsExactly("same.png", "same_1.png");
+        }
+    }
+
+    @Test
+    void failureLeavesNoPartialFile() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("a.png"), "a");
+        // 目标位置已被目录占用，最后的重命名会失败
+        Path zip = Files.createDirectories(tempDir.resolve("out.zip"));
+        Files.writeString(zip.resolve("keep"), "x");
+
+        assertThatThrownBy(() -> ZipUtil.zipFiles(List.of(file), zip)).isInstanceOf(IOException.class);
+
+        assertThat(tempDir.resolve("out.zip.part")).doesNotExist();
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.winefoxbot.plugins.chat.init;
+
+import com.github.winefoxbot.plugins.chat.config.WineFoxBotChatProperties;
+import com.github.winefoxbot.plugins.chat.init.EmoteVectorStoreLoader.StoredEmote;
+import com.github.winefoxbot.plugins.chat.init.EmoteVectorStoreLoader.SyncPlan;
+import com.github.winefoxbot.plugins.chat.model.dto.EmoteData;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmoteVectorStoreLoaderTest {
+
+    /**
+     * plan 只做比对，不会访问向量库和数据库
+     */
+    private final EmoteVectorStoreLoader loader =
+            new EmoteVectorStoreLoader(null, null, null, new WineFoxBotChatProperties(), null);
+
+    @Test
+    void everythingIsAddedIntoAnEmptyStore() {
+        SyncPlan plan = loader.plan(List.of(emote(1, "开心"), emote(2, "难过")), List.of());
+
+        assertThat(plan.toDelete()).isEmpty();
+        assertThat(plan.toAdd()).extracting(Document::getId)
+                .containsExactly(EmoteVectorStoreLoader.documentId("1"), EmoteVectorStoreLoader.documentId("2"));
+        assertThat(plan.toAdd().getFirst().getMetadata()).containsKeys("id", "path", "hash");
+    }
+
+    @Test
+    void unchangedEmotesProduceAnEmptyPlan() {
+        List<EmoteData> emotes = List.of(emote(1, "开心"), emote(2, "难过"));
+
+        SyncPlan plan = loader.plan(emotes, stored(emotes));
+
+        assertThat(plan.isEmpty()).isTrue();
+    }
+
+    @Test
+    void changedEmoteReplacesItsOldDocument() {
+        List<EmoteData> before = List.of(emote(1, "开心"), emote(2, "难过"));
+        List<StoredEmote> stored = stored(before);
+
+        SyncPlan plan = loader.plan(List.of(emote(1, "开心"), emote(2, "非常难过")), stored);
+
+        assertThat(plan.toAdd()).extracting(Document::getId).containsExactly(EmoteVectorStoreLoader.documentId("2"));
+        assertThat(plan.toAdd().getFirst().getText()).contains("非常难过");
+        assertThat(plan.toDelete()).containsExactly(stored.get(1).documentId());
+    }
+
+    @Test
+    void removedEmotesAreDeleted() {
+        List<StoredEmote> stored = stored(List.of(emote(1, "开心"), emote(2, "难过")));
+
+        SyncPlan plan = loader.plan(List.of(emote(1, "开心")), stored);
+
+        assertThat(plan.toAdd()).isEmpty();
+        assertThat(plan.toDelete()).containsExactly(stored.get(1).documentId());
+    }
+
+    @Test
+    void legacyRowsWithoutHashAreReembedded() {
+        StoredEmote legacy = new StoredEmote("1", "legacy-doc", null);
+
+        SyncPlan plan = loader.plan(List.of(emote(1, "开心")), List.of(legacy));
+
+        assertThat(plan.toAdd()).extracting(Document::getId).containsExactly(EmoteVectorStoreLoader.documentId("1"));
+        assertThat(plan.toDelete()).containsExactly("legacy-doc");
+    }
+
+    @Test
+    void duplicateAndOrphanRowsAreCleanedUp() {
+        List<StoredEmote> stored = new ArrayList<>(stored(List.of(emote(1, "开心"))));
+        stored.add(new StoredEmote("1", "duplicate-doc", stored.getFirst().hash()));
+        stored.add(new StoredEmote(null, "orphan-doc", null));
+
+        SyncPlan plan = loader.plan(List.of(emote(1, "开心")), stored);
+
+        assertThat(plan.toAdd()).isEmpty();
+        assertThat(plan.toDelete()).containsExactlyInAnyOrder("duplicate-doc", "orphan-doc");
+    }
+
+    @Test
+    void duplicateIdsOnDiskAreEmbeddedOnce() {
+        SyncPlan plan = loader.plan(List.of(emote(1, "开心"), emote(1, "重复")), List.of());
+
+        assertThat(plan.toAdd()).hasSize(1);
+        assertThat(plan.toAdd().getFirst().getText()).contains("开心");
+    }
+
+    /**
+     * 模拟上一次同步写入向量库后的状态
+     */
+    private List<StoredEmote> stored(List<EmoteData> emotes) {
+        return loader.plan(emotes, List.of()).toAdd().stream()
+                .map(doc -> new StoredEmote(String.valueOf(doc.getMetadata().get("id")), doc.getId(),
+                        (String) doc.getMetadata().get("hash")))
+                .toList();
+    }
+
+    private static EmoteData emote(int id, String description) {
+        return new EmoteData(id, "test/" + id + ".png", List.of("关键词" + id), description, "意图" + id, "情绪");
+    }
+}
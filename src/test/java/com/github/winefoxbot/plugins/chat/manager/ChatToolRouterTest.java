@@ -0,0 +1,182 @@
+package com.github.winefoxbot.plugins.chat.manager;
+
+import com.github.winefoxbot.core.annotation.plugin.AiToolRoute;
+import com.github.winefoxbot.core.service.plugin.PluginService;
+import com.github.winefoxbot.plugins.chat.config.WineFoxBotChatProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.context.ApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChatToolRouterTest {
+
+    /**
+     * 只用来承载 {@link AiToolRoute} 注解
+     */
+    @SuppressWarnings("unused")
+    static class Routes {
+        @AiToolRoute(keywords = {"Pixiv", "涩图"}, plugin = PixivPluginStub.class)
+        void pixivTool() {
+        }
+
+        @AiToolRoute(keywords = "天气")
+        void weatherTool() {
+        }
+    }
+
+    static class PixivPluginStub {
+    }
+
+    private final ApplicationContext context = mock(ApplicationContext.class);
+    private final PluginService pluginService = mock(PluginService.class);
+    private final WineFoxBotChatProperties properties = new WineFoxBotChatProperties();
+    private final FakeChatModel chatModel = new FakeChatModel();
+    private ChatToolRouter router;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, ToolCallback> callbacks = Map.of(
+                "pixivTool", new StubToolCallback("pixivTool"),
+                "weatherTool", new StubToolCallback("weatherTool"),
+                "helpTool", new StubToolCallback("helpTool"));
+        ToolCallbackResolver resolver = callbacks::get;
+        when(context.findAnnotationOnBean(anyString(), eq(AiToolRoute.class)))
+                .thenAnswer(invocation -> routeOf(invocation.getArgument(0)));
+        when(pluginService.getPluginEnabledStatus(anyString())).thenReturn(true);
+        router = new ChatToolRouter(context, List.of("pixivTool", "weatherTool", "helpTool"),
+                resolver, pluginService, properties);
+    }
+
+    @Test
+    void modelOnlyReceivesMatchedAndAlwaysOnTools() {
+        ask(1L, "来张 pixiv 的图");
+
+        assertThat(chatModel.offeredTools()).containsExactlyInAnyOrder("pixivTool", "helpTool");
+    }
+
+    @Test
+    void recentlyUsedToolStaysAvailableForFollowUps() {
+        List<ToolCallback> first = router.select(1L, "今天天气怎么样");
+        first.stream().filter(c -> c.getToolDefinition().name().equals("weatherTool"))
+                .findFirst().orElseThrow().call("{}");
+
+        ask(1L, "那明天呢");
+        assertThat(chatModel.offeredTools()).containsExactlyInAnyOrder("weatherTool", "helpTool");
+
+        // 其他会话不受影响
+        ask(2L, "那明天呢");
+        assertThat(chatModel.offeredTools()).containsExactly("helpTool");
+    }
+
+    @Test
+    void toolsOfDisabledPluginAreNotOffered() {
+        when(pluginService.getPluginEnabledStatus("PixivPluginStub")).thenReturn(false);
+
+        ask(1L, "涩图");
+
+        assertThat(chatModel.offeredTools()).containsExactly("helpTool");
+    }
+
+    @Test
+    void allToolsAreOfferedWhenRoutingIsDisabled() {
+        properties.setEnableToolRouting(false);
+
+        ask(1L, "你好");
+
+        assertThat(chatModel.offeredTools()).containsExactlyInAnyOrder("pixivTool", "weatherTool", "helpTool");
+    }
+
+    @Test
+    void statsCountToolsAndTurnLatency() {
+        ask(1L, "你好");
+        ask(1L, "pixiv");
+        router.recordLatency(30);
+        router.recordLatency(10);
+
+        ChatToolRouter.RoutingStats stats = router.getStats();
+        assertThat(stats.turns()).isEqualTo(2);
+        assertThat(stats.offeredTools()).isEqualTo(3);
+        assertThat(stats.availableTools()).isEqualTo(6);
+        assertThat(stats.offeredSchemaChars()).isLessThan(stats.availableSchemaChars());
+        assertThat(stats.completedTurns()).isEqualTo(2);
+        assertThat(stats.averageLatencyMillis()).isEqualTo(20);
+        assertThat(stats.maxLatencyMillis()).isEqualTo(30);
+    }
+
+    private void ask(Long sessionId, String text) {
+        ChatClient.builder(chatModel).build()
+                .prompt(text)
+                .toolCallbacks(router.select(sessionId, text))
+                .call()
+                .content();
+    }
+
+    private static AiToolRoute routeOf(String beanName) {
+        try {
+            return Routes.class.getDeclaredMethod(beanName).getAnnotation(AiToolRoute.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 记录每次请求带上的工具，直接返回固定回复
+     */
+    private static final class FakeChatModel implements ChatModel {
+        private final AtomicReference<List<String>> lastTools = new AtomicReference<>(List.of());
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            List<String> names = prompt.getOptions() instanceof ToolCallingChatOptions options
+                    ? options.getToolCallbacks().stream().map(c -> c.getToolDefinition().name()).toList()
+                    : List.of();
+            lastTools.set(names);
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("好的"))));
+        }
+
+        @Override
+        public ChatOptions getDefaultOptions() {
+            return ToolCallingChatOptions.builder().build();
+        }
+
+        List<String> offeredTools() {
+            return lastTools.get();
+        }
+    }
+
+    private record StubToolCallback(String name) implements ToolCallback {
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return ToolDefinition.builder()
+                    .name(name)
+                    .description(name + " 的描述")
+                    .inputSchema("{\"type\":\"object\",\"properties\":{}}")
+                    .build();
+        }
+
+        @Override
+        public String call(String toolInput) {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.winefoxbot.plugins.chat.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.winefoxbot.plugins.chat.config.WineFoxBotChatProperties;
+import com.github.winefoxbot.plugins.chat.event.EmoteVectorsSyncedEvent;
+import com.github.winefoxbot.plugins.chat.model.dto.EmoteResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmoteManagerTest {
+
+    private final HashEmbeddingModel embeddingModel = new HashEmbeddingModel();
+    private final VectorStore vectorStore = mock(VectorStore.class);
+    private final JdbcClient jdbcClient = mock(JdbcClient.class);
+    /**
+     * 模拟 vector_store 表的内容：表情 id -> 描述文本
+     */
+    private final List<Map.Entry<Integer, String>> storedRows = new ArrayList<>();
+    private EmoteManager emoteManager;
+
+    @BeforeEach
+    void setUp() {
+        JdbcClient.StatementSpec statement = mock(JdbcClient.StatementSpec.class);
+        when(jdbcClient.sql(anyString())).thenReturn(statement);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(0);
+            for (Map.Entry<Integer, String> row : storedRows) {
+                handler.processRow(row(row.getKey(), row.getValue()));
+            }
+            return null;
+        }).when(statement).query(any(RowCallbackHandler.class));
+
+        emoteManager = new EmoteManager(vectorStore, embeddingModel, jdbcClient, new ObjectMapper(),
+                new WineFoxBotChatProperties());
+    }
+
+    @Test
+    void fallsBackToTheVectorStoreUntilTheIndexIsLoaded() {
+        Document document = Document.builder()
+                .text("开心大笑")
+                .metadata(Map.of("id", 1L, "path", "emotes/1.png"))
+                .build();
+        when(vectorStore.similaritySearch(any(SearchRequest.class))).thenReturn(List.of(document));
+
+        EmoteResponse response = emoteManager.searchBestMatch("开心");
+
+        assertThat(response.id()).isEqualTo(1);
+        assertThat(response.path()).isEqualTo("emotes/1.png");
+        verify(vectorStore).similaritySearch(any(SearchRequest.class));
+        // 回退查询由向量库自己计算 embedding
+        assertThat(embeddingModel.calls()).isZero();
+    }
+
+    @Test
+    void loadedIndexAnswersWithoutTheVectorStore() {
+        storeEmotes();
+
+        emoteManager.refreshIndex();
+
+        assertThat(emoteManager.searchBestMatch("难过").id()).isEqualTo(2);
+        assertThat(emoteManager.searchBestMatch("生气").path()).isEqualTo("emotes/3.png");
+        verify(vectorStore, never()).similaritySearch(any(SearchRequest.class));
+    }
+
+    @Test
+    void matchesBelowTheThresholdReturnNull() {
+        storeEmotes();
+        emoteManager.refreshIndex();
+
+        assertThat(emoteManager.searchBestMatch("有点难过")).isNull();
+        assertThat(emoteManager.searchBestMatch("天气")).isNull();
+    }
+
+    @Test
+    void repeatedQueriesAreEmbeddedOnce() {
+        storeEmotes();
+        emoteManager.refreshIndex();
+
+        emoteManager.searchBestMatch("难过");
+        emoteManager.searchBestMatch("难过");
+        emoteManager.searchBestMatch("  难过 ");
+
+        assertThat(embeddingModel.calls()).isEqualTo(1);
+        emoteManager.searchBestMatch("开心");
+        assertThat(embeddingModel.calls()).isEqualTo(2);
+    }
+
+    @Test
+    void syncedEventSwapsInANewIndex() {
+        storeEmotes();
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(EmoteManager.class, () -> emoteManager);
+            context.refresh();
+
+            context.publishEvent(new EmoteVectorsSyncedEvent(this, 3, 0));
+            assertThat(emoteManager.searchBestMatch("难过").id()).isEqualTo(2);
+
+            // 同步后“难过”换成了另一张表情
+            storedRows.removeIf(row -> row.getKey() == 2);
+            storedRows.add(Map.entry(4, "难过流泪"));
+            context.publishEvent(new EmoteVectorsSyncedEvent(this, 1, 1));
+
+            assertThat(emoteManager.searchBestMatch("难过").id()).isEqualTo(4);
+        }
+        verify(vectorStore, never()).similaritySearch(any(SearchRequest.class));
+    }
+
+    @Test
+    void failedReloadKeepsThePreviousIndex() {
+        storeEmotes();
+        emoteManager.refreshIndex();
+
+        when(jdbcClient.sql(anyString())).thenThrow(new IllegalStateException("数据库不可用"));
+        emoteManager.refreshIndex();
+
+        assertThat(emoteManager.searchBestMatch("难过").id()).isEqualTo(2);
+    }
+
+    @Test
+    void unparsableRowsAreSkipped() {
+        storeEmotes();
+        emoteManager.refreshIndex();
+        // id 不是数字的一行不影响其他表情
+        storedRows.add(Map.entry(-1, "开心大笑"));
+
+        emoteManager.refreshIndex();
+
+        assertThat(emoteManager.searchBestMatch("开心大笑").id()).isEqualTo(1);
+    }
+
+    private void storeEmotes() {
+        storedRows.add(Map.entry(1, "开心大笑"));
+        storedRows.add(Map.entry(2, "难过哭泣"));
+        storedRows.add(Map.entry(3, "生气愤怒"));
+    }
+
+    private static ResultSet row(int id, String text) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        String metadata = id < 0
+                ? "{\"id\":\"bad\",\"path\":\"emotes/bad.png\"}"
+                : "{\"id\":" + id + ",\"path\":\"emotes/" + id + ".png\",\"hash\":\"h" + id + "\"}";
+        when(rs.getString("embedding")).thenReturn(HashEmbeddingModel.pgvectorText(text));
+        when(rs.getString("metadata")).thenReturn(metadata);
+        return rs;
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.winefoxbot.plugins.chat.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.github.winefoxbot.plugins.chat.manager.HashEmbeddingModel.vectorOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class EmoteVectorIndexTest {
+
+    private static final double THRESHOLD = 0.65;
+
+    private final EmoteVectorIndex index = new EmoteVectorIndex(List.of(
+            entry(1, "开心大笑"),
+            entry(2, "难过哭泣"),
+            entry(3, "生气愤怒")));
+
+    @Test
+    void returnsTheMostSimilarEmote() {
+        EmoteVectorIndex.Match match = index.searchBest(vectorOf("难过"), THRESHOLD);
+
+        assertThat(match.id()).isEqualTo(2);
+        assertThat(match.path()).isEqualTo("emotes/2.png");
+        // 共享两个字：2 / (2 * √2)
+        assertThat(match.score()).isCloseTo(1 / Math.sqrt(2), within(1e-6));
+    }
+
+    @Test
+    void identicalTextScoresOne() {
+        assertThat(index.searchBest(vectorOf("生气愤怒"), THRESHOLD).score()).isCloseTo(1.0, within(1e-6));
+    }
+
+    @Test
+    void queryVectorDoesNotNeedToBeNormalized() {
+        float[] scaled = vectorOf("开心大笑");
+        for (int i = 0; i < scaled.length; i++) {
+            scaled[i] *= 7;
+        }
+
+        assertThat(index.searchBest(scaled, THRESHOLD).id()).isEqualTo(1);
+    }
+
+    @Test
+    void matchesBelowTheThresholdAreIgnored() {
+        // 与“难过哭泣”只共享一半的字，相似度 0.5
+        assertThat(index.searchBest(vectorOf("有点难过"), THRESHOLD)).isNull();
+        assertThat(index.searchBest(vectorOf("难过"), 0.8)).isNull();
+        assertThat(index.searchBest(vectorOf("天气"), THRESHOLD)).isNull();
+    }
+
+    @Test
+    void mismatchedDimensionsAndEmptyIndexReturnNothing() {
+        assertThat(index.searchBest(new float[8], THRESHOLD)).isNull();
+        assertThat(new EmoteVectorIndex(List.of()).searchBest(vectorOf("开心"), THRESHOLD)).isNull();
+        assertThat(new EmoteVectorIndex(List.of()).dimensions()).isZero();
+    }
+
+    @Test
+    void entriesMustShareOneDimension() {
+        List<EmoteVectorIndex.Entry> entries = List.of(
+                entry(1, "开心"),
+                new EmoteVectorIndex.Entry(2, "emotes/2.png", new float[8]));
+
+        assertThatThrownBy(() -> new EmoteVectorIndex(entries)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static EmoteVectorIndex.Entry entry(int id, String text) {
+        return new EmoteVectorIndex.Entry(id, "emotes/" + id + ".png", vectorOf(text));
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.winefoxbot.plugins.chat.manager;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 确定性的本地 embedding 模型：每个字符按码点落到一个维度上计数
+ * <p>
+ * 共享字符越多余弦相似度越高；测试用到的汉字码点对 {@link #DIMENSIONS} 取模后互不冲突。
+ */
+final class HashEmbeddingModel implements EmbeddingModel {
+
+    static final int DIMENSIONS = 256;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    static float[] vectorOf(String text) {
+        float[] vector = new float[DIMENSIONS];
+        text.codePoints()
+                .filter(cp -> !Character.isWhitespace(cp))
+                .forEach(cp -> vector[cp % DIMENSIONS] += 1);
+        return vector;
+    }
+
+    /**
+     * pgvector 的文本形式
+     */
+    static String pgvectorText(String text) {
+        float[] vector = vectorOf(text);
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < vector.length; i++) {
+            sb.append(i == 0 ? "" : ",").append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    int calls() {
+        return calls.get();
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        calls.incrementAndGet();
+        List<Embedding> embeddings = new ArrayList<>();
+        List<String> instructions = request.getInstructions();
+        for (int i = 0; i < instructions.size(); i++) {
+            embeddings.add(new Embedding(vectorOf(instructions.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        calls.incrementAndGet();
+        return vectorOf(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return DIMENSIONS;
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.winefoxbot.plugins.dailyreport.source;
+
+import com.github.winefoxbot.core.utils.SingleFlight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportSourceCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final Duration RETRY_INTERVAL = Duration.ofMinutes(1);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ReportSourceCache cache = new ReportSourceCache(new SingleFlight<>("report-test"), executor, RETRY_INTERVAL, clock);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void freshValueIsServedWithoutFetchingAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        ReportSource<String> source = source("hitokoto", Duration.ofSeconds(1), () -> "v" + calls.incrementAndGet());
+
+        assertThat(cache.get(source).join()).isEqualTo(new ReportSourceCache.Value<>("v1", 1));
+        clock.advance(TTL.minusSeconds(1));
+        assertThat(cache.get(source).join()).isEqualTo(new ReportSourceCache.Value<>("v1", 1));
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void staleValueIsReturnedImmediatelyWhileOneRefreshRunsInTheBackground() throws Exception {
+        AtomicReference<String> next = new AtomicReference<>("old");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ReportSource<String> source = source("news", Duration.ofSeconds(1), () -> {
+            if (calls.incrementAndGet() > 1) {
+                release.await();
+            }
+            return next.get();
+        });
+        cache.get(source).join();
+
+        clock.advance(TTL.plusSeconds(1));
+        next.set("new");
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<ReportSourceCache.Value<String>> stale = cache.get(source);
+            // 过期后不等待刷新
+            assertThat(stale).isCompletedWithValue(new ReportSourceCache.Value<>("old", 1));
+        }
+        release.countDown();
+
+        waitUntil(() -> cache.get(source).join().version() == 2);
+        assertThat(cache.get(source).join()).isEqualTo(new ReportSourceCache.Value<>("new", 2));
+        // 多次过期读取只触发了一次刷新
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void firstReadWaitsAtMostTheDeadlineAndReturnsTheEmptyValue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ReportSource<String> source = source("anime", Duration.ofMillis(100), () -> {
+            release.await();
+            return "slow";
+        });
+
+        long start = System.nanoTime();
+        ReportSourceCache.Value<String> value = cache.get(source).get(5, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(value).isEqualTo(new ReportSourceCache.Value<>("empty", 0));
+        assertThat(elapsedMillis).isBetween(90L, 2_000L);
+
+        // 刷新在后台继续，完成后可以读到
+        release.countDown();
+        waitUntil(() -> cache.get(source).join().version() == 1);
+        assertThat(cache.get(source).join().value()).isEqualTo("slow");
+    }
+
+    @Test
+    void failureKeepsTheOldValueAndBacksOffForTheRetryInterval() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<Boolean> failing = new AtomicReference<>(false);
+        ReportSource<String> source = source("bili", Duration.ofSeconds(1), () -> {
+            calls.incrementAndGet();
+            if (failing.get()) {
+                throw new IllegalStateException("接口不可用");
+            }
+            return "ok";
+        });
+        cache.get(source).join();
+
+        clock.advance(TTL.plusSeconds(1));
+        failing.set(true);
+        assertThat(cache.refresh(source).join()).isEqualTo(new ReportSourceCache.Value<>("ok", 1));
+        assertThat(calls).hasValue(2);
+
+        // 重试间隔内不再请求
+        clock.advance(RETRY_INTERVAL.minusSeconds(1));
+        assertThat(cache.get(source).join()).isEqualTo(new ReportSourceCache.Value<>("ok", 1));
+        assertThat(calls).hasValue(2);
+
+        clock.advance(Duration.ofSeconds(2));
+        failing.set(false);
+        cache.get(source);
+        waitUntil(() -> calls.get() == 3);
+    }
+
+    @Test
+    void firstFailureReturnsTheEmptyValue() {
+        ReportSource<String> source = source("it-news", Duration.ofSeconds(1), () -> {
+            throw new IllegalStateException("接口不可用");
+        });
+
+        assertThat(cache.get(source).join()).isEqualTo(new ReportSourceCache.Value<>("empty", 0));
+    }
+
+    @Test
+    void versionOnlyChangesWhenTheDataChanges() {
+        AtomicReference<String> next = new AtomicReference<>("same");
+        ReportSource<String> source = source("hotword", Duration.ofSeconds(1), next::get);
+        cache.get(source).join();
+
+        clock.advance(TTL.plusSeconds(1));
+        assertThat(cache.refresh(source).join().version()).isEqualTo(1);
+
+        next.set("changed");
+        clock.advance(TTL.plusSeconds(1));
+        assertThat(cache.refresh(source).join()).isEqualTo(new ReportSourceCache.Value<>("changed", 2));
+    }
+
+    private static ReportSource<String> source(String name, Duration deadline, Callable<String> fetcher) {
+        return new ReportSource<>(name, TTL, deadline, fetcher, "empty");
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("等待超时").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private final AtomicReference<Instant> now;
+
+        private MutableClock(Instant start) {
+            this.now = new AtomicReference<>(start);
+        }
+
+        void advance(Duration duration) {
+            now.updateAndGet(instant -> instant.plus(duration));
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now.get();
+        }
+    }
+}
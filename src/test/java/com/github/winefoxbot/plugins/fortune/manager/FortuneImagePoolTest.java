@@ -0,0 +1,191 @@
+package com.github.winefoxbot.plugins.fortune.manager;
+
+import com.github.winefoxbot.plugins.fortune.config.FortuneApiConfig;
+import com.github.winefoxbot.plugins.fortune.service.impl.FortuneImageServiceImpl;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 用本地桩服务代替外部图片接口：/api 返回 JSON 形式的图片地址，/img/* 返回图片
+ */
+class FortuneImagePoolTest {
+
+    private static final int POOL_SIZE = 4;
+
+    private final MockWebServer server = new MockWebServer();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final FortuneApiConfig apiConfig = new FortuneApiConfig();
+    private final ConcurrentLinkedQueue<String> requestedTags = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger imageCounter = new AtomicInteger();
+    private volatile StubMode mode = StubMode.OK;
+    private FortuneImagePool pool;
+
+    private enum StubMode {
+        OK, API_ERROR, NOT_AN_IMAGE
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        byte[] png = png();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getRequestUrl().encodedPath();
+                if (path.equals("/api")) {
+                    requestedTags.add(String.valueOf(request.getRequestUrl().queryParameter("tag")));
+                    if (mode == StubMode.API_ERROR) {
+                        return new MockResponse().setResponseCode(500);
+                    }
+                    String url = server.url("/img/" + imageCounter.incrementAndGet() + ".png").toString();
+                    return new MockResponse().setHeader("Content-Type", "application/json")
+                            .setBody("{\"data\":[{\"url\":\"" + url + "\"}]}");
+                }
+                if (path.startsWith("/img/")) {
+                    if (mode == StubMode.NOT_AN_IMAGE) {
+                        return new MockResponse().setHeader("Content-Type", "text/html").setBody("<html>blocked</html>");
+                    }
+                    return new MockResponse().setHeader("Content-Type", "image/png").setBody(new Buffer().write(png));
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        server.start();
+
+        FortuneApiConfig.ParamItem r18 = new FortuneApiConfig.ParamItem();
+        r18.setKey("r18");
+        r18.setValue("0");
+        apiConfig.setApi("custom");
+        apiConfig.getCustomApi().setUrl(server.url("/api").toString());
+        apiConfig.getCustomApi().setJsonPath("$.data[0].url");
+        apiConfig.getCustomApi().getParams().setStaticParams(List.of(r18));
+        apiConfig.getPrefetch().setPoolSize(POOL_SIZE);
+        apiConfig.getPrefetch().setFillRatePerSecond(1000);
+
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .callTimeout(5, TimeUnit.SECONDS)
+                .build();
+        pool = new FortuneImagePool(apiConfig, new FortuneImageServiceImpl(apiConfig, httpClient), executor);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    void backgroundFillServesImagesWithoutCallingTheApiOnTake() throws Exception {
+        pool.scheduledFill();
+        waitUntil(() -> pool.getStats().size() == POOL_SIZE);
+        int requestsBeforeTake = server.getRequestCount();
+
+        byte[] image = pool.take("ブルーアーカイブ");
+
+        assertThat(image).isNotNull();
+        assertThat(ImageIO.read(new ByteArrayInputStream(image))).isNotNull();
+        assertThat(pool.getStats().hits()).isEqualTo(1);
+        assertThat(requestedTags).containsOnly("ブルーアーカイブ");
+        // 取走的一张由后台补回：一次接口请求加一次下载
+        waitUntilRefilled();
+        assertThat(server.getRequestCount()).isEqualTo(requestsBeforeTake + 2);
+    }
+
+    @Test
+    void emptyPoolIsAMissAndTheFillerStopsAfterRepeatedFailures() throws Exception {
+        mode = StubMode.API_ERROR;
+
+        assertThat(pool.take("ブルーアーカイブ")).isNull();
+
+        waitUntil(() -> pool.getStats().fetchFailures() == 3);
+        // 连续失败三次后本轮结束，不会一直请求
+        Thread.sleep(200);
+        assertThat(server.getRequestCount()).isEqualTo(3);
+        FortuneImagePool.Stats stats = pool.getStats();
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.size()).isZero();
+    }
+
+    @Test
+    void payloadsThatAreNotImagesAreRejected() throws Exception {
+        mode = StubMode.NOT_AN_IMAGE;
+
+        pool.scheduledFill();
+
+        waitUntil(() -> pool.getStats().fetchFailures() == 3);
+        assertThat(pool.getStats().size()).isZero();
+    }
+
+    @Test
+    void imagesForAnOldTagAreDiscardedAfterTheTagChanges() throws Exception {
+        pool.scheduledFill();
+        waitUntil(() -> pool.getStats().size() == POOL_SIZE);
+
+        assertThat(pool.take("hololive")).isNull();
+
+        FortuneImagePool.Stats stats = pool.getStats();
+        assertThat(stats.discarded()).isEqualTo(POOL_SIZE);
+        assertThat(stats.misses()).isEqualTo(1);
+        // 之后按新标签补充
+        waitUntilRefilled();
+        assertThat(pool.take("hololive")).isNotNull();
+        assertThat(requestedTags).contains("hololive");
+    }
+
+    @Test
+    void disabledPrefetchNeverTouchesTheApi() {
+        apiConfig.getPrefetch().setEnabled(false);
+
+        assertThat(pool.take("ブルーアーカイブ")).isNull();
+        pool.scheduledFill();
+
+        assertThat(server.getRequestCount()).isZero();
+        assertThat(pool.getStats().misses()).isZero();
+    }
+
+    private static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 取出后会立即触发补充，但上一轮补充可能还没来得及退出；这里和定时任务一样反复触发
+     */
+    private void waitUntilRefilled() throws InterruptedException {
+        waitUntil(() -> {
+            pool.scheduledFill();
+            return pool.getStats().size() == POOL_SIZE;
+        });
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("等待超时").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.winefoxbot.plugins.pixiv.service.impl;
+
+import com.github.winefoxbot.plugins.pixiv.config.PixivProperties;
+import com.github.winefoxbot.plugins.pixiv.model.dto.ugoira.UgoiraMeta;
+import com.github.winefoxbot.plugins.pixiv.service.UgoiraEncodeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UgoiraEncodeServiceImplTest {
+
+    private static final String FORMAT = "javax_imageio_gif_image_1.0";
+
+    private final PixivProperties.UgoiraProperties properties = new PixivProperties.UgoiraProperties();
+    private final UgoiraEncodeServiceImpl service;
+
+    @TempDir
+    Path dir;
+
+    UgoiraEncodeServiceImplTest() {
+        properties.setEncoderThreads(1);
+        properties.setDefaultFrameDelay(70);
+        service = new UgoiraEncodeServiceImpl(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdownExecutor();
+    }
+
+    @Test
+    void encodeGifWritesEveryFrameWithItsDelay() throws Exception {
+        byte[] zip = ugoiraZip(Color.RED, Color.GREEN, Color.BLUE);
+        // 第三帧不在元数据中，使用配置的默认值 70ms
+        UgoiraMeta meta = new UgoiraMeta("https://example.invalid/ugoira.zip", List.of(
+                new UgoiraMeta.Frame("000000.jpg", 40),
+                new UgoiraMeta.Frame("000001.jpg", 120)));
+        boolean[] closed = {false};
+        FilterInputStream zipStream = new FilterInputStream(new ByteArrayInputStream(zip)) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        Path target = dir.resolve("ugoira.gif");
+        service.encodeGif(zipStream, meta, target);
+
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+        try (ImageInputStream iis = ImageIO.createImageInputStream(target.toFile())) {
+            reader.setInput(iis);
+            // 目录和无法解码的条目被跳过
+            assertThat(reader.getNumImages(true)).isEqualTo(3);
+            assertThat(delayOf(reader.getImageMetadata(0))).isEqualTo("4");
+            assertThat(delayOf(reader.getImageMetadata(1))).isEqualTo("12");
+            assertThat(delayOf(reader.getImageMetadata(2))).isEqualTo("7");
+            assertColor(reader.read(0).getRGB(5, 5), Color.RED);
+            assertColor(reader.read(1).getRGB(5, 5), Color.GREEN);
+            assertColor(reader.read(2).getRGB(5, 5), Color.BLUE);
+        } finally {
+            reader.dispose();
+        }
+        assertThat(closed[0]).isFalse();
+        assertThat(service.getStats()).isEqualTo(new UgoiraEncodeService.EncodeStats(1, 3, service.getStats().totalMillis(), 0));
+    }
+
+    @Test
+    void encodeGifWithoutDecodableFramesFailsAndRemovesTheOutput() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            zos.putNextEntry(new ZipEntry("000000.jpg"));
+            zos.write("不是图片".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+
+        Path target = dir.resolve("empty.gif");
+        assertThatThrownBy(() -> service.encodeGif(new ByteArrayInputStream(bytes.toByteArray()),
+                new UgoiraMeta(null, null), target))
+                .isInstanceOf(IOException.class);
+        assertThat(target).doesNotExist();
+        assertThat(service.getStats().encoded()).isZero();
+    }
+
+    @Test
+    void rescaleGifCompositesPartialFramesOntoTheCanvas() throws Exception {
+        Path source = dir.resolve("optimised.gif");
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(source.toFile())) {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+            writer.setOutput(ios);
+            writer.prepareWriteSequence(null);
+            // 第一帧为 20x20 的红色整帧，第二帧只有右下角 10x10 的蓝色区域
+            writeFrame(writer, filled(20, 20, Color.RED), 0, 0, 5);
+            writeFrame(writer, filled(10, 10, Color.BLUE), 10, 10, 0);
+            writer.endWriteSequence();
+            writer.dispose();
+        }
+
+        Path target = dir.resolve("scaled.gif");
+        service.rescaleGif(source, target, 1.0);
+
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+        try (ImageInputStream iis = ImageIO.createImageInputStream(target.toFile())) {
+            reader.setInput(iis);
+            assertThat(reader.getNumImages(true)).isEqualTo(2);
+
+            BufferedImage second = reader.read(1);
+            assertThat(second.getWidth()).isEqualTo(20);
+            assertThat(second.getHeight()).isEqualTo(20);
+            // 第二帧之外的区域保留第一帧的红色，而不是被拉伸的蓝色
+            assertColor(second.getRGB(2, 2), Color.RED);
+            assertColor(second.getRGB(15, 15), Color.BLUE);
+
+            assertThat(delayOf(reader.getImageMetadata(0))).isEqualTo("5");
+            // 没有设置延迟的帧使用配置的默认值 70ms
+            assertThat(delayOf(reader.getImageMetadata(1))).isEqualTo("7");
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * 与 Pixiv 下载的压缩包结构一致：按顺序编号的 JPEG 帧，另外夹杂一个目录和一个非图片条目
+     */
+    private static byte[] ugoiraZip(Color... colors) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            zos.putNextEntry(new ZipEntry("meta/"));
+            zos.closeEntry();
+            for (int i = 0; i < colors.length; i++) {
+                zos.putNextEntry(new ZipEntry("%06d.jpg".formatted(i)));
+                ImageIO.write(filled(20, 20, colors[i]), "jpg", zos);
+                zos.closeEntry();
+                if (i == 0) {
+                    zos.putNextEntry(new ZipEntry("readme.txt"));
+                    zos.write("ugoira".getBytes(StandardCharsets.UTF_8));
+                    zos.closeEntry();
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static BufferedImage filled(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    private static void writeFrame(ImageWriter writer, BufferedImage frame, int left, int top, int delayTime) throws Exception {
+        IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(frame), null);
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(FORMAT);
+        IIOMetadataNode descriptor = child(root, "ImageDescriptor");
+        descriptor.setAttribute("imageLeftPosition", Integer.toString(left));
+        descriptor.setAttribute("imageTopPosition", Integer.toString(top));
+        descriptor.setAttribute("imageWidth", Integer.toString(frame.getWidth()));
+        descriptor.setAttribute("imageHeight", Integer.toString(frame.getHeight()));
+        descriptor.setAttribute("interlaceFlag", "FALSE");
+        IIOMetadataNode gce = child(root, "GraphicControlExtension");
+        gce.setAttribute("disposalMethod", "doNotDispose");
+        gce.setAttribute("userInputFlag", "FALSE");
+        gce.setAttribute("transparentColorFlag", "FALSE");
+        gce.setAttribute("transparentColorIndex", "0");
+        gce.setAttribute("delayTime", Integer.toString(delayTime));
+        metadata.setFromTree(FORMAT, root);
+        writer.writeToSequence(new IIOImage(frame, null, metadata), null);
+    }
+
+    private static String delayOf(IIOMetadata metadata) {
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(FORMAT);
+        return child(root, "GraphicControlExtension").getAttribute("delayTime");
+    }
+
+    private static IIOMetadataNode child(IIOMetadataNode root, String name) {
+        for (int i = 0; i < root.getLength(); i++) {
+            if (root.item(i).getNodeName().equals(name)) {
+                return (IIOMetadataNode) root.item(i);
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        root.appendChild(node);
+        return node;
+    }
+
+    private static void assertColor(int rgb, Color expected) {
+        Color actual = new Color(rgb);
+        assertThat(Math.abs(actual.getRed() - expected.getRed())).isLessThan(40);
+        assertThat(Math.abs(actual.getGreen() - expected.getGreen())).isLessThan(40);
+        assertThat(Math.abs(actual.getBlue() - expected.getBlue())).isLessThan(40);
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.winefoxbot.plugins.repeater;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 改为 {@code RepeatState} 和 {@code RepeatMessageHasher} 之前的复读计数实现，原样保留用于对照和基准测试：
+ * 每条消息用正则 + StringBuffer 预处理，三张永不清理的 ConcurrentHashMap 分别保存预处理后的消息、次数和发送者
+ */
+public final class LegacyRepeater {
+
+    private static final int SHORTEST_LENGTH = 1;
+    private static final int SHORTEST_TIMES = 4;
+    private static final String[] BLACKLIST = {"黑名单消息1", "黑名单消息2"};
+    private static final Pattern IMAGE_PATTERN = Pattern.compile("\\[CQ:image.*?file=(.*?).jpg.*?url=(.*?)\\]");
+
+    private final Map<Long, String> lastMessage = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> messageTimes = new ConcurrentHashMap<>();
+    private final Map<Long, Long> lastSenderId = new ConcurrentHashMap<>();
+
+    /**
+     * @return 达到复读次数时返回 true
+     */
+    public boolean recordMessage(long groupId, Long currentSenderId, String rawMessage) {
+        if (rawMessage.startsWith("/")) {
+            resetCounter(groupId);
+            return false;
+        }
+        for (String blocked : BLACKLIST) {
+            if (rawMessage.equals(blocked)) {
+                resetCounter(groupId);
+                return false;
+            }
+        }
+        if (rawMessage.length() < SHORTEST_LENGTH) {
+            resetCounter(groupId);
+            return false;
+        }
+
+        String processedMessage = preprocessMessage(rawMessage);
+        String prevMessage = lastMessage.get(groupId);
+        Long prevSenderId = lastSenderId.get(groupId);
+        if (processedMessage.equals(prevMessage)) {
+            if (prevSenderId != null && !currentSenderId.equals(prevSenderId)) {
+                int newTimes = messageTimes.getOrDefault(groupId, 1) + 1;
+                messageTimes.put(groupId, newTimes);
+                if (newTimes == SHORTEST_TIMES) {
+                    resetCounter(groupId);
+                    return true;
+                }
+            }
+        } else {
+            messageTimes.put(groupId, 1);
+        }
+        lastMessage.put(groupId, processedMessage);
+        lastSenderId.put(groupId, currentSenderId);
+        return false;
+    }
+
+    /**
+     * 消息预处理，把图片 CQ 码统一成 [image_id:file]
+     */
+    public static String preprocessMessage(String message) {
+        Matcher matcher = IMAGE_PATTERN.matcher(message);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            String fileId = matcher.group(1);
+            matcher.appendReplacement(sb, "[image_id:" + fileId + "]");
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private void resetCounter(long groupId) {
+        lastMessage.remove(groupId);
+        messageTimes.remove(groupId);
+        lastSenderId.remove(groupId);
+    }
+}
@@ -0,0 +1,236 @@
+package com.github.winefoxbot.plugins.repeater;
+
+import com.github.winefoxbot.core.manager.ExpiringStateRegistry;
+import com.github.winefoxbot.plugins.repeater.utils.RepeatMessageHasher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepeaterPluginTest {
+
+    private static final long GROUP = 10001L;
+    private static final long START = 1_700_000_000_000L;
+
+    private RepeaterPlugin plugin;
+
+    @BeforeEach
+    void setUp() {
+        plugin = newPlugin();
+    }
+
+    @Test
+    void fourthMessageFromDifferentSendersTriggersOnce() {
+        assertThat(plugin.recordMessage(GROUP, 1, "草", START)).isFalse();
+        assertThat(plugin.recordMessage(GROUP, 2, "草", START)).isFalse();
+        assertThat(plugin.recordMessage(GROUP, 3, "草", START)).isFalse();
+        assertThat(plugin.recordMessage(GROUP, 4, "草", START)).isTrue();
+        // 触发后重新计数
+        assertThat(plugin.recordMessage(GROUP, 5, "草", START)).isFalse();
+    }
+
+    @Test
+    void sameSenderRepeatingDoesNotCount() {
+        plugin.recordMessage(GROUP, 1, "草", START);
+        plugin.recordMessage(GROUP, 1, "草", START);
+        plugin.recordMessage(GROUP, 2, "草", START);
+        plugin.recordMessage(GROUP, 2, "草", START);
+
+        assertThat(plugin.recordMessage(GROUP, 3, "草", START)).isFalse();
+        assertThat(plugin.recordMessage(GROUP, 4, "草", START)).isTrue();
+    }
+
+    @Test
+    void commandsAndDifferentMessagesBreakTheChain() {
+        plugin.recordMessage(GROUP, 1, "草", START);
+        plugin.recordMessage(GROUP, 2, "草", START);
+        plugin.recordMessage(GROUP, 3, "/帮助", START);
+        plugin.recordMessage(GROUP, 4, "草", START);
+        plugin.recordMessage(GROUP, 5, "艹", START);
+        plugin.recordMessage(GROUP, 6, "草", START);
+        plugin.recordMessage(GROUP, 7, "草", START);
+
+        assertThat(plugin.recordMessage(GROUP, 8, "草", START)).isFalse();
+        assertThat(plugin.recordMessage(GROUP, 9, "草", START)).isTrue();
+    }
+
+    @Test
+    void chainOlderThanTheIdleWindowStartsOver() {
+        plugin.recordMessage(GROUP, 1, "草", START);
+        plugin.recordMessage(GROUP, 2, "草", START);
+        plugin.recordMessage(GROUP, 3, "草", START);
+
+        long later = START + TimeUnit.MINUTES.toMillis(11);
+        assertThat(plugin.recordMessage(GROUP, 4, "草", later)).isFalse();
+    }
+
+    @Test
+    void groupsAreCountedIndependently() {
+        for (long sender = 1; sender <= 3; sender++) {
+            plugin.recordMessage(GROUP, sender, "草", START);
+            plugin.recordMessage(GROUP + 1, sender, "草", START);
+        }
+
+        assertThat(plugin.recordMessage(GROUP, 4, "草", START)).isTrue();
+        assertThat(plugin.recordMessage(GROUP + 1, 4, "草", START)).isTrue();
+    }
+
+    @Test
+    void sameImageSentWithDifferentUrlsIsRepeated() {
+        for (int sender = 1; sender <= 3; sender++) {
+            plugin.recordMessage(GROUP, sender, image("ABCDEF", sender), START);
+        }
+
+        assertThat(plugin.recordMessage(GROUP, 4, image("ABCDEF", 4), START)).isTrue();
+    }
+
+    @Test
+    void triggersExactlyWhereTheLegacyImplementationDid() {
+        Traffic traffic = Traffic.synthetic(50_000, 7);
+
+        List<Integer> legacy = replayLegacy(traffic);
+        List<Integer> current = replay(traffic);
+
+        assertThat(legacy).hasSizeGreaterThan(100);
+        assertThat(current).isEqualTo(legacy);
+    }
+
+    /**
+     * 在同一份合成群消息流上对比新旧实现，中位数避免偶发的 GC 和调度抖动
+     */
+    @Test
+    void hashingAndStateUpdatesAreFasterThanTheRegexAndThreeMaps() {
+        Traffic traffic = Traffic.synthetic(50_000, 11);
+
+        long legacyNormalize = medianNanos(() -> {
+            long sink = 0;
+            for (String message : traffic.messages) {
+                sink += LegacyRepeater.preprocessMessage(message).hashCode();
+            }
+            return sink;
+        });
+        long hasherNormalize = medianNanos(() -> {
+            long sink = 0;
+            for (String message : traffic.messages) {
+                sink += RepeatMessageHasher.hash(message);
+            }
+            return sink;
+        });
+        long legacyReplay = medianNanos(() -> replayLegacy(traffic).size());
+        long currentReplay = medianNanos(() -> replay(traffic).size());
+
+        assertThat(hasherNormalize)
+                .as("归一化耗时中位数(ms): 正则 %.1f, 指纹 %.1f", legacyNormalize / 1e6, hasherNormalize / 1e6)
+                .isLessThan(legacyNormalize);
+        assertThat(currentReplay)
+                .as("整条消息流耗时中位数(ms): 三张 Map %.1f, RepeatState %.1f", legacyReplay / 1e6, currentReplay / 1e6)
+                .isLessThan(legacyReplay);
+    }
+
+    private static List<Integer> replayLegacy(Traffic traffic) {
+        LegacyRepeater legacy = new LegacyRepeater();
+        List<Integer> triggered = new ArrayList<>();
+        for (int i = 0; i < traffic.messages.length; i++) {
+            if (legacy.recordMessage(traffic.groups[i], traffic.senders[i], traffic.messages[i])) {
+                triggered.add(i);
+            }
+        }
+        return triggered;
+    }
+
+    private static List<Integer> replay(Traffic traffic) {
+        RepeaterPlugin plugin = newPlugin();
+        List<Integer> triggered = new ArrayList<>();
+        for (int i = 0; i < traffic.messages.length; i++) {
+            if (plugin.recordMessage(traffic.groups[i], traffic.senders[i], traffic.messages[i], START + i * 100L)) {
+                triggered.add(i);
+            }
+        }
+        return triggered;
+    }
+
+    private static RepeaterPlugin newPlugin() {
+        RepeaterPlugin plugin = new RepeaterPlugin(new ExpiringStateRegistry());
+        plugin.initStates();
+        return plugin;
+    }
+
+    private static long medianNanos(LongSupplier run) {
+        long sink = 0;
+        // 预热
+        for (int i = 0; i < 5; i++) {
+            sink += run.getAsLong();
+        }
+        long[] nanos = new long[15];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            sink += run.getAsLong();
+            nanos[i] = System.nanoTime() - start;
+        }
+        assertThat(sink).isNotZero();
+        Arrays.sort(nanos);
+        return nanos[nanos.length / 2];
+    }
+
+    private static String image(String file, int send) {
+        return "[CQ:image,file=" + file + ".jpg,sub_type=0,url=https://multimedia.nt.qq.com.cn/download?fileid="
+                + file + "&rkey=" + send + "]";
+    }
+
+    /**
+     * 合成的群消息流：几十个群、短文本为主，夹杂带长 url 的图片消息和一段段复读
+     */
+    private record Traffic(long[] groups, long[] senders, String[] messages) {
+
+        private static final String[] TEXTS = {
+                "草", "哈哈哈哈", "确实", "+1", "？", "6", "典", "好耶", "[CQ:face,id=178]", "/签到",
+                "今天的活动有人打吗，我这边还差两个人，晚上八点开，来的扣1",
+                "[CQ:reply,id=123456][CQ:at,qq=10001] 你说得对，但是这个版本的平衡性确实有点问题"
+        };
+
+        static Traffic synthetic(int size, long seed) {
+            Random random = new Random(seed);
+            String[] files = new String[8];
+            for (int i = 0; i < files.length; i++) {
+                files[i] = Long.toHexString(random.nextLong()).toUpperCase() + Long.toHexString(random.nextLong()).toUpperCase();
+            }
+            long[] groups = new long[size];
+            long[] senders = new long[size];
+            String[] messages = new String[size];
+            int i = 0;
+            while (i < size) {
+                long group = 10000 + random.nextInt(48);
+                boolean chain = random.nextInt(100) < 15;
+                int count = chain ? 2 + random.nextInt(5) : 1;
+                boolean isImage = random.nextInt(100) < 30;
+                String file = files[random.nextInt(files.length)];
+                String text = TEXTS[random.nextInt(TEXTS.length)];
+                for (int n = 0; n < count && i < size; n++, i++) {
+                    groups[i] = group;
+                    senders[i] = 1 + random.nextInt(20);
+                    messages[i] = isImage ? imageWithRandomUrl(file, random) : text;
+                }
+            }
+            return new Traffic(groups, senders, messages);
+        }
+
+        private static String imageWithRandomUrl(String file, Random random) {
+            StringBuilder url = new StringBuilder("https://multimedia.nt.qq.com.cn/download?appid=1407&fileid=");
+            for (int n = 0; n < 120; n++) {
+                url.append((char) ('a' + random.nextInt(26)));
+            }
+            url.append("&rkey=");
+            for (int n = 0; n < 60; n++) {
+                url.append((char) ('A' + random.nextInt(26)));
+            }
+            return "[CQ:image,file=" + file + ".jpg,sub_type=0,url=" + url + "]";
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.winefoxbot.plugins.repeater.utils;
+
+import com.github.winefoxbot.plugins.repeater.LegacyRepeater;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对照旧的正则预处理：旧实现能正确归一化的消息，两者判定相同与否的结果一致；
+ * 其余用例记录有意改变的行为
+ */
+class RepeatMessageHasherTest {
+
+    private static final String FILE = "3A1B6C2D9E8F7A6B5C4D3E2F1A0B9C8D";
+
+    @Test
+    void plainTextIsComparedAsIs() {
+        assertSameAsLegacy("草", "草", true);
+        assertSameAsLegacy("草", "艹", false);
+        assertSameAsLegacy("哈哈哈", "哈哈哈哈", false);
+        assertSameAsLegacy("[CQ:face,id=178]", "[CQ:face,id=178]", true);
+        assertSameAsLegacy("[CQ:face,id=178]", "[CQ:face,id=179]", false);
+    }
+
+    @Test
+    void sameImageWithDifferentUrlMatches() {
+        assertSameAsLegacy(image(FILE + ".jpg", "https://a/1"), image(FILE + ".jpg", "https://a/2"), true);
+    }
+
+    @Test
+    void differentImagesDiffer() {
+        assertSameAsLegacy(image(FILE + ".jpg", "https://a/1"), image("FFFF.jpg", "https://a/1"), false);
+    }
+
+    @Test
+    void textAroundTheImageStillCounts() {
+        String img1 = image(FILE + ".jpg", "https://a/1");
+        String img2 = image(FILE + ".jpg", "https://a/2");
+
+        assertSameAsLegacy("看" + img1, "看" + img2, true);
+        assertSameAsLegacy("看" + img1, img2 + "看", false);
+        assertSameAsLegacy(img1 + img1, img2 + img2, true);
+        assertSameAsLegacy(img1 + img1, img2, false);
+    }
+
+    @Test
+    void fileIsFoundWhetherItIsTheFirstParameterOrNot() {
+        String first = "[CQ:image,file=" + FILE + ".jpg,url=https://a/1]";
+        String later = "[CQ:image,summary=,file=" + FILE + ".jpg,sub_type=0,url=https://a/2]";
+
+        assertSameAsLegacy(first, "[CQ:image,file=" + FILE + ".jpg,url=https://a/3]", true);
+        assertSameAsLegacy(later, "[CQ:image,summary=,file=" + FILE + ".jpg,sub_type=0,url=https://a/4]", true);
+        assertSameAsLegacy(first, later, true);
+    }
+
+    @Test
+    void unterminatedImageCodeIsPlainText() {
+        String unterminated = "[CQ:image,file=" + FILE + ".jpg,url=https://a/1";
+
+        assertSameAsLegacy(unterminated, unterminated, true);
+        assertSameAsLegacy(unterminated, "[CQ:image,file=" + FILE + ".jpg,url=https://a/2", false);
+        // 后面出现完整的图片码时，两者都把整段当作这张图片
+        assertSameAsLegacy("[CQ:image 坏的 " + image(FILE + ".jpg", "https://a/1"),
+                "[CQ:image 坏的 " + image(FILE + ".jpg", "https://a/2"), true);
+    }
+
+    @Test
+    void nonJpgImagesNowCompareByFile() {
+        String png1 = image(FILE + ".png", "https://a/1");
+        String png2 = image(FILE + ".png", "https://a/2");
+
+        // 旧正则只认 .jpg，同一张 png 每次 url 不同就永远无法复读
+        assertThat(LegacyRepeater.preprocessMessage(png1)).isNotEqualTo(LegacyRepeater.preprocessMessage(png2));
+        assertThat(RepeatMessageHasher.hash(png1)).isEqualTo(RepeatMessageHasher.hash(png2));
+        assertThat(RepeatMessageHasher.hash(png1)).isNotEqualTo(RepeatMessageHasher.hash(image("FFFF.png", "https://a/1")));
+    }
+
+    @Test
+    void imagesWithoutUrlAndLookalikeParametersCompareByFile() {
+        // 旧正则要求 url 参数，并且会把 subfile= 误当成 file=
+        assertThat(RepeatMessageHasher.hash("[CQ:image,file=" + FILE + ".jpg]"))
+                .isEqualTo(RepeatMessageHasher.hash(image(FILE + ".jpg", "https://a/1")));
+        assertThat(RepeatMessageHasher.hash("[CQ:image,subfile=x.jpg,file=" + FILE + ".jpg,url=https://a/1]"))
+                .isEqualTo(RepeatMessageHasher.hash("[CQ:image,subfile=y.jpg,file=" + FILE + ".jpg,url=https://a/2]"));
+    }
+
+    @Test
+    void agreesWithTheLegacyNormalizationOnEveryPair() {
+        List<String> messages = List.of(
+                "草", "草草", "+1", "", "[CQ:face,id=178]",
+                image(FILE + ".jpg", "https://a/1"), image(FILE + ".jpg", "https://a/2"),
+                image("FFFF.jpg", "https://a/1"), "看" + image(FILE + ".jpg", "https://a/3"),
+                "[CQ:image,file=" + FILE + ".jpg,url=https://a/1", "[image_id:x]");
+        for (String a : messages) {
+            for (String b : messages) {
+                boolean legacyEqual = LegacyRepeater.preprocessMessage(a).equals(LegacyRepeater.preprocessMessage(b));
+                assertThat(RepeatMessageHasher.hash(a) == RepeatMessageHasher.hash(b))
+                        .as("'%s' vs '%s'", a, b)
+                        .isEqualTo(legacyEqual);
+            }
+        }
+    }
+
+    private static void assertSameAsLegacy(String a, String b, boolean expectedEqual) {
+        assertThat(LegacyRepeater.preprocessMessage(a).equals(LegacyRepeater.preprocessMessage(b)))
+                .as("旧实现: '%s' vs '%s'", a, b)
+                .isEqualTo(expectedEqual);
+        assertThat(RepeatMessageHasher.hash(a) == RepeatMessageHasher.hash(b))
+                .as("指纹: '%s' vs '%s'", a, b)
+                .isEqualTo(expectedEqual);
+    }
+
+    private static String image(String file, String url) {
+        return "[CQ:image,file=" + file + ",sub_type=0,url=" + url + "]";
+    }
+}
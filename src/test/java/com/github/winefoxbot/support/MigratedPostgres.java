@@ -0,0 +1,84 @@
+package com.github.winefoxbot.support;
+
+import org.flywaydb.core.Flyway;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 测试用 PostgreSQL
+ * <p>
+ * 与 env/docker-compose.yaml 使用同一个 pgvector 镜像，整个测试 JVM 只启动一次，
+ * 启动后执行 db/migration 下的全部 Flyway 迁移。容器由 Testcontainers 在 JVM 退出时回收。
+ * 使用它的测试类应标注 {@code @Testcontainers(disabledWithoutDocker = true)}，没有 Docker 时跳过。
+ */
+public final class MigratedPostgres {
+
+    private static final DockerImageName IMAGE = DockerImageName.parse("pgvector/pgvector:pg17")
+            .asCompatibleSubstituteFor("postgres");
+
+    private static volatile PostgreSQLContainer container;
+    private static volatile DataSource dataSource;
+
+    private MigratedPostgres() {
+    }
+
+    /**
+     * @return 已完成迁移的数据源，首次调用时启动容器
+     */
+    public static DataSource dataSource() {
+        DataSource current = dataSource;
+        if (current == null) {
+            synchronized (MigratedPostgres.class) {
+                current = dataSource;
+                if (current == null) {
+                    current = start();
+                    dataSource = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在同一个容器中新建一个空数据库，不执行任何迁移，供需要自己控制迁移进度的测试使用
+     *
+     * @param name 数据库名，已存在时先删除
+     */
+    public static DataSource emptyDatabase(String name) {
+        try (Connection connection = dataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + name);
+            statement.execute("CREATE DATABASE " + name);
+        } catch (SQLException e) {
+            throw new IllegalStateException("创建测试数据库失败: " + name, e);
+        }
+        return dataSource(container.getJdbcUrl().replaceFirst("/[^/?]+(\\?|$)", "/" + name + "$1"));
+    }
+
+    private static PGSimpleDataSource dataSource(String url) {
+        PGSimpleDataSource ds = new PGSimpleDataSource();
+        ds.setUrl(url);
+        ds.setUser(container.getUsername());
+        ds.setPassword(container.getPassword());
+        return ds;
+    }
+
+    @SuppressWarnings("resource")
+    private static DataSource start() {
+        container = new PostgreSQLContainer(IMAGE);
+        container.start();
+        PGSimpleDataSource ds = dataSource(container.getJdbcUrl());
+        Flyway.configure()
+                .dataSource(ds)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        return ds;
+    }
+}